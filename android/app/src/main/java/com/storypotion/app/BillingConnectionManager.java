@@ -0,0 +1,362 @@
+package com.storypotion.app;
+
+import com.android.billingclient.api.BillingClient;
+import com.android.billingclient.api.BillingClientStateListener;
+import com.android.billingclient.api.BillingResult;
+import com.android.billingclient.api.PurchasesUpdatedListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BillingClient 연결 상태 관리
+ *
+ * 하나의 BillingClient(BillingGateway)를 소유하고, 연결이 끊기면 지수 백오프로 자동 재연결한다.
+ * 연결되지 않은 동안 들어온 요청은 큐에 보관했다가 연결되면 순서대로 실행한다.
+ */
+class BillingConnectionManager {
+
+    enum State {
+        DISCONNECTED,
+        CONNECTING,
+        CONNECTED,
+        CLOSED
+    }
+
+    /** 연결된 BillingClient로 실행할 작업 */
+    interface ClientTask {
+        void run(BillingGateway client);
+    }
+
+    /** 연결 실패로 작업을 실행할 수 없을 때 호출 */
+    interface ErrorCallback {
+        void onError(String message);
+    }
+
+    /**
+     * 실패 원인 응답 코드도 받는 ErrorCallback (재시도 여부 판단용)
+     * - 연결 설정 실패: onBillingSetupFinished의 응답 코드
+     * - 연결 대기 시간 초과/대기열 가득 참: SERVICE_TIMEOUT/SERVICE_DISCONNECTED
+     * - close() 이후: BILLING_UNAVAILABLE (이 인스턴스로는 더 이상 결제를 쓸 수 없음)
+     */
+    interface ResponseErrorCallback extends ErrorCallback {
+        void onError(int responseCode, String message);
+
+        @Override
+        default void onError(String message) {
+            onError(BillingClient.BillingResponseCode.ERROR, message);
+        }
+    }
+
+    private static final String TAG = "BillingPlugin";
+
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // 대기 중인 요청이 연결을 기다리는 최대 시간
+    private static final long PENDING_TIMEOUT_MS = 20_000;
+    private static final int MAX_PENDING_REQUESTS = 64;
+
+    private final BillingGateway.Factory gatewayFactory;
+    private final PurchasesUpdatedListener purchasesUpdatedListener;
+    private final BillingMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final ArrayDeque<PendingRequest> pendingRequests = new ArrayDeque<>();
+
+    private BillingGateway billingClient;
+    private State state = State.DISCONNECTED;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    // 이전 연결 시도의 늦은 콜백을 무시하기 위한 세대 번호
+    private int generation = 0;
+    private ScheduledFuture<?> reconnectFuture;
+    private long connectStartedAt;
+    private volatile Runnable connectedListener;
+
+    BillingConnectionManager(BillingGateway.Factory gatewayFactory, PurchasesUpdatedListener purchasesUpdatedListener,
+            BillingMetrics metrics) {
+        this.gatewayFactory = gatewayFactory;
+        this.purchasesUpdatedListener = purchasesUpdatedListener;
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BillingReconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** 연결(재연결 포함)이 성공할 때마다 대기 중이던 요청을 실행한 뒤 호출 */
+    void setConnectedListener(Runnable listener) {
+        connectedListener = listener;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized boolean isConnected() {
+        return state == State.CONNECTED && billingClient != null && billingClient.isReady();
+    }
+
+    /**
+     * 연결되어 있지 않으면 연결을 시작한다. 이미 연결 중이거나 연결되어 있으면 아무것도 하지 않는다.
+     */
+    synchronized void connect() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        cancelReconnect();
+        startConnectionLocked();
+    }
+
+    /**
+     * connect()를 호출한 스레드 대신 재연결 스레드에서 실행한다.
+     * BillingClient 생성과 서비스 바인드를 메인 스레드(앱 시작 중)에서 하지 않기 위해 사용한다.
+     */
+    void connectInBackground() {
+        try {
+            scheduler.execute(this::connect);
+        } catch (RejectedExecutionException e) {
+            // 이미 close됨
+        }
+    }
+
+    /**
+     * 연결된 클라이언트로 작업을 실행한다.
+     * 연결되어 있지 않으면 연결될 때까지 대기열에 보관하고 재연결을 시작한다.
+     */
+    void execute(ClientTask task, ErrorCallback onError) {
+        BillingGateway readyClient = null;
+        String error = null;
+        int errorCode = BillingClient.BillingResponseCode.ERROR;
+
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                error = "Billing service is closed";
+                errorCode = BillingClient.BillingResponseCode.BILLING_UNAVAILABLE;
+            } else if (state == State.CONNECTED && billingClient != null && billingClient.isReady()) {
+                readyClient = billingClient;
+            } else if (pendingRequests.size() >= MAX_PENDING_REQUESTS) {
+                error = "Billing service not connected. Too many pending requests.";
+                errorCode = BillingClient.BillingResponseCode.SERVICE_DISCONNECTED;
+            } else {
+                if (state == State.CONNECTED) {
+                    // 상태는 연결됨이지만 클라이언트가 준비되지 않음 - 끊긴 것으로 간주
+                    NativeLog.w(TAG, "[인앱결제] BillingClient 준비되지 않음, 재연결");
+                    state = State.DISCONNECTED;
+                }
+                PendingRequest request = new PendingRequest(task, onError);
+                request.timeout = scheduler.schedule(() -> expire(request), PENDING_TIMEOUT_MS,
+                        TimeUnit.MILLISECONDS);
+                pendingRequests.add(request);
+
+                // 백오프 대기 중이 아니면 즉시 연결 시도
+                if (state == State.DISCONNECTED && reconnectFuture == null) {
+                    startConnectionLocked();
+                }
+            }
+        }
+
+        if (readyClient != null) {
+            task.run(readyClient);
+        } else if (error != null) {
+            fail(onError, errorCode, error);
+        }
+    }
+
+    /**
+     * 연결을 종료하고 대기 중인 요청을 모두 실패 처리한다.
+     */
+    void close() {
+        List<PendingRequest> dropped;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.CLOSED;
+            generation++;
+            cancelReconnect();
+            dropped = drainLocked();
+            if (billingClient != null) {
+                billingClient.endConnection();
+                billingClient = null;
+            }
+        }
+        scheduler.shutdownNow();
+        for (PendingRequest request : dropped) {
+            fail(request.onError, BillingClient.BillingResponseCode.BILLING_UNAVAILABLE, "Billing service is closed");
+        }
+    }
+
+    private void startConnectionLocked() {
+        if (state == State.CONNECTING || state == State.CONNECTED) {
+            return;
+        }
+        if (billingClient == null) {
+            billingClient = gatewayFactory.create(purchasesUpdatedListener);
+            NativeLog.d(TAG, "[인앱결제] BillingClient 생성 완료");
+        }
+
+        state = State.CONNECTING;
+        // 첫 연결 이후의 시도는 모두 재연결로 집계
+        metrics.recordConnectAttempt(generation > 0);
+        connectStartedAt = BillingMetrics.startTimer();
+        int attempt = ++generation;
+        NativeLog.d(TAG, "[인앱결제] 연결 시작", "generation", attempt);
+        billingClient.startConnection(new BillingClientStateListener() {
+            @Override
+            public void onBillingSetupFinished(BillingResult billingResult) {
+                handleSetupFinished(attempt, billingResult);
+            }
+
+            @Override
+            public void onBillingServiceDisconnected() {
+                handleDisconnected(attempt);
+            }
+        });
+    }
+
+    private void handleSetupFinished(int attempt, BillingResult billingResult) {
+        int responseCode = billingResult.getResponseCode();
+        List<PendingRequest> ready = null;
+        List<PendingRequest> failed = null;
+        BillingGateway client;
+
+        synchronized (this) {
+            if (attempt != generation || state == State.CLOSED) {
+                return;
+            }
+            client = billingClient;
+            metrics.record(BillingMetrics.CONNECT, responseCode, connectStartedAt);
+
+            if (responseCode == BillingClient.BillingResponseCode.OK) {
+                NativeLog.d(TAG, "[인앱결제] 연결 성공");
+                StartupTrace.mark(StartupTrace.BILLING_READY);
+                state = State.CONNECTED;
+                backoffMs = INITIAL_BACKOFF_MS;
+                ready = drainLocked();
+            } else if (isRetryable(responseCode)) {
+                NativeLog.w(TAG, "[인앱결제] 연결 실패, 재시도 예정", "responseCode", responseCode);
+                state = State.DISCONNECTED;
+                scheduleReconnectLocked();
+            } else {
+                // BILLING_UNAVAILABLE 등은 재시도해도 소용없음 - 대기 중인 요청 실패 처리
+                NativeLog.e(TAG, "[인앱결제] 연결 실패", "responseCode", responseCode, "message",
+                        billingResult.getDebugMessage());
+                state = State.DISCONNECTED;
+                failed = drainLocked();
+            }
+        }
+
+        if (ready != null) {
+            for (PendingRequest request : ready) {
+                metrics.recordLatency(BillingMetrics.CONNECTION_WAIT, request.queuedAt);
+                request.task.run(client);
+            }
+            Runnable listener = connectedListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+        if (failed != null) {
+            String message = "Billing setup failed: " + billingResult.getDebugMessage();
+            for (PendingRequest request : failed) {
+                fail(request.onError, responseCode, message);
+            }
+        }
+    }
+
+    private synchronized void handleDisconnected(int attempt) {
+        if (attempt != generation || state == State.CLOSED) {
+            return;
+        }
+        NativeLog.w(TAG, "[인앱결제] Billing service 연결 끊김, 재연결 예정");
+        metrics.recordDisconnect();
+        state = State.DISCONNECTED;
+        scheduleReconnectLocked();
+    }
+
+    private void scheduleReconnectLocked() {
+        if (reconnectFuture != null) {
+            return;
+        }
+        // 동시에 여러 기기가 재연결하지 않도록 지터 추가
+        long delay = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        NativeLog.d(TAG, "[인앱결제] 재연결 예약", "delayMs", delay);
+        reconnectFuture = scheduler.schedule(() -> {
+            synchronized (BillingConnectionManager.this) {
+                reconnectFuture = null;
+                if (state == State.DISCONNECTED) {
+                    startConnectionLocked();
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelReconnect() {
+        if (reconnectFuture != null) {
+            reconnectFuture.cancel(false);
+            reconnectFuture = null;
+        }
+    }
+
+    private List<PendingRequest> drainLocked() {
+        List<PendingRequest> drained = new ArrayList<>(pendingRequests);
+        pendingRequests.clear();
+        for (PendingRequest request : drained) {
+            if (request.timeout != null) {
+                request.timeout.cancel(false);
+            }
+        }
+        return drained;
+    }
+
+    private void expire(PendingRequest request) {
+        synchronized (this) {
+            if (!pendingRequests.remove(request)) {
+                return;
+            }
+        }
+        NativeLog.w(TAG, "[인앱결제] 연결 대기 시간 초과");
+        fail(request.onError, BillingClient.BillingResponseCode.SERVICE_TIMEOUT,
+                "Billing service not connected. Timed out waiting for connection.");
+    }
+
+    private static void fail(ErrorCallback onError, int responseCode, String message) {
+        if (onError instanceof ResponseErrorCallback) {
+            ((ResponseErrorCallback) onError).onError(responseCode, message);
+        } else {
+            onError.onError(message);
+        }
+    }
+
+    /**
+     * 다시 시도하면 성공할 수 있는 일시적인 오류인지 (연결 재시도와 acknowledge/consume 재시도가 함께 사용)
+     * BILLING_UNAVAILABLE, ITEM_NOT_OWNED, DEVELOPER_ERROR 등은 다시 해도 같은 결과
+     */
+    static boolean isRetryable(int responseCode) {
+        return responseCode == BillingClient.BillingResponseCode.SERVICE_DISCONNECTED
+                || responseCode == BillingClient.BillingResponseCode.SERVICE_UNAVAILABLE
+                || responseCode == BillingClient.BillingResponseCode.SERVICE_TIMEOUT
+                || responseCode == BillingClient.BillingResponseCode.NETWORK_ERROR
+                || responseCode == BillingClient.BillingResponseCode.ERROR;
+    }
+
+    private static class PendingRequest {
+        final ClientTask task;
+        final ErrorCallback onError;
+        final long queuedAt = BillingMetrics.startTimer();
+        ScheduledFuture<?> timeout;
+
+        PendingRequest(ClientTask task, ErrorCallback onError) {
+            this.task = task;
+            this.onError = onError;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.storypotion.app;
+
+import android.app.Activity;
+import com.android.billingclient.api.AcknowledgePurchaseResponseListener;
+import com.android.billingclient.api.BillingClientStateListener;
+import com.android.billingclient.api.BillingResult;
+import com.android.billingclient.api.ConsumeResponseListener;
+import com.android.billingclient.api.ProductDetails;
+import com.android.billingclient.api.ProductDetailsResponseListener;
+import com.android.billingclient.api.PurchaseHistoryResponseListener;
+import com.android.billingclient.api.PurchasesResponseListener;
+import com.android.billingclient.api.PurchasesUpdatedListener;
+
+import java.util.List;
+
+/**
+ * 플러그인이 사용하는 BillingClient 기능
+ *
+ * 실제 앱에서는 PlayBillingGateway가 BillingClient에 그대로 위임하고,
+ * JVM 테스트에서는 지연 시간/응답 코드/연결 끊김을 조절할 수 있는 가짜 구현으로 교체한다.
+ */
+interface BillingGateway {
+
+    /** 연결 관리자가 클라이언트가 필요할 때 호출 */
+    interface Factory {
+        BillingGateway create(PurchasesUpdatedListener purchasesUpdatedListener);
+    }
+
+    void startConnection(BillingClientStateListener listener);
+
+    boolean isReady();
+
+    void endConnection();
+
+    void queryProductDetails(List<String> productIds, String productType, ProductDetailsResponseListener listener);
+
+    void queryPurchases(String productType, PurchasesResponseListener listener);
+
+    /** 상품별 가장 최근 구매 기록 (소비/만료된 구매 포함) */
+    void queryPurchaseHistory(String productType, PurchaseHistoryResponseListener listener);
+
+    void acknowledgePurchase(String purchaseToken, AcknowledgePurchaseResponseListener listener);
+
+    void consumePurchase(String purchaseToken, ConsumeResponseListener listener);
+
+    /**
+     * 결제 창 표시. 구독 상품이면 offerToken을 넘긴다 (일회성 상품은 null)
+     */
+    BillingResult launchBillingFlow(Activity activity, ProductDetails productDetails, String offerToken);
+}
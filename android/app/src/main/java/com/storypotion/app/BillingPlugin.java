@@ -4,25 +4,22 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.util.Base64;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.android.billingclient.api.BillingClient;
-import com.android.billingclient.api.BillingClientStateListener;
-import com.android.billingclient.api.BillingFlowParams;
 import com.android.billingclient.api.BillingResult;
-import com.android.billingclient.api.ConsumeParams;
 import com.android.billingclient.api.ConsumeResponseListener;
 import com.android.billingclient.api.ProductDetails;
 import com.android.billingclient.api.ProductDetailsResponseListener;
 import com.android.billingclient.api.Purchase;
+import com.android.billingclient.api.PurchaseHistoryRecord;
 import com.android.billingclient.api.PurchasesResponseListener;
 import com.android.billingclient.api.PurchasesUpdatedListener;
-import com.android.billingclient.api.QueryProductDetailsParams;
-import com.android.billingclient.api.QueryPurchasesParams;
-import com.android.billingclient.api.AcknowledgePurchaseParams;
 import com.android.billingclient.api.AcknowledgePurchaseResponseListener;
 
 import org.json.JSONArray;
@@ -31,69 +28,141 @@ import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @CapacitorPlugin(name = "Billing")
 public class BillingPlugin extends Plugin implements PurchasesUpdatedListener {
 
-    private BillingClient billingClient;
-    private boolean isServiceConnected = false;
-    // 구독 상품의 ProductDetails를 저장 (만료일 계산용)
-    private java.util.Map<String, ProductDetails> productDetailsCache = new java.util.HashMap<>();
+    private static final String TAG = "BillingPlugin";
+
+    // 일괄 acknowledge/consume 시 동시에 진행할 최대 요청 수
+    private static final int MAX_BATCH_IN_FLIGHT = 4;
+    // 보유 상품 스냅샷을 이 시간 안에 확인했으면 백그라운드 갱신 생략
+    private static final long ENTITLEMENT_REFRESH_INTERVAL_MS = 60 * 1000L;
+    // 같은 조회가 끝난 뒤 이 시간 안에 다시 요청되면 Play를 다시 부르지 않고 결과 재사용
+    private static final long QUERY_REUSE_WINDOW_MS = 2_000L;
+    // Play 구매 기록은 이 간격으로만 다시 가져옴 (새 구매는 onPurchasesUpdated/queryPurchases로 바로 기록됨)
+    private static final long PURCHASE_HISTORY_SYNC_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    private BillingConnectionManager connectionManager;
+    private ProductDetailsCache<ProductDetails> productDetailsCache;
+    private EntitlementStore entitlementStore;
+    private PurchaseLedger purchaseLedger;
+    private PurchaseRetryScheduler purchaseRetries;
+    private PurchaseVerifier purchaseVerifier;
+    private final PurchaseCallRegistry purchaseCalls = new PurchaseCallRegistry();
+    private final BillingMetrics metrics = new BillingMetrics();
+    // 동시에 들어온 같은 조회(타입별 구매 목록, 상품 ID 묶음별 상품 정보)는 Play 호출 한 번으로 처리
+    private final BillingQueryCoalescer<BillingResult, List<Purchase>> purchaseQueries =
+            new BillingQueryCoalescer<>(QUERY_REUSE_WINDOW_MS, BillingPlugin::isOk);
+    private final BillingQueryCoalescer<BillingResult, List<ProductDetails>> productDetailsQueries =
+            new BillingQueryCoalescer<>(QUERY_REUSE_WINDOW_MS, BillingPlugin::isOk);
+    private final BillingQueryCoalescer<BillingResult, List<PurchaseHistoryRecord>> purchaseHistoryQueries =
+            new BillingQueryCoalescer<>(QUERY_REUSE_WINDOW_MS, BillingPlugin::isOk);
+    // Billing 응답 처리는 메인 스레드 대신 이 스레드에서 (resolve/reject도 여기서 호출)
+    private final BillingCallbackExecutor callbackExecutor = new BillingCallbackExecutor(metrics);
+    // 테스트에서는 load() 전에 가짜 BillingClient로 교체
+    BillingGateway.Factory gatewayFactory;
+    // launchBillingFlow(@UiThread)를 실행할 곳. 기본은 Activity.runOnUiThread (테스트에서는 load() 전에 교체)
+    Executor uiExecutor;
 
-    @PluginMethod
-    public void initialize(PluginCall call) {
-        android.util.Log.d("BillingPlugin", "[인앱결제] initialize 시작");
+    @Override
+    public void load() {
+        if (gatewayFactory == null) {
+            Context context = getContext().getApplicationContext();
+            gatewayFactory = listener -> new PlayBillingGateway(context, listener);
+        }
+        if (uiExecutor == null) {
+            uiExecutor = runnable -> {
+                Activity activity = getActivity();
+                if (activity != null) {
+                    activity.runOnUiThread(runnable);
+                } else {
+                    // launchBillingFlow가 Activity 없음으로 reject
+                    runnable.run();
+                }
+            };
+        }
+        connectionManager = new BillingConnectionManager(
+                DispatchingBillingGateway.wrap(gatewayFactory, callbackExecutor), this, metrics);
+        productDetailsCache = new ProductDetailsCache<>(getContext().getFilesDir());
+        entitlementStore = new EntitlementStore(getContext().getFilesDir());
+        purchaseLedger = new PurchaseLedger(getContext().getFilesDir());
+        // 실패한 acknowledge/consume은 연결될 때마다 이어서 재시도 (이전 실행에서 남은 것 포함)
+        purchaseRetries = new PurchaseRetryScheduler(new PurchaseRetryQueue(getContext().getFilesDir()),
+                connectionManager, metrics, (task, billingResult) -> purchaseQueries.invalidate());
+        connectionManager.setConnectedListener(purchaseRetries::onConnected);
+        // 공개키 디코딩은 처음 검증할 때 (Billing 콜백 스레드에서)
+        purchaseVerifier = new PurchaseVerifier(getContext().getString(R.string.billing_public_key),
+                value -> Base64.decode(value, Base64.DEFAULT));
+    }
 
-        Activity activity = getActivity();
-        if (activity == null) {
-            android.util.Log.e("BillingPlugin", "[인앱결제] Activity가 null");
-            call.reject("Activity is null");
+    /**
+     * 포그라운드로 돌아오면 구매 목록을 다시 확인 (Play 스토어에서 구독을 해지하고 돌아온 경우 등)
+     * 바뀐 것이 있을 때만 entitlementsChanged 이벤트가 전달된다.
+     */
+    @Override
+    protected void handleOnResume() {
+        if (connectionManager == null) {
             return;
         }
+        try (FrameMonitor.Section ignored = FrameMonitor.section("Billing.handleOnResume")) {
+            refreshEntitlements(BillingClient.ProductType.SUBS, true);
+            refreshEntitlements(BillingClient.ProductType.INAPP, true);
+        }
+    }
 
-        billingClient = BillingClient.newBuilder(activity)
-                .setListener(this)
-                .enablePendingPurchases()
-                .build();
+    @Override
+    protected void handleOnDestroy() {
+        if (connectionManager != null) {
+            connectionManager.close();
+        }
+        if (purchaseRetries != null) {
+            purchaseRetries.shutdown();
+        }
+        callbackExecutor.shutdown();
+    }
 
-        android.util.Log.d("BillingPlugin", "[인앱결제] BillingClient 생성 완료, 연결 시작");
-        billingClient.startConnection(new BillingClientStateListener() {
-            @Override
-            public void onBillingSetupFinished(BillingResult billingResult) {
-                android.util.Log.d("BillingPlugin",
-                        "[인앱결제] onBillingSetupFinished - responseCode: " + billingResult.getResponseCode());
+    /**
+     * WebView가 뜨기 전에 Play 결제 서비스 연결을 백그라운드에서 시작 (MainActivity.onCreate에서 호출)
+     * initialize가 호출될 때는 보통 이미 연결되어 있다.
+     */
+    void prewarm() {
+        StartupTrace.mark(StartupTrace.BILLING_PREWARM);
+        connectionManager.connectInBackground();
+    }
 
-                if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
-                    isServiceConnected = true;
-                    android.util.Log.d("BillingPlugin", "[인앱결제] 초기화 성공");
-                    JSObject result = new JSObject();
-                    result.put("success", true);
-                    call.resolve(result);
-                } else {
-                    isServiceConnected = false;
-                    android.util.Log.e("BillingPlugin", "[인앱결제] 초기화 실패: " + billingResult.getDebugMessage());
-                    call.reject("Billing setup failed: " + billingResult.getDebugMessage());
-                }
-            }
+    @PluginMethod
+    public void initialize(PluginCall call) {
+        StartupTrace.mark(StartupTrace.FIRST_BILLING_CALL);
+        NativeLog.d(TAG, "[인앱결제] initialize 시작", "connected", connectionManager.isConnected());
 
-            @Override
-            public void onBillingServiceDisconnected() {
-                android.util.Log.w("BillingPlugin", "[인앱결제] Billing service 연결 끊김");
-                isServiceConnected = false;
-            }
+        // 이미 연결되어 있으면 바로 성공, 아니면 연결될 때까지 대기
+        connectionManager.connect();
+        connectionManager.execute(client -> {
+            NativeLog.d(TAG, "[인앱결제] 초기화 성공");
+            JSObject result = new JSObject();
+            result.put("success", true);
+            call.resolve(result);
+        }, message -> {
+            NativeLog.e(TAG, "[인앱결제] 초기화 실패", "message", message);
+            call.reject(message);
         });
     }
 
     @PluginMethod
     public void queryProductDetails(PluginCall call) {
-        if (!isServiceConnected) {
-            call.reject("Billing service not connected. Call initialize first.");
-            return;
-        }
-
         JSONArray productIdsArray = call.getArray("productIds");
-        String productType = call.getString("productType", "inapp");
+        String productType = toBillingProductType(call.getString("productType", "inapp"));
+        boolean forceRefresh = call.getBoolean("forceRefresh", false);
 
         if (productIdsArray == null || productIdsArray.length() == 0) {
             call.reject("productIds array is required");
@@ -110,20 +179,26 @@ public class BillingPlugin extends Plugin implements PurchasesUpdatedListener {
             return;
         }
 
-        List<QueryProductDetailsParams.Product> productList = new ArrayList<>();
-        for (String productId : productIds) {
-            productList.add(QueryProductDetailsParams.Product.newBuilder()
-                    .setProductId(productId)
-                    .setProductType(productType.equals("subs") ? BillingClient.ProductType.SUBS
-                            : BillingClient.ProductType.INAPP)
-                    .build());
-        }
+        // 캐시에 모두 있으면 바로 응답하고, 오래된 항목만 백그라운드에서 갱신
+        if (!forceRefresh) {
+            JSONArray cachedProducts = getCachedProducts(productIds, productType, true);
+            if (cachedProducts != null) {
+                JSObject result = new JSObject();
+                result.put("products", cachedProducts);
+                result.put("fromCache", true);
+                call.resolve(result);
 
-        QueryProductDetailsParams params = QueryProductDetailsParams.newBuilder()
-                .setProductList(productList)
-                .build();
+                List<String> staleIds = productDetailsCache.staleProductIds(productIds, productType);
+                if (!staleIds.isEmpty()) {
+                    NativeLog.d(TAG, "[인앱결제] 오래된 상품 정보 백그라운드 갱신", "productIds", staleIds);
+                    fetchProductDetails(staleIds, productType, (billingResult, productDetailsList) -> {
+                    }, message -> NativeLog.w(TAG, "[인앱결제] 상품 정보 갱신 실패", "message", message));
+                }
+                return;
+            }
+        }
 
-        billingClient.queryProductDetailsAsync(params, new ProductDetailsResponseListener() {
+        fetchProductDetails(productIds, productType, new ProductDetailsResponseListener() {
             @Override
             public void onProductDetailsResponse(BillingResult billingResult, List<ProductDetails> productDetailsList) {
                 if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) {
@@ -131,103 +206,169 @@ public class BillingPlugin extends Plugin implements PurchasesUpdatedListener {
                     return;
                 }
 
-                JSONArray products = new JSONArray();
-                for (ProductDetails productDetails : productDetailsList) {
-                    try {
-                        JSONObject product = new JSONObject();
-                        product.put("productId", productDetails.getProductId());
-                        product.put("title", productDetails.getTitle());
-                        product.put("description", productDetails.getDescription());
-
-                        if (productType.equals("subs")) {
-                            // 구독 상품의 경우 첫 번째 가격 정보 사용
-                            if (!productDetails.getSubscriptionOfferDetails().isEmpty()) {
-                                ProductDetails.SubscriptionOfferDetails offer = productDetails
-                                        .getSubscriptionOfferDetails().get(0);
-                                if (!offer.getPricingPhases().getPricingPhaseList().isEmpty()) {
-                                    ProductDetails.PricingPhase phase = offer.getPricingPhases().getPricingPhaseList()
-                                            .get(0);
-                                    product.put("price", phase.getPriceAmountMicros() / 1000000.0);
-                                    product.put("priceCurrencyCode", phase.getPriceCurrencyCode());
-                                    product.put("priceFormatted", phase.getFormattedPrice());
-                                }
-                            }
-                        } else {
-                            // 일회성 상품의 경우
-                            ProductDetails.OneTimePurchaseOfferDetails oneTimeDetails = productDetails
-                                    .getOneTimePurchaseOfferDetails();
-                            if (oneTimeDetails != null) {
-                                product.put("price", oneTimeDetails.getPriceAmountMicros() / 1000000.0);
-                                product.put("priceCurrencyCode", oneTimeDetails.getPriceCurrencyCode());
-                                product.put("priceFormatted", oneTimeDetails.getFormattedPrice());
-                            }
-                        }
-
-                        products.put(product);
-                    } catch (JSONException e) {
-                        // Skip this product if JSON creation fails
-                    }
-                }
-
                 JSObject result = new JSObject();
-                result.put("products", products);
+                result.put("products", getCachedProducts(productIds, productType, false));
+                result.put("fromCache", false);
                 call.resolve(result);
             }
-        });
+        }, call::reject);
     }
 
+    /**
+     * 여러 타입(inapp/subs)의 상품 정보를 한 번에 조회
+     * products: [{ productId, type }] 형태로 받아 타입별 Play 조회를 동시에 실행하고 결과를 합쳐서 반환한다.
+     */
     @PluginMethod
-    public void purchaseProduct(PluginCall call) {
-        android.util.Log.d("BillingPlugin", "[인앱결제] purchaseProduct 시작");
+    public void queryProductDetailsBatch(PluginCall call) {
+        JSONArray productsArray = call.getArray("products");
+        boolean forceRefresh = call.getBoolean("forceRefresh", false);
 
-        if (!isServiceConnected) {
-            android.util.Log.e("BillingPlugin", "[인앱결제] Billing service가 연결되지 않음");
-            call.reject("Billing service not connected. Call initialize first.");
+        if (productsArray == null || productsArray.length() == 0) {
+            call.reject("products array is required");
             return;
         }
 
-        String productId = call.getString("productId");
-        String productType = call.getString("productType", "inapp");
+        // 요청 순서를 유지하면서 타입별로 상품 ID 분류
+        List<String[]> requested = new ArrayList<>();
+        Map<String, List<String>> idsByType = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < productsArray.length(); i++) {
+                JSONObject item = productsArray.getJSONObject(i);
+                String productId = item.getString("productId");
+                String productType = toBillingProductType(item.optString("type", item.optString("productType", "inapp")));
+                requested.add(new String[] { productId, productType });
+                List<String> ids = idsByType.get(productType);
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                    idsByType.put(productType, ids);
+                }
+                if (!ids.contains(productId)) {
+                    ids.add(productId);
+                }
+            }
+        } catch (JSONException e) {
+            call.reject("Invalid products array: " + e.getMessage());
+            return;
+        }
 
-        android.util.Log.d("BillingPlugin", "[인앱결제] 파라미터 - productId: " + productId + ", productType: " + productType);
+        // 캐시에 없는 상품이 있는 타입만 조회 (오래된 항목은 같은 요청에 포함)
+        Map<String, List<String>> fetchByType = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> typeEntry : idsByType.entrySet()) {
+            String productType = typeEntry.getKey();
+            List<String> ids = typeEntry.getValue();
+            List<String> staleIds = productDetailsCache.staleProductIds(ids, productType);
+            boolean hasMissing = forceRefresh || getCachedProducts(ids, productType, true) == null;
+
+            if (hasMissing) {
+                fetchByType.put(productType, forceRefresh ? ids : staleIds);
+            } else if (!staleIds.isEmpty()) {
+                NativeLog.d(TAG, "[인앱결제] 오래된 상품 정보 백그라운드 갱신", "productIds", staleIds);
+                fetchProductDetails(staleIds, productType, (billingResult, productDetailsList) -> {
+                }, message -> NativeLog.w(TAG, "[인앱결제] 상품 정보 갱신 실패", "message", message));
+            }
+        }
 
-        if (productId == null || productId.isEmpty()) {
-            android.util.Log.e("BillingPlugin", "[인앱결제] productId가 없음");
-            call.reject("productId is required");
+        Map<String, String> typeErrors = new ConcurrentHashMap<>();
+        if (fetchByType.isEmpty()) {
+            resolveProductBatch(call, requested, typeErrors, true);
             return;
         }
 
-        // Store the call for later use in onPurchasesUpdated
-        saveCall(call);
-        android.util.Log.d("BillingPlugin", "[인앱결제] PluginCall 저장 완료");
+        AtomicInteger remaining = new AtomicInteger(fetchByType.size());
+        for (Map.Entry<String, List<String>> fetchEntry : fetchByType.entrySet()) {
+            String productType = fetchEntry.getKey();
+            fetchProductDetails(fetchEntry.getValue(), productType, (billingResult, productDetailsList) -> {
+                if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) {
+                    typeErrors.put(productType, "Failed to query product details: " + billingResult.getDebugMessage()
+                            + " (ResponseCode: " + billingResult.getResponseCode() + ")");
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    resolveProductBatch(call, requested, typeErrors, false);
+                }
+            }, message -> {
+                typeErrors.put(productType, message);
+                if (remaining.decrementAndGet() == 0) {
+                    resolveProductBatch(call, requested, typeErrors, false);
+                }
+            });
+        }
+    }
 
-        QueryProductDetailsParams.Product product = QueryProductDetailsParams.Product.newBuilder()
-                .setProductId(productId)
-                .setProductType(
-                        productType.equals("subs") ? BillingClient.ProductType.SUBS : BillingClient.ProductType.INAPP)
-                .build();
+    private void resolveProductBatch(PluginCall call, List<String[]> requested, Map<String, String> typeErrors,
+            boolean fromCache) {
+        JSONArray products = new JSONArray();
+        JSONArray errors = new JSONArray();
+        for (String[] item : requested) {
+            String productId = item[0];
+            String productType = item[1];
+            ProductDetailsCache.Entry<ProductDetails> entry = productDetailsCache.get(productId, productType);
+            if (entry != null) {
+                products.put(entry.product);
+                continue;
+            }
 
-        List<QueryProductDetailsParams.Product> productList = new ArrayList<>();
-        productList.add(product);
+            String message = typeErrors.get(productType);
+            JSObject error = new JSObject();
+            error.put("productId", productId);
+            error.put("productType", productType);
+            error.put("message", message != null ? message : "Product not found");
+            errors.put(error);
+        }
 
-        QueryProductDetailsParams params = QueryProductDetailsParams.newBuilder()
-                .setProductList(productList)
-                .build();
+        JSObject result = new JSObject();
+        result.put("products", products);
+        result.put("errors", errors);
+        result.put("fromCache", fromCache);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void purchaseProduct(PluginCall call) {
+        String productId = call.getString("productId");
+        String productType = toBillingProductType(call.getString("productType", "inapp"));
+
+        NativeLog.d(TAG, "[인앱결제] purchaseProduct 시작", "productId", productId, "productType", productType);
+
+        if (productId == null || productId.isEmpty()) {
+            NativeLog.e(TAG, "[인앱결제] productId가 없음");
+            call.reject("productId is required");
+            return;
+        }
+
+        // 결제 결과는 onPurchasesUpdated에서 상품 ID로 찾아 응답
+        if (!purchaseCalls.register(productId, call)) {
+            NativeLog.w(TAG, "[인앱결제] 이미 진행 중인 결제", "productId", productId);
+            call.reject("Purchase already in progress: " + productId);
+            return;
+        }
+        BillingConnectionManager.ErrorCallback onError = message -> {
+            finishFunnel(purchaseCalls.remove(productId, call), BillingMetrics.OUTCOME_FAILED);
+            call.reject(message);
+        };
+
+        // 캐시된 ProductDetails가 있으면 Play 조회 없이 바로 결제 창 표시
+        ProductDetails cachedDetails = productDetailsCache.getFreshDetails(productId, productType);
+        if (cachedDetails != null) {
+            NativeLog.d(TAG, "[인앱결제] 캐시된 상품 정보로 결제 시작", "productId", productId);
+            connectionManager.execute(billingClient -> launchBillingFlow(call, billingClient, cachedDetails, productType),
+                    onError);
+            return;
+        }
 
-        android.util.Log.d("BillingPlugin", "[인앱결제] queryProductDetailsAsync 호출");
-        billingClient.queryProductDetailsAsync(params, new ProductDetailsResponseListener() {
+        NativeLog.d(TAG, "[인앱결제] queryProductDetailsAsync 호출");
+        fetchProductDetails(Arrays.asList(productId), productType, new ProductDetailsResponseListener() {
             @Override
             public void onProductDetailsResponse(BillingResult billingResult, List<ProductDetails> productDetailsList) {
-                android.util.Log.d("BillingPlugin",
-                        "[인앱결제] queryProductDetailsAsync 응답 - responseCode: " + billingResult.getResponseCode() +
-                                ", productDetailsList size: "
-                                + (productDetailsList != null ? productDetailsList.size() : 0));
+                NativeLog.d(TAG, "[인앱결제] queryProductDetailsAsync 응답",
+                        "responseCode", billingResult.getResponseCode(),
+                        "count", productDetailsList != null ? productDetailsList.size() : 0);
 
                 if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK ||
                         productDetailsList == null || productDetailsList.isEmpty()) {
                     String errorMsg = "Failed to get product details: " + billingResult.getDebugMessage() +
                             " (ResponseCode: " + billingResult.getResponseCode() + ")";
-                    android.util.Log.e("BillingPlugin", "[인앱결제] 상품 정보 조회 실패: " + errorMsg);
+                    NativeLog.e(TAG, "[인앱결제] 상품 정보 조회 실패", "responseCode", billingResult.getResponseCode(),
+                            "message", billingResult.getDebugMessage());
 
                     // 일반적인 에러 코드에 대한 설명 추가
                     String userFriendlyMsg = errorMsg;
@@ -242,148 +383,383 @@ public class BillingPlugin extends Plugin implements PurchasesUpdatedListener {
                         userFriendlyMsg = "인앱 결제를 사용할 수 없습니다. Google Play 서비스가 설치되어 있는지 확인해주세요.";
                     }
 
-                    call.reject(userFriendlyMsg);
+                    onError.onError(userFriendlyMsg);
                     return;
                 }
 
                 ProductDetails productDetails = productDetailsList.get(0);
-                android.util.Log.d("BillingPlugin", "[인앱결제] 상품 정보 조회 성공 - productId: " + productDetails.getProductId());
+                NativeLog.d(TAG, "[인앱결제] 상품 정보 조회 성공", "productId", productDetails.getProductId());
 
-                // 구독 상품의 경우 ProductDetails를 캐시에 저장 (만료일 계산용)
-                if (productType.equals("subs")) {
-                    productDetailsCache.put(productId, productDetails);
-                    android.util.Log.d("BillingPlugin", "[인앱결제] 구독 ProductDetails 캐시 저장: " + productId);
-                }
+                connectionManager.execute(billingClient -> launchBillingFlow(call, billingClient, productDetails, productType),
+                        onError);
+            }
+        }, onError);
+    }
 
-                Activity activity = getActivity();
-                if (activity == null) {
-                    android.util.Log.e("BillingPlugin", "[인앱결제] Activity가 null");
-                    call.reject("Activity is null");
-                    return;
-                }
+    /**
+     * ProductDetails로 결제 창 표시. 결과는 onPurchasesUpdated로 전달된다.
+     * 호출 스레드(Billing 콜백 스레드, 플러그인 스레드)와 관계없이 BillingClient.launchBillingFlow는
+     * @UiThread이므로 메인 스레드로 넘겨서 실행하고 그곳에서 reject한다.
+     */
+    private void launchBillingFlow(PluginCall call, BillingGateway billingClient, ProductDetails productDetails,
+            String productType) {
+        uiExecutor.execute(() -> launchBillingFlowOnUiThread(call, billingClient, productDetails, productType));
+    }
 
-                BillingFlowParams.ProductDetailsParams.Builder productDetailsParamsBuilder = BillingFlowParams.ProductDetailsParams
-                        .newBuilder()
-                        .setProductDetails(productDetails);
-
-                // 구독 상품의 경우 오퍼 토큰 설정 필요
-                if (productType.equals("subs")) {
-                    List<ProductDetails.SubscriptionOfferDetails> offers = productDetails.getSubscriptionOfferDetails();
-                    if (offers != null && !offers.isEmpty()) {
-                        String offerToken = offers.get(0).getOfferToken();
-                        android.util.Log.d("BillingPlugin", "[인앱결제] 구독 오퍼 토큰 설정: " + offerToken);
-                        productDetailsParamsBuilder.setOfferToken(offerToken);
-                    } else {
-                        android.util.Log.w("BillingPlugin", "[인앱결제] 구독 오퍼를 찾을 수 없음");
-                    }
-                }
+    private void launchBillingFlowOnUiThread(PluginCall call, BillingGateway billingClient,
+            ProductDetails productDetails, String productType) {
+        String productId = productDetails.getProductId();
+        Activity activity = getActivity();
+        if (activity == null) {
+            NativeLog.e(TAG, "[인앱결제] Activity가 null");
+            finishFunnel(purchaseCalls.remove(productId, call), BillingMetrics.OUTCOME_FAILED);
+            call.reject("Activity is null");
+            return;
+        }
 
-                BillingFlowParams.Builder flowParamsBuilder = BillingFlowParams.newBuilder()
-                        .setProductDetailsParamsList(Arrays.asList(
-                                productDetailsParamsBuilder.build()));
+        // 구독 상품의 경우 오퍼 토큰 설정 필요
+        String offerToken = null;
+        if (productType.equals(BillingClient.ProductType.SUBS)) {
+            List<ProductDetails.SubscriptionOfferDetails> offers = productDetails.getSubscriptionOfferDetails();
+            if (offers != null && !offers.isEmpty()) {
+                offerToken = offers.get(0).getOfferToken();
+                NativeLog.d(TAG, "[인앱결제] 구독 오퍼 토큰 설정", "offerToken", offerToken);
+            } else {
+                NativeLog.w(TAG, "[인앱결제] 구독 오퍼를 찾을 수 없음", "productId", productId);
+            }
+        }
 
-                android.util.Log.d("BillingPlugin", "[인앱결제] launchBillingFlow 호출");
-                BillingResult result = billingClient.launchBillingFlow(activity, flowParamsBuilder.build());
+        NativeLog.d(TAG, "[인앱결제] launchBillingFlow 호출", "productId", productId);
+        long startedAt = BillingMetrics.startTimer();
+        BillingResult result = billingClient.launchBillingFlow(activity, productDetails, offerToken);
+        metrics.record(BillingMetrics.LAUNCH_BILLING_FLOW, result.getResponseCode(), startedAt);
 
-                if (result.getResponseCode() != BillingClient.BillingResponseCode.OK) {
-                    android.util.Log.e("BillingPlugin", "[인앱결제] launchBillingFlow 실패: " + result.getDebugMessage());
-                    call.reject("Failed to launch billing flow: " + result.getDebugMessage());
-                } else {
-                    android.util.Log.d("BillingPlugin", "[인앱결제] launchBillingFlow 성공 - 결제 창 표시됨");
+        if (result.getResponseCode() != BillingClient.BillingResponseCode.OK) {
+            NativeLog.e(TAG, "[인앱결제] launchBillingFlow 실패", "responseCode", result.getResponseCode(),
+                    "message", result.getDebugMessage());
+            finishFunnel(purchaseCalls.remove(productId, call), BillingMetrics.OUTCOME_FAILED);
+            call.reject("Failed to launch billing flow: " + result.getDebugMessage());
+        } else {
+            NativeLog.d(TAG, "[인앱결제] launchBillingFlow 성공 - 결제 창 표시됨");
+            purchaseCalls.markLaunched(productId);
+        }
+    }
+
+    /**
+     * Play에서 상품 정보를 조회하고 성공하면 캐시에 저장한 뒤 listener 호출
+     * 같은 타입, 같은 상품 ID 묶음의 조회가 진행 중이면 그 결과를 함께 받는다.
+     */
+    private void fetchProductDetails(List<String> productIds, String productType,
+            ProductDetailsResponseListener listener, BillingConnectionManager.ErrorCallback onError) {
+        productDetailsQueries.execute(productQueryKey(productIds, productType), listener::onProductDetailsResponse,
+                onError::onError, (onResponse, onQueryError) -> connectionManager.execute(billingClient -> {
+                    long startedAt = BillingMetrics.startTimer();
+                    billingClient.queryProductDetails(productIds, productType, new ProductDetailsResponseListener() {
+                        @Override
+                        public void onProductDetailsResponse(BillingResult billingResult,
+                                List<ProductDetails> productDetailsList) {
+                            metrics.record(BillingMetrics.QUERY_PRODUCT_DETAILS, billingResult.getResponseCode(),
+                                    startedAt);
+                            if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK
+                                    && productDetailsList != null) {
+                                for (ProductDetails productDetails : productDetailsList) {
+                                    productDetailsCache.put(productDetails.getProductId(), productType,
+                                            productDetails,
+                                            BillingSerializer.writeProduct(productDetails, productType));
+                                }
+                            }
+                            onResponse.onResponse(billingResult, productDetailsList);
+                        }
+                    });
+                }, onQueryError::onError));
+    }
+
+    /** 상품 ID 순서와 중복에 관계없이 같은 조회면 같은 키 */
+    private static String productQueryKey(List<String> productIds, String productType) {
+        return productType + ":" + String.join(",", new TreeSet<>(productIds));
+    }
+
+    /**
+     * Play에서 구매 목록 조회
+     * 같은 타입의 조회가 진행 중이면 그 결과를 함께 받고, 방금 끝난 조회가 있으면 그 결과를 바로 받는다.
+     */
+    private void fetchPurchases(String productType, PurchasesResponseListener listener,
+            BillingConnectionManager.ErrorCallback onError) {
+        purchaseQueries.execute(productType, listener::onQueryPurchasesResponse, onError::onError,
+                (onResponse, onQueryError) -> connectionManager.execute(billingClient -> {
+                    long startedAt = BillingMetrics.startTimer();
+                    billingClient.queryPurchases(productType, (billingResult, purchases) -> {
+                        metrics.record(BillingMetrics.QUERY_PURCHASES, billingResult.getResponseCode(), startedAt);
+                        // 보유 상품 스냅샷과 구매 내역은 합쳐진 요청 수와 관계없이 한 번만 갱신
+                        if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
+                            notifyEntitlementsChanged(
+                                    entitlementStore.replaceType(productType, toEntitlements(productType, purchases)));
+                            purchaseLedger.recordAll(toLedgerRecords(productType, purchases));
+                        }
+                        onResponse.onResponse(billingResult, purchases);
+                    });
+                }, onQueryError::onError));
+    }
+
+    /**
+     * 캐시에 있는 상품 JSON 목록. requireAll이면 하나라도 없을 때 null 반환
+     */
+    private JSONArray getCachedProducts(List<String> productIds, String productType, boolean requireAll) {
+        JSONArray products = new JSONArray();
+        for (String productId : productIds) {
+            ProductDetailsCache.Entry<ProductDetails> entry = productDetailsCache.get(productId, productType);
+            if (entry == null) {
+                if (requireAll) {
+                    return null;
                 }
+                continue;
             }
-        });
+            products.put(entry.product);
+        }
+        return products;
+    }
+
+    /** 캐시된 구독 상품 정보의 결제 주기 */
+    private String getCachedBillingPeriod(String productId) {
+        ProductDetailsCache.Entry<ProductDetails> entry = productDetailsCache.get(productId, BillingClient.ProductType.SUBS);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.details != null) {
+            return BillingSerializer.findRecurringBillingPeriod(entry.details);
+        }
+        return entry.product.optString("billingPeriod", null);
+    }
+
+    /**
+     * purchaseTime부터 결제 주기마다 갱신된다고 보고 다음 갱신(만료) 시각 추정
+     * Billing Library는 만료일을 제공하지 않으므로 정확한 값은 Google Play Developer API로 확인해야 한다.
+     */
+    private Long estimateExpiryTime(Purchase purchase, long now) {
+        if (purchase.getProducts().isEmpty()) {
+            return null;
+        }
+        BillingPeriod period = BillingPeriod.parse(getCachedBillingPeriod(purchase.getProducts().get(0)));
+        if (period == null) {
+            return null;
+        }
+        return period.nextRenewalAfter(purchase.getPurchaseTime(), now);
+    }
+
+    private static boolean isOk(BillingResult billingResult) {
+        return billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK;
+    }
+
+    private static String toBillingProductType(String productType) {
+        return "subs".equals(productType) ? BillingClient.ProductType.SUBS : BillingClient.ProductType.INAPP;
     }
 
     @PluginMethod
     public void acknowledgePurchase(PluginCall call) {
-        if (!isServiceConnected) {
-            call.reject("Billing service not connected. Call initialize first.");
+        String purchaseToken = call.getString("purchaseToken");
+        if (purchaseToken == null || purchaseToken.isEmpty()) {
+            call.reject("purchaseToken is required");
             return;
         }
 
+        connectionManager.execute(billingClient -> {
+            long startedAt = BillingMetrics.startTimer();
+            billingClient.acknowledgePurchase(purchaseToken, new AcknowledgePurchaseResponseListener() {
+                @Override
+                public void onAcknowledgePurchaseResponse(BillingResult billingResult) {
+                    metrics.record(BillingMetrics.ACKNOWLEDGE, billingResult.getResponseCode(), startedAt);
+                    purchaseQueries.invalidate();
+                    if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
+                        purchaseRetries.onSucceeded(purchaseToken);
+                        JSObject result = new JSObject();
+                        result.put("success", true);
+                        call.resolve(result);
+                    } else {
+                        purchaseRetries.enqueueIfRetryable(purchaseToken, PurchaseRetryQueue.ACKNOWLEDGE,
+                                billingResult.getResponseCode());
+                        call.reject("Failed to acknowledge purchase: " + billingResult.getDebugMessage());
+                    }
+                }
+            });
+        }, (BillingConnectionManager.ResponseErrorCallback) (responseCode, message) -> {
+            purchaseRetries.enqueueIfRetryable(purchaseToken, PurchaseRetryQueue.ACKNOWLEDGE, responseCode);
+            call.reject(message);
+        });
+    }
+
+    @PluginMethod
+    public void consumePurchase(PluginCall call) {
         String purchaseToken = call.getString("purchaseToken");
         if (purchaseToken == null || purchaseToken.isEmpty()) {
+            NativeLog.e(TAG, "[인앱결제] purchaseToken이 없음");
             call.reject("purchaseToken is required");
             return;
         }
 
-        AcknowledgePurchaseParams acknowledgePurchaseParams = AcknowledgePurchaseParams.newBuilder()
-                .setPurchaseToken(purchaseToken)
-                .build();
-
-        billingClient.acknowledgePurchase(acknowledgePurchaseParams, new AcknowledgePurchaseResponseListener() {
-            @Override
-            public void onAcknowledgePurchaseResponse(BillingResult billingResult) {
-                if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
-                    JSObject result = new JSObject();
-                    result.put("success", true);
-                    call.resolve(result);
-                } else {
-                    call.reject("Failed to acknowledge purchase: " + billingResult.getDebugMessage());
+        NativeLog.d(TAG, "[인앱결제] 소비 시작");
+
+        connectionManager.execute(billingClient -> {
+            long startedAt = BillingMetrics.startTimer();
+            billingClient.consumePurchase(purchaseToken, new ConsumeResponseListener() {
+                @Override
+                public void onConsumeResponse(BillingResult billingResult, String purchaseToken) {
+                    metrics.record(BillingMetrics.CONSUME, billingResult.getResponseCode(), startedAt);
+                    purchaseQueries.invalidate();
+                    NativeLog.d(TAG, "[인앱결제] onConsumeResponse", "responseCode", billingResult.getResponseCode());
+
+                    if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
+                        NativeLog.d(TAG, "[인앱결제] 소비 성공");
+                        purchaseRetries.onSucceeded(purchaseToken);
+                        JSObject result = new JSObject();
+                        result.put("success", true);
+                        call.resolve(result);
+                    } else {
+                        NativeLog.e(TAG, "[인앱결제] 소비 실패", "responseCode", billingResult.getResponseCode(),
+                                "message", billingResult.getDebugMessage());
+                        purchaseRetries.enqueueIfRetryable(purchaseToken, PurchaseRetryQueue.CONSUME,
+                                billingResult.getResponseCode());
+                        call.reject("Failed to consume purchase: " + billingResult.getDebugMessage());
+                    }
                 }
-            }
+            });
+        }, (BillingConnectionManager.ResponseErrorCallback) (responseCode, message) -> {
+            purchaseRetries.enqueueIfRetryable(purchaseToken, PurchaseRetryQueue.CONSUME, responseCode);
+            call.reject(message);
         });
     }
 
+    /**
+     * 여러 구매를 한 번에 확인(acknowledge) 처리
+     */
     @PluginMethod
-    public void consumePurchase(PluginCall call) {
-        android.util.Log.d("BillingPlugin", "[인앱결제] consumePurchase 시작");
-
-        if (!isServiceConnected) {
-            android.util.Log.e("BillingPlugin", "[인앱결제] Billing service가 연결되지 않음");
-            call.reject("Billing service not connected. Call initialize first.");
+    public void acknowledgeAll(PluginCall call) {
+        List<String> purchaseTokens = getPurchaseTokens(call);
+        if (purchaseTokens == null) {
             return;
         }
 
-        String purchaseToken = call.getString("purchaseToken");
-        if (purchaseToken == null || purchaseToken.isEmpty()) {
-            android.util.Log.e("BillingPlugin", "[인앱결제] purchaseToken이 없음");
-            call.reject("purchaseToken is required");
+        connectionManager.execute(billingClient -> BillingBatchRunner.run(purchaseTokens, MAX_BATCH_IN_FLIGHT,
+                (purchaseToken, done) -> {
+                    long startedAt = BillingMetrics.startTimer();
+                    billingClient.acknowledgePurchase(purchaseToken, billingResult -> {
+                        metrics.record(BillingMetrics.ACKNOWLEDGE, billingResult.getResponseCode(), startedAt);
+                        purchaseQueries.invalidate();
+                        done.complete(billingResult.getResponseCode(), billingResult.getDebugMessage());
+                    });
+                },
+                results -> resolveBatchResults(call, PurchaseRetryQueue.ACKNOWLEDGE, results)),
+                (BillingConnectionManager.ResponseErrorCallback) (responseCode, message) ->
+                        rejectBatch(call, PurchaseRetryQueue.ACKNOWLEDGE, purchaseTokens, responseCode, message));
+    }
+
+    /**
+     * 여러 구매를 한 번에 소비(consume) 처리
+     */
+    @PluginMethod
+    public void consumeAll(PluginCall call) {
+        List<String> purchaseTokens = getPurchaseTokens(call);
+        if (purchaseTokens == null) {
             return;
         }
 
-        android.util.Log.d("BillingPlugin", "[인앱결제] 소비 시작 - purchaseToken: " + purchaseToken.substring(0, 20) + "...");
+        NativeLog.d(TAG, "[인앱결제] 일괄 소비 시작", "count", purchaseTokens.size());
+        connectionManager.execute(billingClient -> BillingBatchRunner.run(purchaseTokens, MAX_BATCH_IN_FLIGHT,
+                (purchaseToken, done) -> {
+                    long startedAt = BillingMetrics.startTimer();
+                    billingClient.consumePurchase(purchaseToken, (billingResult, consumedToken) -> {
+                        metrics.record(BillingMetrics.CONSUME, billingResult.getResponseCode(), startedAt);
+                        purchaseQueries.invalidate();
+                        done.complete(billingResult.getResponseCode(), billingResult.getDebugMessage());
+                    });
+                },
+                results -> resolveBatchResults(call, PurchaseRetryQueue.CONSUME, results)),
+                (BillingConnectionManager.ResponseErrorCallback) (responseCode, message) ->
+                        rejectBatch(call, PurchaseRetryQueue.CONSUME, purchaseTokens, responseCode, message));
+    }
 
-        ConsumeParams consumeParams = ConsumeParams.newBuilder()
-                .setPurchaseToken(purchaseToken)
-                .build();
+    private List<String> getPurchaseTokens(PluginCall call) {
+        JSONArray tokensArray = call.getArray("purchaseTokens");
+        if (tokensArray == null || tokensArray.length() == 0) {
+            call.reject("purchaseTokens array is required");
+            return null;
+        }
 
-        billingClient.consumeAsync(consumeParams, new ConsumeResponseListener() {
-            @Override
-            public void onConsumeResponse(BillingResult billingResult, String purchaseToken) {
-                android.util.Log.d("BillingPlugin",
-                        "[인앱결제] onConsumeResponse - responseCode: " + billingResult.getResponseCode());
+        List<String> purchaseTokens = new ArrayList<>();
+        try {
+            for (int i = 0; i < tokensArray.length(); i++) {
+                purchaseTokens.add(tokensArray.getString(i));
+            }
+        } catch (JSONException e) {
+            call.reject("Invalid purchaseTokens array: " + e.getMessage());
+            return null;
+        }
+        return purchaseTokens;
+    }
 
-                if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
-                    android.util.Log.d("BillingPlugin", "[인앱결제] 소비 성공");
-                    JSObject result = new JSObject();
-                    result.put("success", true);
-                    call.resolve(result);
-                } else {
-                    android.util.Log.e("BillingPlugin", "[인앱결제] 소비 실패: " + billingResult.getDebugMessage());
-                    call.reject("Failed to consume purchase: " + billingResult.getDebugMessage());
-                }
+    /**
+     * 토큰별 결과 응답. 일시적인 오류로 실패한 토큰은 재시도 대기열에 넣고 retryScheduled로 표시
+     */
+    private void resolveBatchResults(PluginCall call, String operation, Map<String, BillingBatchRunner.Result> results) {
+        JSObject resultMap = new JSObject();
+        int succeeded = 0;
+        for (Map.Entry<String, BillingBatchRunner.Result> entry : results.entrySet()) {
+            BillingBatchRunner.Result tokenResult = entry.getValue();
+            JSObject item = new JSObject();
+            item.put("success", tokenResult.isSuccess());
+            item.put("responseCode", tokenResult.responseCode);
+            if (!tokenResult.isSuccess()) {
+                item.put("message", tokenResult.debugMessage);
+                item.put("retryScheduled",
+                        purchaseRetries.enqueueIfRetryable(entry.getKey(), operation, tokenResult.responseCode));
+            } else {
+                purchaseRetries.onSucceeded(entry.getKey());
+                succeeded++;
             }
-        });
+            resultMap.put(entry.getKey(), item);
+        }
+
+        NativeLog.d(TAG, "[인앱결제] 일괄 처리 완료", "succeeded", succeeded, "failed", results.size() - succeeded);
+        JSObject result = new JSObject();
+        result.put("results", resultMap);
+        result.put("succeeded", succeeded);
+        result.put("failed", results.size() - succeeded);
+        call.resolve(result);
+    }
+
+    /** 연결 실패로 일괄 처리를 시작하지 못했으면 (일시적인 실패일 때) 모든 토큰을 재시도 대기열에 넣고 reject */
+    private void rejectBatch(PluginCall call, String operation, List<String> purchaseTokens, int responseCode,
+            String message) {
+        for (String purchaseToken : new LinkedHashSet<>(purchaseTokens)) {
+            purchaseRetries.enqueueIfRetryable(purchaseToken, operation, responseCode);
+        }
+        call.reject(message);
+    }
+
+    /**
+     * 실패한 acknowledge/consume 재시도 현황
+     * { pending, inFlight, enqueued, succeeded, failedAttempts, dropped, expired, oldestFailedAt, tasks }
+     */
+    @PluginMethod
+    public void getPurchaseRetryStatus(PluginCall call) {
+        try {
+            call.resolve(JSObject.fromJSONObject(purchaseRetries.toJson()));
+        } catch (JSONException e) {
+            call.reject("Failed to read retry status: " + e.getMessage());
+        }
     }
 
     @PluginMethod
     public void queryPurchases(PluginCall call) {
-        if (!isServiceConnected) {
-            call.reject("Billing service not connected. Call initialize first.");
+        String billingType = toBillingProductType(call.getString("productType", "inapp"));
+        int fields;
+        try {
+            fields = PurchaseSerializer.parsePurchaseFields(call.getArray("fields"));
+        } catch (JSONException e) {
+            call.reject("Invalid fields array: " + e.getMessage());
             return;
         }
 
-        String productType = call.getString("productType", "inapp");
-        String billingType = productType.equals("subs") ? BillingClient.ProductType.SUBS
-                : BillingClient.ProductType.INAPP;
-
-        QueryPurchasesParams params = QueryPurchasesParams.newBuilder()
-                .setProductType(billingType)
-                .build();
-
-        billingClient.queryPurchasesAsync(params, new PurchasesResponseListener() {
+        fetchPurchases(billingType, new PurchasesResponseListener() {
             @Override
             public void onQueryPurchasesResponse(BillingResult billingResult, List<Purchase> purchases) {
                 if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) {
@@ -391,71 +767,393 @@ public class BillingPlugin extends Plugin implements PurchasesUpdatedListener {
                     return;
                 }
 
-                JSONArray purchasesArray = new JSONArray();
+                JSArray purchasesArray = new JSArray();
+                long now = System.currentTimeMillis();
                 for (Purchase purchase : purchases) {
-                    try {
-                        JSONObject purchaseObj = new JSONObject();
-                        purchaseObj.put("orderId", purchase.getOrderId());
-                        purchaseObj.put("packageName", purchase.getPackageName());
-                        purchaseObj.put("purchaseTime", purchase.getPurchaseTime());
-                        purchaseObj.put("purchaseToken", purchase.getPurchaseToken());
-                        purchaseObj.put("signature", purchase.getSignature());
-                        purchaseObj.put("isAcknowledged", purchase.isAcknowledged());
-                        purchaseObj.put("isAutoRenewing", purchase.isAutoRenewing());
-
-                        // 구독의 경우 만료일 정보 추가 (Google Play Store에서 가져옴)
-                        if (billingType == BillingClient.ProductType.SUBS && !purchase.getProducts().isEmpty()) {
-                            String productId = purchase.getProducts().get(0);
-                            ProductDetails cachedProductDetails = productDetailsCache.get(productId);
-
-                            if (cachedProductDetails != null) {
-                                // ProductDetails에서 구독 기간 정보 가져오기
-                                List<ProductDetails.SubscriptionOfferDetails> offers = cachedProductDetails
-                                        .getSubscriptionOfferDetails();
-                                if (offers != null && !offers.isEmpty()) {
-                                    ProductDetails.SubscriptionOfferDetails offer = offers.get(0);
-                                    // 구독 기간 정보 가져오기
-                                    // Google Play Billing Library에서는 구독 기간을 직접 제공하지 않으므로
-                                    // purchaseTime을 기준으로 계산해야 함
-                                    // 하지만 정확한 만료일은 Google Play Developer API를 통해 가져와야 함
-                                    android.util.Log.d("BillingPlugin", "[인앱결제] 구독 ProductDetails에서 기간 정보 확인");
-
-                                    // 구독 기간 정보를 JSON에 추가하려면 ProductDetails를 다시 조회해야 함
-                                    // 일단 purchaseTime만 반환하고, JavaScript에서 ProductDetails를 조회하여 계산
-                                }
-                            } else {
-                                // ProductDetails가 캐시에 없으면 다시 조회
-                                android.util.Log.d("BillingPlugin",
-                                        "[인앱결제] 구독 ProductDetails 캐시에 없음, 다시 조회 필요: " + productId);
-                            }
+                    JSObject purchaseObj = BillingSerializer.writePurchase(purchase, fields);
+                    purchaseObj.put("verification", verify(purchase));
+
+                    // 구독의 경우 결제 주기로 다음 갱신(만료) 시각 추정
+                    if (billingType.equals(BillingClient.ProductType.SUBS)) {
+                        Long expiryTimeMillis = estimateExpiryTime(purchase, now);
+                        if (expiryTimeMillis != null) {
+                            purchaseObj.put("expiryTimeMillis", expiryTimeMillis);
+                            purchaseObj.put("expiryIsEstimate", true);
                         }
-
-                        JSONArray products = new JSONArray();
-                        for (String productId : purchase.getProducts()) {
-                            products.put(productId);
-                        }
-                        purchaseObj.put("products", products);
-
-                        purchasesArray.put(purchaseObj);
-                    } catch (JSONException e) {
-                        // Skip this purchase if JSON creation fails
                     }
+
+                    purchasesArray.put(purchaseObj);
                 }
 
                 JSObject result = new JSObject();
                 result.put("purchases", purchasesArray);
                 call.resolve(result);
             }
-        });
+        }, call::reject);
+    }
+
+    /**
+     * 저장된 보유 상품 스냅샷을 바로 반환 (Billing 연결을 기다리지 않음)
+     * refresh가 true면 백그라운드에서 Play와 다시 맞춘다.
+     */
+    @PluginMethod
+    public void getCachedEntitlements(PluginCall call) {
+        StartupTrace.mark(StartupTrace.FIRST_BILLING_CALL);
+        boolean refresh = call.getBoolean("refresh", true);
+
+        try {
+            call.resolve(JSObject.fromJSONObject(entitlementStore.toJson()));
+        } catch (JSONException e) {
+            call.reject("Failed to read cached entitlements: " + e.getMessage());
+            return;
+        }
+
+        if (refresh) {
+            refreshEntitlements(BillingClient.ProductType.SUBS, false);
+            refreshEntitlements(BillingClient.ProductType.INAPP, false);
+        }
+    }
+
+    /**
+     * Play에서 구매 목록을 다시 조회해서 보유 상품 스냅샷 갱신
+     * force가 아니면 최근에 확인한 타입은 건너뛴다.
+     */
+    private void refreshEntitlements(String productType, boolean force) {
+        long sinceVerified = System.currentTimeMillis() - entitlementStore.getLastVerifiedAt(productType);
+        if (!force && sinceVerified < ENTITLEMENT_REFRESH_INTERVAL_MS) {
+            return;
+        }
+
+        // 스냅샷 갱신은 fetchPurchases에서 처리
+        fetchPurchases(productType, (billingResult, purchases) -> {
+            if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) {
+                NativeLog.w(TAG, "[인앱결제] 보유 상품 갱신 실패", "responseCode", billingResult.getResponseCode(),
+                        "message", billingResult.getDebugMessage());
+            }
+        }, message -> NativeLog.w(TAG, "[인앱결제] 보유 상품 갱신 실패", "message", message));
+    }
+
+    /**
+     * 보유 상품이 이전 스냅샷과 달라졌으면 entitlementsChanged 이벤트 전달
+     * { productType, added, removed, changed, activeProducts }
+     */
+    private void notifyEntitlementsChanged(EntitlementStore.Delta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        NativeLog.d(TAG, "[인앱결제] 보유 상품 변경", "productType", delta.productType,
+                "count", delta.added.size() + delta.removed.size() + delta.changed.size());
+        try {
+            JSObject event = JSObject.fromJSONObject(delta.toJson());
+            event.put("activeProducts", new JSArray(entitlementStore.activeProducts()));
+            notifyListeners("entitlementsChanged", event);
+        } catch (JSONException e) {
+            NativeLog.w(TAG, "[인앱결제] 보유 상품 변경 이벤트 생성 실패", "error", e);
+        }
+    }
+
+    private List<EntitlementStore.Entitlement> toEntitlements(String productType, List<Purchase> purchases) {
+        List<EntitlementStore.Entitlement> entitlements = new ArrayList<>();
+        for (Purchase purchase : purchases) {
+            entitlements.add(toEntitlement(productType, purchase));
+        }
+        return entitlements;
+    }
+
+    private EntitlementStore.Entitlement toEntitlement(String productType, Purchase purchase) {
+        return new EntitlementStore.Entitlement(productType, new ArrayList<>(purchase.getProducts()),
+                purchase.getPurchaseToken(), purchase.getOrderId(), purchase.getPurchaseTime(),
+                purchase.isAutoRenewing(), purchase.isAcknowledged(), purchase.getPurchaseState());
+    }
+
+    private List<PurchaseLedger.Record> toLedgerRecords(String productType, List<Purchase> purchases) {
+        List<PurchaseLedger.Record> records = new ArrayList<>();
+        for (Purchase purchase : purchases) {
+            records.add(toLedgerRecord(productType, purchase));
+        }
+        return records;
+    }
+
+    private PurchaseLedger.Record toLedgerRecord(String productType, Purchase purchase) {
+        return new PurchaseLedger.Record(productType, new ArrayList<>(purchase.getProducts()),
+                purchase.getPurchaseToken(), purchase.getOrderId(), purchase.getPurchaseTime(),
+                purchase.getQuantity(), purchase.getPurchaseState());
+    }
+
+    /**
+     * 기기에 저장된 구매 내역 한 페이지 (최신순, Billing 연결을 기다리지 않음)
+     * cursor는 이전 응답의 nextCursor. orderId를 넘기면 해당 주문 하나만 찾는다.
+     * refresh가 true면 하루 이상 지난 타입의 Play 구매 기록을 백그라운드에서 가져오고,
+     * 새 기록이 있으면 purchaseLedgerChanged 이벤트를 보낸다.
+     */
+    @PluginMethod
+    public void getPurchaseLedger(PluginCall call) {
+        String productType = call.getString("productType");
+        String billingType = productType != null ? toBillingProductType(productType) : null;
+        String orderId = call.getString("orderId");
+        boolean refresh = call.getBoolean("refresh", true);
+
+        try {
+            if (orderId != null) {
+                PurchaseLedger.Record record = purchaseLedger.findByOrderId(orderId);
+                JSArray purchasesArray = new JSArray();
+                if (record != null && (billingType == null || billingType.equals(record.productType))) {
+                    purchasesArray.put(record.toJson());
+                }
+                JSObject result = new JSObject();
+                result.put("purchases", purchasesArray);
+                result.put("nextCursor", JSONObject.NULL);
+                call.resolve(result);
+            } else {
+                PurchaseLedger.Page page = purchaseLedger.page(call.getString("cursor"),
+                        call.getInt("limit", PurchaseLedger.DEFAULT_PAGE_SIZE), billingType);
+                call.resolve(JSObject.fromJSONObject(page.toJson()));
+            }
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return;
+        } catch (JSONException e) {
+            call.reject("Failed to read purchase ledger: " + e.getMessage());
+            return;
+        }
+
+        if (refresh) {
+            if (billingType == null || billingType.equals(BillingClient.ProductType.INAPP)) {
+                syncPurchaseHistory(BillingClient.ProductType.INAPP, false);
+            }
+            if (billingType == null || billingType.equals(BillingClient.ProductType.SUBS)) {
+                syncPurchaseHistory(BillingClient.ProductType.SUBS, false);
+            }
+        }
+    }
+
+    /**
+     * Play 구매 기록(상품별 최근 구매, 소비/만료 포함)을 구매 내역에 반영
+     * 이미 있는 기록은 그대로 두므로 새로 알게 된 구매만 저장된다.
+     */
+    private void syncPurchaseHistory(String productType, boolean force) {
+        long sinceSynced = System.currentTimeMillis() - purchaseLedger.getHistorySyncedAt(productType);
+        if (!force && sinceSynced < PURCHASE_HISTORY_SYNC_INTERVAL_MS) {
+            return;
+        }
+
+        purchaseHistoryQueries.execute(productType, (billingResult, records) -> {
+            if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) {
+                NativeLog.w(TAG, "[인앱결제] 구매 기록 조회 실패", "responseCode", billingResult.getResponseCode(),
+                        "message", billingResult.getDebugMessage());
+            }
+        }, message -> NativeLog.w(TAG, "[인앱결제] 구매 기록 조회 실패", "message", message),
+                (onResponse, onQueryError) -> connectionManager.execute(billingClient -> {
+                    long startedAt = BillingMetrics.startTimer();
+                    billingClient.queryPurchaseHistory(productType, (billingResult, records) -> {
+                        metrics.record(BillingMetrics.QUERY_PURCHASE_HISTORY, billingResult.getResponseCode(),
+                                startedAt);
+                        if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
+                            recordPurchaseHistory(productType, records);
+                        }
+                        onResponse.onResponse(billingResult, records);
+                    });
+                }, onQueryError::onError));
+    }
+
+    private void recordPurchaseHistory(String productType, List<PurchaseHistoryRecord> records) {
+        List<PurchaseLedger.Record> ledgerRecords = new ArrayList<>();
+        if (records != null) {
+            for (PurchaseHistoryRecord record : records) {
+                ledgerRecords.add(new PurchaseLedger.Record(productType, new ArrayList<>(record.getProducts()),
+                        record.getPurchaseToken(), null, record.getPurchaseTime(), record.getQuantity(),
+                        PurchaseLedger.STATE_UNKNOWN));
+            }
+        }
+        int changed = purchaseLedger.recordAll(ledgerRecords);
+        purchaseLedger.markHistorySynced(productType);
+        if (changed == 0) {
+            return;
+        }
+
+        NativeLog.d(TAG, "[인앱결제] 구매 기록 반영", "productType", productType, "count", changed);
+        JSObject event = new JSObject();
+        event.put("productType", productType);
+        event.put("changed", changed);
+        notifyListeners("purchaseLedgerChanged", event);
+    }
+
+    /**
+     * Purchase에는 상품 타입이 없으므로 캐시된 상품 정보와 자동 갱신 여부로 추정
+     */
+    private String guessProductType(Purchase purchase) {
+        for (String productId : purchase.getProducts()) {
+            if (productDetailsCache.get(productId, BillingClient.ProductType.SUBS) != null) {
+                return BillingClient.ProductType.SUBS;
+            }
+        }
+        return purchase.isAutoRenewing() ? BillingClient.ProductType.SUBS : BillingClient.ProductType.INAPP;
+    }
+
+    /**
+     * 구독/일회성 구매 조회와 구독 상품 정보 조회를 한 번에 실행하고 만료일까지 계산된 보유 상품 모델 반환
+     * subscriptionIds를 넘기면 구매 조회와 동시에 해당 구독 상품 정보를 미리 가져온다.
+     */
+    @PluginMethod
+    public void syncEntitlements(PluginCall call) {
+        List<String> subscriptionIds = new ArrayList<>();
+        JSONArray subscriptionIdsArray = call.getArray("subscriptionIds");
+        if (subscriptionIdsArray != null) {
+            try {
+                for (int i = 0; i < subscriptionIdsArray.length(); i++) {
+                    subscriptionIds.add(subscriptionIdsArray.getString(i));
+                }
+            } catch (JSONException e) {
+                call.reject("Invalid subscriptionIds array: " + e.getMessage());
+                return;
+            }
+        }
+        int fields;
+        try {
+            fields = PurchaseSerializer.parsePurchaseFields(call.getArray("fields"));
+        } catch (JSONException e) {
+            call.reject("Invalid fields array: " + e.getMessage());
+            return;
+        }
+
+        // 각 조회가 연결을 기다리므로 여기서는 바로 시작
+        new EntitlementSync(call, fields).start(subscriptionIds);
+    }
+
+    /**
+     * syncEntitlements 진행 상태
+     * SUBS 구매 조회, INAPP 구매 조회, 구독 상품 정보 조회를 동시에 실행하고 모두 끝나면 결과를 만든다.
+     */
+    private class EntitlementSync {
+        private final PluginCall call;
+        private final int fields;
+        private List<Purchase> subscriptions;
+        private List<Purchase> inappPurchases;
+        private String error;
+        private int remaining = 3;
+
+        EntitlementSync(PluginCall call, int fields) {
+            this.call = call;
+            this.fields = fields;
+        }
+
+        void start(List<String> subscriptionIds) {
+            List<String> missingPeriods = new ArrayList<>();
+            for (String productId : subscriptionIds) {
+                if (getCachedBillingPeriod(productId) == null) {
+                    missingPeriods.add(productId);
+                }
+            }
+            if (missingPeriods.isEmpty()) {
+                onStepDone();
+            } else {
+                // 상품 정보 조회 실패는 만료일만 비워두고 계속 진행
+                fetchProductDetails(missingPeriods, BillingClient.ProductType.SUBS,
+                        (billingResult, productDetailsList) -> onStepDone(), message -> onStepDone());
+            }
+
+            queryPurchases(BillingClient.ProductType.SUBS);
+            queryPurchases(BillingClient.ProductType.INAPP);
+        }
+
+        private void queryPurchases(String productType) {
+            fetchPurchases(productType, (billingResult, purchases) -> {
+                synchronized (EntitlementSync.this) {
+                    if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) {
+                        error = "Failed to query purchases: " + billingResult.getDebugMessage();
+                    } else if (productType.equals(BillingClient.ProductType.SUBS)) {
+                        subscriptions = purchases;
+                    } else {
+                        inappPurchases = purchases;
+                    }
+                }
+                onStepDone();
+            }, message -> {
+                synchronized (EntitlementSync.this) {
+                    error = message;
+                }
+                onStepDone();
+            });
+        }
+
+        private void onStepDone() {
+            synchronized (this) {
+                if (--remaining > 0) {
+                    return;
+                }
+            }
+
+            if (error != null) {
+                call.reject(error);
+                return;
+            }
+
+            // 보유 중인 구독 중 결제 주기를 모르는 상품이 있으면 한 번 더 조회
+            List<String> missingPeriods = new ArrayList<>();
+            for (Purchase purchase : subscriptions) {
+                for (String productId : purchase.getProducts()) {
+                    if (getCachedBillingPeriod(productId) == null && !missingPeriods.contains(productId)) {
+                        missingPeriods.add(productId);
+                    }
+                }
+            }
+            if (missingPeriods.isEmpty()) {
+                finish();
+            } else {
+                fetchProductDetails(missingPeriods, BillingClient.ProductType.SUBS,
+                        (billingResult, productDetailsList) -> finish(), message -> finish());
+            }
+        }
+
+        private void finish() {
+            long now = System.currentTimeMillis();
+            JSArray subscriptionsArray = new JSArray();
+            JSArray inappArray = new JSArray();
+            Set<String> activeProducts = new LinkedHashSet<>();
+
+            for (Purchase purchase : subscriptions) {
+                JSObject purchaseObj = BillingSerializer.writePurchase(purchase, fields);
+                String productId = purchase.getProducts().isEmpty() ? null : purchase.getProducts().get(0);
+                Long expiryTimeMillis = estimateExpiryTime(purchase, now);
+                purchaseObj.put("productId", productId);
+                purchaseObj.put("billingPeriod", productId != null ? getCachedBillingPeriod(productId) : null);
+                purchaseObj.put("expiryTimeMillis", expiryTimeMillis != null ? expiryTimeMillis : JSONObject.NULL);
+                purchaseObj.put("expiryIsEstimate", expiryTimeMillis != null);
+
+                // 확인(acknowledge)된 구매이고 만료일이 지나지 않았으면 활성
+                boolean isActive = purchase.getPurchaseState() == Purchase.PurchaseState.PURCHASED
+                        && purchase.isAcknowledged()
+                        && (expiryTimeMillis == null || expiryTimeMillis > now);
+                purchaseObj.put("isActive", isActive);
+                if (isActive) {
+                    activeProducts.addAll(purchase.getProducts());
+                }
+                subscriptionsArray.put(purchaseObj);
+            }
+
+            for (Purchase purchase : inappPurchases) {
+                inappArray.put(BillingSerializer.writePurchase(purchase, fields));
+                if (purchase.getPurchaseState() == Purchase.PurchaseState.PURCHASED) {
+                    activeProducts.addAll(purchase.getProducts());
+                }
+            }
+
+            JSObject result = new JSObject();
+            result.put("subscriptions", subscriptionsArray);
+            result.put("inapp", inappArray);
+            result.put("activeProducts", new JSArray(activeProducts));
+            result.put("syncedAt", now);
+            call.resolve(result);
+        }
     }
 
     @PluginMethod
     public void openSubscriptionManagement(PluginCall call) {
-        android.util.Log.d("BillingPlugin", "[인앱결제] 구독 관리 페이지 열기");
+        NativeLog.d(TAG, "[인앱결제] 구독 관리 페이지 열기");
 
         Activity activity = getActivity();
         if (activity == null) {
-            android.util.Log.e("BillingPlugin", "[인앱결제] Activity가 null");
+            NativeLog.e(TAG, "[인앱결제] Activity가 null");
             call.reject("Activity is null");
             return;
         }
@@ -465,7 +1163,7 @@ public class BillingPlugin extends Plugin implements PurchasesUpdatedListener {
             String packageName = activity.getPackageName();
             String url = "https://play.google.com/store/account/subscriptions?package=" + packageName;
 
-            android.util.Log.d("BillingPlugin", "[인앱결제] 구독 관리 페이지 URL: " + url);
+            NativeLog.d(TAG, "[인앱결제] 구독 관리 페이지 URL", "url", url);
 
             Intent intent = new Intent(Intent.ACTION_VIEW);
             intent.setData(Uri.parse(url));
@@ -482,63 +1180,140 @@ public class BillingPlugin extends Plugin implements PurchasesUpdatedListener {
             result.put("success", true);
             call.resolve(result);
         } catch (Exception e) {
-            android.util.Log.e("BillingPlugin", "[인앱결제] 구독 관리 페이지 열기 실패: " + e.getMessage(), e);
+            NativeLog.e(TAG, "[인앱결제] 구독 관리 페이지 열기 실패", "error", e);
             call.reject("Failed to open subscription management: " + e.getMessage());
         }
     }
 
-    @Override
-    public void onPurchasesUpdated(BillingResult billingResult, List<Purchase> purchases) {
-        android.util.Log.d("BillingPlugin",
-                "[인앱결제] onPurchasesUpdated 호출 - responseCode: " + billingResult.getResponseCode() +
-                        ", purchases: " + (purchases != null ? purchases.size() : 0));
+    /**
+     * 작업별 지연 시간 백분위와 응답 코드 횟수, 연결 횟수, 결제 흐름 시간
+     * reset이 true면 반환 후 지표를 초기화한다.
+     */
+    @PluginMethod
+    public void getBillingMetrics(PluginCall call) {
+        try {
+            JSObject result = JSObject.fromJSONObject(metrics.toJson());
+            result.put("connectionState", connectionManager.getState().name());
+            if (call.getBoolean("reset", false)) {
+                metrics.reset();
+            }
+            call.resolve(result);
+        } catch (JSONException e) {
+            call.reject("Failed to read billing metrics: " + e.getMessage());
+        }
+    }
 
-        PluginCall savedCall = getSavedCall();
-        if (savedCall == null) {
-            android.util.Log.w("BillingPlugin", "[인앱결제] savedCall이 null - 이전 호출이 없음");
-            return;
+    /**
+     * 앱 시작 구간 시각 (액티비티 생성 기준 ms)
+     * marks: activityCreate, billingPrewarm, webViewReady, firstBillingCall, billingReady 중 기록된 것
+     */
+    @PluginMethod
+    public void getStartupTrace(PluginCall call) {
+        try {
+            JSObject result = JSObject.fromJSONObject(StartupTrace.toJson());
+            result.put("connectionState", connectionManager.getState().name());
+            call.resolve(result);
+        } catch (JSONException e) {
+            call.reject("Failed to read startup trace: " + e.getMessage());
         }
+    }
+
+    /** 구매 서명 검증 결과 (PurchaseVerifier.VALID / INVALID / UNAVAILABLE) */
+    private String verify(Purchase purchase) {
+        return purchaseVerifier.verify(purchase.getPurchaseToken(), purchase.getOriginalJson(),
+                purchase.getSignature());
+    }
+
+    /** 결제 요청이 끝났을 때 탭 → 결제 창 → 결과 시간 기록 */
+    private void finishFunnel(PurchaseCallRegistry.Flow flow, String outcome) {
+        if (flow != null) {
+            metrics.recordFunnel(flow.startedAt, flow.launchedAt, System.currentTimeMillis(), outcome);
+        }
+    }
 
-        if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK && purchases != null) {
-            android.util.Log.d("BillingPlugin", "[인앱결제] 구매 성공 처리 시작");
+    @Override
+    public void onPurchasesUpdated(BillingResult billingResult, List<Purchase> purchases) {
+        NativeLog.d(TAG, "[인앱결제] onPurchasesUpdated 호출", "responseCode", billingResult.getResponseCode(),
+                "count", purchases != null ? purchases.size() : 0);
+        // 구매 목록이 바뀌었으므로 기억해 둔 조회 결과는 사용하지 않음
+        purchaseQueries.invalidate();
+
+        if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK && purchases != null
+                && !purchases.isEmpty()) {
+            // 대기 중인 결제 요청이 없는 구매 (보류 결제 완료, Play 스토어에서 직접 구매 등)
+            JSArray unsolicited = new JSArray();
+            List<PurchaseLedger.Record> ledgerRecords = new ArrayList<>();
             for (Purchase purchase : purchases) {
-                try {
-                    android.util.Log.d("BillingPlugin", "[인앱결제] 구매 정보 - orderId: " + purchase.getOrderId() +
-                            ", productIds: " + purchase.getProducts());
-
-                    JSONObject purchaseObj = new JSONObject();
-                    purchaseObj.put("orderId", purchase.getOrderId());
-                    purchaseObj.put("packageName", purchase.getPackageName());
-                    purchaseObj.put("purchaseTime", purchase.getPurchaseTime());
-                    purchaseObj.put("purchaseToken", purchase.getPurchaseToken());
-                    purchaseObj.put("signature", purchase.getSignature());
-                    purchaseObj.put("isAcknowledged", purchase.isAcknowledged());
-                    purchaseObj.put("isAutoRenewing", purchase.isAutoRenewing());
-
-                    JSONArray products = new JSONArray();
-                    for (String productId : purchase.getProducts()) {
-                        products.put(productId);
+                NativeLog.d(TAG, "[인앱결제] 구매 정보", "orderId", purchase.getOrderId(), "productIds",
+                        purchase.getProducts());
+
+                String productType = guessProductType(purchase);
+                entitlementStore.upsert(toEntitlement(productType, purchase));
+                ledgerRecords.add(toLedgerRecord(productType, purchase));
+
+                JSObject purchaseObj = BillingSerializer.writePurchase(purchase,
+                        PurchaseSerializer.DEFAULT_PURCHASE_FIELDS);
+                purchaseObj.put("verification", verify(purchase));
+                if (purchase.getPurchaseState() == Purchase.PurchaseState.PENDING) {
+                    purchaseCalls.trackPendingToken(purchase.getPurchaseToken(),
+                            purchase.getProducts().isEmpty() ? null : purchase.getProducts().get(0));
+                } else if (purchaseCalls.completePendingToken(purchase.getPurchaseToken())) {
+                    purchaseObj.put("pendingCompleted", true);
+                }
+
+                PurchaseCallRegistry.Flow flow = null;
+                for (String productId : purchase.getProducts()) {
+                    flow = purchaseCalls.take(productId);
+                    if (flow != null) {
+                        break;
                     }
-                    purchaseObj.put("products", products);
+                }
 
+                if (flow != null) {
+                    finishFunnel(flow, purchase.getPurchaseState() == Purchase.PurchaseState.PENDING
+                            ? BillingMetrics.OUTCOME_PENDING
+                            : BillingMetrics.OUTCOME_PURCHASED);
                     JSObject result = new JSObject();
                     result.put("purchase", purchaseObj);
-                    android.util.Log.d("BillingPlugin", "[인앱결제] 구매 성공 - resolve 호출");
-                    savedCall.resolve(result);
-                    return;
-                } catch (JSONException e) {
-                    android.util.Log.e("BillingPlugin", "[인앱결제] JSON 생성 실패: " + e.getMessage(), e);
-                    // Continue to next purchase
+                    NativeLog.d(TAG, "[인앱결제] 구매 성공 - resolve 호출");
+                    flow.call.resolve(result);
+                } else {
+                    unsolicited.put(purchaseObj);
                 }
             }
-            android.util.Log.w("BillingPlugin", "[인앱결제] 유효한 구매를 찾을 수 없음");
-            savedCall.reject("No valid purchase found");
+
+            purchaseLedger.recordAll(ledgerRecords);
+
+            if (unsolicited.length() > 0) {
+                NativeLog.d(TAG, "[인앱결제] 요청 없는 구매 이벤트 전달", "count", unsolicited.length());
+                JSObject event = new JSObject();
+                event.put("responseCode", billingResult.getResponseCode());
+                event.put("purchases", unsolicited);
+                notifyListeners("purchasesUpdated", event, true);
+            }
+            return;
+        }
+
+        PurchaseCallRegistry.Flow activeFlow = purchaseCalls.takeActive();
+        if (activeFlow == null) {
+            NativeLog.w(TAG, "[인앱결제] 대기 중인 결제 요청 없음", "responseCode", billingResult.getResponseCode());
+            return;
+        }
+        PluginCall activeCall = activeFlow.call;
+        finishFunnel(activeFlow, billingResult.getResponseCode() == BillingClient.BillingResponseCode.USER_CANCELED
+                ? BillingMetrics.OUTCOME_CANCELED
+                : BillingMetrics.OUTCOME_FAILED);
+
+        if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.OK) {
+            NativeLog.w(TAG, "[인앱결제] 유효한 구매를 찾을 수 없음");
+            activeCall.reject("No valid purchase found");
         } else if (billingResult.getResponseCode() == BillingClient.BillingResponseCode.USER_CANCELED) {
-            android.util.Log.d("BillingPlugin", "[인앱결제] 사용자가 구매 취소");
-            savedCall.reject("User canceled the purchase");
+            NativeLog.d(TAG, "[인앱결제] 사용자가 구매 취소");
+            activeCall.reject("User canceled the purchase");
         } else {
-            android.util.Log.e("BillingPlugin", "[인앱결제] 구매 실패: " + billingResult.getDebugMessage());
-            savedCall.reject("Purchase failed: " + billingResult.getDebugMessage());
+            NativeLog.e(TAG, "[인앱결제] 구매 실패", "responseCode", billingResult.getResponseCode(),
+                    "message", billingResult.getDebugMessage());
+            activeCall.reject("Purchase failed: " + billingResult.getDebugMessage());
         }
     }
 }
@@ -0,0 +1,156 @@
+package com.storypotion.app;
+
+import com.android.billingclient.api.BillingClient;
+import com.android.billingclient.api.ProductDetails;
+import com.android.billingclient.api.Purchase;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONException;
+
+import java.util.List;
+
+/**
+ * Purchase / ProductDetails를 브리지 응답(JSObject)으로 직접 변환
+ *
+ * 구매 필드 선택과 쓰기는 billing-core의 PurchaseSerializer가 하고, 여기서는 Play Billing 타입만 연결한다.
+ */
+final class BillingSerializer {
+
+    /** Play Billing Purchase에서 값 읽기 */
+    static final PurchaseSerializer.Source<Purchase> PURCHASE_SOURCE = new PurchaseSerializer.Source<Purchase>() {
+        @Override
+        public String orderId(Purchase purchase) {
+            return purchase.getOrderId();
+        }
+
+        @Override
+        public String packageName(Purchase purchase) {
+            return purchase.getPackageName();
+        }
+
+        @Override
+        public long purchaseTime(Purchase purchase) {
+            return purchase.getPurchaseTime();
+        }
+
+        @Override
+        public String purchaseToken(Purchase purchase) {
+            return purchase.getPurchaseToken();
+        }
+
+        @Override
+        public String signature(Purchase purchase) {
+            return purchase.getSignature();
+        }
+
+        @Override
+        public boolean isAcknowledged(Purchase purchase) {
+            return purchase.isAcknowledged();
+        }
+
+        @Override
+        public boolean isAutoRenewing(Purchase purchase) {
+            return purchase.isAutoRenewing();
+        }
+
+        @Override
+        public int purchaseState(Purchase purchase) {
+            return purchase.getPurchaseState();
+        }
+
+        @Override
+        public List<String> products(Purchase purchase) {
+            return purchase.getProducts();
+        }
+
+        @Override
+        public int quantity(Purchase purchase) {
+            return purchase.getQuantity();
+        }
+
+        @Override
+        public String originalJson(Purchase purchase) {
+            return purchase.getOriginalJson();
+        }
+    };
+
+    private BillingSerializer() {
+    }
+
+    static JSObject writePurchase(Purchase purchase, int fields) {
+        JSObject purchaseObj = new JSObject();
+        try {
+            PurchaseSerializer.writePurchase(purchase, PURCHASE_SOURCE, fields, purchaseObj);
+        } catch (JSONException e) {
+            // 키가 모두 상수이므로 발생하지 않음
+            throw new IllegalStateException(e);
+        }
+        return purchaseObj;
+    }
+
+    static JSObject writeProduct(ProductDetails productDetails, String productType) {
+        JSObject product = new JSObject();
+        product.put("productId", productDetails.getProductId());
+        product.put("productType", productType);
+        product.put("title", productDetails.getTitle());
+        product.put("description", productDetails.getDescription());
+
+        if (productType.equals(BillingClient.ProductType.SUBS)) {
+            // 구독 상품의 경우 첫 번째 가격 정보 사용
+            List<ProductDetails.SubscriptionOfferDetails> offers = productDetails.getSubscriptionOfferDetails();
+            if (offers != null && !offers.isEmpty()) {
+                List<ProductDetails.PricingPhase> phases = offers.get(0).getPricingPhases().getPricingPhaseList();
+                if (!phases.isEmpty()) {
+                    ProductDetails.PricingPhase phase = phases.get(0);
+                    product.put("price", phase.getPriceAmountMicros() / 1000000.0);
+                    product.put("priceCurrencyCode", phase.getPriceCurrencyCode());
+                    product.put("priceFormatted", phase.getFormattedPrice());
+                }
+            }
+            String billingPeriod = findRecurringBillingPeriod(productDetails);
+            if (billingPeriod != null) {
+                product.put("billingPeriod", billingPeriod);
+            }
+        } else {
+            // 일회성 상품의 경우
+            ProductDetails.OneTimePurchaseOfferDetails oneTimeDetails = productDetails
+                    .getOneTimePurchaseOfferDetails();
+            if (oneTimeDetails != null) {
+                product.put("price", oneTimeDetails.getPriceAmountMicros() / 1000000.0);
+                product.put("priceCurrencyCode", oneTimeDetails.getPriceCurrencyCode());
+                product.put("priceFormatted", oneTimeDetails.getFormattedPrice());
+            }
+        }
+        return product;
+    }
+
+    /**
+     * 구독 기본 요금제의 반복 결제 주기 (예: P1M). 무료 체험 등 할인 단계는 제외
+     */
+    static String findRecurringBillingPeriod(ProductDetails productDetails) {
+        List<ProductDetails.SubscriptionOfferDetails> offers = productDetails.getSubscriptionOfferDetails();
+        if (offers == null || offers.isEmpty()) {
+            return null;
+        }
+
+        // offerId가 없는 오퍼가 기본 요금제
+        ProductDetails.SubscriptionOfferDetails basePlan = offers.get(0);
+        for (ProductDetails.SubscriptionOfferDetails offer : offers) {
+            if (offer.getOfferId() == null) {
+                basePlan = offer;
+                break;
+            }
+        }
+
+        List<ProductDetails.PricingPhase> phases = basePlan.getPricingPhases().getPricingPhaseList();
+        if (phases.isEmpty()) {
+            return null;
+        }
+        for (ProductDetails.PricingPhase phase : phases) {
+            if (phase.getRecurrenceMode() == ProductDetails.RecurrenceMode.INFINITE_RECURRING) {
+                return phase.getBillingPeriod();
+            }
+        }
+        return phases.get(phases.size() - 1).getBillingPeriod();
+    }
+}
@@ -0,0 +1,104 @@
+package com.storypotion.app;
+
+import android.app.Activity;
+import com.android.billingclient.api.AcknowledgePurchaseResponseListener;
+import com.android.billingclient.api.BillingClientStateListener;
+import com.android.billingclient.api.BillingResult;
+import com.android.billingclient.api.ConsumeResponseListener;
+import com.android.billingclient.api.ProductDetails;
+import com.android.billingclient.api.ProductDetailsResponseListener;
+import com.android.billingclient.api.PurchaseHistoryResponseListener;
+import com.android.billingclient.api.PurchasesResponseListener;
+import com.android.billingclient.api.PurchasesUpdatedListener;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 응답 콜백을 executor로 넘겨서 실행하는 BillingGateway
+ *
+ * 연결 상태 콜백은 가벼우므로 그대로 전달하고, 결과 처리(상품/구매 응답, onPurchasesUpdated)만 옮긴다.
+ * 옮긴 콜백과 결제 창 호출은 FrameMonitor 구간으로 표시해서 메인 스레드 멈춤과 겹쳤는지 볼 수 있게 한다.
+ */
+class DispatchingBillingGateway implements BillingGateway {
+
+    private final BillingGateway delegate;
+    private final Executor executor;
+
+    private DispatchingBillingGateway(BillingGateway delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    /** factory가 만드는 클라이언트의 콜백(onPurchasesUpdated 포함)을 executor에서 실행 */
+    static BillingGateway.Factory wrap(BillingGateway.Factory factory, Executor executor) {
+        return purchasesUpdatedListener -> {
+            PurchasesUpdatedListener dispatched = (billingResult, purchases) -> dispatch(executor,
+                    "Billing.onPurchasesUpdated",
+                    () -> purchasesUpdatedListener.onPurchasesUpdated(billingResult, purchases));
+            return new DispatchingBillingGateway(factory.create(dispatched), executor);
+        };
+    }
+
+    @Override
+    public void startConnection(BillingClientStateListener listener) {
+        delegate.startConnection(listener);
+    }
+
+    @Override
+    public boolean isReady() {
+        return delegate.isReady();
+    }
+
+    @Override
+    public void endConnection() {
+        delegate.endConnection();
+    }
+
+    @Override
+    public void queryProductDetails(List<String> productIds, String productType,
+            ProductDetailsResponseListener listener) {
+        delegate.queryProductDetails(productIds, productType, (billingResult, productDetailsList) -> dispatch(
+                executor, "Billing.onProductDetailsResponse",
+                () -> listener.onProductDetailsResponse(billingResult, productDetailsList)));
+    }
+
+    @Override
+    public void queryPurchases(String productType, PurchasesResponseListener listener) {
+        delegate.queryPurchases(productType, (billingResult, purchases) -> dispatch(executor,
+                "Billing.onQueryPurchasesResponse", () -> listener.onQueryPurchasesResponse(billingResult, purchases)));
+    }
+
+    @Override
+    public void queryPurchaseHistory(String productType, PurchaseHistoryResponseListener listener) {
+        delegate.queryPurchaseHistory(productType, (billingResult, records) -> dispatch(executor,
+                "Billing.onPurchaseHistoryResponse", () -> listener.onPurchaseHistoryResponse(billingResult, records)));
+    }
+
+    @Override
+    public void acknowledgePurchase(String purchaseToken, AcknowledgePurchaseResponseListener listener) {
+        delegate.acknowledgePurchase(purchaseToken, billingResult -> dispatch(executor,
+                "Billing.onAcknowledgePurchaseResponse", () -> listener.onAcknowledgePurchaseResponse(billingResult)));
+    }
+
+    @Override
+    public void consumePurchase(String purchaseToken, ConsumeResponseListener listener) {
+        delegate.consumePurchase(purchaseToken, (billingResult, consumedToken) -> dispatch(executor,
+                "Billing.onConsumeResponse", () -> listener.onConsumeResponse(billingResult, consumedToken)));
+    }
+
+    @Override
+    public BillingResult launchBillingFlow(Activity activity, ProductDetails productDetails, String offerToken) {
+        try (FrameMonitor.Section ignored = FrameMonitor.section("Billing.launchBillingFlow")) {
+            return delegate.launchBillingFlow(activity, productDetails, offerToken);
+        }
+    }
+
+    private static void dispatch(Executor executor, String callback, Runnable task) {
+        executor.execute(() -> {
+            try (FrameMonitor.Section ignored = FrameMonitor.section(callback)) {
+                task.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,248 @@
+package com.storypotion.app;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Printer;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 메인 스레드 프레임/멈춤 모니터 (MainActivity.onCreate에서 시작)
+ *
+ * - 멈춤: 메인 Looper의 메시지 로그(Printer)로 메시지 하나의 실행 시간을 재고, STALL_THRESHOLD_MS 이상이면 기록한다.
+ *   원인은 실행 중이던 메시지 대상(Handler/Runnable)과, 그 안에서 section()으로 표시한 구간으로 남긴다.
+ *   같은 시간에 다른 스레드에서 실행 중이던 구간(Billing 콜백 등)도 함께 남긴다.
+ * - 프레임: API 24 이상에서 Window의 FrameMetrics로 프레임마다 전체 시간을 받는다 (API 23은 멈춤만 기록).
+ * 집계는 JankStats가 하고, FrameMonitorPlugin이 JS(DebugPanel, 지표 전송)에 전달한다.
+ */
+final class FrameMonitor {
+
+    private static final String TAG = "FrameMonitor";
+
+    static final long STALL_THRESHOLD_MS = 100;
+    private static final int MAX_CONCURRENT_SECTIONS = 5;
+    private static final int RECENT_SECTIONS = 32;
+    private static final long DEFAULT_FRAME_NANOS = 1_000_000_000L / 60;
+
+    /** 멈춤 원인 표시용 구간. try-with-resources로 감싸서 사용 */
+    static final class Section implements AutoCloseable {
+        final String label;
+        final Thread thread;
+        final long startedAt;
+        private final Section previousMain;
+        private long endedAt;
+
+        private Section(String label, Thread thread, long startedAt, Section previousMain) {
+            this.label = label;
+            this.thread = thread;
+            this.startedAt = startedAt;
+            this.previousMain = previousMain;
+        }
+
+        @Override
+        public void close() {
+            if (this == NOOP) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (thread == mainThread) {
+                mainSection = previousMain;
+            }
+            synchronized (lock) {
+                openSections.remove(this);
+                endedAt = now;
+                recentSections.addLast(this);
+                if (recentSections.size() > RECENT_SECTIONS) {
+                    recentSections.removeFirst();
+                }
+            }
+        }
+    }
+
+    private static final Section NOOP = new Section("", null, 0, null);
+
+    private static final JankStats stats = new JankStats(STALL_THRESHOLD_MS, System.currentTimeMillis());
+
+    private static final Object lock = new Object();
+    // 실행 중인 구간과 최근에 끝난 구간 (lock으로 보호)
+    private static final List<Section> openSections = new ArrayList<>();
+    private static final ArrayDeque<Section> recentSections = new ArrayDeque<>();
+
+    private static volatile boolean enabled;
+    private static volatile Thread mainThread;
+
+    // 메인 스레드에서만 접근
+    private static Section mainSection;
+    private static String dispatching;
+    private static long dispatchStartedAt;
+    private static String messageSection;
+
+    // 프레임 기록 (메인 스레드에서만 접근)
+    private static Handler metricsHandler;
+    private static Window frameWindow;
+    private static Object frameListener;
+    private static float refreshRate;
+
+    private static final Printer LOOPER_PRINTER = line -> {
+        if (line.startsWith(">")) {
+            dispatching = line;
+            dispatchStartedAt = System.nanoTime();
+            messageSection = null;
+        } else if (line.startsWith("<") && dispatching != null) {
+            long endedAt = System.nanoTime();
+            long elapsedMs = (endedAt - dispatchStartedAt) / 1_000_000L;
+            if (elapsedMs >= STALL_THRESHOLD_MS) {
+                onStall(dispatching, messageSection, dispatchStartedAt, endedAt, elapsedMs);
+            }
+            dispatching = null;
+        }
+    };
+
+    private FrameMonitor() {
+    }
+
+    /** 모니터 시작 (메인 스레드에서 호출). 액티비티가 다시 만들어지면 새 창의 프레임을 기록한다. */
+    static void start(Activity activity) {
+        mainThread = Looper.getMainLooper().getThread();
+        enabled = true;
+        Looper.getMainLooper().setMessageLogging(LOOPER_PRINTER);
+        trackFrames(activity);
+    }
+
+    /** 액티비티가 없어질 때 (메인 스레드에서 호출) */
+    static void stop(Activity activity) {
+        if (frameWindow != null && frameWindow == activity.getWindow()) {
+            detachFrames();
+        }
+    }
+
+    /** 기록 켜기/끄기. 끄면 메시지 로그를 떼어내서 메인 스레드 부담이 없어진다. */
+    static void setEnabled(boolean value) {
+        if (mainThread == null) {
+            return;
+        }
+        enabled = value;
+        Looper.getMainLooper().setMessageLogging(value ? LOOPER_PRINTER : null);
+    }
+
+    /**
+     * 구간 시작. 메인 스레드면 멈춤의 원인으로, 다른 스레드면 같은 시간에 실행 중이던 작업으로 기록된다.
+     * 모니터가 꺼져 있으면 아무것도 하지 않는다.
+     */
+    static Section section(String label) {
+        if (!enabled) {
+            return NOOP;
+        }
+        Thread thread = Thread.currentThread();
+        long now = System.nanoTime();
+        Section section;
+        if (thread == mainThread) {
+            section = new Section(label, thread, now, mainSection);
+            mainSection = section;
+            if (messageSection == null) {
+                messageSection = label;
+            }
+        } else {
+            section = new Section(label, thread, now, null);
+        }
+        synchronized (lock) {
+            openSections.add(section);
+        }
+        return section;
+    }
+
+    /** JankStats.toJson + { enabled, frameMetricsSupported, refreshRate } */
+    static JSONObject toJson(int worstLimit) throws JSONException {
+        JSONObject json = stats.toJson(worstLimit);
+        json.put("enabled", enabled);
+        json.put("frameMetricsSupported", Build.VERSION.SDK_INT >= Build.VERSION_CODES.N);
+        json.put("refreshRate", refreshRate);
+        return json;
+    }
+
+    static void reset() {
+        stats.reset(System.currentTimeMillis());
+    }
+
+    private static void onStall(String message, String section, long startedAt, long endedAt, long elapsedMs) {
+        List<String> concurrent = new ArrayList<>();
+        synchronized (lock) {
+            Set<String> labels = new LinkedHashSet<>();
+            for (Section open : openSections) {
+                if (open.thread != mainThread && open.startedAt < endedAt) {
+                    labels.add(open.label);
+                }
+            }
+            for (Section recent : recentSections) {
+                if (recent.thread != mainThread && recent.endedAt >= startedAt) {
+                    labels.add(recent.label);
+                }
+            }
+            for (String label : labels) {
+                if (concurrent.size() >= MAX_CONCURRENT_SECTIONS) {
+                    break;
+                }
+                concurrent.add(label);
+            }
+        }
+
+        JankStats.Stall stall = new JankStats.Stall(System.currentTimeMillis() - elapsedMs, elapsedMs,
+                JankStats.describeMessage(message), section, concurrent);
+        stats.recordStall(stall);
+        NativeLog.w(TAG, "메인 스레드 멈춤", "durationMs", elapsedMs, "cause", stall.cause());
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void trackFrames(Activity activity) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        detachFrames();
+        if (metricsHandler == null) {
+            HandlerThread thread = new HandlerThread("FrameMetrics");
+            thread.start();
+            metricsHandler = new Handler(thread.getLooper());
+        }
+
+        refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        long frameNanos = refreshRate > 0 ? (long) (1_000_000_000L / refreshRate) : DEFAULT_FRAME_NANOS;
+        Window.OnFrameMetricsAvailableListener listener = (window, frameMetrics, dropCount) -> {
+            if (!enabled) {
+                return;
+            }
+            // 화면이 처음 그려지는 프레임은 레이아웃 전체를 계산하므로 제외
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                    && frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+                return;
+            }
+            long deadline = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                    ? frameMetrics.getMetric(FrameMetrics.DEADLINE)
+                    : frameNanos;
+            stats.recordFrame(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION), deadline, dropCount);
+        };
+        Window window = activity.getWindow();
+        window.addOnFrameMetricsAvailableListener(listener, metricsHandler);
+        frameWindow = window;
+        frameListener = listener;
+    }
+
+    private static void detachFrames() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && frameWindow != null) {
+            frameWindow.removeOnFrameMetricsAvailableListener((Window.OnFrameMetricsAvailableListener) frameListener);
+        }
+        frameWindow = null;
+        frameListener = null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.storypotion.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+/**
+ * FrameMonitor 집계(프레임 시간, 메인 스레드 멈춤)를 JS(DebugPanel, 지표 전송)에서 읽을 수 있게 하는 플러그인
+ */
+@CapacitorPlugin(name = "FrameMonitor")
+public class FrameMonitorPlugin extends Plugin {
+
+    private static final int DEFAULT_WORST_LIMIT = 10;
+
+    /**
+     * 지금까지의 집계
+     * limit: 가장 긴 멈춤 몇 개를 받을지 (기본 10, 최대 JankStats.MAX_WORST_STALLS)
+     * 반환: { since, enabled, frameMetricsSupported, refreshRate, frames: {...}, stalls: { ..., byCause, worst } }
+     */
+    @PluginMethod
+    public void getJankStats(PluginCall call) {
+        int limit = Math.max(0, Math.min(JankStats.MAX_WORST_STALLS, call.getInt("limit", DEFAULT_WORST_LIMIT)));
+        try {
+            call.resolve(JSObject.fromJSONObject(FrameMonitor.toJson(limit)));
+        } catch (JSONException e) {
+            call.reject("Failed to read jank stats: " + e.getMessage());
+        }
+    }
+
+    /** 집계를 비우고 지금부터 다시 집계 (최적화 전후 비교용) */
+    @PluginMethod
+    public void resetJankStats(PluginCall call) {
+        FrameMonitor.reset();
+        JSObject result = new JSObject();
+        result.put("success", true);
+        call.resolve(result);
+    }
+
+    /** 기록 켜기/끄기 (enabled) */
+    @PluginMethod
+    public void setEnabled(PluginCall call) {
+        Boolean enabled = call.getBoolean("enabled");
+        if (enabled == null) {
+            call.reject("enabled is required");
+            return;
+        }
+        FrameMonitor.setEnabled(enabled);
+        JSObject result = new JSObject();
+        result.put("enabled", enabled);
+        call.resolve(result);
+    }
+}
@@ -0,0 +1,186 @@
+package com.storypotion.app;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Build;
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * 원본 이미지를 메모리에 통째로 올리지 않고 축소/압축해서 파일로 저장
+ *
+ * 1) 크기만 읽어서(inJustDecodeBounds) 목표 크기 이상인 가장 큰 2의 거듭제곱 inSampleSize로 디코딩
+ * 2) EXIF 회전/반전과 남은 배율을 Matrix 한 번으로 적용
+ * 3) JPEG/WebP로 파일에 바로 인코딩
+ * 4000만 화소 사진도 디코딩 단계에서 목표 크기의 최대 4배 픽셀만 메모리에 올라간다.
+ */
+final class ImageDownscaler {
+
+    static final String FORMAT_JPEG = "jpeg";
+    static final String FORMAT_WEBP = "webp";
+
+    /** 변환 결과 */
+    static final class Result {
+        final File file;
+        final int width;
+        final int height;
+        final String mimeType;
+
+        Result(File file, int width, int height, String mimeType) {
+            this.file = file;
+            this.width = width;
+            this.height = height;
+            this.mimeType = mimeType;
+        }
+    }
+
+    private ImageDownscaler() {
+    }
+
+    /**
+     * source 이미지를 긴 변이 maxDimension 이하가 되도록 줄여서 outputDir에 저장
+     * quality는 0~100, format은 jpeg/webp
+     */
+    static Result downscale(ContentResolver resolver, Uri source, File outputDir, int maxDimension, int quality,
+            String format) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream input = open(resolver, source)) {
+            BitmapFactory.decodeStream(input, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Unsupported image: " + source);
+        }
+
+        int orientation;
+        try (InputStream input = open(resolver, source)) {
+            orientation = new ExifInterface(input).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            // EXIF가 없거나 읽을 수 없는 형식(PNG 등)
+            orientation = ExifInterface.ORIENTATION_NORMAL;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, maxDimension);
+        Bitmap decoded;
+        try (InputStream input = open(resolver, source)) {
+            decoded = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Failed to decode image: " + source);
+        }
+
+        Bitmap output = transform(decoded, orientation, maxDimension);
+        if (output != decoded) {
+            decoded.recycle();
+        }
+
+        int width = output.getWidth();
+        int height = output.getHeight();
+        boolean webp = FORMAT_WEBP.equals(format);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            output.recycle();
+            throw new IOException("Failed to create " + outputDir);
+        }
+        File file = new File(outputDir, UUID.randomUUID() + (webp ? ".webp" : ".jpg"));
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            if (!output.compress(compressFormat(webp), quality, out)) {
+                throw new IOException("Failed to encode image");
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        } finally {
+            output.recycle();
+        }
+
+        return new Result(file, width, height, webp ? "image/webp" : "image/jpeg");
+    }
+
+    /**
+     * 디코딩 결과가 maxDimension보다 작아지지 않는 가장 큰 2의 거듭제곱
+     */
+    static int sampleSize(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /** 남은 축소와 EXIF 방향 보정을 한 번에 적용 (필요 없으면 그대로 반환) */
+    private static Bitmap transform(Bitmap bitmap, int orientation, int maxDimension) {
+        Matrix matrix = new Matrix();
+        int longest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        boolean scale = longest > maxDimension;
+        if (scale) {
+            float ratio = maxDimension / (float) longest;
+            matrix.postScale(ratio, ratio);
+        }
+
+        boolean oriented = true;
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                break;
+            default:
+                oriented = false;
+                break;
+        }
+
+        if (!scale && !oriented) {
+            return bitmap;
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat compressFormat(boolean webp) {
+        if (!webp) {
+            return Bitmap.CompressFormat.JPEG;
+        }
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri source) throws IOException {
+        InputStream input = resolver.openInputStream(source);
+        if (input == null) {
+            throw new IOException("Cannot open " + source);
+        }
+        return input;
+    }
+}
@@ -0,0 +1,197 @@
+package com.storypotion.app;
+
+import android.app.Activity;
+import android.content.ClipData;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import androidx.activity.result.ActivityResult;
+import androidx.core.content.FileProvider;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.ActivityCallback;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 이미지 선택/축소 플러그인
+ *
+ * 원본 사진을 WebView(JS)로 넘기지 않고 네이티브에서 축소/압축한 뒤 캐시 파일 경로와
+ * FileProvider URI만 반환한다. JS에서는 Capacitor.convertFileSrc(path)로 미리보기/업로드한다.
+ */
+@CapacitorPlugin(name = "ImageProcessor")
+public class ImageProcessorPlugin extends Plugin {
+
+    private static final String TAG = "ImageProcessor";
+    private static final String OUTPUT_DIR = "processed-images";
+    // 이 시간보다 오래된 변환 결과는 앱 시작 시 삭제
+    private static final long OUTPUT_MAX_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    private static final int DEFAULT_MAX_DIMENSION = 1024;
+    private static final int DEFAULT_QUALITY = 80;
+    private static final int MAX_PICK_LIMIT = 10;
+
+    // 디코딩은 한 번에 하나씩 (여러 장을 동시에 디코딩하면 메모리가 부족할 수 있음)
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ImageProcessor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private File outputDir;
+
+    @Override
+    public void load() {
+        outputDir = new File(getContext().getCacheDir(), OUTPUT_DIR);
+        executor.execute(this::deleteOldOutputs);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 시스템 사진 선택 창을 열고 선택한 이미지를 축소해서 반환
+     * limit(기본 1), maxWidthOrHeight(기본 1024), quality(0~1, 기본 0.8), format(jpeg/webp)
+     * 취소하면 images가 빈 배열
+     */
+    @PluginMethod
+    public void pickImages(PluginCall call) {
+        int limit = Math.max(1, Math.min(MAX_PICK_LIMIT, call.getInt("limit", 1)));
+
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("image/*");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        if (limit > 1) {
+            intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+        }
+        startActivityForResult(call, Intent.createChooser(intent, null), "pickImagesResult");
+    }
+
+    @ActivityCallback
+    private void pickImagesResult(PluginCall call, ActivityResult result) {
+        if (call == null) {
+            return;
+        }
+
+        List<Uri> uris = new ArrayList<>();
+        Intent data = result.getData();
+        if (result.getResultCode() == Activity.RESULT_OK && data != null) {
+            ClipData clipData = data.getClipData();
+            if (clipData != null) {
+                for (int i = 0; i < clipData.getItemCount(); i++) {
+                    uris.add(clipData.getItemAt(i).getUri());
+                }
+            } else if (data.getData() != null) {
+                uris.add(data.getData());
+            }
+        }
+
+        int limit = Math.max(1, Math.min(MAX_PICK_LIMIT, call.getInt("limit", 1)));
+        if (uris.size() > limit) {
+            uris = uris.subList(0, limit);
+        }
+        processAll(call, uris);
+    }
+
+    /**
+     * 이미 가지고 있는 이미지(content:// 또는 file:// URI, 파일 경로)를 축소
+     * uri 또는 path와 pickImages와 같은 옵션을 받아 { image } 반환
+     */
+    @PluginMethod
+    public void resizeImage(PluginCall call) {
+        String uri = call.getString("uri");
+        String path = call.getString("path");
+        Uri source;
+        if (uri != null && !uri.isEmpty()) {
+            source = Uri.parse(uri);
+        } else if (path != null && !path.isEmpty()) {
+            source = Uri.fromFile(new File(path));
+        } else {
+            call.reject("uri or path is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                JSObject result = new JSObject();
+                result.put("image", process(call, source));
+                call.resolve(result);
+            } catch (IOException | OutOfMemoryError e) {
+                NativeLog.e(TAG, "이미지 축소 실패", "error", e);
+                call.reject("Failed to resize image: " + e.getMessage());
+            }
+        });
+    }
+
+    private void processAll(PluginCall call, List<Uri> uris) {
+        executor.execute(() -> {
+            JSArray images = new JSArray();
+            for (Uri uri : uris) {
+                try {
+                    images.put(process(call, uri));
+                } catch (IOException | OutOfMemoryError e) {
+                    // 한 장이 실패해도 나머지는 반환
+                    NativeLog.e(TAG, "이미지 축소 실패", "error", e);
+                }
+            }
+            if (!uris.isEmpty() && images.length() == 0) {
+                call.reject("Failed to process selected images");
+                return;
+            }
+            JSObject result = new JSObject();
+            result.put("images", images);
+            call.resolve(result);
+        });
+    }
+
+    private JSObject process(PluginCall call, Uri source) throws IOException {
+        int maxDimension = Math.max(1, call.getInt("maxWidthOrHeight", DEFAULT_MAX_DIMENSION));
+        double quality = call.getDouble("quality", DEFAULT_QUALITY / 100.0);
+        int qualityPercent = (int) Math.round(Math.max(0, Math.min(1, quality)) * 100);
+        String format = ImageDownscaler.FORMAT_WEBP.equals(call.getString("format"))
+                ? ImageDownscaler.FORMAT_WEBP
+                : ImageDownscaler.FORMAT_JPEG;
+
+        long startedAt = System.nanoTime();
+        Context context = getContext();
+        ImageDownscaler.Result result = ImageDownscaler.downscale(context.getContentResolver(), source, outputDir,
+                maxDimension, qualityPercent, format);
+        NativeLog.d(TAG, "이미지 축소 완료", "elapsedMs", (System.nanoTime() - startedAt) / 1_000_000L,
+                "bytes", result.file.length());
+
+        Uri contentUri = FileProvider.getUriForFile(context, context.getPackageName() + ".fileprovider",
+                result.file);
+        JSObject image = new JSObject();
+        image.put("uri", contentUri.toString());
+        image.put("path", result.file.getAbsolutePath());
+        image.put("width", result.width);
+        image.put("height", result.height);
+        image.put("size", result.file.length());
+        image.put("mimeType", result.mimeType);
+        return image;
+    }
+
+    private void deleteOldOutputs() {
+        File[] files = outputDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - OUTPUT_MAX_AGE_MS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff) {
+                file.delete();
+            }
+        }
+    }
+}
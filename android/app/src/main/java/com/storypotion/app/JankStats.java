@@ -0,0 +1,239 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 프레임 시간과 메인 스레드 멈춤(stall) 집계
+ *
+ * - 프레임: 1ms 단위 히스토그램으로 p50/p90/p99를 계산하고, 마감 시간(deadline)을 넘긴 프레임은 slow,
+ *   FROZEN_FRAME_MS를 넘긴 프레임은 frozen으로 센다 (Android vitals 기준).
+ * - 멈춤: 원인(구간 이름 또는 메시지 대상)별 횟수/시간과 가장 긴 MAX_WORST_STALLS개를 보관한다.
+ * Android API를 쓰지 않으므로 JVM 테스트에서 그대로 검증할 수 있다. 스레드 안전.
+ */
+final class JankStats {
+
+    static final long FROZEN_FRAME_MS = 700;
+    static final int MAX_WORST_STALLS = 20;
+
+    private static final int HISTOGRAM_MAX_MS = 1000;
+    // 원인별 집계 항목 수 상한 (넘으면 OTHER로 합침)
+    private static final int MAX_CAUSES = 50;
+    private static final String OTHER = "(other)";
+
+    /** 메인 스레드 멈춤 하나 */
+    static final class Stall {
+        final long startedAt;
+        final long durationMs;
+        // 실행 중이던 메시지 (Handler/Runnable)
+        final String message;
+        // 메시지 안에서 시작된 메인 스레드 구간 (없으면 null)
+        final String section;
+        // 같은 시간에 다른 스레드에서 실행 중이던 구간
+        final List<String> concurrent;
+
+        Stall(long startedAt, long durationMs, String message, String section, List<String> concurrent) {
+            this.startedAt = startedAt;
+            this.durationMs = durationMs;
+            this.message = message;
+            this.section = section;
+            this.concurrent = concurrent;
+        }
+
+        /** 원인별 집계 키: 구간 이름이 있으면 그것, 없으면 메시지 대상 */
+        String cause() {
+            return section != null ? section : message;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("startedAt", startedAt);
+            json.put("durationMs", durationMs);
+            json.put("message", message);
+            json.put("section", section != null ? section : JSONObject.NULL);
+            json.put("concurrent", new JSONArray(concurrent));
+            return json;
+        }
+    }
+
+    private final long stallThresholdMs;
+
+    // 인덱스 = 프레임 시간(ms), 마지막 칸은 HISTOGRAM_MAX_MS 이상
+    private final long[] frameHistogram = new long[HISTOGRAM_MAX_MS + 1];
+    private long frames;
+    private long slowFrames;
+    private long frozenFrames;
+    private long unreportedFrames;
+    private long maxFrameMs;
+
+    private long stalls;
+    private long stallMs;
+    // 원인 -> { 횟수, 합계 ms, 최대 ms }
+    private final Map<String, long[]> causes = new LinkedHashMap<>();
+    // 긴 순서
+    private final List<Stall> worstStalls = new ArrayList<>();
+    private long since;
+
+    JankStats(long stallThresholdMs, long now) {
+        this.stallThresholdMs = stallThresholdMs;
+        this.since = now;
+    }
+
+    long stallThresholdMs() {
+        return stallThresholdMs;
+    }
+
+    /**
+     * 프레임 하나 기록
+     *
+     * @param durationNanos 입력 처리부터 화면 반영까지 걸린 시간
+     * @param deadlineNanos 이 프레임의 마감 시간 (화면 주사율 기준 한 프레임 시간)
+     * @param dropped       이전 기록 이후 보고되지 않고 빠진 프레임 수
+     */
+    synchronized void recordFrame(long durationNanos, long deadlineNanos, int dropped) {
+        long durationMs = durationNanos / 1_000_000L;
+        frames++;
+        frameHistogram[(int) Math.min(durationMs, HISTOGRAM_MAX_MS)]++;
+        if (durationNanos > deadlineNanos) {
+            slowFrames++;
+        }
+        if (durationMs >= FROZEN_FRAME_MS) {
+            frozenFrames++;
+        }
+        maxFrameMs = Math.max(maxFrameMs, durationMs);
+        unreportedFrames += Math.max(0, dropped);
+    }
+
+    /** 멈춤 기록 (stallThresholdMs보다 짧으면 무시) */
+    synchronized void recordStall(Stall stall) {
+        if (stall.durationMs < stallThresholdMs) {
+            return;
+        }
+        stalls++;
+        stallMs += stall.durationMs;
+
+        String cause = stall.cause();
+        long[] totals = causes.get(cause);
+        if (totals == null) {
+            if (causes.size() >= MAX_CAUSES) {
+                cause = OTHER;
+                totals = causes.get(OTHER);
+            }
+            if (totals == null) {
+                totals = new long[3];
+                causes.put(cause, totals);
+            }
+        }
+        totals[0]++;
+        totals[1] += stall.durationMs;
+        totals[2] = Math.max(totals[2], stall.durationMs);
+
+        int insertAt = worstStalls.size();
+        while (insertAt > 0 && worstStalls.get(insertAt - 1).durationMs < stall.durationMs) {
+            insertAt--;
+        }
+        if (insertAt < MAX_WORST_STALLS) {
+            worstStalls.add(insertAt, stall);
+            if (worstStalls.size() > MAX_WORST_STALLS) {
+                worstStalls.remove(worstStalls.size() - 1);
+            }
+        }
+    }
+
+    /** 처음부터 다시 집계 (최적화 전후 비교용) */
+    synchronized void reset(long now) {
+        Arrays.fill(frameHistogram, 0);
+        frames = 0;
+        slowFrames = 0;
+        frozenFrames = 0;
+        unreportedFrames = 0;
+        maxFrameMs = 0;
+        stalls = 0;
+        stallMs = 0;
+        causes.clear();
+        worstStalls.clear();
+        since = now;
+    }
+
+    /**
+     * { since, frames: { count, slow, frozen, unreported, slowRate, p50Ms, p90Ms, p99Ms, maxMs },
+     *   stalls: { count, totalMs, thresholdMs, byCause: [{ cause, count, totalMs, maxMs }], worst: [Stall] } }
+     * byCause는 합계 시간이 긴 순서, worst는 최대 worstLimit개
+     */
+    synchronized JSONObject toJson(int worstLimit) throws JSONException {
+        JSONObject frameJson = new JSONObject();
+        frameJson.put("count", frames);
+        frameJson.put("slow", slowFrames);
+        frameJson.put("frozen", frozenFrames);
+        frameJson.put("unreported", unreportedFrames);
+        frameJson.put("slowRate", frames > 0 ? (double) slowFrames / frames : 0);
+        frameJson.put("p50Ms", frames > 0 ? percentile(50) : 0);
+        frameJson.put("p90Ms", frames > 0 ? percentile(90) : 0);
+        frameJson.put("p99Ms", frames > 0 ? percentile(99) : 0);
+        frameJson.put("maxMs", maxFrameMs);
+
+        List<Map.Entry<String, long[]>> sortedCauses = new ArrayList<>(causes.entrySet());
+        Collections.sort(sortedCauses, (a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        JSONArray byCause = new JSONArray();
+        for (Map.Entry<String, long[]> entry : sortedCauses) {
+            JSONObject item = new JSONObject();
+            item.put("cause", entry.getKey());
+            item.put("count", entry.getValue()[0]);
+            item.put("totalMs", entry.getValue()[1]);
+            item.put("maxMs", entry.getValue()[2]);
+            byCause.put(item);
+        }
+
+        JSONArray worst = new JSONArray();
+        for (int i = 0; i < Math.min(worstLimit, worstStalls.size()); i++) {
+            worst.put(worstStalls.get(i).toJson());
+        }
+
+        JSONObject stallJson = new JSONObject();
+        stallJson.put("count", stalls);
+        stallJson.put("totalMs", stallMs);
+        stallJson.put("thresholdMs", stallThresholdMs);
+        stallJson.put("byCause", byCause);
+        stallJson.put("worst", worst);
+
+        JSONObject json = new JSONObject();
+        json.put("since", since);
+        json.put("frames", frameJson);
+        json.put("stalls", stallJson);
+        return json;
+    }
+
+    /** 히스토그램에서 percent 백분위 프레임 시간(ms) */
+    private long percentile(int percent) {
+        long target = (frames * percent + 99) / 100;
+        long seen = 0;
+        for (int ms = 0; ms < frameHistogram.length; ms++) {
+            seen += frameHistogram[ms];
+            if (seen >= target) {
+                return ms;
+            }
+        }
+        return HISTOGRAM_MAX_MS;
+    }
+
+    /**
+     * Looper 로그 한 줄(">>>>> Dispatching to Handler (X) {1a2b} Y@3c4d: 0")을 "Handler (X) Y: 0" 형태로.
+     * 객체 해시를 지워서 같은 대상의 멈춤이 같은 원인으로 묶이게 한다.
+     */
+    static String describeMessage(String line) {
+        if (line == null) {
+            return "(unknown)";
+        }
+        String message = line.startsWith(">>>>> Dispatching to ") ? line.substring(21) : line;
+        message = message.replaceAll("\\{[0-9a-f]+\\} ?", "").replaceAll("@[0-9a-f]+", "");
+        return message.length() > 160 ? message.substring(0, 160) : message;
+    }
+}
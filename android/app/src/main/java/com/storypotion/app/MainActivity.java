@@ -1,22 +1,72 @@
 package com.storypotion.app;
 
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.webkit.WebView;
 import com.getcapacitor.BridgeActivity;
+import com.getcapacitor.PluginHandle;
+import com.getcapacitor.WebViewListener;
 
 // 커스텀 빌링 플러그인
 import com.storypotion.app.BillingPlugin;
 // 커스텀 권한 플러그인
 import com.storypotion.app.PermissionsPlugin;
+// 네이티브 로그 조회 플러그인
+import com.storypotion.app.NativeLogPlugin;
+// 이미지 선택/축소 플러그인
+import com.storypotion.app.ImageProcessorPlugin;
+// 오프라인 작업 저널 플러그인
+import com.storypotion.app.OfflineJournalPlugin;
+// 오프라인 캐시 플러그인
+import com.storypotion.app.OfflineCachePlugin;
+// 일기/소설 검색 플러그인
+import com.storypotion.app.SearchIndexPlugin;
+// 프레임/메인 스레드 멈춤 지표 플러그인
+import com.storypotion.app.FrameMonitorPlugin;
 
 public class MainActivity extends BridgeActivity {
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        StartupTrace.mark(StartupTrace.ACTIVITY_CREATE);
+
+        // 네이티브 로그는 항상 링 버퍼에 보관하고, logcat에는 디버그 빌드만 전부 출력 (릴리스는 경고 이상)
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        NativeLog.setSink(android.util.Log::println, debuggable ? NativeLog.DEBUG : NativeLog.WARN);
+
         // ✅ 커스텀 플러그인 등록 (여기가 핵심!)
         registerPlugin(BillingPlugin.class);
         registerPlugin(PermissionsPlugin.class);
+        registerPlugin(NativeLogPlugin.class);
+        registerPlugin(ImageProcessorPlugin.class);
+        registerPlugin(OfflineJournalPlugin.class);
+        registerPlugin(OfflineCachePlugin.class);
+        registerPlugin(SearchIndexPlugin.class);
+        registerPlugin(FrameMonitorPlugin.class);
 
-        // 반드시 마지막에 super 호출
+        // 반드시 플러그인 등록 후 super 호출
         super.onCreate(savedInstanceState);
+
+        // super.onCreate에서 플러그인이 load되므로 여기서부터 플러그인 사용 가능
+        // WebView/React 부팅과 동시에 Play 결제 서비스 연결 시작
+        PluginHandle billing = getBridge().getPlugin("Billing");
+        if (billing != null && billing.getInstance() instanceof BillingPlugin) {
+            ((BillingPlugin) billing.getInstance()).prewarm();
+        }
+        getBridge().addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageLoaded(WebView webView) {
+                StartupTrace.mark(StartupTrace.WEBVIEW_READY);
+            }
+        });
+
+        // 화면(content view)이 만들어진 뒤에 프레임 기록 시작
+        FrameMonitor.start(this);
+    }
+
+    @Override
+    public void onDestroy() {
+        FrameMonitor.stop(this);
+        super.onDestroy();
     }
 }
@@ -0,0 +1,64 @@
+package com.storypotion.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+/**
+ * NativeLog 링 버퍼를 JS(DebugPanel)에서 읽을 수 있게 하는 플러그인
+ */
+@CapacitorPlugin(name = "NativeLog")
+public class NativeLogPlugin extends Plugin {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * 최신순으로 한 페이지씩 로그 조회
+     * before: 이전 페이지의 nextBefore (없으면 가장 최근부터), limit, minLevel(debug/info/warn/error), tag
+     */
+    @PluginMethod
+    public void getLogs(PluginCall call) {
+        long before = call.getLong("before", 0L);
+        int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, call.getInt("limit", DEFAULT_PAGE_SIZE)));
+        int minLevel = NativeLog.parseLevel(call.getString("minLevel"), NativeLog.VERBOSE);
+        String tag = call.getString("tag");
+
+        try {
+            JSObject result = JSObject.fromJSONObject(NativeLog.page(before, limit, minLevel, tag));
+            result.put("bufferLevel", NativeLog.levelName(NativeLog.getBufferLevel()));
+            call.resolve(result);
+        } catch (JSONException e) {
+            call.reject("Failed to read native logs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 링 버퍼에 보관할 최소 레벨 변경 (off면 보관하지 않음)
+     */
+    @PluginMethod
+    public void setLogLevel(PluginCall call) {
+        String level = call.getString("level");
+        if (level == null) {
+            call.reject("level is required");
+            return;
+        }
+        NativeLog.setBufferLevel(NativeLog.parseLevel(level, NativeLog.getBufferLevel()));
+
+        JSObject result = new JSObject();
+        result.put("bufferLevel", NativeLog.levelName(NativeLog.getBufferLevel()));
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clearLogs(PluginCall call) {
+        NativeLog.clear();
+        JSObject result = new JSObject();
+        result.put("success", true);
+        call.resolve(result);
+    }
+}
@@ -0,0 +1,193 @@
+package com.storypotion.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * offlineCache.js용 네이티브 캐시 플러그인 (TwoTierCache)
+ *
+ * 값은 JSON 그대로 저장하고, 읽을 때 백그라운드 스레드에서 파싱해 결과 객체에 넣어 보낸다.
+ * 인덱스는 변경 후 INDEX_FLUSH_DELAY_MS 뒤와 앱이 백그라운드로 갈 때 저장한다.
+ */
+@CapacitorPlugin(name = "OfflineCache")
+public class OfflineCachePlugin extends Plugin {
+
+    private static final String TAG = "OfflineCache";
+    private static final String CACHE_DIR = "offline-cache";
+
+    private static final long MEMORY_MAX_BYTES = 4L * 1024 * 1024;
+    private static final long DISK_MAX_BYTES = 32L * 1024 * 1024;
+    private static final long DEFAULT_TTL_MS = 24 * 60 * 60 * 1000L;
+    private static final long INDEX_FLUSH_DELAY_MS = 2_000;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "OfflineCache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TwoTierCache cache;
+    // 인덱스 저장이 예약되어 있는지 (executor 스레드에서만 접근)
+    private boolean flushScheduled;
+
+    @Override
+    public void load() {
+        // 캐시는 시스템이 지워도 되는 데이터이므로 cacheDir에 둔다
+        File directory = new File(getContext().getCacheDir(), CACHE_DIR);
+        executor.execute(() -> {
+            cache = new TwoTierCache(directory, MEMORY_MAX_BYTES, DISK_MAX_BYTES);
+            int expired = cache.removeExpired();
+            if (expired > 0) {
+                scheduleFlush();
+            }
+        });
+    }
+
+    @Override
+    protected void handleOnPause() {
+        executor.execute(this::flush);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        executor.execute(this::flush);
+        executor.shutdown();
+    }
+
+    /**
+     * key의 값 조회
+     * 반환: { value, hit } (없거나 만료되면 value는 null, hit는 false)
+     */
+    @PluginMethod
+    public void get(PluginCall call) {
+        String key = call.getString("key");
+        if (key == null) {
+            call.reject("key is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            String json = cache.get(key);
+            JSObject result = new JSObject();
+            try {
+                result.put("value", json != null ? new JSONTokener(json).nextValue() : JSONObject.NULL);
+                result.put("hit", json != null);
+            } catch (JSONException e) {
+                NativeLog.w(TAG, "캐시 값 파싱 실패", "key", key);
+                cache.remove(key);
+                scheduleFlush();
+                result.put("value", JSONObject.NULL);
+                result.put("hit", false);
+            }
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * key에 value 저장
+     * value: JSON으로 표현 가능한 값, ttl: 보관 시간(ms, 기본 24시간)
+     */
+    @PluginMethod
+    public void set(PluginCall call) {
+        String key = call.getString("key");
+        Object value = call.getData().opt("value");
+        if (key == null || value == null) {
+            call.reject("key and value are required");
+            return;
+        }
+        long ttl = Math.max(0, call.getLong("ttl", DEFAULT_TTL_MS));
+
+        executor.execute(() -> {
+            try {
+                cache.put(key, value instanceof String ? JSONObject.quote((String) value) : value.toString(), ttl);
+                scheduleFlush();
+                call.resolve();
+            } catch (IOException e) {
+                NativeLog.w(TAG, "캐시 저장 실패", "error", e);
+                call.reject("Failed to cache value: " + e.getMessage());
+            }
+        });
+    }
+
+    @PluginMethod
+    public void remove(PluginCall call) {
+        String key = call.getString("key");
+        if (key == null) {
+            call.reject("key is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            if (cache.remove(key)) {
+                scheduleFlush();
+            }
+            call.resolve();
+        });
+    }
+
+    /**
+     * 키에 contains 문자열이 들어간 항목을 모두 삭제 (사용자별 캐시 삭제용)
+     * contains가 없으면 전체 삭제
+     * 반환: { removed }
+     */
+    @PluginMethod
+    public void clear(PluginCall call) {
+        String contains = call.getString("contains");
+
+        executor.execute(() -> {
+            int removed = contains != null && !contains.isEmpty()
+                    ? cache.removeContaining(contains)
+                    : cache.clear();
+            scheduleFlush();
+
+            JSObject result = new JSObject();
+            result.put("removed", removed);
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * 캐시 통계
+     * 반환: { memoryEntries, memoryBytes, diskEntries, diskBytes, expiredEntries, hits, misses, evictions }
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        executor.execute(() -> call.resolve(statsOrEmpty()));
+    }
+
+    private JSObject statsOrEmpty() {
+        try {
+            return JSObject.fromJSONObject(cache.stats());
+        } catch (JSONException e) {
+            return new JSObject();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        executor.schedule(this::flush, INDEX_FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (cache != null) {
+            cache.flush();
+        }
+    }
+}
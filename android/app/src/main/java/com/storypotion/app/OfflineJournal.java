@@ -0,0 +1,346 @@
+package com.storypotion.app;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * 파일 기반 append-only 작업 저널
+ *
+ * 파일 = 헤더(magic, 시작 seq) + 레코드들
+ * 레코드 = type(1) seq(8) timestamp(8) length(4) payload(length) crc32(4)
+ * - APPEND: payload를 새 seq로 추가, ACK: 해당 seq 처리 완료
+ * - 추가/완료 모두 파일 끝에 쓰기만 하고, fsync는 sync()에서 모아서 한 번에 한다.
+ * - 메모리에는 남은 레코드의 위치만 들고 있고 payload는 읽을 때 파일에서 가져온다.
+ * - 완료된 레코드가 남은 레코드보다 많아지면 남은 레코드만 새 파일로 옮겨 쓴다(compaction).
+ * 중간에 죽어서 마지막 레코드가 깨져 있으면 열 때 그 앞까지만 남기고 잘라낸다.
+ */
+final class OfflineJournal implements Closeable {
+
+    private static final String TAG = "OfflineJournal";
+
+    private static final int MAGIC = 0x53504a31; // "SPJ1"
+    private static final int FILE_HEADER_BYTES = 4 + 8;
+    private static final int RECORD_HEADER_BYTES = 1 + 8 + 8 + 4;
+    private static final int RECORD_TRAILER_BYTES = 4;
+
+    private static final byte TYPE_APPEND = 1;
+    private static final byte TYPE_ACK = 2;
+
+    static final int MAX_PAYLOAD_BYTES = 1024 * 1024;
+    // 완료된 레코드가 이만큼 쌓이기 전에는 compaction하지 않음
+    private static final long COMPACT_MIN_DEAD_BYTES = 64 * 1024;
+
+    /** 저널 항목 */
+    static final class Entry {
+        final long seq;
+        final long timestamp;
+        final String payload;
+
+        Entry(long seq, long timestamp, String payload) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.payload = payload;
+        }
+    }
+
+    /** 남은 레코드의 파일 내 위치 */
+    private static final class Slot {
+        final long payloadOffset;
+        final int length;
+        final long timestamp;
+
+        Slot(long payloadOffset, int length, long timestamp) {
+            this.payloadOffset = payloadOffset;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final File file;
+    private final TreeMap<Long, Slot> live = new TreeMap<>();
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long nextSeq = 1;
+    private long endOffset;
+    private long liveRecordBytes;
+    private boolean dirty;
+
+    OfflineJournal(File file) throws IOException {
+        this.file = file;
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Failed to create " + parent);
+        }
+        // 교체 도중 죽었으면 임시 파일은 버림 (원본이 아직 온전함)
+        new File(file.getPath() + ".tmp").delete();
+        open();
+        recover();
+    }
+
+    /** payload를 추가하고 seq 반환 (sync() 전까지는 디스크에 보장되지 않음) */
+    synchronized long append(String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_PAYLOAD_BYTES) {
+            throw new IOException("Entry too large: " + bytes.length + " bytes");
+        }
+        long seq = nextSeq++;
+        long timestamp = System.currentTimeMillis();
+        long recordOffset = endOffset;
+        write(TYPE_APPEND, seq, timestamp, bytes);
+        live.put(seq, new Slot(recordOffset + RECORD_HEADER_BYTES, bytes.length, timestamp));
+        liveRecordBytes += recordBytes(bytes.length);
+        return seq;
+    }
+
+    /** afterSeq보다 큰 seq의 남은 항목을 오래된 순으로 최대 limit개 */
+    synchronized List<Entry> read(long afterSeq, int limit) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<Long, Slot> entry : live.tailMap(afterSeq, false).entrySet()) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            Slot slot = entry.getValue();
+            entries.add(new Entry(entry.getKey(), slot.timestamp,
+                    new String(readPayload(slot), StandardCharsets.UTF_8)));
+        }
+        return entries;
+    }
+
+    /** seqs를 처리 완료로 기록하고 실제로 제거된 개수 반환 */
+    synchronized int acknowledge(long[] seqs) throws IOException {
+        int removed = 0;
+        for (long seq : seqs) {
+            Slot slot = live.remove(seq);
+            if (slot == null) {
+                continue;
+            }
+            write(TYPE_ACK, seq, System.currentTimeMillis(), new byte[0]);
+            liveRecordBytes -= recordBytes(slot.length);
+            removed++;
+        }
+        if (removed > 0 && shouldCompact()) {
+            compact();
+        }
+        return removed;
+    }
+
+    /** 남은 항목을 모두 제거 */
+    synchronized void clear() throws IOException {
+        live.clear();
+        liveRecordBytes = 0;
+        compact();
+    }
+
+    /** 마지막 sync 이후 쓴 내용을 디스크에 반영 */
+    synchronized void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    synchronized int size() {
+        return live.size();
+    }
+
+    /** 파일 크기 (완료됐지만 아직 compaction되지 않은 레코드 포함) */
+    synchronized long fileBytes() {
+        return endOffset;
+    }
+
+    /** 가장 오래된 남은 항목의 추가 시각 (없으면 0) */
+    synchronized long oldestTimestamp() {
+        return live.isEmpty() ? 0 : live.firstEntry().getValue().timestamp;
+    }
+
+    /** 가장 최근 남은 항목의 추가 시각 (없으면 0) */
+    synchronized long newestTimestamp() {
+        return live.isEmpty() ? 0 : live.lastEntry().getValue().timestamp;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        raf.close();
+    }
+
+    private void open() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+    }
+
+    private void recover() throws IOException {
+        long length = channel.size();
+        if (length < FILE_HEADER_BYTES) {
+            writeHeader(nextSeq);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        readFully(header, 0);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a journal file: " + file.getName());
+        }
+        nextSeq = header.getLong();
+
+        long offset = FILE_HEADER_BYTES;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (offset + RECORD_HEADER_BYTES + RECORD_TRAILER_BYTES <= length) {
+            recordHeader.clear();
+            readFully(recordHeader, offset);
+            byte type = recordHeader.get();
+            long seq = recordHeader.getLong();
+            long timestamp = recordHeader.getLong();
+            int payloadLength = recordHeader.getInt();
+            if (payloadLength < 0 || payloadLength > MAX_PAYLOAD_BYTES
+                    || offset + recordBytes(payloadLength) > length) {
+                break;
+            }
+
+            ByteBuffer rest = ByteBuffer.allocate(payloadLength + RECORD_TRAILER_BYTES);
+            readFully(rest, offset + RECORD_HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(recordHeader.array(), 0, RECORD_HEADER_BYTES);
+            crc.update(rest.array(), 0, payloadLength);
+            if ((int) crc.getValue() != rest.getInt(payloadLength)) {
+                break;
+            }
+
+            if (type == TYPE_APPEND) {
+                live.put(seq, new Slot(offset + RECORD_HEADER_BYTES, payloadLength, timestamp));
+                liveRecordBytes += recordBytes(payloadLength);
+                nextSeq = Math.max(nextSeq, seq + 1);
+            } else if (type == TYPE_ACK) {
+                Slot slot = live.remove(seq);
+                if (slot != null) {
+                    liveRecordBytes -= recordBytes(slot.length);
+                }
+            } else {
+                break;
+            }
+            offset += recordBytes(payloadLength);
+        }
+
+        endOffset = offset;
+        if (offset < length) {
+            NativeLog.w(TAG, "깨진 레코드 이후 잘라냄", "validBytes", offset, "fileBytes", length);
+            channel.truncate(offset);
+            dirty = true;
+            sync();
+        }
+        if (shouldCompact()) {
+            compact();
+        }
+    }
+
+    private boolean shouldCompact() {
+        long deadBytes = endOffset - FILE_HEADER_BYTES - liveRecordBytes;
+        return (live.isEmpty() && deadBytes > 0)
+                || (deadBytes >= COMPACT_MIN_DEAD_BYTES && deadBytes > liveRecordBytes);
+    }
+
+    /** 남은 레코드만 임시 파일에 옮겨 쓴 뒤 교체 */
+    private void compact() throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        TreeMap<Long, Slot> moved = new TreeMap<>();
+        try (RandomAccessFile out = new RandomAccessFile(tempFile, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            writeFully(outChannel, header(nextSeq), 0);
+            long offset = FILE_HEADER_BYTES;
+            for (Map.Entry<Long, Slot> entry : live.entrySet()) {
+                Slot slot = entry.getValue();
+                ByteBuffer record = record(TYPE_APPEND, entry.getKey(), slot.timestamp, readPayload(slot));
+                writeFully(outChannel, record, offset);
+                moved.put(entry.getKey(), new Slot(offset + RECORD_HEADER_BYTES, slot.length, slot.timestamp));
+                offset += recordBytes(slot.length);
+            }
+            outChannel.force(false);
+        }
+
+        raf.close();
+        if (!tempFile.renameTo(file)) {
+            open();
+            throw new IOException("Failed to replace " + file.getName());
+        }
+        open();
+        live.clear();
+        live.putAll(moved);
+        endOffset = channel.size();
+        dirty = false;
+    }
+
+    private void writeHeader(long startSeq) throws IOException {
+        channel.truncate(0);
+        writeFully(channel, header(startSeq), 0);
+        endOffset = FILE_HEADER_BYTES;
+        dirty = true;
+        sync();
+    }
+
+    private void write(byte type, long seq, long timestamp, byte[] payload) throws IOException {
+        ByteBuffer record = record(type, seq, timestamp, payload);
+        try {
+            writeFully(channel, record, endOffset);
+        } catch (IOException e) {
+            // 일부만 쓰였을 수 있으므로 되돌림
+            channel.truncate(endOffset);
+            throw e;
+        }
+        endOffset += record.capacity();
+        dirty = true;
+    }
+
+    private byte[] readPayload(Slot slot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(slot.length);
+        readFully(buffer, slot.payloadOffset);
+        return buffer.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of " + file.getName());
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static ByteBuffer header(long startSeq) {
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        buffer.putInt(MAGIC).putLong(startSeq);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer record(byte type, long seq, long timestamp, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(recordBytes(payload.length));
+        buffer.put(type).putLong(seq).putLong(timestamp).putInt(payload.length).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, RECORD_HEADER_BYTES + payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int recordBytes(int payloadLength) {
+        return RECORD_HEADER_BYTES + payloadLength + RECORD_TRAILER_BYTES;
+    }
+}
@@ -0,0 +1,275 @@
+package com.storypotion.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 오프라인 작업 큐를 OfflineJournal 파일에 보관하는 플러그인
+ *
+ * 모든 파일 작업은 전용 스레드 하나에서 실행한다.
+ * append/acknowledge는 SYNC_DELAY_MS 동안 들어온 호출을 모아 fsync 한 번으로 디스크에 반영한 뒤 응답한다.
+ * JS는 read의 nextCursor로 이어서 읽고, 처리한 항목의 seq를 acknowledge로 넘긴다.
+ */
+@CapacitorPlugin(name = "OfflineJournal")
+public class OfflineJournalPlugin extends Plugin {
+
+    private static final String TAG = "OfflineJournal";
+    private static final String JOURNAL_FILE = "offline-queue.journal";
+
+    private static final long SYNC_DELAY_MS = 20;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "OfflineJournal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 다음 fsync 이후에 응답할 호출과 결과 (executor 스레드에서만 접근)
+    private final Map<PluginCall, JSObject> awaitingSync = new LinkedHashMap<>();
+
+    private OfflineJournal journal;
+    private IOException openError;
+
+    @Override
+    public void load() {
+        File file = new File(getContext().getFilesDir(), JOURNAL_FILE);
+        executor.execute(() -> open(file));
+    }
+
+    @Override
+    protected void handleOnPause() {
+        // 백그라운드로 가기 전에 남은 쓰기를 디스크에 반영
+        executor.execute(this::syncNow);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        executor.execute(() -> {
+            syncNow();
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    NativeLog.e(TAG, "저널 닫기 실패", "error", e);
+                }
+            }
+        });
+        executor.shutdown();
+    }
+
+    /**
+     * 항목 추가
+     * entry: 저장할 객체 (operation 등)
+     * 반환: { seq } (디스크에 반영된 뒤 응답)
+     */
+    @PluginMethod
+    public void append(PluginCall call) {
+        JSObject entry = call.getObject("entry");
+        if (entry == null) {
+            call.reject("entry is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            try {
+                long seq = journal.append(entry.toString());
+                JSObject result = new JSObject();
+                result.put("seq", seq);
+                resolveAfterSync(call, result);
+            } catch (IOException e) {
+                NativeLog.e(TAG, "저널 추가 실패", "error", e);
+                call.reject("Failed to append entry: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * after(cursor)보다 뒤의 남은 항목을 오래된 순으로 조회
+     * 반환: { entries: [{ seq, timestamp, entry }], nextCursor, hasMore }
+     */
+    @PluginMethod
+    public void read(PluginCall call) {
+        long after = call.getLong("after", 0L);
+        int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, call.getInt("limit", DEFAULT_PAGE_SIZE)));
+
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            try {
+                // 한 개 더 읽어서 다음 페이지가 있는지 확인
+                List<OfflineJournal.Entry> entries = journal.read(after, limit + 1);
+                boolean hasMore = entries.size() > limit;
+                JSArray items = new JSArray();
+                long nextCursor = after;
+                for (int i = 0; i < Math.min(limit, entries.size()); i++) {
+                    OfflineJournal.Entry entry = entries.get(i);
+                    JSObject item = new JSObject();
+                    item.put("seq", entry.seq);
+                    item.put("timestamp", entry.timestamp);
+                    item.put("entry", new JSObject(entry.payload));
+                    items.put(item);
+                    nextCursor = entry.seq;
+                }
+
+                JSObject result = new JSObject();
+                result.put("entries", items);
+                result.put("nextCursor", nextCursor);
+                result.put("hasMore", hasMore);
+                call.resolve(result);
+            } catch (IOException | JSONException e) {
+                NativeLog.e(TAG, "저널 조회 실패", "error", e);
+                call.reject("Failed to read entries: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 처리 완료된 항목 제거
+     * seqs: 완료한 항목의 seq 배열
+     * 반환: { acknowledged, remaining } (디스크에 반영된 뒤 응답)
+     */
+    @PluginMethod
+    public void acknowledge(PluginCall call) {
+        JSArray seqArray = call.getArray("seqs");
+        if (seqArray == null) {
+            call.reject("seqs is required");
+            return;
+        }
+        long[] seqs = new long[seqArray.length()];
+        for (int i = 0; i < seqs.length; i++) {
+            seqs[i] = seqArray.optLong(i, -1);
+        }
+
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            try {
+                int acknowledged = journal.acknowledge(seqs);
+                JSObject result = new JSObject();
+                result.put("acknowledged", acknowledged);
+                result.put("remaining", journal.size());
+                resolveAfterSync(call, result);
+            } catch (IOException e) {
+                NativeLog.e(TAG, "저널 완료 처리 실패", "error", e);
+                call.reject("Failed to acknowledge entries: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 큐 상태
+     * 반환: { count, bytes, oldestTimestamp, newestTimestamp } (항목이 없으면 timestamp는 0)
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            JSObject result = new JSObject();
+            result.put("count", journal.size());
+            result.put("bytes", journal.fileBytes());
+            result.put("oldestTimestamp", journal.oldestTimestamp());
+            result.put("newestTimestamp", journal.newestTimestamp());
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            try {
+                journal.clear();
+                JSObject result = new JSObject();
+                result.put("success", true);
+                call.resolve(result);
+            } catch (IOException e) {
+                NativeLog.e(TAG, "저널 비우기 실패", "error", e);
+                call.reject("Failed to clear journal: " + e.getMessage());
+            }
+        });
+    }
+
+    private void open(File file) {
+        try {
+            journal = new OfflineJournal(file);
+            NativeLog.d(TAG, "저널 열림", "entries", journal.size(), "bytes", journal.fileBytes());
+        } catch (IOException e) {
+            // 형식을 알 수 없는 파일은 옆으로 치워 두고 새로 시작 (원본은 수동 복구용으로 남김)
+            NativeLog.e(TAG, "저널 열기 실패, 새 파일로 시작", "error", e);
+            File corrupt = new File(file.getPath() + ".corrupt");
+            corrupt.delete();
+            if (file.renameTo(corrupt)) {
+                try {
+                    journal = new OfflineJournal(file);
+                    return;
+                } catch (IOException retryError) {
+                    e = retryError;
+                }
+            }
+            openError = e;
+        }
+    }
+
+    private boolean ensureOpen(PluginCall call) {
+        if (journal != null) {
+            return true;
+        }
+        call.reject("Offline journal is not available: "
+                + (openError != null ? openError.getMessage() : "not loaded"));
+        return false;
+    }
+
+    /** 첫 호출이 fsync를 예약하고, 그 사이에 들어온 호출은 같은 fsync 뒤에 함께 응답 */
+    private void resolveAfterSync(PluginCall call, JSObject result) {
+        awaitingSync.put(call, result);
+        if (awaitingSync.size() == 1) {
+            executor.schedule(this::syncNow, SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void syncNow() {
+        if (journal == null) {
+            return;
+        }
+        Map<PluginCall, JSObject> responses = new LinkedHashMap<>(awaitingSync);
+        awaitingSync.clear();
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            NativeLog.e(TAG, "저널 fsync 실패", "error", e);
+            for (PluginCall call : responses.keySet()) {
+                call.reject("Failed to sync journal: " + e.getMessage());
+            }
+            return;
+        }
+        for (Map.Entry<PluginCall, JSObject> response : responses.entrySet()) {
+            response.getKey().resolve(response.getValue());
+        }
+    }
+}
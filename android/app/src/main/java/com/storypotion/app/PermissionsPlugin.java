@@ -3,105 +3,419 @@ package com.storypotion.app;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Build;
-import androidx.core.app.ActivityCompat;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.core.content.ContextCompat;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
+import com.getcapacitor.annotation.Permission;
+import com.getcapacitor.annotation.PermissionCallback;
 
-@CapacitorPlugin(name = "Permissions")
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 권한 확인/요청 플러그인
+ *
+ * checkPermissions/requestPermissions는 여러 권한을 한 번의 호출로 처리한다.
+ * - 확인 결과는 캐시하고, 설정 화면에서 바뀌었을 수 있으므로 앱이 다시 활성화되면(onResume) 비운다.
+ * - 시스템 권한 다이얼로그는 한 번에 하나만 띄울 수 있으므로, 다이얼로그가 떠 있는 동안 들어온 요청은
+ *   모아 두었다가 끝난 뒤 필요한 권한을 합쳐서 한 번에 요청한다.
+ * - 다이얼로그는 Capacitor 권한 별칭(@Permission)으로 띄우고 결과는 @PermissionCallback으로 받는다.
+ *   (@CapacitorPlugin에는 handleRequestPermissionsResult가 호출되지 않음)
+ * - 결과가 오지 않는 경우(액티비티 종료 등)에도 대기열이 막히지 않도록, 액티비티가 없어지거나
+ *   DIALOG_TIMEOUT_MS가 지나면 현재 상태로 응답한다. 시간 초과일 때는 다이얼로그가 아직 떠 있을 수 있으므로
+ *   (동시에 요청하면 Android가 거부로 응답함) 늦은 결과가 오거나 앱이 다시 활성화될 때까지 다음 다이얼로그를 미룬다.
+ */
+@CapacitorPlugin(
+        name = "Permissions",
+        permissions = {
+                @Permission(alias = PermissionsPlugin.ALIAS_MEDIA_IMAGES, strings = { Manifest.permission.READ_MEDIA_IMAGES }),
+                @Permission(alias = PermissionsPlugin.ALIAS_STORAGE, strings = { Manifest.permission.READ_EXTERNAL_STORAGE }),
+                @Permission(alias = PermissionsPlugin.ALIAS_NOTIFICATIONS, strings = { Manifest.permission.POST_NOTIFICATIONS })
+        }
+)
 public class PermissionsPlugin extends Plugin {
 
-    private static final int PERMISSION_REQUEST_CODE = 1001;
+    private static final String TAG = "PermissionsPlugin";
+
+    // Capacitor 권한 별칭 (SDK마다 필요한 권한이 달라서 나눠 둠)
+    static final String ALIAS_MEDIA_IMAGES = "mediaImages";     // Android 13+
+    static final String ALIAS_STORAGE = "storage";              // Android 12 이하
+    static final String ALIAS_NOTIFICATIONS = "notifications";  // Android 13+
+
+    private static final long DIALOG_TIMEOUT_MS = 60_000;
+
+    private static final String STATE_GRANTED = "granted";
+    private static final String STATE_DENIED = "denied";
+    private static final String STATE_PROMPT = "prompt";
+
+    // 권한별 checkSelfPermission 결과 (onResume에서 초기화)
+    private final Map<String, Boolean> grantCache = new ConcurrentHashMap<>();
+    // 이번 실행 중 다이얼로그에서 거부된 권한 (prompt와 denied 구분용)
+    private final Set<String> deniedPermissions = ConcurrentHashMap.newKeySet();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable dialogTimeout = () -> abandonInFlight("timeout");
+
+    private final Object lock = new Object();
+    // 다이얼로그가 끝나기를 기다리는 요청
+    private final ArrayDeque<PermissionRequest> waitingRequests = new ArrayDeque<>();
+    // 현재 떠 있는 다이얼로그의 결과를 기다리는 요청과, 그 다이얼로그로 요청한 Android 권한
+    private List<PermissionRequest> inFlightRequests;
+    private Set<String> inFlightPermissions;
+    // 시간 초과로 먼저 응답했지만 아직 떠 있을 수 있는 다이얼로그의 call (늦은 결과나 onResume에서 비움)
+    private PluginCall abandonedDialogCall;
+
+    /** JS 호출 하나와 그 호출이 요청한 권한 (이름 -> 별칭, 이 SDK에서 필요 없는 권한은 null) */
+    private static final class PermissionRequest {
+        final PluginCall call;
+        final Map<String, String> permissions;
+
+        PermissionRequest(PluginCall call, Map<String, String> permissions) {
+            this.call = call;
+            this.permissions = permissions;
+        }
+    }
+
+    @Override
+    protected void handleOnResume() {
+        super.handleOnResume();
+        // 설정 화면에서 권한을 바꾸고 돌아왔을 수 있음
+        grantCache.clear();
+
+        // 다시 활성화되었으면 시간 초과된 다이얼로그도 닫힌 것
+        boolean wasBlocked;
+        synchronized (lock) {
+            wasBlocked = abandonedDialogCall != null;
+            abandonedDialogCall = null;
+        }
+        if (wasBlocked) {
+            launchWaitingRequests();
+        }
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        // 다이얼로그 결과가 새 액티비티로 오지 않을 수 있으므로 기다리던 요청을 모두 끝냄
+        abandonInFlight("activity destroyed");
+        List<PermissionRequest> waiting;
+        synchronized (lock) {
+            abandonedDialogCall = null;
+            waiting = new ArrayList<>(waitingRequests);
+            waitingRequests.clear();
+        }
+        for (PermissionRequest request : waiting) {
+            request.call.resolve(buildResult(request.permissions));
+        }
+    }
 
     /**
-     * 사진 액세스 권한 확인
+     * 여러 권한 상태를 한 번에 확인
+     * permissions: ["photos", "notifications"]
+     * 반환: { permissions: { 이름: "granted" | "denied" | "prompt" }, granted: 모두 허용 여부 }
      */
+    @Override
     @PluginMethod
-    public void checkPhotoPermission(PluginCall call) {
-        boolean granted = false;
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            // Android 13+ (API 33+)
-            granted = ContextCompat.checkSelfPermission(
-                getActivity(),
-                Manifest.permission.READ_MEDIA_IMAGES
-            ) == PackageManager.PERMISSION_GRANTED;
-        } else {
-            // Android 12 이하
-            granted = ContextCompat.checkSelfPermission(
-                getActivity(),
-                Manifest.permission.READ_EXTERNAL_STORAGE
-            ) == PackageManager.PERMISSION_GRANTED;
+    public void checkPermissions(PluginCall call) {
+        Map<String, String> permissions = resolvePermissions(call);
+        if (permissions == null) {
+            return;
+        }
+        call.resolve(buildResult(permissions));
+    }
+
+    /**
+     * 허용되지 않은 권한만 모아서 다이얼로그 한 번으로 요청
+     * 인자와 반환 형식은 checkPermissions와 같음
+     */
+    @Override
+    @PluginMethod
+    public void requestPermissions(PluginCall call) {
+        Map<String, String> permissions = resolvePermissions(call);
+        if (permissions == null) {
+            return;
         }
+        enqueue(new PermissionRequest(call, permissions));
+    }
 
+    /**
+     * 사진 액세스 권한 확인 (기존 호환용, { granted })
+     */
+    @PluginMethod
+    public void checkPhotoPermission(PluginCall call) {
         JSObject result = new JSObject();
-        result.put("granted", granted);
+        result.put("granted", isGranted(androidPermissions(photoAlias())));
         call.resolve(result);
     }
 
     /**
-     * 사진 액세스 권한 요청
+     * 사진 액세스 권한 요청 (기존 호환용, { granted })
      */
     @PluginMethod
     public void requestPhotoPermission(PluginCall call) {
-        String[] permissions;
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            // Android 13+ (API 33+)
-            permissions = new String[]{Manifest.permission.READ_MEDIA_IMAGES};
-        } else {
-            // Android 12 이하
-            permissions = new String[]{Manifest.permission.READ_EXTERNAL_STORAGE};
+        enqueue(new PermissionRequest(call, Collections.singletonMap("photos", photoAlias())));
+    }
+
+    /**
+     * 권한 다이얼로그 결과 (Capacitor가 requestPermissionForAliases에 넘긴 call로 호출)
+     */
+    @PermissionCallback
+    private void permissionsCallback(PluginCall call) {
+        List<PermissionRequest> finished;
+        Set<String> requested;
+        synchronized (lock) {
+            if (abandonedDialogCall != null && isSameCall(abandonedDialogCall, call)) {
+                // 시간 초과로 이미 응답한 다이얼로그의 늦은 결과 -> 이제 다음 다이얼로그를 띄울 수 있음
+                abandonedDialogCall = null;
+                finished = null;
+                requested = null;
+            } else if (inFlightRequests == null || !isSameCall(inFlightRequests.get(0).call, call)) {
+                // 액티비티 종료로 이미 응답한 다이얼로그의 늦은 결과
+                return;
+            } else {
+                finished = inFlightRequests;
+                requested = inFlightPermissions;
+                inFlightRequests = null;
+                inFlightPermissions = null;
+            }
+        }
+        if (finished == null) {
+            grantCache.clear();
+            launchWaitingRequests();
+            return;
+        }
+        mainHandler.removeCallbacks(dialogTimeout);
+
+        // 결과는 다시 확인해서 반영 (다이얼로그 뒤에도 허용되지 않았으면 거부로 표시)
+        for (String permission : requested) {
+            grantCache.remove(permission);
+            if (isGranted(permission)) {
+                deniedPermissions.remove(permission);
+            } else {
+                deniedPermissions.add(permission);
+            }
+        }
+
+        for (PermissionRequest request : finished) {
+            request.call.resolve(buildResult(request.permissions));
         }
+        launchWaitingRequests();
+    }
 
-        // 이미 권한이 있는지 확인
+    /**
+     * 결과를 기다리지 않고 현재 상태로 응답
+     * 다이얼로그가 아직 떠 있을 수 있으므로 다음 요청은 늦은 결과나 onResume 뒤에 띄운다.
+     */
+    private void abandonInFlight(String reason) {
+        List<PermissionRequest> abandoned;
+        synchronized (lock) {
+            if (inFlightRequests == null) {
+                return;
+            }
+            abandoned = inFlightRequests;
+            abandonedDialogCall = abandoned.get(0).call;
+            inFlightRequests = null;
+            inFlightPermissions = null;
+        }
+        mainHandler.removeCallbacks(dialogTimeout);
+        NativeLog.w(TAG, "권한 다이얼로그 결과 없이 응답", "requests", abandoned.size(), "reason", reason);
+
+        grantCache.clear();
+        for (PermissionRequest request : abandoned) {
+            request.call.resolve(buildResult(request.permissions));
+        }
+    }
+
+    private void enqueue(PermissionRequest request) {
+        if (missingPermissions(request).isEmpty()) {
+            request.call.resolve(buildResult(request.permissions));
+            return;
+        }
+        synchronized (lock) {
+            waitingRequests.add(request);
+        }
+        launchWaitingRequests();
+    }
+
+    /** 떠 있는(떠 있을 수 있는) 다이얼로그가 없으면 대기 중인 요청을 합쳐서 다이얼로그를 띄움 */
+    private void launchWaitingRequests() {
+        List<PermissionRequest> ready = new ArrayList<>();
+        List<PermissionRequest> failed = new ArrayList<>();
+        PluginCall dialogCall = null;
+        Set<String> aliases = new LinkedHashSet<>();
+        synchronized (lock) {
+            if (inFlightRequests != null || abandonedDialogCall != null || waitingRequests.isEmpty()) {
+                return;
+            }
+
+            List<PermissionRequest> pending = new ArrayList<>();
+            Set<String> missing = new LinkedHashSet<>();
+            while (!waitingRequests.isEmpty()) {
+                PermissionRequest request = waitingRequests.poll();
+                Set<String> requestMissing = missingPermissions(request);
+                if (requestMissing.isEmpty()) {
+                    // 앞선 다이얼로그에서 이미 허용됨
+                    ready.add(request);
+                } else {
+                    pending.add(request);
+                    missing.addAll(requestMissing);
+                    aliases.addAll(missingAliases(request));
+                }
+            }
+
+            if (!pending.isEmpty() && getActivity() == null) {
+                failed.addAll(pending);
+            } else if (!pending.isEmpty()) {
+                inFlightRequests = pending;
+                inFlightPermissions = missing;
+                dialogCall = pending.get(0).call;
+            }
+        }
+
+        for (PermissionRequest request : ready) {
+            request.call.resolve(buildResult(request.permissions));
+        }
+        for (PermissionRequest request : failed) {
+            request.call.reject("Activity is not available");
+        }
+        if (dialogCall != null) {
+            mainHandler.postDelayed(dialogTimeout, DIALOG_TIMEOUT_MS);
+            requestPermissionForAliases(aliases.toArray(new String[0]), dialogCall, "permissionsCallback");
+        }
+    }
+
+    private static boolean isSameCall(PluginCall expected, PluginCall actual) {
+        return expected == actual
+                || (actual != null && expected.getCallbackId() != null
+                && expected.getCallbackId().equals(actual.getCallbackId()));
+    }
+
+    private Set<String> missingAliases(PermissionRequest request) {
+        Set<String> aliases = new LinkedHashSet<>();
+        for (String alias : request.permissions.values()) {
+            if (alias != null && !isGranted(androidPermissions(alias))) {
+                aliases.add(alias);
+            }
+        }
+        return aliases;
+    }
+
+    private Set<String> missingPermissions(PermissionRequest request) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String alias : request.permissions.values()) {
+            for (String permission : androidPermissions(alias)) {
+                if (!isGranted(permission)) {
+                    missing.add(permission);
+                }
+            }
+        }
+        return missing;
+    }
+
+    private JSObject buildResult(Map<String, String> permissions) {
+        JSObject states = new JSObject();
         boolean allGranted = true;
+        for (Map.Entry<String, String> entry : permissions.entrySet()) {
+            String state = state(androidPermissions(entry.getValue()));
+            states.put(entry.getKey(), state);
+            allGranted &= STATE_GRANTED.equals(state);
+        }
+
+        JSObject result = new JSObject();
+        result.put("permissions", states);
+        result.put("granted", allGranted);
+        return result;
+    }
+
+    private String state(String[] permissions) {
+        if (isGranted(permissions)) {
+            return STATE_GRANTED;
+        }
         for (String permission : permissions) {
-            if (ContextCompat.checkSelfPermission(getActivity(), permission) 
-                    != PackageManager.PERMISSION_GRANTED) {
-                allGranted = false;
-                break;
+            if (deniedPermissions.contains(permission)) {
+                return STATE_DENIED;
             }
         }
+        return STATE_PROMPT;
+    }
 
-        if (allGranted) {
-            JSObject result = new JSObject();
-            result.put("granted", true);
-            call.resolve(result);
-            return;
+    private boolean isGranted(String[] permissions) {
+        for (String permission : permissions) {
+            if (!isGranted(permission)) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        // 권한 요청
-        saveCall(call);
-        ActivityCompat.requestPermissions(
-            getActivity(),
-            permissions,
-            PERMISSION_REQUEST_CODE
-        );
+    private boolean isGranted(String permission) {
+        return grantCache.computeIfAbsent(permission,
+                key -> ContextCompat.checkSelfPermission(getContext(), key) == PackageManager.PERMISSION_GRANTED);
     }
 
     /**
-     * 권한 요청 결과 처리
+     * call의 permissions 배열을 권한 별칭으로 변환
+     * 없거나 모르는 이름이 있으면 reject하고 null 반환
      */
-    @Override
-    public void handleRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
-        super.handleRequestPermissionsResult(requestCode, permissions, grantResults);
-        
-        if (requestCode == PERMISSION_REQUEST_CODE) {
-            PluginCall savedCall = getSavedCall();
-            if (savedCall == null) {
-                return;
+    private Map<String, String> resolvePermissions(PluginCall call) {
+        JSArray names = call.getArray("permissions");
+        if (names == null || names.length() == 0) {
+            call.reject("permissions is required");
+            return null;
+        }
+
+        Map<String, String> permissions = new LinkedHashMap<>();
+        for (int i = 0; i < names.length(); i++) {
+            String name = names.optString(i, "");
+            switch (name) {
+                case "photos":
+                case "media":
+                    permissions.put(name, photoAlias());
+                    break;
+                case "notifications":
+                    // Android 12 이하는 알림 권한이 없음 (항상 허용)
+                    permissions.put(name, Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU ? ALIAS_NOTIFICATIONS : null);
+                    break;
+                default:
+                    call.reject("Unknown permission: " + name);
+                    return null;
             }
+        }
+        return permissions;
+    }
+
+    private static String photoAlias() {
+        // Android 13+ (API 33+)는 READ_MEDIA_IMAGES, 12 이하는 READ_EXTERNAL_STORAGE
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU ? ALIAS_MEDIA_IMAGES : ALIAS_STORAGE;
+    }
 
-            boolean granted = grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED;
-            
-            JSObject result = new JSObject();
-            result.put("granted", granted);
-            savedCall.resolve(result);
+    /** 별칭의 Android 권한 (@Permission과 같게 유지, null = 필요 없음) */
+    private static String[] androidPermissions(String alias) {
+        if (alias == null) {
+            return new String[0];
+        }
+        switch (alias) {
+            case ALIAS_MEDIA_IMAGES:
+                return new String[]{Manifest.permission.READ_MEDIA_IMAGES};
+            case ALIAS_STORAGE:
+                return new String[]{Manifest.permission.READ_EXTERNAL_STORAGE};
+            case ALIAS_NOTIFICATIONS:
+                return new String[]{Manifest.permission.POST_NOTIFICATIONS};
+            default:
+                return new String[0];
         }
     }
 }
-
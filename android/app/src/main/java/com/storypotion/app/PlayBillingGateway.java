@@ -0,0 +1,120 @@
+package com.storypotion.app;
+
+import android.app.Activity;
+import android.content.Context;
+import com.android.billingclient.api.AcknowledgePurchaseParams;
+import com.android.billingclient.api.AcknowledgePurchaseResponseListener;
+import com.android.billingclient.api.BillingClient;
+import com.android.billingclient.api.BillingClientStateListener;
+import com.android.billingclient.api.BillingFlowParams;
+import com.android.billingclient.api.BillingResult;
+import com.android.billingclient.api.ConsumeParams;
+import com.android.billingclient.api.ConsumeResponseListener;
+import com.android.billingclient.api.ProductDetails;
+import com.android.billingclient.api.ProductDetailsResponseListener;
+import com.android.billingclient.api.PurchaseHistoryResponseListener;
+import com.android.billingclient.api.PurchasesResponseListener;
+import com.android.billingclient.api.PurchasesUpdatedListener;
+import com.android.billingclient.api.QueryProductDetailsParams;
+import com.android.billingclient.api.QueryPurchaseHistoryParams;
+import com.android.billingclient.api.QueryPurchasesParams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Google Play BillingClient를 사용하는 BillingGateway
+ */
+class PlayBillingGateway implements BillingGateway {
+
+    private final BillingClient billingClient;
+
+    PlayBillingGateway(Context context, PurchasesUpdatedListener purchasesUpdatedListener) {
+        this.billingClient = BillingClient.newBuilder(context)
+                .setListener(purchasesUpdatedListener)
+                .enablePendingPurchases()
+                .build();
+    }
+
+    @Override
+    public void startConnection(BillingClientStateListener listener) {
+        billingClient.startConnection(listener);
+    }
+
+    @Override
+    public boolean isReady() {
+        return billingClient.isReady();
+    }
+
+    @Override
+    public void endConnection() {
+        billingClient.endConnection();
+    }
+
+    @Override
+    public void queryProductDetails(List<String> productIds, String productType,
+            ProductDetailsResponseListener listener) {
+        List<QueryProductDetailsParams.Product> productList = new ArrayList<>();
+        for (String productId : productIds) {
+            productList.add(QueryProductDetailsParams.Product.newBuilder()
+                    .setProductId(productId)
+                    .setProductType(productType)
+                    .build());
+        }
+
+        QueryProductDetailsParams params = QueryProductDetailsParams.newBuilder()
+                .setProductList(productList)
+                .build();
+        billingClient.queryProductDetailsAsync(params, listener);
+    }
+
+    @Override
+    public void queryPurchases(String productType, PurchasesResponseListener listener) {
+        QueryPurchasesParams params = QueryPurchasesParams.newBuilder()
+                .setProductType(productType)
+                .build();
+        billingClient.queryPurchasesAsync(params, listener);
+    }
+
+    // Billing 7에서 deprecated (대체 API 없음, 8에서 제거되기 전까지 사용)
+    @SuppressWarnings("deprecation")
+    @Override
+    public void queryPurchaseHistory(String productType, PurchaseHistoryResponseListener listener) {
+        QueryPurchaseHistoryParams params = QueryPurchaseHistoryParams.newBuilder()
+                .setProductType(productType)
+                .build();
+        billingClient.queryPurchaseHistoryAsync(params, listener);
+    }
+
+    @Override
+    public void acknowledgePurchase(String purchaseToken, AcknowledgePurchaseResponseListener listener) {
+        AcknowledgePurchaseParams params = AcknowledgePurchaseParams.newBuilder()
+                .setPurchaseToken(purchaseToken)
+                .build();
+        billingClient.acknowledgePurchase(params, listener);
+    }
+
+    @Override
+    public void consumePurchase(String purchaseToken, ConsumeResponseListener listener) {
+        ConsumeParams params = ConsumeParams.newBuilder()
+                .setPurchaseToken(purchaseToken)
+                .build();
+        billingClient.consumeAsync(params, listener);
+    }
+
+    @Override
+    public BillingResult launchBillingFlow(Activity activity, ProductDetails productDetails, String offerToken) {
+        BillingFlowParams.ProductDetailsParams.Builder productDetailsParamsBuilder = BillingFlowParams.ProductDetailsParams
+                .newBuilder()
+                .setProductDetails(productDetails);
+        if (offerToken != null) {
+            productDetailsParamsBuilder.setOfferToken(offerToken);
+        }
+
+        BillingFlowParams flowParams = BillingFlowParams.newBuilder()
+                .setProductDetailsParamsList(Arrays.asList(productDetailsParamsBuilder.build()))
+                .build();
+        return billingClient.launchBillingFlow(activity, flowParams);
+    }
+}
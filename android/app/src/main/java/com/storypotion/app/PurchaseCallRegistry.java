@@ -0,0 +1,105 @@
+package com.storypotion.app;
+
+import com.getcapacitor.PluginCall;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 진행 중인 결제 흐름과 PluginCall 매핑
+ *
+ * 상품 ID별로 결제 요청을 보관해서 여러 결제가 겹쳐도 서로 덮어쓰지 않게 한다.
+ * 보류(PENDING) 상태로 끝난 결제는 토큰을 기억해 두었다가 나중에 완료되었을 때 구분할 수 있게 한다.
+ */
+class PurchaseCallRegistry {
+
+    // 이 시간보다 오래된 결제 요청은 버려진 것으로 보고 새 요청으로 교체
+    private static final long STALE_FLOW_MS = 10 * 60 * 1000L;
+    private static final int MAX_PENDING_TOKENS = 100;
+
+    /** 결제 요청 하나. 시각은 모두 ms */
+    static class Flow {
+        final PluginCall call;
+        final long startedAt;
+        // 결제 창이 표시된 시각 (표시 전이면 0)
+        long launchedAt;
+
+        Flow(PluginCall call, long startedAt) {
+            this.call = call;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final LinkedHashMap<String, Flow> flows = new LinkedHashMap<>();
+    // 보류 상태로 응답한 구매 토큰 -> 상품 ID
+    private final Map<String, String> pendingTokens = new LinkedHashMap<>();
+
+    /**
+     * 결제 요청 등록. 같은 상품의 결제가 이미 진행 중이면 false
+     */
+    synchronized boolean register(String productId, PluginCall call) {
+        Flow existing = flows.get(productId);
+        long now = System.currentTimeMillis();
+        if (existing != null && now - existing.startedAt < STALE_FLOW_MS) {
+            return false;
+        }
+        flows.remove(productId);
+        flows.put(productId, new Flow(call, now));
+        return true;
+    }
+
+    /** 결제 창이 실제로 표시됨 */
+    synchronized void markLaunched(String productId) {
+        Flow flow = flows.get(productId);
+        if (flow != null) {
+            flow.launchedAt = System.currentTimeMillis();
+        }
+    }
+
+    /** 상품 ID에 해당하는 결제 요청을 꺼냄 */
+    synchronized Flow take(String productId) {
+        return flows.remove(productId);
+    }
+
+    /** 결제 요청 제거 (실패 등으로 결제 창을 띄우지 못한 경우) */
+    synchronized Flow remove(String productId, PluginCall call) {
+        Flow flow = flows.get(productId);
+        if (flow != null && flow.call == call) {
+            return flows.remove(productId);
+        }
+        return null;
+    }
+
+    /**
+     * 가장 최근에 결제 창을 띄운 요청을 꺼냄
+     * 취소/실패 응답에는 상품 정보가 없으므로 현재 화면에 떠 있던 결제로 간주한다.
+     */
+    synchronized Flow takeActive() {
+        String activeProductId = null;
+        for (Map.Entry<String, Flow> entry : flows.entrySet()) {
+            if (entry.getValue().launchedAt > 0) {
+                activeProductId = entry.getKey();
+            }
+        }
+        return activeProductId != null ? take(activeProductId) : null;
+    }
+
+    synchronized void trackPendingToken(String purchaseToken, String productId) {
+        if (pendingTokens.size() >= MAX_PENDING_TOKENS) {
+            Iterator<String> iterator = pendingTokens.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+        pendingTokens.put(purchaseToken, productId);
+    }
+
+    /** 이전에 보류 상태였던 토큰이면 제거하고 true */
+    synchronized boolean completePendingToken(String purchaseToken) {
+        if (!pendingTokens.containsKey(purchaseToken)) {
+            return false;
+        }
+        pendingTokens.remove(purchaseToken);
+        return true;
+    }
+}
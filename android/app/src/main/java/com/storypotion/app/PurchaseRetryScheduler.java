@@ -0,0 +1,158 @@
+package com.storypotion.app;
+
+import com.android.billingclient.api.BillingClient;
+import com.android.billingclient.api.BillingResult;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PurchaseRetryQueue에 쌓인 acknowledge/consume을 다시 실행
+ *
+ * 다음 시도 시각이 되면 실행하고, Billing 연결이 (다시) 성공하면 대기 시간과 관계없이 바로 실행한다.
+ * Play 장애 뒤 한꺼번에 밀린 토큰도 동시 실행 수를 제한해서 차례로 처리한다.
+ */
+class PurchaseRetryScheduler {
+
+    /** 재시도 응답을 받을 때마다 호출 (구매 목록 캐시 무효화 등) */
+    interface ResultListener {
+        void onResult(PurchaseRetryQueue.Task task, BillingResult billingResult);
+    }
+
+    private static final String TAG = "BillingPlugin";
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private final PurchaseRetryQueue queue;
+    private final BillingConnectionManager connectionManager;
+    private final BillingMetrics metrics;
+    private final ResultListener resultListener;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BillingRetry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> nextRun;
+
+    PurchaseRetryScheduler(PurchaseRetryQueue queue, BillingConnectionManager connectionManager,
+            BillingMetrics metrics, ResultListener resultListener) {
+        this.queue = queue;
+        this.connectionManager = connectionManager;
+        this.metrics = metrics;
+        this.resultListener = resultListener;
+    }
+
+    /**
+     * 실패한 acknowledge/consume을 재시도 대기열에 추가. 다시 시도해도 소용없는 응답 코드면 추가하지 않는다.
+     *
+     * @return 재시도 예정이면 true
+     */
+    boolean enqueueIfRetryable(String purchaseToken, String operation, int responseCode) {
+        if (!isRetryable(responseCode)) {
+            return false;
+        }
+        NativeLog.w(TAG, "[인앱결제] 재시도 예약", "responseCode", responseCode, "operation", operation);
+        queue.enqueue(purchaseToken, operation, responseCode, System.currentTimeMillis());
+        post(false);
+        return true;
+    }
+
+    /** 다른 경로(JS 호출)로 처리에 성공한 토큰은 대기열에서 제거 */
+    void onSucceeded(String purchaseToken) {
+        queue.complete(purchaseToken);
+    }
+
+    /** 연결 성공 시 (BillingConnectionManager에서 호출) */
+    void onConnected() {
+        if (queue.size() > 0) {
+            post(true);
+        }
+    }
+
+    JSONObject toJson() throws JSONException {
+        return queue.toJson();
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void post(boolean expedite) {
+        try {
+            scheduler.execute(() -> runDue(expedite));
+        } catch (RejectedExecutionException e) {
+            // 이미 shutdown됨
+        }
+    }
+
+    private void runDue(boolean expedite) {
+        List<PurchaseRetryQueue.Task> due = queue.takeDue(System.currentTimeMillis(), MAX_IN_FLIGHT, expedite);
+        for (PurchaseRetryQueue.Task task : due) {
+            run(task);
+        }
+        scheduleNext();
+    }
+
+    private void run(PurchaseRetryQueue.Task task) {
+        // 연결되어 있지 않으면 연결 관리자가 재연결을 시작하고, 대기 시간 초과 시 onError로 실패 처리
+        connectionManager.execute(billingClient -> {
+            long startedAt = BillingMetrics.startTimer();
+            if (PurchaseRetryQueue.CONSUME.equals(task.operation)) {
+                billingClient.consumePurchase(task.purchaseToken, (billingResult, purchaseToken) -> {
+                    metrics.record(BillingMetrics.CONSUME, billingResult.getResponseCode(), startedAt);
+                    finish(task, billingResult);
+                });
+            } else {
+                billingClient.acknowledgePurchase(task.purchaseToken, billingResult -> {
+                    metrics.record(BillingMetrics.ACKNOWLEDGE, billingResult.getResponseCode(), startedAt);
+                    finish(task, billingResult);
+                });
+            }
+        }, (BillingConnectionManager.ResponseErrorCallback) (responseCode, message) -> {
+            queue.fail(task.purchaseToken, responseCode, isRetryable(responseCode), System.currentTimeMillis());
+            scheduleNext();
+        });
+    }
+
+    private void finish(PurchaseRetryQueue.Task task, BillingResult billingResult) {
+        int responseCode = billingResult.getResponseCode();
+        if (responseCode == BillingClient.BillingResponseCode.OK) {
+            NativeLog.d(TAG, "[인앱결제] 재시도 성공", "operation", task.operation, "attempts", task.attempts + 1);
+            queue.complete(task.purchaseToken);
+        } else {
+            NativeLog.w(TAG, "[인앱결제] 재시도 실패", "responseCode", responseCode, "operation", task.operation);
+            queue.fail(task.purchaseToken, responseCode, isRetryable(responseCode), System.currentTimeMillis());
+        }
+        resultListener.onResult(task, billingResult);
+        // 빈 자리에 다음 작업
+        post(false);
+    }
+
+    private synchronized void scheduleNext() {
+        if (nextRun != null) {
+            nextRun.cancel(false);
+            nextRun = null;
+        }
+        long nextAttemptAt = queue.nextAttemptAt();
+        if (nextAttemptAt == 0) {
+            return;
+        }
+        long delay = Math.max(0, nextAttemptAt - System.currentTimeMillis());
+        try {
+            nextRun = scheduler.schedule(() -> runDue(false), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 이미 shutdown됨
+        }
+    }
+
+    /** 일시적인 오류만 재시도 (BillingConnectionManager와 같은 기준) */
+    static boolean isRetryable(int responseCode) {
+        return BillingConnectionManager.isRetryable(responseCode);
+    }
+}
@@ -0,0 +1,146 @@
+package com.storypotion.app;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Play 구매 서명(originalJson + signature)을 앱의 라이선스 공개키로 검증
+ *
+ * 공개키와 Signature 객체는 처음 검증할 때 한 번만 만들고, 같은 구매(토큰 + 서명 + originalJson)의 결과는
+ * 최근 RESULT_CACHE_SIZE개까지 기억해서 queryPurchases가 반복돼도 RSA 검증을 다시 하지 않는다.
+ * originalJson은 SHA-256으로 비교하므로 토큰과 서명이 같아도 내용이 바뀐 구매는 다시 검증한다.
+ * 서버 검증을 대신하지는 않지만, 위조된 구매를 서버 왕복 없이 바로 걸러낼 수 있다.
+ */
+final class PurchaseVerifier {
+
+    static final String VALID = "valid";
+    static final String INVALID = "invalid";
+    // 공개키가 설정되지 않았거나 읽을 수 없음
+    static final String UNAVAILABLE = "unavailable";
+
+    private static final String TAG = "BillingPlugin";
+    private static final String KEY_ALGORITHM = "RSA";
+    private static final String SIGNATURE_ALGORITHM = "SHA1withRSA";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int RESULT_CACHE_SIZE = 256;
+
+    /** Base64 디코더 (Android에서는 android.util.Base64) */
+    interface Decoder {
+        byte[] decode(String value);
+    }
+
+    private final String base64PublicKey;
+    private final Decoder decoder;
+
+    /** 캐시된 검증 결과와 그 결과를 낸 입력 */
+    private static final class CachedResult {
+        final String signature;
+        final byte[] signedDataHash;
+        final String result;
+
+        CachedResult(String signature, byte[] signedDataHash, String result) {
+            this.signature = signature;
+            this.signedDataHash = signedDataHash;
+            this.result = result;
+        }
+
+        boolean matches(String signature, byte[] signedDataHash) {
+            return this.signature.equals(signature) && MessageDigest.isEqual(this.signedDataHash, signedDataHash);
+        }
+    }
+
+    private Signature signature;
+    private boolean keyUnavailable;
+    // 구매 토큰 -> 결과
+    private final Map<String, CachedResult> results = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > RESULT_CACHE_SIZE;
+        }
+    };
+
+    PurchaseVerifier(String base64PublicKey, Decoder decoder) {
+        this.base64PublicKey = base64PublicKey;
+        this.decoder = decoder;
+    }
+
+    /**
+     * VALID / INVALID / UNAVAILABLE 중 하나 반환
+     */
+    synchronized String verify(String purchaseToken, String signedData, String base64Signature) {
+        if (signedData == null || base64Signature == null || base64Signature.isEmpty()) {
+            return INVALID;
+        }
+        if (!ensureSignature()) {
+            return UNAVAILABLE;
+        }
+
+        byte[] signedBytes = signedData.getBytes(StandardCharsets.UTF_8);
+        byte[] signedDataHash = purchaseToken != null ? sha256(signedBytes) : null;
+        CachedResult cached = signedDataHash != null ? results.get(purchaseToken) : null;
+        if (cached != null && cached.matches(base64Signature, signedDataHash)) {
+            return cached.result;
+        }
+
+        String result;
+        try {
+            byte[] signatureBytes = decoder.decode(base64Signature);
+            signature.update(signedBytes);
+            result = signature.verify(signatureBytes) ? VALID : INVALID;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            // 잘못된 Base64 / 서명 형식 (Signature 상태를 알 수 없으므로 다음에 다시 만든다)
+            signature = null;
+            result = INVALID;
+        }
+
+        if (signedDataHash != null) {
+            results.put(purchaseToken, new CachedResult(base64Signature, signedDataHash, result));
+        }
+        if (INVALID.equals(result)) {
+            NativeLog.w(TAG, "[인앱결제] 구매 서명 검증 실패");
+        }
+        return result;
+    }
+
+    /** 캐시 비교용 해시 (SHA-256을 쓸 수 없으면 null = 캐시하지 않음) */
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /** 공개키와 Signature 준비 (실패하면 다시 시도하지 않음) */
+    private boolean ensureSignature() {
+        if (signature != null) {
+            return true;
+        }
+        if (keyUnavailable) {
+            return false;
+        }
+        try {
+            if (base64PublicKey == null || base64PublicKey.isEmpty()) {
+                throw new IllegalArgumentException("Public key is not configured");
+            }
+            PublicKey publicKey = KeyFactory.getInstance(KEY_ALGORITHM)
+                    .generatePublic(new X509EncodedKeySpec(decoder.decode(base64PublicKey)));
+            Signature instance = Signature.getInstance(SIGNATURE_ALGORITHM);
+            instance.initVerify(publicKey);
+            signature = instance;
+            return true;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            keyUnavailable = true;
+            NativeLog.w(TAG, "[인앱결제] 라이선스 공개키를 읽을 수 없어 서명 검증 생략", "error", e.getMessage());
+            return false;
+        }
+    }
+}
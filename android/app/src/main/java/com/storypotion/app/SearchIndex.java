@@ -0,0 +1,755 @@
+package com.storypotion.app;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 일기/소설 본문 전문 검색 인덱스
+ *
+ * - 문서(제목 + 본문)는 OfflineJournal에 한 건씩 추가하고, 수정/삭제되면 예전 레코드를 완료 처리한다.
+ *   역색인은 메모리에만 두고 열 때 저널을 읽어 다시 만든다. 내용이 같은 문서는 다시 쓰지 않는다.
+ * - 토큰: 한글/한자/가나는 글자 2-gram과 연속 구간의 마지막 글자, 그 밖의 글자/숫자는 단어 하나.
+ *   공백만 사이에 둔 한글 구간끼리는 공백을 건너뛴 2-gram도 색인한다.
+ *   그래서 조사가 붙거나 띄어쓰기가 달라도 부분 문자열로 찾을 수 있다 ("여름 방학" ↔ "여름방학에" 양쪽 모두).
+ * - 검색어: 공백으로 나눈 단어는 모두 포함(AND), "..."는 구(phrase), 단어 끝의 *는 접두어.
+ *   순위는 BM25 (제목에서 찾으면 가중치), 점수가 같으면 날짜 최신순.
+ * 스레드 안전하지만 디스크 I/O를 하므로 백그라운드 스레드에서 호출해야 한다.
+ */
+final class SearchIndex implements Closeable {
+
+    private static final String TAG = "SearchIndex";
+    private static final String JOURNAL_FILE = "documents.journal";
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    // 라틴 문자 단어는 이 길이까지만 색인
+    private static final int MAX_WORD_LENGTH = 32;
+    // 접두어 하나가 펼쳐지는 용어 수 상한
+    private static final int MAX_PREFIX_TERMS = 512;
+    // 삭제된 문서가 이만큼 쌓이고 남은 문서의 1/4을 넘으면 역색인을 다시 만듦
+    private static final int REBUILD_MIN_DELETED = 256;
+    private static final int SNIPPET_BEFORE = 20;
+    private static final int SNIPPET_LENGTH = 80;
+
+    // BM25 계수
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_BOOST = 3;
+
+    /** 색인할 문서 */
+    static final class Document {
+        final String id;
+        final String type;
+        final String title;
+        final String text;
+        final long date;
+
+        Document(String id, String type, String title, String text, long date) {
+            this.id = id;
+            this.type = type;
+            this.title = title != null ? title : "";
+            this.text = text != null ? text : "";
+            this.date = date;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("id", id);
+            json.put("type", type);
+            json.put("title", title);
+            json.put("text", text);
+            json.put("date", date);
+            return json;
+        }
+
+        static Document fromJson(JSONObject json) throws JSONException {
+            return new Document(json.getString("id"), json.getString("type"), json.optString("title"),
+                    json.optString("text"), json.optLong("date"));
+        }
+    }
+
+    /** 검색 결과 하나 */
+    static final class Hit {
+        final String id;
+        final String type;
+        final String title;
+        final long date;
+        final double score;
+        final String snippet;
+
+        Hit(String id, String type, String title, long date, double score, String snippet) {
+            this.id = id;
+            this.type = type;
+            this.title = title;
+            this.date = date;
+            this.score = score;
+            this.snippet = snippet;
+        }
+    }
+
+    /** 검색 결과 한 페이지. nextCursor가 null이면 마지막 페이지 */
+    static final class Page {
+        final List<Hit> hits;
+        final int total;
+        final String nextCursor;
+
+        Page(List<Hit> hits, int total, String nextCursor) {
+            this.hits = hits;
+            this.total = total;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    /** 색인된 문서 (본문은 저널에만 있음) */
+    private static final class DocInfo {
+        final String id;
+        final String type;
+        final String title;
+        final long date;
+        final long seq;
+        final long fingerprint;
+        // 제목 토큰 위치는 [0, titleLength), 본문은 titleLength + 1부터
+        final int titleLength;
+        final int length;
+
+        DocInfo(Document document, long seq, long fingerprint, int titleLength, int length) {
+            this.id = document.id;
+            this.type = document.type;
+            this.title = document.title;
+            this.date = document.date;
+            this.seq = seq;
+            this.fingerprint = fingerprint;
+            this.titleLength = titleLength;
+            this.length = length;
+        }
+    }
+
+    /** 용어 하나의 출현 목록: [문서 번호, 개수, 위치...]를 문서 번호 순으로 이어 붙인 배열 */
+    private static final class Postings {
+        int[] data = new int[8];
+        int size;
+
+        void add(int ordinal, IntList positions) {
+            int needed = size + 2 + positions.size;
+            if (needed > data.length) {
+                data = Arrays.copyOf(data, Math.max(needed, data.length * 2));
+            }
+            data[size++] = ordinal;
+            data[size++] = positions.size;
+            System.arraycopy(positions.values, 0, data, size, positions.size);
+            size += positions.size;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /** 검색어의 용어 하나와 구 안에서의 상대 위치 */
+    private static final class Element {
+        final String term;
+        final int offset;
+        final boolean prefix;
+
+        Element(String term, int offset, boolean prefix) {
+            this.term = term;
+            this.offset = offset;
+            this.prefix = prefix;
+        }
+    }
+
+    /** 순위 계산이 끝난 문서 */
+    private static final class Ranked {
+        final int ordinal;
+        final double score;
+        // 본문에서 처음 찾은 위치 (없으면 -1)
+        final int firstBodyPosition;
+
+        Ranked(int ordinal, double score, int firstBodyPosition) {
+            this.ordinal = ordinal;
+            this.score = score;
+            this.firstBodyPosition = firstBodyPosition;
+        }
+    }
+
+    private interface TermSink {
+        void accept(String term, int position, int charStart, boolean prefix);
+    }
+
+    private final OfflineJournal journal;
+
+    // 문서 번호(ordinal) -> 문서, 삭제된 번호는 null. 번호는 계속 늘기만 하므로 출현 목록이 번호 순으로 유지됨
+    private final List<DocInfo> docs = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private int deletedCount;
+    private long totalLength;
+    private long postingInts;
+    // 변경될 때마다 증가 (마지막 검색 결과 재사용 판단)
+    private long generation;
+
+    private String lastQueryKey;
+    private List<Ranked> lastRanking;
+
+    SearchIndex(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+        journal = new OfflineJournal(new File(directory, JOURNAL_FILE));
+        rebuild();
+    }
+
+    /**
+     * 문서 추가 또는 교체
+     *
+     * @return 내용이 바뀌어 새로 색인했으면 true (같은 내용이면 아무것도 하지 않음)
+     */
+    synchronized boolean upsert(Document document) throws IOException {
+        String payload;
+        try {
+            payload = document.toJson().toString();
+        } catch (JSONException e) {
+            throw new IOException("Failed to serialize document " + document.id, e);
+        }
+        long fingerprint = fingerprint(payload);
+
+        Integer existing = ordinals.get(document.id);
+        if (existing != null && docs.get(existing).fingerprint == fingerprint) {
+            return false;
+        }
+
+        long seq = journal.append(payload);
+        if (existing != null) {
+            journal.acknowledge(new long[] { docs.get(existing).seq });
+            markDeleted(existing);
+        }
+        addToIndex(document, seq, fingerprint);
+        generation++;
+        rebuildIfSparse();
+        return true;
+    }
+
+    /** @return 있던 문서를 지웠으면 true */
+    synchronized boolean remove(String id) throws IOException {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal == null) {
+            return false;
+        }
+        journal.acknowledge(new long[] { docs.get(ordinal).seq });
+        markDeleted(ordinal);
+        generation++;
+        rebuildIfSparse();
+        return true;
+    }
+
+    synchronized void clear() throws IOException {
+        journal.clear();
+        reset();
+        generation++;
+    }
+
+    /**
+     * 검색
+     *
+     * @param type   "diary", "novel" 등 문서 종류로 거르기 (null이면 전체)
+     * @param cursor 이전 페이지의 nextCursor (null이면 처음부터)
+     * @throws IllegalArgumentException cursor 형식이 잘못됨
+     */
+    synchronized Page search(String query, String type, String cursor, int limit) throws IOException {
+        int offset = parseCursor(cursor);
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        String normalized = normalize(query != null ? query : "");
+        String queryKey = generation + "\u0000" + type + "\u0000" + normalized;
+        if (!queryKey.equals(lastQueryKey)) {
+            lastRanking = rank(parse(normalized), type);
+            lastQueryKey = queryKey;
+        }
+
+        List<Ranked> ranking = lastRanking;
+        List<Hit> hits = new ArrayList<>();
+        int end = Math.min(ranking.size(), offset + limit);
+        for (int i = offset; i < end; i++) {
+            Ranked ranked = ranking.get(i);
+            DocInfo info = docs.get(ranked.ordinal);
+            hits.add(new Hit(info.id, info.type, info.title, info.date, ranked.score,
+                    snippet(info, ranked.firstBodyPosition)));
+        }
+        return new Page(hits, ranking.size(), end < ranking.size() ? String.valueOf(end) : null);
+    }
+
+    synchronized int size() {
+        return ordinals.size();
+    }
+
+    /** 마지막 sync 이후의 변경을 디스크에 반영 */
+    synchronized void sync() throws IOException {
+        journal.sync();
+    }
+
+    /**
+     * { documents, terms, postingBytes, deletedSlots, journalBytes }
+     */
+    synchronized JSONObject stats() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("documents", ordinals.size());
+        json.put("terms", terms.size());
+        json.put("postingBytes", postingInts * 4);
+        json.put("deletedSlots", deletedCount);
+        json.put("journalBytes", journal.fileBytes());
+        return json;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    private void reset() {
+        docs.clear();
+        ordinals.clear();
+        terms.clear();
+        deletedCount = 0;
+        totalLength = 0;
+        postingInts = 0;
+        lastQueryKey = null;
+        lastRanking = null;
+    }
+
+    /** 저널에 남은 문서로 역색인을 처음부터 다시 만듦 */
+    private void rebuild() throws IOException {
+        long startedAt = System.currentTimeMillis();
+        reset();
+        long after = 0;
+        while (true) {
+            List<OfflineJournal.Entry> entries = journal.read(after, 256);
+            if (entries.isEmpty()) {
+                break;
+            }
+            for (OfflineJournal.Entry entry : entries) {
+                after = entry.seq;
+                try {
+                    addToIndex(Document.fromJson(new JSONObject(entry.payload)), entry.seq,
+                            fingerprint(entry.payload));
+                } catch (JSONException e) {
+                    NativeLog.w(TAG, "문서 읽기 실패", "seq", entry.seq, "error", e);
+                    journal.acknowledge(new long[] { entry.seq });
+                }
+            }
+        }
+        generation++;
+        NativeLog.d(TAG, "검색 인덱스 준비", "documents", ordinals.size(),
+                "elapsedMs", System.currentTimeMillis() - startedAt);
+    }
+
+    private void rebuildIfSparse() throws IOException {
+        if (deletedCount >= REBUILD_MIN_DELETED && deletedCount > ordinals.size() / 4) {
+            rebuild();
+        }
+    }
+
+    private void addToIndex(Document document, long seq, long fingerprint) {
+        Integer previous = ordinals.get(document.id);
+        if (previous != null) {
+            // 저널에 같은 id가 두 번 남아 있으면 나중 것 사용
+            markDeleted(previous);
+        }
+
+        Map<String, IntList> positions = new HashMap<>();
+        TermSink sink = (term, position, charStart, prefix) -> {
+            IntList list = positions.get(term);
+            if (list == null) {
+                list = new IntList();
+                positions.put(term, list);
+            }
+            list.add(position);
+        };
+        int titleLength = tokenize(normalize(document.title), 0, false, sink);
+        int length = tokenize(normalize(document.text), titleLength + 1, false, sink);
+
+        int ordinal = docs.size();
+        for (Map.Entry<String, IntList> entry : positions.entrySet()) {
+            Postings postings = terms.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(entry.getKey(), postings);
+            }
+            postings.add(ordinal, entry.getValue());
+            postingInts += 2 + entry.getValue().size;
+        }
+        docs.add(new DocInfo(document, seq, fingerprint, titleLength, length));
+        ordinals.put(document.id, ordinal);
+        totalLength += length;
+    }
+
+    private void markDeleted(int ordinal) {
+        DocInfo info = docs.get(ordinal);
+        docs.set(ordinal, null);
+        ordinals.remove(info.id);
+        totalLength -= info.length;
+        deletedCount++;
+    }
+
+    /** 모든 구(clause)를 포함하는 문서를 점수 순으로 */
+    private List<Ranked> rank(List<List<Element>> clauses, String type) {
+        if (clauses.isEmpty() || ordinals.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Map<Integer, int[]>> matches = new ArrayList<>();
+        Map<Integer, int[]> smallest = null;
+        for (List<Element> clause : clauses) {
+            Map<Integer, int[]> clauseMatches = match(clause, type);
+            if (clauseMatches.isEmpty()) {
+                return Collections.emptyList();
+            }
+            matches.add(clauseMatches);
+            if (smallest == null || clauseMatches.size() < smallest.size()) {
+                smallest = clauseMatches;
+            }
+        }
+
+        int documentCount = ordinals.size();
+        double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+        List<Ranked> ranking = new ArrayList<>();
+        for (Integer ordinal : smallest.keySet()) {
+            DocInfo info = docs.get(ordinal);
+            double score = 0;
+            int firstBodyPosition = -1;
+            boolean matchedAll = true;
+            for (Map<Integer, int[]> clauseMatches : matches) {
+                int[] starts = clauseMatches.get(ordinal);
+                if (starts == null) {
+                    matchedAll = false;
+                    break;
+                }
+                int frequency = 0;
+                for (int start : starts) {
+                    if (start < info.titleLength) {
+                        frequency += TITLE_BOOST;
+                    } else {
+                        frequency++;
+                        if (firstBodyPosition < 0 || start < firstBodyPosition) {
+                            firstBodyPosition = start;
+                        }
+                    }
+                }
+                int df = clauseMatches.size();
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                score += idf * frequency * (K1 + 1)
+                        / (frequency + K1 * (1 - B + B * info.length / averageLength));
+            }
+            if (matchedAll) {
+                ranking.add(new Ranked(ordinal, score, firstBodyPosition));
+            }
+        }
+
+        Collections.sort(ranking, (a, b) -> {
+            int byScore = Double.compare(b.score, a.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byDate = Long.compare(docs.get(b.ordinal).date, docs.get(a.ordinal).date);
+            return byDate != 0 ? byDate : docs.get(a.ordinal).id.compareTo(docs.get(b.ordinal).id);
+        });
+        return ranking;
+    }
+
+    /** 구 하나가 나오는 문서 -> 구의 시작 위치들 */
+    private Map<Integer, int[]> match(List<Element> clause, String type) {
+        List<Map<Integer, int[]>> elementPositions = new ArrayList<>();
+        int anchor = 0;
+        for (int i = 0; i < clause.size(); i++) {
+            Map<Integer, int[]> positions = positions(clause.get(i), type);
+            if (positions.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            elementPositions.add(positions);
+            if (positions.size() < elementPositions.get(anchor).size()) {
+                anchor = i;
+            }
+        }
+
+        Element anchorElement = clause.get(anchor);
+        Map<Integer, int[]> result = new HashMap<>();
+        IntList starts = new IntList();
+        for (Map.Entry<Integer, int[]> entry : elementPositions.get(anchor).entrySet()) {
+            starts.size = 0;
+            for (int position : entry.getValue()) {
+                int start = position - anchorElement.offset;
+                boolean matched = true;
+                for (int i = 0; i < clause.size() && matched; i++) {
+                    if (i == anchor) {
+                        continue;
+                    }
+                    int[] others = elementPositions.get(i).get(entry.getKey());
+                    matched = others != null && Arrays.binarySearch(others, start + clause.get(i).offset) >= 0;
+                }
+                if (matched) {
+                    starts.add(start);
+                }
+            }
+            if (starts.size > 0) {
+                result.put(entry.getKey(), Arrays.copyOf(starts.values, starts.size));
+            }
+        }
+        return result;
+    }
+
+    /** 용어(접두어면 펼친 용어들)가 나오는 문서 -> 정렬된 위치들 */
+    private Map<Integer, int[]> positions(Element element, String type) {
+        List<Postings> lists = new ArrayList<>();
+        if (element.prefix) {
+            NavigableMap<String, Postings> expanded = terms.subMap(element.term, true, element.term + '\uffff', true);
+            for (Postings postings : expanded.values()) {
+                if (lists.size() >= MAX_PREFIX_TERMS) {
+                    break;
+                }
+                lists.add(postings);
+            }
+        } else {
+            Postings postings = terms.get(element.term);
+            if (postings != null) {
+                lists.add(postings);
+            }
+        }
+
+        Map<Integer, IntList> merged = new HashMap<>();
+        for (Postings postings : lists) {
+            int[] data = postings.data;
+            int i = 0;
+            while (i < postings.size) {
+                int ordinal = data[i];
+                int count = data[i + 1];
+                int from = i + 2;
+                i = from + count;
+                DocInfo info = docs.get(ordinal);
+                if (info == null || (type != null && !type.equals(info.type))) {
+                    continue;
+                }
+                IntList list = merged.get(ordinal);
+                if (list == null) {
+                    list = new IntList();
+                    merged.put(ordinal, list);
+                }
+                for (int j = from; j < from + count; j++) {
+                    list.add(data[j]);
+                }
+            }
+        }
+
+        Map<Integer, int[]> result = new HashMap<>();
+        for (Map.Entry<Integer, IntList> entry : merged.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toSortedArray());
+        }
+        return result;
+    }
+
+    /** 본문에서 처음 찾은 곳 주변 (제목에서만 찾았으면 본문 앞부분) */
+    private String snippet(DocInfo info, int firstBodyPosition) throws IOException {
+        List<OfflineJournal.Entry> entries = journal.read(info.seq - 1, 1);
+        if (entries.isEmpty() || entries.get(0).seq != info.seq) {
+            return "";
+        }
+        String text;
+        try {
+            text = Document.fromJson(new JSONObject(entries.get(0).payload)).text;
+        } catch (JSONException e) {
+            return "";
+        }
+
+        // normalize()와 같은 길이가 되도록 소문자 변환 전 문자열에서 자름
+        String composed = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        int[] charStart = { 0 };
+        if (firstBodyPosition >= 0) {
+            tokenize(lowerCase(composed), info.titleLength + 1, false, (term, position, start, prefix) -> {
+                if (position == firstBodyPosition) {
+                    charStart[0] = start;
+                }
+            });
+        }
+
+        int from = Math.max(0, charStart[0] - SNIPPET_BEFORE);
+        int to = Math.min(composed.length(), from + SNIPPET_LENGTH);
+        String snippet = composed.substring(from, to).replaceAll("\\s+", " ").trim();
+        return (from > 0 ? "…" : "") + snippet + (to < composed.length() ? "…" : "");
+    }
+
+    /**
+     * 검색어를 구(clause) 목록으로. 따옴표 안은 하나의 구, 밖은 공백으로 나눈 단어마다 하나의 구.
+     */
+    private static List<List<Element>> parse(String query) {
+        List<List<Element>> clauses = new ArrayList<>();
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int end;
+            String part;
+            if (c == '"') {
+                end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = length;
+                }
+                part = query.substring(i + 1, end);
+                end++;
+            } else {
+                end = i;
+                while (end < length && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                part = query.substring(i, end);
+            }
+            i = end;
+
+            List<Element> clause = new ArrayList<>();
+            tokenize(part, 0, true, (term, position, charStart, prefix) ->
+                    clause.add(new Element(term, position, prefix)));
+            if (!clause.isEmpty()) {
+                clauses.add(clause);
+            }
+        }
+        return clauses;
+    }
+
+    /**
+     * 정규화된 문자열을 토큰으로 나눠 sink에 전달하고 다음 위치를 반환
+     *
+     * 한글/한자/가나 구간은 글자마다 위치 하나, 그 밖의 단어는 단어마다 위치 하나를 쓴다.
+     * 공백은 위치를 차지하지 않으므로 띄어쓰기가 달라도 같은 위치 관계가 된다.
+     * 색인할 때는 공백만 사이에 둔 두 구간의 경계 2-gram도 앞 구간 끝 글자 위치에 내서,
+     * 붙여 쓴 검색어("여름방학")가 띄어 쓴 본문("여름 방학")에도 맞게 한다.
+     * 검색어(query)일 때는 구간 끝 글자를 따로 내지 않고, 한 글자 구간과 *로 끝나는 단어는 접두어로 표시한다.
+     */
+    private static int tokenize(String text, int base, boolean query, TermSink sink) {
+        int position = base;
+        int length = text.length();
+        // 직전 한글/한자 구간이 끝난 글자 위치 (직전 토큰이 단어였으면 -1)
+        int lastCjkEnd = -1;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                i++;
+                continue;
+            }
+            boolean cjk = isCjk(c);
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i)) && isCjk(text.charAt(i)) == cjk) {
+                i++;
+            }
+
+            if (cjk) {
+                int runLength = i - start;
+                if (!query && lastCjkEnd > 0 && isBlank(text, lastCjkEnd, start)) {
+                    sink.accept(text.substring(lastCjkEnd - 1, lastCjkEnd) + text.charAt(start), position - 1,
+                            lastCjkEnd - 1, false);
+                }
+                for (int j = start; j < i - 1; j++) {
+                    sink.accept(text.substring(j, j + 2), position + j - start, j, false);
+                }
+                if (runLength == 1 || !query) {
+                    // 한 글자 검색어는 그 글자로 시작하는 2-gram과 끝 글자 모두에 맞도록 접두어로
+                    sink.accept(text.substring(i - 1, i), position + runLength - 1, i - 1, query);
+                }
+                position += runLength;
+                lastCjkEnd = i;
+            } else {
+                boolean prefix = query && i < length && text.charAt(i) == '*';
+                sink.accept(text.substring(start, Math.min(i, start + MAX_WORD_LENGTH)), position, start, prefix);
+                position++;
+                lastCjkEnd = -1;
+            }
+        }
+        return position;
+    }
+
+    /** from부터 to 앞까지 공백만 있는지 */
+    private static boolean isBlank(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= 0xAC00 && c <= 0xD7A3) // 한글 음절
+                || (c >= 0x1100 && c <= 0x11FF) // 한글 자모
+                || (c >= 0x3130 && c <= 0x318F) // 한글 호환 자모
+                || (c >= 0x3040 && c <= 0x30FF) // 히라가나, 가타카나
+                || (c >= 0x3400 && c <= 0x4DBF) // 한자 확장 A
+                || (c >= 0x4E00 && c <= 0x9FFF); // 한자
+    }
+
+    /** 호환 문자(전각 영문 등)를 합치고 소문자로. 길이는 NFKC 결과와 같음 */
+    static String normalize(String text) {
+        return lowerCase(Normalizer.normalize(text, Normalizer.Form.NFKC));
+    }
+
+    private static String lowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static int parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset >= 0) {
+                return offset;
+            }
+        } catch (NumberFormatException e) {
+            // 아래에서 처리
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    /** 64비트 FNV-1a (내용이 바뀌었는지 확인용) */
+    private static long fingerprint(String payload) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < payload.length(); i++) {
+            hash ^= payload.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,304 @@
+package com.storypotion.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchIndex.js용 일기/소설 전문 검색 플러그인 (SearchIndex)
+ *
+ * 색인과 검색 모두 전용 스레드 하나에서 실행한다. 앱 시작 시 저널에서 역색인을 다시 만드는 동안 들어온 호출은
+ * 그 뒤에 차례로 처리된다. 색인 변경은 SYNC_DELAY_MS 뒤와 앱이 백그라운드로 갈 때 디스크에 반영한다.
+ */
+@CapacitorPlugin(name = "SearchIndex")
+public class SearchIndexPlugin extends Plugin {
+
+    private static final String TAG = "SearchIndex";
+    private static final String INDEX_DIR = "search-index";
+
+    private static final long SYNC_DELAY_MS = 2_000;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SearchIndex");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SearchIndex index;
+    private IOException openError;
+    // 디스크 반영이 예약되어 있는지 (executor 스레드에서만 접근)
+    private boolean syncScheduled;
+
+    @Override
+    public void load() {
+        File directory = new File(getContext().getFilesDir(), INDEX_DIR);
+        executor.execute(() -> open(directory));
+    }
+
+    @Override
+    protected void handleOnPause() {
+        executor.execute(this::syncNow);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        executor.execute(() -> {
+            if (index != null) {
+                try {
+                    index.close();
+                } catch (IOException e) {
+                    NativeLog.e(TAG, "검색 인덱스 닫기 실패", "error", e);
+                }
+            }
+        });
+        executor.shutdown();
+    }
+
+    /**
+     * 문서 추가/교체
+     * documents: [{ id, type("diary" | "novel"), title, text, date(ms) }]
+     * 반환: { indexed, unchanged }
+     */
+    @PluginMethod
+    public void index(PluginCall call) {
+        JSArray documents = call.getArray("documents");
+        if (documents == null) {
+            call.reject("documents is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            int indexed = 0;
+            int unchanged = 0;
+            try {
+                for (int i = 0; i < documents.length(); i++) {
+                    JSONObject document = documents.optJSONObject(i);
+                    String id = document != null ? document.optString("id", null) : null;
+                    String type = document != null ? document.optString("type", null) : null;
+                    if (id == null || type == null) {
+                        continue;
+                    }
+                    boolean changed = index.upsert(new SearchIndex.Document(id, type,
+                            document.optString("title"), document.optString("text"), document.optLong("date")));
+                    if (changed) {
+                        indexed++;
+                    } else {
+                        unchanged++;
+                    }
+                }
+            } catch (IOException e) {
+                NativeLog.e(TAG, "문서 색인 실패", "error", e);
+                call.reject("Failed to index documents: " + e.getMessage());
+                return;
+            }
+            if (indexed > 0) {
+                scheduleSync();
+            }
+
+            JSObject result = new JSObject();
+            result.put("indexed", indexed);
+            result.put("unchanged", unchanged);
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * 문서 삭제
+     * ids: 삭제할 문서 id 목록
+     * 반환: { removed }
+     */
+    @PluginMethod
+    public void remove(PluginCall call) {
+        JSArray ids = call.getArray("ids");
+        if (ids == null) {
+            call.reject("ids is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            int removed = 0;
+            try {
+                for (int i = 0; i < ids.length(); i++) {
+                    String id = ids.optString(i, null);
+                    if (id != null && index.remove(id)) {
+                        removed++;
+                    }
+                }
+            } catch (IOException e) {
+                NativeLog.e(TAG, "문서 삭제 실패", "error", e);
+                call.reject("Failed to remove documents: " + e.getMessage());
+                return;
+            }
+            if (removed > 0) {
+                scheduleSync();
+            }
+
+            JSObject result = new JSObject();
+            result.put("removed", removed);
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * 검색
+     * query: 검색어 (공백으로 나눈 단어는 모두 포함, "..."는 구, 단어 끝 *는 접두어)
+     * type: "diary" | "novel" (생략하면 전체), limit: 페이지 크기(기본 20, 최대 100), cursor: 이전 응답의 nextCursor
+     * 반환: { results: [{ id, type, title, date, score, snippet }], total, nextCursor, tookMs }
+     */
+    @PluginMethod
+    public void search(PluginCall call) {
+        String query = call.getString("query", "");
+        String type = call.getString("type");
+        String cursor = call.getString("cursor");
+        int limit = call.getInt("limit", SearchIndex.DEFAULT_PAGE_SIZE);
+
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            long startedAt = System.nanoTime();
+            SearchIndex.Page page;
+            try {
+                page = index.search(query, type, cursor, limit);
+            } catch (IllegalArgumentException e) {
+                call.reject(e.getMessage());
+                return;
+            } catch (IOException e) {
+                NativeLog.e(TAG, "검색 실패", "error", e);
+                call.reject("Failed to search: " + e.getMessage());
+                return;
+            }
+
+            JSONArray results = new JSONArray();
+            try {
+                for (SearchIndex.Hit hit : page.hits) {
+                    JSONObject item = new JSONObject();
+                    item.put("id", hit.id);
+                    item.put("type", hit.type);
+                    item.put("title", hit.title);
+                    item.put("date", hit.date);
+                    item.put("score", hit.score);
+                    item.put("snippet", hit.snippet);
+                    results.put(item);
+                }
+            } catch (JSONException e) {
+                call.reject("Failed to serialize results: " + e.getMessage());
+                return;
+            }
+
+            JSObject result = new JSObject();
+            result.put("results", results);
+            result.put("total", page.total);
+            result.put("nextCursor", page.nextCursor != null ? page.nextCursor : JSONObject.NULL);
+            result.put("tookMs", (System.nanoTime() - startedAt) / 1_000_000);
+            call.resolve(result);
+        });
+    }
+
+    /** 모든 문서 삭제 (로그아웃, 다른 계정으로 로그인) */
+    @PluginMethod
+    public void clear(PluginCall call) {
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            try {
+                index.clear();
+                index.sync();
+            } catch (IOException e) {
+                NativeLog.e(TAG, "검색 인덱스 비우기 실패", "error", e);
+                call.reject("Failed to clear search index: " + e.getMessage());
+                return;
+            }
+            JSObject result = new JSObject();
+            result.put("success", true);
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * 인덱스 통계
+     * 반환: { documents, terms, postingBytes, deletedSlots, journalBytes }
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        executor.execute(() -> {
+            if (!ensureOpen(call)) {
+                return;
+            }
+            try {
+                call.resolve(JSObject.fromJSONObject(index.stats()));
+            } catch (JSONException e) {
+                call.resolve(new JSObject());
+            }
+        });
+    }
+
+    private void open(File directory) {
+        try {
+            index = new SearchIndex(directory);
+        } catch (IOException e) {
+            // 인덱스는 JS가 다시 채울 수 있으므로 읽을 수 없는 파일은 지우고 새로 시작
+            NativeLog.e(TAG, "검색 인덱스 열기 실패, 새로 시작", "error", e);
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            try {
+                index = new SearchIndex(directory);
+            } catch (IOException retryError) {
+                openError = retryError;
+            }
+        }
+    }
+
+    private boolean ensureOpen(PluginCall call) {
+        if (index != null) {
+            return true;
+        }
+        call.reject("Search index is not available: "
+                + (openError != null ? openError.getMessage() : "not loaded"));
+        return false;
+    }
+
+    private void scheduleSync() {
+        if (syncScheduled) {
+            return;
+        }
+        syncScheduled = true;
+        executor.schedule(this::syncNow, SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void syncNow() {
+        syncScheduled = false;
+        if (index == null) {
+            return;
+        }
+        try {
+            index.sync();
+        } catch (IOException e) {
+            NativeLog.w(TAG, "검색 인덱스 저장 실패", "error", e);
+        }
+    }
+}
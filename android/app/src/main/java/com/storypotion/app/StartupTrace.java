@@ -0,0 +1,63 @@
+package com.storypotion.app;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 앱 시작 구간 시각 기록
+ *
+ * 단계마다 처음 한 번만 기록하고, ACTIVITY_CREATE를 0으로 한 경과 시간(ms)으로 보여 준다.
+ * 프로세스가 살아 있는 동안 유지되므로 액티비티가 다시 만들어져도 첫 시작 기록이 남는다.
+ */
+final class StartupTrace {
+
+    static final String ACTIVITY_CREATE = "activityCreate";
+    static final String BILLING_PREWARM = "billingPrewarm";
+    static final String WEBVIEW_READY = "webViewReady";
+    static final String FIRST_BILLING_CALL = "firstBillingCall";
+    static final String BILLING_READY = "billingReady";
+
+    private static final Object lock = new Object();
+    // 단계 -> System.nanoTime (기록 순서 유지)
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+    private static long originWallTime;
+
+    private StartupTrace() {
+    }
+
+    /** 단계 기록 (이미 기록된 단계는 무시) */
+    static void mark(String name) {
+        long now = System.nanoTime();
+        synchronized (lock) {
+            if (marks.containsKey(name)) {
+                return;
+            }
+            if (marks.isEmpty()) {
+                originWallTime = System.currentTimeMillis();
+            }
+            marks.put(name, now);
+        }
+        NativeLog.d("StartupTrace", "시작 단계", "mark", name);
+    }
+
+    /** { startedAt, marks: { 단계: 경과 ms } } (기준은 ACTIVITY_CREATE, 없으면 첫 기록) */
+    static JSONObject toJson() throws JSONException {
+        synchronized (lock) {
+            JSONObject result = new JSONObject();
+            JSONObject elapsed = new JSONObject();
+            if (!marks.isEmpty()) {
+                Long origin = marks.get(ACTIVITY_CREATE);
+                long originNanos = origin != null ? origin : marks.values().iterator().next();
+                for (Map.Entry<String, Long> entry : marks.entrySet()) {
+                    elapsed.put(entry.getKey(), (entry.getValue() - originNanos) / 1_000_000L);
+                }
+                result.put("startedAt", originWallTime);
+            }
+            result.put("marks", elapsed);
+            return result;
+        }
+    }
+}
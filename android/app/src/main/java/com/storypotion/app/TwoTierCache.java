@@ -0,0 +1,361 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 메모리 + 디스크 2단계 LRU 캐시 (문자열 값)
+ *
+ * - 메모리: 최근 사용한 값을 memoryMaxBytes까지 보관
+ * - 디스크: 키마다 파일 하나, 전체 크기가 diskMaxBytes를 넘으면 가장 오래 안 쓴 것부터 삭제
+ * - 인덱스(키, 파일명, 크기, 만료 시각)만 메모리에 두므로 조회/정리에 값을 읽을 필요가 없다.
+ *   인덱스는 flush()에서 스냅샷 파일로 저장하고, 저장 전에 죽으면 다음 실행 때 인덱스에 없는 파일을 지운다.
+ * 스레드 안전하지만 디스크 I/O를 하므로 백그라운드 스레드에서 호출해야 한다.
+ */
+final class TwoTierCache {
+
+    private static final String TAG = "OfflineCache";
+    private static final String INDEX_FILE = "index.json";
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    /** 디스크 인덱스 항목 */
+    private static final class IndexEntry {
+        final String fileName;
+        final long bytes;
+        final long expiresAt;
+
+        IndexEntry(String fileName, long bytes, long expiresAt) {
+            this.fileName = fileName;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** 메모리 항목 */
+    private static final class MemoryEntry {
+        final String value;
+        final long expiresAt;
+
+        MemoryEntry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        long bytes() {
+            // Java 문자열은 문자당 2바이트
+            return value.length() * 2L;
+        }
+    }
+
+    private final File directory;
+    private final long memoryMaxBytes;
+    private final long diskMaxBytes;
+
+    // accessOrder=true: 순회 순서가 가장 오래 안 쓴 것부터
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+    private boolean indexDirty;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    TwoTierCache(File directory, long memoryMaxBytes, long diskMaxBytes) {
+        this.directory = directory;
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.diskMaxBytes = diskMaxBytes;
+        loadIndex();
+    }
+
+    /** 만료되지 않은 값. 없으면 null */
+    synchronized String get(String key) {
+        long now = System.currentTimeMillis();
+        MemoryEntry cached = memory.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            // 디스크 쪽 LRU 순서도 갱신
+            index.get(key);
+            hits++;
+            return cached.value;
+        }
+
+        IndexEntry entry = index.get(key);
+        if (entry == null || entry.expiresAt <= now) {
+            if (entry != null) {
+                removeEntry(key);
+            }
+            misses++;
+            return null;
+        }
+
+        String value;
+        try {
+            value = FileSnapshots.read(new File(directory, entry.fileName));
+        } catch (IOException e) {
+            NativeLog.w(TAG, "캐시 파일 읽기 실패", "error", e);
+            value = null;
+        }
+        if (value == null) {
+            // 파일이 지워졌거나 읽을 수 없음
+            removeEntry(key);
+            misses++;
+            return null;
+        }
+        putMemory(key, new MemoryEntry(value, entry.expiresAt));
+        hits++;
+        return value;
+    }
+
+    /** 값을 ttlMs 동안 보관 */
+    synchronized void put(String key, String value, long ttlMs) throws IOException {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > diskMaxBytes) {
+            removeEntry(key);
+            throw new IOException("Value too large: " + bytes.length + " bytes");
+        }
+
+        String fileName = fileName(key);
+        writeEntryFile(new File(directory, fileName), bytes);
+        IndexEntry previous = index.put(key, new IndexEntry(fileName, bytes.length, expiresAt));
+        if (previous != null) {
+            diskBytes -= previous.bytes;
+        }
+        diskBytes += bytes.length;
+        indexDirty = true;
+
+        putMemory(key, new MemoryEntry(value, expiresAt));
+        trimDisk();
+    }
+
+    synchronized boolean remove(String key) {
+        return removeEntry(key);
+    }
+
+    /** 키에 text가 들어간 항목을 모두 삭제하고 개수 반환 */
+    synchronized int removeContaining(String text) {
+        List<String> keys = new ArrayList<>();
+        for (String key : index.keySet()) {
+            if (key.contains(text)) {
+                keys.add(key);
+            }
+        }
+        for (String key : keys) {
+            removeEntry(key);
+        }
+        return keys.size();
+    }
+
+    /** 만료된 항목을 지우고 개수 반환 */
+    synchronized int removeExpired() {
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+            if (entry.getValue().expiresAt <= now) {
+                keys.add(entry.getKey());
+            }
+        }
+        for (String key : keys) {
+            removeEntry(key);
+        }
+        return keys.size();
+    }
+
+    /** 모두 삭제하고 개수 반환 */
+    synchronized int clear() {
+        int removed = index.size();
+        for (IndexEntry entry : index.values()) {
+            new File(directory, entry.fileName).delete();
+        }
+        index.clear();
+        memory.clear();
+        memoryBytes = 0;
+        diskBytes = 0;
+        indexDirty = true;
+        return removed;
+    }
+
+    /** 바뀐 인덱스를 디스크에 저장 */
+    synchronized void flush() {
+        if (!indexDirty) {
+            return;
+        }
+        try {
+            JSONArray entries = new JSONArray();
+            // 오래 안 쓴 것부터 저장하므로 다시 읽으면 LRU 순서가 유지됨
+            for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                IndexEntry value = entry.getValue();
+                entries.put(new JSONObject()
+                        .put("key", entry.getKey())
+                        .put("file", value.fileName)
+                        .put("bytes", value.bytes)
+                        .put("expiresAt", value.expiresAt));
+            }
+            FileSnapshots.writeAtomically(new File(directory, INDEX_FILE), entries.toString());
+            indexDirty = false;
+        } catch (IOException | JSONException e) {
+            NativeLog.w(TAG, "캐시 인덱스 저장 실패", "error", e);
+        }
+    }
+
+    /** { memoryEntries, memoryBytes, diskEntries, diskBytes, expiredEntries, hits, misses, evictions } */
+    synchronized JSONObject stats() throws JSONException {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (IndexEntry entry : index.values()) {
+            if (entry.expiresAt <= now) {
+                expired++;
+            }
+        }
+        return new JSONObject()
+                .put("memoryEntries", memory.size())
+                .put("memoryBytes", memoryBytes)
+                .put("diskEntries", index.size())
+                .put("diskBytes", diskBytes)
+                .put("expiredEntries", expired)
+                .put("hits", hits)
+                .put("misses", misses)
+                .put("evictions", evictions);
+    }
+
+    private void putMemory(String key, MemoryEntry entry) {
+        MemoryEntry previous = memory.remove(key);
+        if (previous != null) {
+            memoryBytes -= previous.bytes();
+        }
+        // 메모리 한도의 1/4보다 큰 값은 메모리에 두지 않음 (다른 항목을 한꺼번에 밀어내지 않도록)
+        if (entry.bytes() > memoryMaxBytes / 4) {
+            return;
+        }
+        memory.put(key, entry);
+        memoryBytes += entry.bytes();
+
+        Iterator<Map.Entry<String, MemoryEntry>> iterator = memory.entrySet().iterator();
+        while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+            memoryBytes -= iterator.next().getValue().bytes();
+            iterator.remove();
+        }
+    }
+
+    private void trimDisk() {
+        Iterator<Map.Entry<String, IndexEntry>> iterator = index.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, IndexEntry> eldest = iterator.next();
+            iterator.remove();
+            diskBytes -= eldest.getValue().bytes;
+            new File(directory, eldest.getValue().fileName).delete();
+            MemoryEntry cached = memory.remove(eldest.getKey());
+            if (cached != null) {
+                memoryBytes -= cached.bytes();
+            }
+            evictions++;
+            indexDirty = true;
+        }
+    }
+
+    private boolean removeEntry(String key) {
+        MemoryEntry cached = memory.remove(key);
+        if (cached != null) {
+            memoryBytes -= cached.bytes();
+        }
+        IndexEntry entry = index.remove(key);
+        if (entry != null) {
+            diskBytes -= entry.bytes;
+            new File(directory, entry.fileName).delete();
+            indexDirty = true;
+        }
+        return cached != null || entry != null;
+    }
+
+    private void loadIndex() {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            NativeLog.w(TAG, "캐시 디렉터리 생성 실패", "path", directory.getPath());
+            return;
+        }
+
+        try {
+            String json = FileSnapshots.read(new File(directory, INDEX_FILE));
+            if (json != null) {
+                JSONArray entries = new JSONArray(json);
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < entries.length(); i++) {
+                    JSONObject entry = entries.getJSONObject(i);
+                    String fileName = entry.getString("file");
+                    long bytes = entry.getLong("bytes");
+                    long expiresAt = entry.getLong("expiresAt");
+                    File file = new File(directory, fileName);
+                    if (expiresAt <= now || file.length() != bytes) {
+                        // 만료됐거나 인덱스 저장 이후 바뀐 파일
+                        file.delete();
+                        indexDirty = true;
+                        continue;
+                    }
+                    index.put(entry.getString("key"), new IndexEntry(fileName, bytes, expiresAt));
+                    diskBytes += bytes;
+                }
+            }
+        } catch (IOException | JSONException e) {
+            NativeLog.w(TAG, "캐시 인덱스 읽기 실패, 비우고 시작", "error", e);
+            index.clear();
+            diskBytes = 0;
+            indexDirty = true;
+        }
+
+        // 인덱스에 없는 파일(인덱스 저장 전에 종료된 경우)은 삭제
+        Set<String> known = new HashSet<>();
+        for (IndexEntry entry : index.values()) {
+            known.add(entry.fileName);
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(ENTRY_SUFFIX) && !known.contains(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+        trimDisk();
+    }
+
+    /** 캐시는 지워져도 되므로 fsync 없이 임시 파일에 쓴 뒤 교체 */
+    private static void writeEntryFile(File file, byte[] bytes) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            out.write(bytes);
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to replace " + file.getName());
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + ENTRY_SUFFIX.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.append(ENTRY_SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.billingclient.api.BillingClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BillingConnectionManagerTest {
+
+    private FakeBillingGateway gateway;
+    private BillingConnectionManager manager;
+
+    @Before
+    public void setUp() {
+        gateway = new FakeBillingGateway();
+        manager = new BillingConnectionManager(gateway.factory(), (result, purchases) -> {
+        }, new BillingMetrics());
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+        gateway.shutdown();
+    }
+
+    @Test
+    public void queuedTasksRunAfterRetryableConnectionFailures() throws Exception {
+        gateway.failNextConnections(2, BillingClient.BillingResponseCode.SERVICE_UNAVAILABLE);
+        CountDownLatch done = new CountDownLatch(20);
+        List<String> errors = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            manager.execute(client -> done.countDown(), errors::add);
+        }
+
+        // 백오프 500ms → 1s 이므로 두 번 재시도해도 수 초 안에 끝나야 함
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(errors.isEmpty());
+        assertEquals(3, gateway.connectAttempts.get());
+        assertEquals(BillingConnectionManager.State.CONNECTED, manager.getState());
+    }
+
+    @Test
+    public void queuedTasksFailWhenBillingUnavailable() throws Exception {
+        gateway.failNextConnections(1, BillingClient.BillingResponseCode.BILLING_UNAVAILABLE);
+        CountDownLatch failed = new CountDownLatch(5);
+        List<String> errors = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            manager.execute(client -> {
+            }, message -> {
+                errors.add(message);
+                failed.countDown();
+            });
+        }
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        for (String message : errors) {
+            assertTrue(message, message.startsWith("Billing setup failed"));
+        }
+        // 재시도하지 않음
+        assertEquals(1, gateway.connectAttempts.get());
+    }
+
+    @Test
+    public void setupFailureAndCloseReportNonRetryableCodes() throws Exception {
+        gateway.failNextConnections(1, BillingClient.BillingResponseCode.BILLING_UNAVAILABLE);
+        CountDownLatch failed = new CountDownLatch(1);
+        List<Integer> codes = new CopyOnWriteArrayList<>();
+
+        manager.execute(client -> {
+        }, (BillingConnectionManager.ResponseErrorCallback) (responseCode, message) -> {
+            codes.add(responseCode);
+            failed.countDown();
+        });
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+
+        manager.close();
+        manager.execute(client -> {
+        }, (BillingConnectionManager.ResponseErrorCallback) (responseCode, message) -> codes.add(responseCode));
+
+        // acknowledge/consume 재시도 대기열에 넣지 않는 코드
+        assertEquals(2, codes.size());
+        for (int responseCode : codes) {
+            assertEquals(BillingClient.BillingResponseCode.BILLING_UNAVAILABLE, responseCode);
+            assertFalse(PurchaseRetryScheduler.isRetryable(responseCode));
+        }
+    }
+
+    @Test
+    public void reconnectsAfterServiceDisconnect() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        manager.execute(client -> first.countDown(), message -> {
+        });
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        gateway.disconnect();
+        CountDownLatch second = new CountDownLatch(1);
+        manager.execute(client -> second.countDown(), message -> {
+        });
+
+        assertTrue(second.await(10, TimeUnit.SECONDS));
+        assertEquals(2, gateway.connectAttempts.get());
+    }
+
+    @Test
+    public void closeFailsPendingTasks() throws Exception {
+        gateway.latency(5_000, 0);
+        CountDownLatch failed = new CountDownLatch(3);
+        List<String> errors = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            manager.execute(client -> {
+            }, message -> {
+                errors.add(message);
+                failed.countDown();
+            });
+        }
+        manager.close();
+
+        assertTrue(failed.await(1, TimeUnit.SECONDS));
+        assertEquals("Billing service is closed", errors.get(0));
+    }
+}
@@ -0,0 +1,152 @@
+package com.storypotion.app;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bridge/WebView 없이 BillingPlugin을 FakeBillingGateway에 연결해 호출하는 도구
+ */
+class BillingPluginHarness {
+
+    static final long DEFAULT_TIMEOUT_MS = 10_000;
+
+    final FakeBillingGateway gateway = new FakeBillingGateway();
+    final BillingPlugin plugin = new BillingPlugin();
+    final File filesDir;
+
+    private final AtomicInteger callbackIds = new AtomicInteger();
+
+    BillingPluginHarness() throws IOException {
+        filesDir = Files.createTempDirectory("billing-plugin-test").toFile();
+
+        Context context = mock(Context.class);
+        when(context.getFilesDir()).thenReturn(filesDir);
+        when(context.getApplicationContext()).thenReturn(context);
+
+        Bridge bridge = mock(Bridge.class);
+        when(bridge.getContext()).thenReturn(context);
+        when(bridge.getActivity()).thenReturn(mock(AppCompatActivity.class));
+
+        plugin.setBridge(bridge);
+        plugin.gatewayFactory = gateway.factory();
+        plugin.uiExecutor = gateway.mainThread();
+        plugin.load();
+    }
+
+    /** 플러그인 메서드에 넘길 호출 (결과는 RecordingCall.await로 확인) */
+    RecordingCall call(String methodName, JSObject data) {
+        return new RecordingCall(String.valueOf(callbackIds.incrementAndGet()), methodName,
+                data != null ? data : new JSObject());
+    }
+
+    void close() {
+        plugin.handleOnDestroy();
+        gateway.shutdown();
+        deleteRecursively(filesDir);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /** reject된 호출 */
+    static class RejectedException extends Exception {
+        RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * resolve/reject 결과를 Future로 받는 PluginCall
+     * 한 번 응답한 뒤의 응답은 무시하지만 횟수는 세어서 중복 응답을 검사할 수 있게 한다.
+     */
+    static class RecordingCall extends PluginCall {
+
+        final CompletableFuture<JSObject> result = new CompletableFuture<>();
+        final AtomicInteger responses = new AtomicInteger();
+        // 처음 응답한 스레드 이름
+        volatile String respondedOn;
+
+        RecordingCall(String callbackId, String methodName, JSObject data) {
+            super(null, "Billing", callbackId, methodName, data);
+        }
+
+        @Override
+        public void resolve(JSObject data) {
+            recordResponse();
+            result.complete(data != null ? data : new JSObject());
+        }
+
+        @Override
+        public void resolve() {
+            resolve(null);
+        }
+
+        @Override
+        public void reject(String msg, String code, Exception ex, JSObject data) {
+            recordResponse();
+            result.completeExceptionally(new RejectedException(msg));
+        }
+
+        @Override
+        public void reject(String msg) {
+            reject(msg, null, null, null);
+        }
+
+        private void recordResponse() {
+            if (responses.incrementAndGet() == 1) {
+                respondedOn = Thread.currentThread().getName();
+            }
+        }
+
+        boolean isDone() {
+            return result.isDone();
+        }
+
+        /** resolve 결과. reject되면 RejectedException */
+        JSObject await() throws RejectedException, InterruptedException, TimeoutException {
+            return await(DEFAULT_TIMEOUT_MS);
+        }
+
+        JSObject await(long timeoutMs) throws RejectedException, InterruptedException, TimeoutException {
+            try {
+                return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw (RejectedException) e.getCause();
+            }
+        }
+
+        /** reject 메시지. resolve되면 null */
+        String awaitRejection() throws InterruptedException, TimeoutException {
+            try {
+                await();
+                return null;
+            } catch (RejectedException e) {
+                return e.getMessage();
+            }
+        }
+    }
+}
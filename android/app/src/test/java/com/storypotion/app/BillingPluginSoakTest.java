@@ -0,0 +1,162 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.android.billingclient.api.BillingClient;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 연결 끊김을 섞어 가며 수백 개의 플러그인 호출을 동시에 보내는 부하 테스트
+ *
+ * 모든 호출이 정확히 한 번 응답하는지, 결제 응답이 다른 상품과 섞이지 않는지 확인하고 처리량을 출력한다.
+ * 호출 수는 -Dbilling.soak.calls, 동시 호출 스레드 수는 -Dbilling.soak.threads로 조정한다.
+ */
+public class BillingPluginSoakTest {
+
+    private static final int CALLS = Integer.getInteger("billing.soak.calls", 400);
+    private static final int THREADS = Integer.getInteger("billing.soak.threads", 16);
+    private static final long DISCONNECT_INTERVAL_MS = 400;
+    // 연결 대기 시간 초과(20초)보다 길게
+    private static final long CALL_TIMEOUT_MS = 30_000;
+    private static final int CATALOG_SIZE = 20;
+
+    private BillingPluginHarness harness;
+    private FakeBillingGateway gateway;
+    private BillingPlugin plugin;
+
+    @Before
+    public void setUp() throws Exception {
+        harness = new BillingPluginHarness();
+        gateway = harness.gateway;
+        plugin = harness.plugin;
+
+        gateway.latency(1, 8).purchaseDelay(15);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            gateway.addProduct("potion_" + i, BillingClient.ProductType.INAPP, 1_000_000_000L);
+        }
+        for (int i = 0; i < CALLS; i++) {
+            // 결제는 호출마다 다른 상품으로 (같은 상품 동시 결제는 의도적으로 거절됨)
+            gateway.addProduct("soak_" + i, BillingClient.ProductType.INAPP, 1_000_000_000L);
+        }
+        for (int i = 0; i < 500; i++) {
+            gateway.addPurchase(BillingClient.ProductType.INAPP,
+                    FakeBillingGateway.purchase("potion_" + (i % CATALOG_SIZE), "owned-" + i, false, true));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void mixedConcurrentCallsAllCompleteUnderDisconnects() throws Exception {
+        Random random = new Random(42);
+        List<BillingPluginHarness.RecordingCall> calls = new ArrayList<>(CALLS);
+        List<String> purchasedProducts = new ArrayList<>(CALLS);
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+        ScheduledExecutorService chaos = Executors.newSingleThreadScheduledExecutor();
+        chaos.scheduleWithFixedDelay(gateway::disconnect, DISCONNECT_INTERVAL_MS, DISCONNECT_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+
+        long startedAt = System.nanoTime();
+        try {
+            for (int i = 0; i < CALLS; i++) {
+                int roll = random.nextInt(100);
+                String productId = "potion_" + random.nextInt(CATALOG_SIZE);
+                JSObject data = new JSObject();
+                BillingPluginHarness.RecordingCall call;
+                Runnable invoke;
+
+                if (roll < 30) {
+                    data.put("productIds", new JSArray().put(productId));
+                    data.put("forceRefresh", random.nextInt(3) == 0);
+                    call = harness.call("queryProductDetails", data);
+                    invoke = () -> plugin.queryProductDetails(call);
+                } else if (roll < 55) {
+                    call = harness.call("queryPurchases", data);
+                    invoke = () -> plugin.queryPurchases(call);
+                } else if (roll < 70) {
+                    data.put("productId", "soak_" + i);
+                    call = harness.call("purchaseProduct", data);
+                    invoke = () -> plugin.purchaseProduct(call);
+                } else if (roll < 85) {
+                    data.put("purchaseToken", "owned-" + random.nextInt(500));
+                    call = harness.call("acknowledgePurchase", data);
+                    invoke = () -> plugin.acknowledgePurchase(call);
+                } else if (roll < 95) {
+                    call = harness.call("syncEntitlements", data);
+                    invoke = () -> plugin.syncEntitlements(call);
+                } else {
+                    call = harness.call("getBillingMetrics", data);
+                    invoke = () -> plugin.getBillingMetrics(call);
+                }
+
+                calls.add(call);
+                purchasedProducts.add("purchaseProduct".equals(call.getMethodName()) ? "soak_" + i : null);
+                callers.execute(invoke);
+            }
+
+            int resolved = 0;
+            int rejected = 0;
+            for (int i = 0; i < CALLS; i++) {
+                BillingPluginHarness.RecordingCall call = calls.get(i);
+                try {
+                    JSObject result = call.await(CALL_TIMEOUT_MS);
+                    resolved++;
+                    String expectedProduct = purchasedProducts.get(i);
+                    if (expectedProduct != null) {
+                        assertEquals(expectedProduct,
+                                result.getJSObject("purchase").getJSONArray("products").getString(0));
+                    }
+                } catch (BillingPluginHarness.RejectedException e) {
+                    rejected++;
+                } catch (java.util.concurrent.TimeoutException e) {
+                    fail(call.getMethodName() + " #" + i + " did not complete");
+                }
+            }
+            long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+
+            chaos.shutdownNow();
+            // 늦게 도착한 중복 응답이 없는지 잠시 기다렸다가 확인
+            Thread.sleep(200);
+            for (BillingPluginHarness.RecordingCall call : calls) {
+                assertEquals(call.getMethodName() + " responded more than once", 1, call.responses.get());
+            }
+            assertEquals(CALLS, resolved + rejected);
+            assertTrue("no call succeeded", resolved > 0);
+
+            BillingPluginHarness.RecordingCall metricsCall = harness.call("getBillingMetrics", null);
+            plugin.getBillingMetrics(metricsCall);
+            JSONObject metrics = metricsCall.await().getJSONObject("operations");
+            System.out.println("billing soak: " + CALLS + " calls, " + THREADS + " threads, " + elapsedMs + "ms, "
+                    + (CALLS * 1000L / elapsedMs) + " calls/s, resolved=" + resolved + ", rejected=" + rejected
+                    + ", connectAttempts=" + gateway.connectAttempts.get());
+            System.out.println("billing soak metrics: " + metrics);
+        } finally {
+            chaos.shutdownNow();
+            callers.shutdownNow();
+        }
+
+        // 끊김이 멈추면 다시 정상 동작해야 함 (보유 구매 + 부하 중 결제된 구매)
+        BillingPluginHarness.RecordingCall after = harness.call("queryPurchases", new JSObject());
+        plugin.queryPurchases(after);
+        assertTrue(after.await(CALL_TIMEOUT_MS).getJSONArray("purchases").length() >= 500);
+    }
+}
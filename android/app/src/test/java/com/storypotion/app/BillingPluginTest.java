@@ -0,0 +1,367 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.billingclient.api.BillingClient;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * FakeBillingGateway 위에서 BillingPlugin의 주요 경로 검증
+ */
+public class BillingPluginTest {
+
+    private BillingPluginHarness harness;
+    private FakeBillingGateway gateway;
+    private BillingPlugin plugin;
+
+    @Before
+    public void setUp() throws Exception {
+        harness = new BillingPluginHarness();
+        gateway = harness.gateway;
+        plugin = harness.plugin;
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void queryProductDetailsServesRepeatCallsFromCache() throws Exception {
+        gateway.addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L);
+
+        JSObject first = queryProductDetails("potion_10");
+        JSObject second = queryProductDetails("potion_10");
+
+        assertFalse(first.getBoolean("fromCache"));
+        assertTrue(second.getBoolean("fromCache"));
+        assertEquals("potion_10", second.getJSONArray("products").getJSONObject(0).getString("productId"));
+        assertEquals(1, gateway.productDetailsQueries.get());
+    }
+
+    @Test
+    public void concurrentPurchasesResolveTheirOwnCalls() throws Exception {
+        int count = 50;
+        gateway.latency(2, 3).purchaseDelay(20);
+        for (int i = 0; i < count; i++) {
+            gateway.addProduct("potion_" + i, BillingClient.ProductType.INAPP, 1_000_000_000L);
+        }
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<BillingPluginHarness.RecordingCall> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                BillingPluginHarness.RecordingCall call = purchaseCall("potion_" + i);
+                calls.add(call);
+                callers.execute(() -> plugin.purchaseProduct(call));
+            }
+
+            for (int i = 0; i < count; i++) {
+                JSObject purchase = calls.get(i).await().getJSObject("purchase");
+                assertEquals("potion_" + i, purchase.getJSONArray("products").getString(0));
+                assertEquals(1, calls.get(i).responses.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(count, gateway.launches.get());
+    }
+
+    @Test
+    public void purchaseUsesCachedDetailsWithoutQueryingPlay() throws Exception {
+        gateway.addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L);
+        queryProductDetails("potion_10");
+
+        BillingPluginHarness.RecordingCall call = purchaseCall("potion_10");
+        plugin.purchaseProduct(call);
+        call.await();
+
+        assertEquals(1, gateway.productDetailsQueries.get());
+        // launchBillingFlow는 @UiThread
+        assertEquals("FakeMain", gateway.launchThread);
+    }
+
+    @Test
+    public void duplicatePurchaseIsRejectedWhileFirstIsInProgress() throws Exception {
+        gateway.addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L).purchaseDelay(300);
+
+        BillingPluginHarness.RecordingCall first = purchaseCall("potion_10");
+        BillingPluginHarness.RecordingCall second = purchaseCall("potion_10");
+        plugin.purchaseProduct(first);
+        plugin.purchaseProduct(second);
+
+        assertEquals("Purchase already in progress: potion_10", second.awaitRejection());
+        first.await();
+    }
+
+    @Test
+    public void userCancelRejectsActivePurchase() throws Exception {
+        gateway.addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L)
+                .purchaseResult(BillingClient.BillingResponseCode.USER_CANCELED, false);
+
+        BillingPluginHarness.RecordingCall call = purchaseCall("potion_10");
+        plugin.purchaseProduct(call);
+
+        assertEquals("User canceled the purchase", call.awaitRejection());
+    }
+
+    @Test
+    public void pendingPurchaseResolvesWithPendingState() throws Exception {
+        gateway.addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L)
+                .purchaseResult(BillingClient.BillingResponseCode.OK, true);
+
+        BillingPluginHarness.RecordingCall call = purchaseCall("potion_10");
+        plugin.purchaseProduct(call);
+
+        JSObject purchase = call.await().getJSObject("purchase");
+        assertEquals(com.android.billingclient.api.Purchase.PurchaseState.PENDING, purchase.getInt("purchaseState"));
+    }
+
+    @Test
+    public void purchaseWaitsForReconnect() throws Exception {
+        gateway.addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L)
+                .failNextConnections(2, BillingClient.BillingResponseCode.SERVICE_UNAVAILABLE);
+
+        BillingPluginHarness.RecordingCall call = purchaseCall("potion_10");
+        plugin.purchaseProduct(call);
+
+        call.await();
+        assertEquals(3, gateway.connectAttempts.get());
+    }
+
+    @Test
+    public void queryPurchasesHandlesLargePurchaseLists() throws Exception {
+        int count = 5_000;
+        for (int i = 0; i < count; i++) {
+            gateway.addPurchase(BillingClient.ProductType.INAPP,
+                    FakeBillingGateway.purchase("potion_" + (i % 20), "token-" + i, false, true));
+        }
+
+        JSObject data = new JSObject();
+        data.put("productType", "inapp");
+        BillingPluginHarness.RecordingCall call = harness.call("queryPurchases", data);
+        long startedAt = System.nanoTime();
+        plugin.queryPurchases(call);
+        JSONArray purchases = call.await().getJSONArray("purchases");
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertEquals(count, purchases.length());
+        assertEquals("token-" + (count - 1), purchases.getJSONObject(count - 1).getString("purchaseToken"));
+        // 느린 CI에서도 넘지 않을 넉넉한 상한
+        assertTrue("queryPurchases " + count + " purchases took " + elapsedMs + "ms", elapsedMs < 5_000);
+    }
+
+    @Test
+    public void concurrentQueryPurchasesShareOnePlayCall() throws Exception {
+        int count = 20;
+        gateway.latency(50, 0).addPurchase(BillingClient.ProductType.SUBS,
+                FakeBillingGateway.purchase("premium_monthly", "token-1", false, true));
+
+        List<BillingPluginHarness.RecordingCall> calls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JSObject data = new JSObject();
+            data.put("productType", "subs");
+            BillingPluginHarness.RecordingCall call = harness.call("queryPurchases", data);
+            calls.add(call);
+            plugin.queryPurchases(call);
+        }
+
+        for (BillingPluginHarness.RecordingCall call : calls) {
+            JSONArray purchases = call.await().getJSONArray("purchases");
+            assertEquals("token-1", purchases.getJSONObject(0).getString("purchaseToken"));
+        }
+        assertEquals(1, gateway.purchaseQueries.get());
+    }
+
+    @Test
+    public void acknowledgeDiscardsReusedPurchaseResults() throws Exception {
+        gateway.addPurchase(BillingClient.ProductType.INAPP,
+                FakeBillingGateway.purchase("potion_10", "token-1", false, false));
+
+        BillingPluginHarness.RecordingCall first = harness.call("queryPurchases", null);
+        plugin.queryPurchases(first);
+        first.await();
+        BillingPluginHarness.RecordingCall reused = harness.call("queryPurchases", null);
+        plugin.queryPurchases(reused);
+        reused.await();
+        assertEquals(1, gateway.purchaseQueries.get());
+
+        JSObject data = new JSObject();
+        data.put("purchaseToken", "token-1");
+        BillingPluginHarness.RecordingCall acknowledge = harness.call("acknowledgePurchase", data);
+        plugin.acknowledgePurchase(acknowledge);
+        acknowledge.await();
+
+        BillingPluginHarness.RecordingCall afterAcknowledge = harness.call("queryPurchases", null);
+        plugin.queryPurchases(afterAcknowledge);
+        afterAcknowledge.await();
+        assertEquals(2, gateway.purchaseQueries.get());
+    }
+
+    @Test
+    public void concurrentProductDetailsQueriesShareOnePlayCall() throws Exception {
+        gateway.latency(50, 0)
+                .addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L)
+                .addProduct("potion_30", BillingClient.ProductType.INAPP, 3_300_000_000L);
+
+        List<BillingPluginHarness.RecordingCall> calls = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            JSObject data = new JSObject();
+            // 순서가 달라도 같은 조회
+            data.put("productIds", i % 2 == 0
+                    ? new JSArray().put("potion_10").put("potion_30")
+                    : new JSArray().put("potion_30").put("potion_10"));
+            data.put("productType", "inapp");
+            BillingPluginHarness.RecordingCall call = harness.call("queryProductDetails", data);
+            calls.add(call);
+            plugin.queryProductDetails(call);
+        }
+
+        for (BillingPluginHarness.RecordingCall call : calls) {
+            assertEquals(2, call.await().getJSONArray("products").length());
+        }
+        assertEquals(1, gateway.productDetailsQueries.get());
+    }
+
+    @Test
+    public void consumeAllConsumesEveryToken() throws Exception {
+        int count = 200;
+        JSArray tokens = new JSArray();
+        for (int i = 0; i < count; i++) {
+            tokens.put("token-" + i);
+        }
+
+        JSObject data = new JSObject();
+        data.put("purchaseTokens", tokens);
+        BillingPluginHarness.RecordingCall call = harness.call("consumeAll", data);
+        plugin.consumeAll(call);
+        JSObject result = call.await();
+
+        assertEquals(count, result.getInt("succeeded"));
+        assertEquals(0, result.getInt("failed"));
+        assertEquals(count, gateway.consumedTokens.size());
+    }
+
+    @Test
+    public void metricsCountEveryOperation() throws Exception {
+        gateway.addProduct("potion_10", BillingClient.ProductType.INAPP, 1_200_000_000L);
+        BillingPluginHarness.RecordingCall purchase = purchaseCall("potion_10");
+        plugin.purchaseProduct(purchase);
+        purchase.await();
+
+        BillingPluginHarness.RecordingCall call = harness.call("getBillingMetrics", null);
+        plugin.getBillingMetrics(call);
+        JSONObject operations = call.await().getJSONObject("operations");
+
+        assertEquals(1, operations.getJSONObject(BillingMetrics.QUERY_PRODUCT_DETAILS).getInt("count"));
+        assertEquals(1, operations.getJSONObject(BillingMetrics.LAUNCH_BILLING_FLOW).getInt("count"));
+    }
+
+    @Test
+    public void billingResponsesAreProcessedOffTheMainThread() throws Exception {
+        gateway.addPurchase(BillingClient.ProductType.INAPP,
+                FakeBillingGateway.purchase("potion_10", "token-1", false, true));
+
+        BillingPluginHarness.RecordingCall call = harness.call("queryPurchases", null);
+        plugin.queryPurchases(call);
+        call.await();
+        assertEquals("BillingCallbacks", call.respondedOn);
+
+        BillingPluginHarness.RecordingCall metricsCall = harness.call("getBillingMetrics", null);
+        plugin.getBillingMetrics(metricsCall);
+        JSONObject operations = metricsCall.await().getJSONObject("operations");
+        // 처리 시간은 resolve 이후에 기록되므로 대기 시간만 확인
+        assertEquals(1, operations.getJSONObject(BillingMetrics.CALLBACK_QUEUE_WAIT).getInt("count"));
+    }
+
+    @Test
+    public void consumedPurchaseStaysInLedger() throws Exception {
+        gateway.addPurchase(BillingClient.ProductType.INAPP,
+                FakeBillingGateway.purchase("potion_10", "token-1", false, true));
+
+        BillingPluginHarness.RecordingCall query = harness.call("queryPurchases", null);
+        plugin.queryPurchases(query);
+        query.await();
+
+        JSObject consumeData = new JSObject();
+        consumeData.put("purchaseToken", "token-1");
+        BillingPluginHarness.RecordingCall consume = harness.call("consumePurchase", consumeData);
+        plugin.consumePurchase(consume);
+        consume.await();
+
+        JSObject data = new JSObject();
+        data.put("refresh", false);
+        BillingPluginHarness.RecordingCall ledger = harness.call("getPurchaseLedger", data);
+        plugin.getPurchaseLedger(ledger);
+        JSONArray purchases = ledger.await().getJSONArray("purchases");
+
+        assertEquals(1, purchases.length());
+        assertEquals("GPA.fake-token-1", purchases.getJSONObject(0).getString("orderId"));
+        assertEquals(0, gateway.purchaseHistoryQueries.get());
+    }
+
+    @Test
+    public void failedAcknowledgeIsRetriedAfterReconnect() throws Exception {
+        gateway.respondWith(BillingMetrics.ACKNOWLEDGE, BillingClient.BillingResponseCode.SERVICE_UNAVAILABLE);
+
+        JSObject data = new JSObject();
+        data.put("purchaseToken", "token-1");
+        BillingPluginHarness.RecordingCall acknowledge = harness.call("acknowledgePurchase", data);
+        plugin.acknowledgePurchase(acknowledge);
+        assertTrue(acknowledge.awaitRejection().startsWith("Failed to acknowledge purchase"));
+        assertEquals(1, retryStatus().getInt("pending"));
+
+        // Play가 복구된 뒤 다시 연결되면 백오프 시각과 관계없이 바로 재시도
+        gateway.respondWith(BillingMetrics.ACKNOWLEDGE, BillingClient.BillingResponseCode.OK);
+        gateway.disconnect();
+        long deadline = System.currentTimeMillis() + BillingPluginHarness.DEFAULT_TIMEOUT_MS;
+        while (!gateway.acknowledgedTokens.contains("token-1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(gateway.acknowledgedTokens.contains("token-1"));
+
+        JSObject status = retryStatus();
+        while (status.getInt("pending") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = retryStatus();
+        }
+        assertEquals(0, status.getInt("pending"));
+        assertEquals(1, status.getInt("succeeded"));
+    }
+
+    private JSObject retryStatus() throws Exception {
+        BillingPluginHarness.RecordingCall call = harness.call("getPurchaseRetryStatus", null);
+        plugin.getPurchaseRetryStatus(call);
+        return call.await();
+    }
+
+    private JSObject queryProductDetails(String productId) throws Exception {
+        JSObject data = new JSObject();
+        data.put("productIds", new JSArray().put(productId));
+        data.put("productType", "inapp");
+        BillingPluginHarness.RecordingCall call = harness.call("queryProductDetails", data);
+        plugin.queryProductDetails(call);
+        return call.await();
+    }
+
+    private BillingPluginHarness.RecordingCall purchaseCall(String productId) {
+        JSObject data = new JSObject();
+        data.put("productId", productId);
+        data.put("productType", "inapp");
+        return harness.call("purchaseProduct", data);
+    }
+}
@@ -0,0 +1,362 @@
+package com.storypotion.app;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.app.Activity;
+
+import com.android.billingclient.api.AcknowledgePurchaseResponseListener;
+import com.android.billingclient.api.BillingClient;
+import com.android.billingclient.api.BillingClientStateListener;
+import com.android.billingclient.api.BillingResult;
+import com.android.billingclient.api.ConsumeResponseListener;
+import com.android.billingclient.api.ProductDetails;
+import com.android.billingclient.api.ProductDetailsResponseListener;
+import com.android.billingclient.api.Purchase;
+import com.android.billingclient.api.PurchaseHistoryRecord;
+import com.android.billingclient.api.PurchaseHistoryResponseListener;
+import com.android.billingclient.api.PurchasesResponseListener;
+import com.android.billingclient.api.PurchasesUpdatedListener;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 기기 없이 BillingPlugin을 돌리기 위한 메모리 내 BillingClient
+ *
+ * 실제 클라이언트처럼 모든 응답을 단일 "메인" 스레드에서 지연 후 전달한다.
+ * 지연 시간, 작업별 응답 코드, 연결 실패/끊김, 상품/구매 목록을 테스트에서 조정할 수 있다.
+ */
+class FakeBillingGateway implements BillingGateway {
+
+    private final ScheduledExecutorService main = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FakeMain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, ProductDetails> products = new ConcurrentHashMap<>();
+    private final Map<String, String> productTypes = new ConcurrentHashMap<>();
+    private final Map<String, List<Purchase>> purchases = new ConcurrentHashMap<>();
+    private final Map<String, List<PurchaseHistoryRecord>> history = new ConcurrentHashMap<>();
+    // BillingMetrics 작업 이름 -> 강제로 돌려줄 응답 코드
+    private final Map<String, Integer> responseCodes = new ConcurrentHashMap<>();
+
+    final AtomicInteger connectAttempts = new AtomicInteger();
+    final AtomicInteger productDetailsQueries = new AtomicInteger();
+    final AtomicInteger purchaseQueries = new AtomicInteger();
+    final AtomicInteger purchaseHistoryQueries = new AtomicInteger();
+    final AtomicInteger launches = new AtomicInteger();
+    // 마지막 launchBillingFlow를 호출한 스레드 이름
+    volatile String launchThread;
+    final Set<String> acknowledgedTokens = ConcurrentHashMap.newKeySet();
+    final Set<String> consumedTokens = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger failingConnections = new AtomicInteger();
+    private final AtomicInteger tokenSequence = new AtomicInteger();
+    private volatile int connectFailureCode = BillingClient.BillingResponseCode.SERVICE_UNAVAILABLE;
+    private volatile long latencyMs = 1;
+    private volatile long jitterMs = 0;
+    private volatile long purchaseDelayMs = 5;
+    private volatile int purchaseResponseCode = BillingClient.BillingResponseCode.OK;
+    private volatile boolean pendingPurchases;
+
+    private volatile PurchasesUpdatedListener purchasesUpdatedListener;
+    private volatile BillingClientStateListener stateListener;
+    private volatile boolean ready;
+
+    /** BillingPlugin.gatewayFactory / BillingConnectionManager에 넘길 팩토리 */
+    BillingGateway.Factory factory() {
+        return listener -> {
+            purchasesUpdatedListener = listener;
+            return this;
+        };
+    }
+
+    // ---- 시나리오 설정 ----
+
+    FakeBillingGateway latency(long baseMs, long jitter) {
+        latencyMs = baseMs;
+        jitterMs = jitter;
+        return this;
+    }
+
+    /** 결제 창 표시 후 결과가 전달될 때까지의 시간 */
+    FakeBillingGateway purchaseDelay(long delayMs) {
+        purchaseDelayMs = delayMs;
+        return this;
+    }
+
+    /** 다음 count번의 연결 시도를 responseCode로 실패시킴 */
+    FakeBillingGateway failNextConnections(int count, int responseCode) {
+        connectFailureCode = responseCode;
+        failingConnections.set(count);
+        return this;
+    }
+
+    /** operation(BillingMetrics 작업 이름)의 응답 코드를 고정 */
+    FakeBillingGateway respondWith(String operation, int responseCode) {
+        responseCodes.put(operation, responseCode);
+        return this;
+    }
+
+    /** 결제 창에서의 사용자 결과 (OK면 구매 생성) */
+    FakeBillingGateway purchaseResult(int responseCode, boolean pending) {
+        purchaseResponseCode = responseCode;
+        pendingPurchases = pending;
+        return this;
+    }
+
+    FakeBillingGateway addProduct(String productId, String productType, long priceMicros) {
+        products.put(productId, product(productId, priceMicros));
+        productTypes.put(productId, productType);
+        return this;
+    }
+
+    FakeBillingGateway addPurchase(String productType, Purchase purchase) {
+        purchasesFor(productType).add(purchase);
+        return this;
+    }
+
+    /** 구매 기록에만 있는 구매 (소비된 일회성 구매, 만료된 구독 등) */
+    FakeBillingGateway addHistoryRecord(String productType, PurchaseHistoryRecord record) {
+        history.computeIfAbsent(productType, type -> new CopyOnWriteArrayList<>()).add(record);
+        return this;
+    }
+
+    /** Play 서비스와의 연결이 끊긴 상황 (재연결은 BillingConnectionManager 몫) */
+    void disconnect() {
+        BillingClientStateListener listener = stateListener;
+        if (!ready || listener == null) {
+            return;
+        }
+        ready = false;
+        main.execute(listener::onBillingServiceDisconnected);
+    }
+
+    void shutdown() {
+        main.shutdownNow();
+    }
+
+    // ---- BillingGateway ----
+
+    @Override
+    public void startConnection(BillingClientStateListener listener) {
+        connectAttempts.incrementAndGet();
+        stateListener = listener;
+        post(() -> {
+            if (failingConnections.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                listener.onBillingSetupFinished(result(connectFailureCode));
+                return;
+            }
+            ready = true;
+            listener.onBillingSetupFinished(result(BillingClient.BillingResponseCode.OK));
+        });
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void endConnection() {
+        ready = false;
+        stateListener = null;
+    }
+
+    @Override
+    public void queryProductDetails(List<String> productIds, String productType,
+            ProductDetailsResponseListener listener) {
+        productDetailsQueries.incrementAndGet();
+        post(() -> {
+            int code = responseCode(BillingMetrics.QUERY_PRODUCT_DETAILS);
+            List<ProductDetails> found = new ArrayList<>();
+            if (code == BillingClient.BillingResponseCode.OK) {
+                for (String productId : productIds) {
+                    ProductDetails details = products.get(productId);
+                    if (details != null && productType.equals(productTypes.get(productId))) {
+                        found.add(details);
+                    }
+                }
+            }
+            listener.onProductDetailsResponse(result(code), found);
+        });
+    }
+
+    @Override
+    public void queryPurchases(String productType, PurchasesResponseListener listener) {
+        purchaseQueries.incrementAndGet();
+        post(() -> {
+            int code = responseCode(BillingMetrics.QUERY_PURCHASES);
+            List<Purchase> owned = code == BillingClient.BillingResponseCode.OK
+                    ? new ArrayList<>(purchasesFor(productType))
+                    : Collections.emptyList();
+            listener.onQueryPurchasesResponse(result(code), owned);
+        });
+    }
+
+    @Override
+    public void queryPurchaseHistory(String productType, PurchaseHistoryResponseListener listener) {
+        purchaseHistoryQueries.incrementAndGet();
+        post(() -> {
+            int code = responseCode(BillingMetrics.QUERY_PURCHASE_HISTORY);
+            List<PurchaseHistoryRecord> records = code == BillingClient.BillingResponseCode.OK
+                    ? new ArrayList<>(history.getOrDefault(productType, Collections.emptyList()))
+                    : null;
+            listener.onPurchaseHistoryResponse(result(code), records);
+        });
+    }
+
+    @Override
+    public void acknowledgePurchase(String purchaseToken, AcknowledgePurchaseResponseListener listener) {
+        post(() -> {
+            int code = responseCode(BillingMetrics.ACKNOWLEDGE);
+            if (code == BillingClient.BillingResponseCode.OK) {
+                acknowledgedTokens.add(purchaseToken);
+            }
+            listener.onAcknowledgePurchaseResponse(result(code));
+        });
+    }
+
+    @Override
+    public void consumePurchase(String purchaseToken, ConsumeResponseListener listener) {
+        post(() -> {
+            int code = responseCode(BillingMetrics.CONSUME);
+            if (code == BillingClient.BillingResponseCode.OK) {
+                consumedTokens.add(purchaseToken);
+                for (List<Purchase> owned : purchases.values()) {
+                    owned.removeIf(purchase -> purchaseToken.equals(purchase.getPurchaseToken()));
+                }
+            }
+            listener.onConsumeResponse(result(code), purchaseToken);
+        });
+    }
+
+    @Override
+    public BillingResult launchBillingFlow(Activity activity, ProductDetails productDetails, String offerToken) {
+        launches.incrementAndGet();
+        launchThread = Thread.currentThread().getName();
+        int code = responseCode(BillingMetrics.LAUNCH_BILLING_FLOW);
+        if (code != BillingClient.BillingResponseCode.OK) {
+            return result(code);
+        }
+
+        String productId = productDetails.getProductId();
+        int outcome = purchaseResponseCode;
+        boolean pending = pendingPurchases;
+        main.schedule(() -> {
+            PurchasesUpdatedListener listener = purchasesUpdatedListener;
+            if (outcome != BillingClient.BillingResponseCode.OK) {
+                listener.onPurchasesUpdated(result(outcome), null);
+                return;
+            }
+            Purchase purchase = purchase(productId, "token-" + productId + "-" + tokenSequence.incrementAndGet(),
+                    pending, false);
+            String productType = productTypes.getOrDefault(productId, BillingClient.ProductType.INAPP);
+            purchasesFor(productType).add(purchase);
+            listener.onPurchasesUpdated(result(BillingClient.BillingResponseCode.OK),
+                    Collections.singletonList(purchase));
+        }, purchaseDelayMs, TimeUnit.MILLISECONDS);
+        return result(BillingClient.BillingResponseCode.OK);
+    }
+
+    // ---- 내부 ----
+
+    /** 응답을 전달하는 가짜 메인 스레드 (BillingPlugin.uiExecutor로 사용) */
+    Executor mainThread() {
+        return main;
+    }
+
+    private List<Purchase> purchasesFor(String productType) {
+        return purchases.computeIfAbsent(productType, type -> new CopyOnWriteArrayList<>());
+    }
+
+    /** 연결이 끊긴 뒤 도착한 응답은 실제 클라이언트처럼 SERVICE_DISCONNECTED */
+    private int responseCode(String operation) {
+        if (!ready) {
+            return BillingClient.BillingResponseCode.SERVICE_DISCONNECTED;
+        }
+        return responseCodes.getOrDefault(operation, BillingClient.BillingResponseCode.OK);
+    }
+
+    private void post(Runnable runnable) {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        main.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+    }
+
+    static BillingResult result(int responseCode) {
+        return BillingResult.newBuilder()
+                .setResponseCode(responseCode)
+                .setDebugMessage("fake:" + responseCode)
+                .build();
+    }
+
+    /**
+     * 일회성 상품 ProductDetails (생성자가 공개되어 있지 않아 mock 사용)
+     */
+    static ProductDetails product(String productId, long priceMicros) {
+        ProductDetails.OneTimePurchaseOfferDetails offer = mock(ProductDetails.OneTimePurchaseOfferDetails.class);
+        when(offer.getPriceAmountMicros()).thenReturn(priceMicros);
+        when(offer.getPriceCurrencyCode()).thenReturn("KRW");
+        when(offer.getFormattedPrice()).thenReturn("₩" + priceMicros / 1_000_000);
+
+        ProductDetails details = mock(ProductDetails.class);
+        when(details.getProductId()).thenReturn(productId);
+        when(details.getProductType()).thenReturn(BillingClient.ProductType.INAPP);
+        when(details.getTitle()).thenReturn(productId + " (Story Potion)");
+        when(details.getName()).thenReturn(productId);
+        when(details.getDescription()).thenReturn("fake " + productId);
+        when(details.getOneTimePurchaseOfferDetails()).thenReturn(offer);
+        return details;
+    }
+
+    /** Play가 내려주는 것과 같은 형식의 구매 JSON으로 Purchase 생성 */
+    static Purchase purchase(String productId, String purchaseToken, boolean pending, boolean acknowledged) {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("orderId", "GPA.fake-" + purchaseToken);
+            json.put("packageName", "com.storypotion.app");
+            json.put("productIds", new JSONArray().put(productId));
+            json.put("purchaseTime", System.currentTimeMillis());
+            // 4 = PENDING, 0 = PURCHASED (Play 원본 값)
+            json.put("purchaseState", pending ? 4 : 0);
+            json.put("purchaseToken", purchaseToken);
+            json.put("quantity", 1);
+            json.put("acknowledged", acknowledged);
+            json.put("autoRenewing", false);
+            return new Purchase(json.toString(), "fake-signature");
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Play 구매 기록 형식(주문 ID, 상태 없음)의 PurchaseHistoryRecord 생성 */
+    static PurchaseHistoryRecord historyRecord(String productId, String purchaseToken, long purchaseTime) {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("productIds", new JSONArray().put(productId));
+            json.put("purchaseTime", purchaseTime);
+            json.put("purchaseToken", purchaseToken);
+            json.put("quantity", 1);
+            return new PurchaseHistoryRecord(json.toString(), "fake-signature");
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * 프레임 백분위/slow·frozen 판정과 멈춤 원인별 집계, 가장 긴 멈춤 보관 검증
+ */
+public class JankStatsTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DEADLINE_60HZ = 16_666_667L;
+
+    @Test
+    public void framePercentilesAndSlowFrozenCounts() throws Exception {
+        JankStats stats = new JankStats(100, NOW);
+        for (int i = 0; i < 90; i++) {
+            stats.recordFrame(ms(8), DEADLINE_60HZ, 0);
+        }
+        for (int i = 0; i < 9; i++) {
+            stats.recordFrame(ms(20), DEADLINE_60HZ, 0);
+        }
+        stats.recordFrame(ms(800), DEADLINE_60HZ, 2);
+
+        JSONObject frames = stats.toJson(10).getJSONObject("frames");
+
+        assertEquals(100, frames.getLong("count"));
+        assertEquals(10, frames.getLong("slow"));
+        assertEquals(1, frames.getLong("frozen"));
+        assertEquals(2, frames.getLong("unreported"));
+        assertEquals(8, frames.getLong("p50Ms"));
+        assertEquals(20, frames.getLong("p99Ms"));
+        assertEquals(800, frames.getLong("maxMs"));
+    }
+
+    @Test
+    public void stallsAreGroupedBySectionOrMessage() throws Exception {
+        JankStats stats = new JankStats(100, NOW);
+        stats.recordStall(stall(50, "Handler (android.os.Handler) Bridge$$Lambda: 0", null));
+        stats.recordStall(stall(300, "Handler (android.os.Handler) Bridge$$Lambda: 0", null));
+        stats.recordStall(stall(150, "Handler (android.os.Handler) null: 0", "Billing.handleOnResume"));
+        stats.recordStall(stall(200, "Handler (android.os.Handler) null: 0", "Billing.handleOnResume"));
+
+        JSONObject stalls = stats.toJson(10).getJSONObject("stalls");
+        JSONArray byCause = stalls.getJSONArray("byCause");
+
+        assertEquals(3, stalls.getLong("count"));
+        assertEquals(650, stalls.getLong("totalMs"));
+        assertEquals("Billing.handleOnResume", byCause.getJSONObject(0).getString("cause"));
+        assertEquals(2, byCause.getJSONObject(0).getLong("count"));
+        assertEquals(300, byCause.getJSONObject(1).getLong("maxMs"));
+    }
+
+    @Test
+    public void worstStallsAreKeptLongestFirst() throws Exception {
+        JankStats stats = new JankStats(100, NOW);
+        for (int i = 0; i < JankStats.MAX_WORST_STALLS + 5; i++) {
+            stats.recordStall(stall(100 + i, "message", null));
+        }
+
+        JSONArray worst = stats.toJson(JankStats.MAX_WORST_STALLS).getJSONObject("stalls").getJSONArray("worst");
+
+        assertEquals(JankStats.MAX_WORST_STALLS, worst.length());
+        assertEquals(100 + JankStats.MAX_WORST_STALLS + 4, worst.getJSONObject(0).getLong("durationMs"));
+        assertEquals(105, worst.getJSONObject(worst.length() - 1).getLong("durationMs"));
+    }
+
+    @Test
+    public void resetStartsOver() throws Exception {
+        JankStats stats = new JankStats(100, NOW);
+        stats.recordFrame(ms(40), DEADLINE_60HZ, 0);
+        stats.recordStall(stall(500, "message", null));
+
+        stats.reset(NOW + 1);
+        JSONObject json = stats.toJson(10);
+
+        assertEquals(NOW + 1, json.getLong("since"));
+        assertEquals(0, json.getJSONObject("frames").getLong("count"));
+        assertEquals(0, json.getJSONObject("stalls").getJSONArray("worst").length());
+    }
+
+    @Test
+    public void describeMessageDropsObjectHashes() {
+        assertEquals("Handler (android.view.Choreographer$FrameHandler) "
+                        + "android.view.Choreographer$FrameDisplayEventReceiver: 0",
+                JankStats.describeMessage(">>>>> Dispatching to Handler (android.view.Choreographer$FrameHandler) "
+                        + "{3e1e5b0} android.view.Choreographer$FrameDisplayEventReceiver@a1b2c3: 0"));
+    }
+
+    private static long ms(long value) {
+        return value * 1_000_000L;
+    }
+
+    private static JankStats.Stall stall(long durationMs, String message, String section) {
+        return new JankStats.Stall(NOW, durationMs, message, section, Collections.emptyList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * 서명 검증과 결과 캐시 검증 (같은 토큰/서명이라도 originalJson이 바뀌면 캐시를 쓰지 않아야 함)
+ */
+public class PurchaseVerifierTest {
+
+    private static final String TOKEN = "token-1";
+    private static final String ORIGINAL_JSON = "{\"productId\":\"potion_10\",\"purchaseToken\":\"token-1\"}";
+
+    private KeyPair keyPair;
+    private PurchaseVerifier verifier;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        verifier = new PurchaseVerifier(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()),
+                value -> Base64.getDecoder().decode(value));
+    }
+
+    @Test
+    public void signedPurchaseIsValidAndForgedSignatureIsNot() throws Exception {
+        assertEquals(PurchaseVerifier.VALID, verifier.verify(TOKEN, ORIGINAL_JSON, sign(ORIGINAL_JSON)));
+        assertEquals(PurchaseVerifier.INVALID, verifier.verify("token-2", ORIGINAL_JSON, sign("{}")));
+    }
+
+    @Test
+    public void tamperedDataWithCachedTokenAndSignatureIsRechecked() throws Exception {
+        String signature = sign(ORIGINAL_JSON);
+        assertEquals(PurchaseVerifier.VALID, verifier.verify(TOKEN, ORIGINAL_JSON, signature));
+
+        String tampered = ORIGINAL_JSON.replace("potion_10", "potion_100");
+
+        assertEquals(PurchaseVerifier.INVALID, verifier.verify(TOKEN, tampered, signature));
+        assertEquals(PurchaseVerifier.VALID, verifier.verify(TOKEN, ORIGINAL_JSON, signature));
+    }
+
+    @Test
+    public void missingKeyIsUnavailable() {
+        PurchaseVerifier withoutKey = new PurchaseVerifier("", value -> Base64.getDecoder().decode(value));
+
+        assertEquals(PurchaseVerifier.UNAVAILABLE, withoutKey.verify(TOKEN, ORIGINAL_JSON, "c2ln"));
+    }
+
+    private String sign(String data) throws Exception {
+        Signature signature = Signature.getInstance("SHA1withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(data.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signature.sign());
+    }
+}
@@ -0,0 +1,161 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 검색 인덱스의 한글 n-gram 검색, 구/접두어 검색, 순위와 페이지, 파일 복원 검증
+ */
+public class SearchIndexTest {
+
+    private File directory;
+    private SearchIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("search-index-test").toFile();
+        index = new SearchIndex(directory);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        index.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void koreanWordsMatchRegardlessOfParticlesAndSpacing() throws Exception {
+        index.upsert(diary("d1", "", "여름방학에 친구들과 바다에 갔다.", 1));
+        index.upsert(diary("d2", "", "오늘은 비가 와서 집에 있었다.", 2));
+
+        assertEquals(Collections.singletonList("d1"), ids(index.search("여름 방학", null, null, 10)));
+        assertEquals(Collections.singletonList("d1"), ids(index.search("바다", null, null, 10)));
+        assertEquals(Collections.singletonList("d2"), ids(index.search("비가 집", null, null, 10)));
+        assertTrue(ids(index.search("바다 비가", null, null, 10)).isEmpty());
+    }
+
+    @Test
+    public void joinedQueryMatchesSpacedText() throws Exception {
+        index.upsert(diary("d1", "", "여름 방학에 친구들과 바다에 갔다.", 1));
+        index.upsert(diary("d2", "", "여름. 방학 숙제를 했다.", 2));
+
+        // 공백만 사이에 있을 때만 이어진 것으로 본다
+        assertEquals(Collections.singletonList("d1"), ids(index.search("여름방학", null, null, 10)));
+        assertEquals(Collections.singletonList("d1"), ids(index.search("\"여름방학\"", null, null, 10)));
+    }
+
+    @Test
+    public void singleCharacterMatchesAnywhereInWord() throws Exception {
+        index.upsert(diary("d1", "", "어젯밤 꿈을 꾸었다", 1));
+        index.upsert(diary("d2", "", "나의꿈", 2));
+        index.upsert(diary("d3", "", "평범한 하루", 3));
+
+        assertEquals(Arrays.asList("d2", "d1"), ids(index.search("꿈", null, null, 10)));
+    }
+
+    @Test
+    public void quotedPhraseRequiresAdjacentWords() throws Exception {
+        index.upsert(diary("d1", "", "바다 여행을 떠났다", 1));
+        index.upsert(diary("d2", "", "여행 중에 바다를 봤다", 2));
+
+        assertEquals(Collections.singletonList("d1"), ids(index.search("\"바다 여행\"", null, null, 10)));
+        assertEquals(2, index.search("바다 여행", null, null, 10).total);
+    }
+
+    @Test
+    public void trailingStarExpandsPrefix() throws Exception {
+        index.upsert(diary("d1", "", "Bought a Potion today", 1));
+        index.upsert(diary("d2", "", "pot of tea", 2));
+
+        assertEquals(Arrays.asList("d1", "d2"), sorted(ids(index.search("pot*", null, null, 10))));
+        assertEquals(Collections.singletonList("d2"), ids(index.search("pot", null, null, 10)));
+        assertEquals(Collections.singletonList("d1"), ids(index.search("ＰＯＴＩＯＮ", null, null, 10)));
+    }
+
+    @Test
+    public void titleMatchRanksFirstAndTypeFilters() throws Exception {
+        index.upsert(diary("d1", "산책", "공원에 갔다", 1));
+        index.upsert(diary("d2", "일상", "저녁에 공원 산책을 했다", 2));
+        index.upsert(new SearchIndex.Document("n1", "novel", "산책하는 고양이", "고양이가 걸었다", 3));
+
+        assertEquals(Arrays.asList("d1", "d2"), ids(index.search("산책", "diary", null, 10)));
+        assertEquals(Collections.singletonList("n1"), ids(index.search("산책", "novel", null, 10)));
+    }
+
+    @Test
+    public void pagesWalkAllHitsUntilCursorIsNull() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            index.upsert(diary("d" + i, "", "일기 " + i, i));
+        }
+
+        SearchIndex.Page first = index.search("일기", null, null, 2);
+        SearchIndex.Page second = index.search("일기", null, first.nextCursor, 2);
+        SearchIndex.Page third = index.search("일기", null, second.nextCursor, 2);
+
+        assertEquals(5, first.total);
+        assertEquals(Arrays.asList("d4", "d3"), ids(first));
+        assertEquals(Arrays.asList("d2", "d1"), ids(second));
+        assertEquals(Collections.singletonList("d0"), ids(third));
+        assertNull(third.nextCursor);
+    }
+
+    @Test
+    public void updatesAndRemovalsSurviveReopen() throws Exception {
+        index.upsert(diary("d1", "", "처음 쓴 내용", 1));
+        index.upsert(diary("d2", "", "지울 일기", 2));
+        index.upsert(diary("d1", "", "고쳐 쓴 내용", 1));
+        assertFalse(index.upsert(diary("d1", "", "고쳐 쓴 내용", 1)));
+        index.remove("d2");
+        index.close();
+
+        index = new SearchIndex(directory);
+
+        assertEquals(1, index.size());
+        assertTrue(ids(index.search("처음", null, null, 10)).isEmpty());
+        SearchIndex.Page page = index.search("고쳐", null, null, 10);
+        assertEquals(Collections.singletonList("d1"), ids(page));
+        assertEquals("고쳐 쓴 내용", page.hits.get(0).snippet);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedCursorIsRejected() throws IOException {
+        index.search("일기", null, "not-a-cursor", 10);
+    }
+
+    private static SearchIndex.Document diary(String id, String title, String text, long date) {
+        return new SearchIndex.Document(id, "diary", title, text, date);
+    }
+
+    private static List<String> ids(SearchIndex.Page page) {
+        List<String> ids = new ArrayList<>();
+        for (SearchIndex.Hit hit : page.hits) {
+            ids.add(hit.id);
+        }
+        return ids;
+    }
+
+    private static List<String> sorted(List<String> ids) {
+        Collections.sort(ids);
+        return ids;
+    }
+}
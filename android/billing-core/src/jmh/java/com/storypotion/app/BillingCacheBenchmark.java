@@ -0,0 +1,124 @@
+package com.storypotion.app;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 정보 캐시와 보유 상품 스냅샷의 조회/비교 경로
+ *
+ * 상품 캐시: 신선한 항목(hit), 없는 항목(miss), queryProductDetails가 매번 하는 오래된 ID 확인
+ * 보유 상품: queryPurchases 결과가 이전과 같을 때(대부분의 포그라운드 복귀)와 하나가 바뀌었을 때의 비교
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BillingCacheBenchmark {
+
+    private static final String INAPP = "inapp";
+    private static final String SUBS = "subs";
+    private static final int PRODUCT_COUNT = 40;
+    private static final int ENTITLEMENT_COUNT = 50;
+
+    private File directory;
+    private ProductDetailsCache<Object> productCache;
+    private EntitlementStore entitlementStore;
+    private List<String> cachedIds;
+    private List<String> mixedIds;
+    private List<EntitlementStore.Entitlement> unchanged;
+    private List<EntitlementStore.Entitlement> oneAcknowledged;
+
+    @Setup
+    public void setUp() throws IOException, JSONException {
+        directory = Files.createTempDirectory("billing-cache-benchmark").toFile();
+
+        productCache = new ProductDetailsCache<>(directory);
+        cachedIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            String productId = "potion_" + i;
+            JSONObject product = new JSONObject()
+                    .put("productId", productId)
+                    .put("productType", INAPP)
+                    .put("title", productId + " (Story Potion)")
+                    .put("price", 1200.0)
+                    .put("priceCurrencyCode", "KRW")
+                    .put("priceFormatted", "₩1,200");
+            productCache.put(productId, INAPP, new Object(), product);
+            cachedIds.add(productId);
+        }
+        mixedIds = Arrays.asList("potion_1", "potion_2", "missing_1", "potion_3", "missing_2");
+
+        entitlementStore = new EntitlementStore(directory);
+        unchanged = new ArrayList<>();
+        oneAcknowledged = new ArrayList<>();
+        for (int i = 0; i < ENTITLEMENT_COUNT; i++) {
+            unchanged.add(entitlement(i, i != 0));
+            oneAcknowledged.add(entitlement(i, true));
+        }
+        entitlementStore.replaceType(SUBS, unchanged);
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public Object productCacheHit() {
+        return productCache.getFreshDetails("potion_7", INAPP);
+    }
+
+    @Benchmark
+    public Object productCacheMiss() {
+        return productCache.getFreshDetails("missing", INAPP);
+    }
+
+    @Benchmark
+    public List<String> staleProductIdsAllCached() {
+        return productCache.staleProductIds(cachedIds, INAPP);
+    }
+
+    @Benchmark
+    public List<String> staleProductIdsMixed() {
+        return productCache.staleProductIds(mixedIds, INAPP);
+    }
+
+    @Benchmark
+    public EntitlementStore.Delta entitlementsUnchanged() {
+        return entitlementStore.replaceType(SUBS, unchanged);
+    }
+
+    /** 바뀐 상태와 원래 상태를 번갈아 넣어서 매번 changed 하나가 나오게 함 */
+    @Benchmark
+    public EntitlementStore.Delta entitlementsOneChanged() {
+        entitlementStore.replaceType(SUBS, oneAcknowledged);
+        return entitlementStore.replaceType(SUBS, unchanged);
+    }
+
+    private static EntitlementStore.Entitlement entitlement(int index, boolean acknowledged) {
+        return new EntitlementStore.Entitlement(SUBS, Collections.singletonList("premium_" + (index % 3)),
+                "token-" + index, "GPA." + index, 1_700_000_000_000L + index, true, acknowledged, 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.storypotion.app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 스레드가 동시에 조회/콜백을 넘길 때의 처리량
+ *
+ * 웹뷰 브리지 스레드, Play 응답 스레드, 콜백 스레드가 같은 객체를 공유하는 상황을 4개 스레드로 흉내낸다.
+ * coalescer: 최근 결과 재사용 경로와 매번 조회하는 경로, callbackRoundTrip: 콜백 스레드에 넘기고 끝날 때까지,
+ * metricsRecord: 모든 Play 응답에서 호출되는 지표 기록의 락 경합
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class BillingDispatchBenchmark {
+
+    private static final List<String> RESULT = Arrays.asList("premium_monthly", "premium_yearly");
+    // Play 응답 없이 바로 결과를 돌려주는 조회
+    private static final BillingQueryCoalescer.Query<Integer, List<String>> IMMEDIATE_QUERY =
+            (listener, onError) -> listener.onResponse(0, RESULT);
+    private static final BillingQueryCoalescer.ErrorCallback IGNORE_ERROR = message -> {
+    };
+
+    private BillingQueryCoalescer<Integer, List<String>> reusingCoalescer;
+    private BillingQueryCoalescer<Integer, List<String>> nonReusingCoalescer;
+    private BillingMetrics metrics;
+    private BillingCallbackExecutor callbackExecutor;
+
+    @Setup
+    public void setUp() {
+        reusingCoalescer = new BillingQueryCoalescer<>(Long.MAX_VALUE, status -> status == 0);
+        nonReusingCoalescer = new BillingQueryCoalescer<>(0L, status -> status == 0);
+        metrics = new BillingMetrics();
+        callbackExecutor = new BillingCallbackExecutor(metrics);
+    }
+
+    @TearDown
+    public void tearDown() {
+        callbackExecutor.shutdown();
+    }
+
+    @Benchmark
+    public void coalescerReuse(Blackhole blackhole) {
+        reusingCoalescer.execute("subs", (status, value) -> blackhole.consume(value), IGNORE_ERROR, IMMEDIATE_QUERY);
+    }
+
+    @Benchmark
+    public void coalescerQuery(Blackhole blackhole) {
+        nonReusingCoalescer.execute("subs", (status, value) -> blackhole.consume(value), IGNORE_ERROR,
+                IMMEDIATE_QUERY);
+    }
+
+    @Benchmark
+    public void callbackRoundTrip() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        callbackExecutor.execute(done::countDown);
+        done.await();
+    }
+
+    @Benchmark
+    public void metricsRecord() {
+        metrics.record(BillingMetrics.QUERY_PURCHASES, 0, BillingMetrics.startTimer());
+    }
+}
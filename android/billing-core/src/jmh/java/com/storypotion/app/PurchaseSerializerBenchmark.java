@@ -0,0 +1,149 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 큰 구매 목록을 브리지 응답 JSON으로 변환하는 비용
+ *
+ * default: queryPurchases의 기본 필드, entitlement: inAppPurchase.js가 구독 확인에 요청하는 필드만,
+ * serialized: 브리지로 보내기 직전의 문자열 변환까지 포함
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PurchaseSerializerBenchmark {
+
+    // inAppPurchase.js의 ENTITLEMENT_FIELDS와 같은 필드
+    private static final int ENTITLEMENT_FIELDS = PurchaseSerializer.PURCHASE_TOKEN | PurchaseSerializer.PURCHASE_TIME
+            | PurchaseSerializer.IS_ACKNOWLEDGED | PurchaseSerializer.IS_AUTO_RENEWING
+            | PurchaseSerializer.PURCHASE_STATE | PurchaseSerializer.PRODUCTS;
+
+    /** Play가 내려주는 구매와 같은 값을 가진 JVM용 구매 */
+    static final class SamplePurchase {
+        final String orderId;
+        final String purchaseToken;
+        final long purchaseTime;
+        final List<String> products;
+        final String originalJson;
+
+        SamplePurchase(int index) {
+            orderId = "GPA.3372-4150-9088-" + (10_000 + index);
+            // 실제 구매 토큰과 비슷한 길이 (150자 안팎)
+            StringBuilder token = new StringBuilder(160);
+            while (token.length() < 150) {
+                token.append("opaque-token-").append(index).append('.');
+            }
+            purchaseToken = token.toString();
+            purchaseTime = 1_700_000_000_000L + index * 60_000L;
+            products = Collections.singletonList("potion_" + (index % 20));
+            originalJson = "{\"orderId\":\"" + orderId + "\",\"packageName\":\"com.storypotion.app\",\"productId\":\""
+                    + products.get(0) + "\",\"purchaseTime\":" + purchaseTime + ",\"purchaseState\":0,"
+                    + "\"purchaseToken\":\"" + purchaseToken + "\",\"quantity\":1,\"acknowledged\":true}";
+        }
+    }
+
+    static final PurchaseSerializer.Source<SamplePurchase> SOURCE = new PurchaseSerializer.Source<SamplePurchase>() {
+        @Override
+        public String orderId(SamplePurchase purchase) {
+            return purchase.orderId;
+        }
+
+        @Override
+        public String packageName(SamplePurchase purchase) {
+            return "com.storypotion.app";
+        }
+
+        @Override
+        public long purchaseTime(SamplePurchase purchase) {
+            return purchase.purchaseTime;
+        }
+
+        @Override
+        public String purchaseToken(SamplePurchase purchase) {
+            return purchase.purchaseToken;
+        }
+
+        @Override
+        public String signature(SamplePurchase purchase) {
+            return "c2lnbmF0dXJl";
+        }
+
+        @Override
+        public boolean isAcknowledged(SamplePurchase purchase) {
+            return true;
+        }
+
+        @Override
+        public boolean isAutoRenewing(SamplePurchase purchase) {
+            return false;
+        }
+
+        @Override
+        public int purchaseState(SamplePurchase purchase) {
+            return 1;
+        }
+
+        @Override
+        public List<String> products(SamplePurchase purchase) {
+            return purchase.products;
+        }
+
+        @Override
+        public int quantity(SamplePurchase purchase) {
+            return 1;
+        }
+
+        @Override
+        public String originalJson(SamplePurchase purchase) {
+            return purchase.originalJson;
+        }
+    };
+
+    @Param({ "10", "1000", "10000" })
+    public int purchaseCount;
+
+    private List<SamplePurchase> purchases;
+
+    @Setup
+    public void setUp() {
+        purchases = new ArrayList<>(purchaseCount);
+        for (int i = 0; i < purchaseCount; i++) {
+            purchases.add(new SamplePurchase(i));
+        }
+    }
+
+    @Benchmark
+    public JSONArray defaultFields() throws JSONException {
+        return PurchaseSerializer.writePurchases(purchases, SOURCE, PurchaseSerializer.DEFAULT_PURCHASE_FIELDS);
+    }
+
+    @Benchmark
+    public JSONArray entitlementFields() throws JSONException {
+        return PurchaseSerializer.writePurchases(purchases, SOURCE, ENTITLEMENT_FIELDS);
+    }
+
+    @Benchmark
+    public String defaultFieldsSerialized() throws JSONException {
+        return PurchaseSerializer.writePurchases(purchases, SOURCE, PurchaseSerializer.DEFAULT_PURCHASE_FIELDS)
+                .toString();
+    }
+
+    @Benchmark
+    public String entitlementFieldsSerialized() throws JSONException {
+        return PurchaseSerializer.writePurchases(purchases, SOURCE, ENTITLEMENT_FIELDS).toString();
+    }
+}
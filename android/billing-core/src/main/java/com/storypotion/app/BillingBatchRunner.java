@@ -0,0 +1,136 @@
+package com.storypotion.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 구매 토큰 여러 개에 대한 작업(acknowledge/consume)을 동시 실행 수를 제한해서 병렬로 처리
+ */
+class BillingBatchRunner {
+
+    /** 토큰 하나에 대한 비동기 작업. 끝나면 done.complete를 한 번 호출해야 한다. */
+    interface Operation {
+        void start(String purchaseToken, Completion done);
+    }
+
+    interface Completion {
+        void complete(int responseCode, String debugMessage);
+    }
+
+    interface FinishedCallback {
+        void onFinished(Map<String, Result> results);
+    }
+
+    /** 토큰별 처리 결과 */
+    static final class Result {
+        final int responseCode;
+        final String debugMessage;
+
+        Result(int responseCode, String debugMessage) {
+            this.responseCode = responseCode;
+            this.debugMessage = debugMessage;
+        }
+
+        boolean isSuccess() {
+            // BillingClient.BillingResponseCode.OK
+            return responseCode == 0;
+        }
+    }
+
+    private final List<String> tokens;
+    private final int maxInFlight;
+    private final Operation operation;
+    private final FinishedCallback finishedCallback;
+    private final Map<String, Result> results = new HashMap<>();
+    private int nextIndex = 0;
+    private int completed = 0;
+
+    private BillingBatchRunner(List<String> tokens, int maxInFlight, Operation operation,
+            FinishedCallback finishedCallback) {
+        this.tokens = tokens;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.operation = operation;
+        this.finishedCallback = finishedCallback;
+    }
+
+    /**
+     * 중복 토큰은 한 번만 처리한다. 모든 토큰이 끝나면 finishedCallback이 한 번 호출된다.
+     */
+    static void run(List<String> purchaseTokens, int maxInFlight, Operation operation,
+            FinishedCallback finishedCallback) {
+        List<String> uniqueTokens = new ArrayList<>(new LinkedHashSet<>(purchaseTokens));
+        if (uniqueTokens.isEmpty()) {
+            finishedCallback.onFinished(Collections.emptyMap());
+            return;
+        }
+        new BillingBatchRunner(uniqueTokens, maxInFlight, operation, finishedCallback).startInitial();
+    }
+
+    private void startInitial() {
+        List<String> initial = new ArrayList<>();
+        synchronized (this) {
+            while (nextIndex < tokens.size() && nextIndex < maxInFlight) {
+                initial.add(tokens.get(nextIndex++));
+            }
+        }
+        for (String token : initial) {
+            start(token);
+        }
+    }
+
+    private void start(String token) {
+        boolean[] done = new boolean[1];
+        try {
+            operation.start(token, (responseCode, debugMessage) -> {
+                synchronized (done) {
+                    if (done[0]) {
+                        return;
+                    }
+                    done[0] = true;
+                }
+                onComplete(token, new Result(responseCode, debugMessage));
+            });
+        } catch (RuntimeException e) {
+            synchronized (done) {
+                if (done[0]) {
+                    return;
+                }
+                done[0] = true;
+            }
+            // BillingClient.BillingResponseCode.ERROR
+            onComplete(token, new Result(6, e.getMessage()));
+        }
+    }
+
+    private void onComplete(String token, Result result) {
+        String next = null;
+        boolean finished;
+        synchronized (this) {
+            results.put(token, result);
+            completed++;
+            if (nextIndex < tokens.size()) {
+                next = tokens.get(nextIndex++);
+            }
+            finished = completed == tokens.size();
+        }
+
+        if (next != null) {
+            start(next);
+        }
+        if (finished) {
+            // 요청 순서대로 결과 정리
+            Map<String, Result> ordered = new LinkedHashMap<>();
+            synchronized (this) {
+                for (String requestedToken : tokens) {
+                    ordered.put(requestedToken, results.get(requestedToken));
+                }
+            }
+            finishedCallback.onFinished(ordered);
+        }
+    }
+}
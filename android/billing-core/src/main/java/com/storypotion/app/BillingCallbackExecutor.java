@@ -0,0 +1,60 @@
+package com.storypotion.app;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Billing 콜백 처리 스레드
+ *
+ * BillingClient는 모든 응답을 메인 스레드로 전달한다. JSON 생성, 캐시/스냅샷 갱신 같은 처리를
+ * 메인 스레드에서 하면 WebView 애니메이션이 끊기므로 이 스레드로 넘겨서 처리한다.
+ * 스레드는 하나라서 콜백은 도착한 순서대로 처리된다. 대기열이 가득 차면 호출한 스레드에서 바로 처리한다.
+ */
+class BillingCallbackExecutor implements Executor {
+
+    private static final String TAG = "BillingPlugin";
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final BillingMetrics metrics;
+    private final ThreadPoolExecutor executor;
+
+    BillingCallbackExecutor(BillingMetrics metrics) {
+        this.metrics = metrics;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "BillingCallbacks");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> {
+                    metrics.recordCallbackOverflow();
+                    NativeLog.w(TAG, "[인앱결제] 콜백 대기열 가득 참, 호출 스레드에서 처리");
+                    if (!pool.isShutdown()) {
+                        runnable.run();
+                    }
+                });
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long queuedAt = BillingMetrics.startTimer();
+        executor.execute(() -> {
+            metrics.recordLatency(BillingMetrics.CALLBACK_QUEUE_WAIT, queuedAt);
+            long startedAt = BillingMetrics.startTimer();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // 콜백 하나의 오류로 처리 스레드가 멈추지 않게 함
+                NativeLog.e(TAG, "[인앱결제] 콜백 처리 실패", "error", e);
+            } finally {
+                metrics.recordLatency(BillingMetrics.CALLBACK_WORK, startedAt);
+            }
+        });
+        metrics.recordCallbackQueueDepth(executor.getQueue().size());
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,253 @@
+package com.storypotion.app;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 인앱결제 성능 지표
+ *
+ * 작업별 지연 시간 히스토그램과 응답 코드 횟수, 연결/재연결 횟수, 결제 흐름(탭 → 결제 창 → 결과) 시간을 모은다.
+ * 히스토그램은 고정 구간 개수만 세므로 기록할 때 메모리가 늘어나지 않는다.
+ */
+class BillingMetrics {
+
+    // 작업 이름
+    static final String CONNECT = "connect";
+    static final String CONNECTION_WAIT = "connectionWait";
+    static final String QUERY_PRODUCT_DETAILS = "queryProductDetails";
+    static final String QUERY_PURCHASES = "queryPurchases";
+    static final String QUERY_PURCHASE_HISTORY = "queryPurchaseHistory";
+    static final String LAUNCH_BILLING_FLOW = "launchBillingFlow";
+    static final String ACKNOWLEDGE = "acknowledge";
+    static final String CONSUME = "consume";
+    // 메인 스레드 콜백 → 결제 처리 스레드 대기 시간, 처리 시간
+    static final String CALLBACK_QUEUE_WAIT = "callbackQueueWait";
+    static final String CALLBACK_WORK = "callbackWork";
+
+    // 결제 흐름 결과
+    static final String OUTCOME_PURCHASED = "purchased";
+    static final String OUTCOME_PENDING = "pending";
+    static final String OUTCOME_CANCELED = "canceled";
+    static final String OUTCOME_FAILED = "failed";
+
+    /** 지연 시간 히스토그램 (구간 상한, ms) */
+    static final class Histogram {
+        private static final long[] BOUNDS_MS = {
+                5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10_000, 30_000, 60_000, Long.MAX_VALUE
+        };
+
+        private final long[] buckets = new long[BOUNDS_MS.length];
+        private long count;
+        private long sumMs;
+        private long minMs = Long.MAX_VALUE;
+        private long maxMs;
+
+        void record(long elapsedMs) {
+            long value = Math.max(0, elapsedMs);
+            int index = 0;
+            while (value > BOUNDS_MS[index]) {
+                index++;
+            }
+            buckets[index]++;
+            count++;
+            sumMs += value;
+            minMs = Math.min(minMs, value);
+            maxMs = Math.max(maxMs, value);
+        }
+
+        void clear() {
+            Arrays.fill(buckets, 0);
+            count = 0;
+            sumMs = 0;
+            minMs = Long.MAX_VALUE;
+            maxMs = 0;
+        }
+
+        /**
+         * 백분위 추정. 해당 구간 안에서는 값이 고르게 분포한다고 보고 선형 보간
+         */
+        long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            double rank = p * count;
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] == 0) {
+                    continue;
+                }
+                if (cumulative + buckets[i] >= rank) {
+                    long lower = Math.max(i == 0 ? 0 : BOUNDS_MS[i - 1], minMs);
+                    long upper = Math.min(BOUNDS_MS[i], maxMs);
+                    double fraction = (rank - cumulative) / buckets[i];
+                    return lower + Math.round((upper - lower) * fraction);
+                }
+                cumulative += buckets[i];
+            }
+            return maxMs;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("meanMs", count > 0 ? sumMs / count : 0);
+            json.put("minMs", count > 0 ? minMs : 0);
+            json.put("maxMs", maxMs);
+            json.put("p50Ms", percentile(0.50));
+            json.put("p90Ms", percentile(0.90));
+            json.put("p99Ms", percentile(0.99));
+            return json;
+        }
+    }
+
+    private static final class Operation {
+        final Histogram latency = new Histogram();
+        // 응답 코드 -> 횟수 (코드 순서대로 출력)
+        final Map<Integer, Long> responseCodes = new TreeMap<>();
+    }
+
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final Histogram tapToSheet = new Histogram();
+    private final Histogram sheetToResult = new Histogram();
+    private final Histogram tapToResult = new Histogram();
+    private final Map<String, Long> funnelOutcomes = new LinkedHashMap<>();
+    private long connects;
+    private long reconnects;
+    private long disconnects;
+    private long callbackOverflows;
+    private int maxCallbackQueueDepth;
+    private long since = System.currentTimeMillis();
+
+    /** 경과 시간 측정 시작 시각 */
+    static long startTimer() {
+        return System.nanoTime();
+    }
+
+    static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * 작업 하나의 응답 코드와 지연 시간 기록
+     */
+    synchronized void record(String operation, int responseCode, long startNanos) {
+        Operation stats = getOperationLocked(operation);
+        stats.latency.record(elapsedMs(startNanos));
+        Long current = stats.responseCodes.get(responseCode);
+        stats.responseCodes.put(responseCode, current != null ? current + 1 : 1L);
+    }
+
+    /** 응답 코드 없이 지연 시간만 있는 작업 (연결 대기 등) */
+    synchronized void recordLatency(String operation, long startNanos) {
+        getOperationLocked(operation).latency.record(elapsedMs(startNanos));
+    }
+
+    private Operation getOperationLocked(String operation) {
+        Operation stats = operations.get(operation);
+        if (stats == null) {
+            stats = new Operation();
+            operations.put(operation, stats);
+        }
+        return stats;
+    }
+
+    /** 연결 시도. 이전에 연결이 끊겼거나 실패한 뒤의 시도면 reconnect */
+    synchronized void recordConnectAttempt(boolean reconnect) {
+        connects++;
+        if (reconnect) {
+            reconnects++;
+        }
+    }
+
+    synchronized void recordDisconnect() {
+        disconnects++;
+    }
+
+    /** 콜백을 대기열에 넣은 직후의 대기열 길이 */
+    synchronized void recordCallbackQueueDepth(int depth) {
+        maxCallbackQueueDepth = Math.max(maxCallbackQueueDepth, depth);
+    }
+
+    /** 대기열이 가득 차서 콜백을 호출한 스레드에서 바로 처리함 */
+    synchronized void recordCallbackOverflow() {
+        callbackOverflows++;
+    }
+
+    /**
+     * 결제 흐름 시간 기록 (ms 단위 시각). 결제 창이 뜨지 않았으면 launchedAt은 0
+     */
+    synchronized void recordFunnel(long tappedAt, long launchedAt, long finishedAt, String outcome) {
+        if (launchedAt > 0) {
+            tapToSheet.record(launchedAt - tappedAt);
+            sheetToResult.record(finishedAt - launchedAt);
+        }
+        tapToResult.record(finishedAt - tappedAt);
+        Long current = funnelOutcomes.get(outcome);
+        funnelOutcomes.put(outcome, current != null ? current + 1 : 1L);
+    }
+
+    synchronized void reset() {
+        operations.clear();
+        funnelOutcomes.clear();
+        tapToSheet.clear();
+        sheetToResult.clear();
+        tapToResult.clear();
+        connects = 0;
+        reconnects = 0;
+        disconnects = 0;
+        callbackOverflows = 0;
+        maxCallbackQueueDepth = 0;
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * { since, operations: { 이름: { count, meanMs, ..., p99Ms, responseCodes } }, connection, callbacks, funnel }
+     */
+    synchronized JSONObject toJson() throws JSONException {
+        JSONObject operationsJson = new JSONObject();
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            Operation stats = entry.getValue();
+            JSONObject operationJson = stats.latency.toJson();
+            if (!stats.responseCodes.isEmpty()) {
+                JSONObject codes = new JSONObject();
+                for (Map.Entry<Integer, Long> code : stats.responseCodes.entrySet()) {
+                    codes.put(String.valueOf(code.getKey()), code.getValue());
+                }
+                operationJson.put("responseCodes", codes);
+            }
+            operationsJson.put(entry.getKey(), operationJson);
+        }
+
+        JSONObject connection = new JSONObject();
+        connection.put("connects", connects);
+        connection.put("reconnects", reconnects);
+        connection.put("disconnects", disconnects);
+
+        JSONObject callbacks = new JSONObject();
+        callbacks.put("overflows", callbackOverflows);
+        callbacks.put("maxQueueDepth", maxCallbackQueueDepth);
+
+        JSONObject outcomes = new JSONObject();
+        for (Map.Entry<String, Long> entry : funnelOutcomes.entrySet()) {
+            outcomes.put(entry.getKey(), entry.getValue());
+        }
+        JSONObject funnel = new JSONObject();
+        funnel.put("tapToSheet", tapToSheet.toJson());
+        funnel.put("sheetToResult", sheetToResult.toJson());
+        funnel.put("tapToResult", tapToResult.toJson());
+        funnel.put("outcomes", outcomes);
+
+        JSONObject metrics = new JSONObject();
+        metrics.put("since", since);
+        metrics.put("operations", operationsJson);
+        metrics.put("connection", connection);
+        metrics.put("callbacks", callbacks);
+        metrics.put("funnel", funnel);
+        return metrics;
+    }
+}
@@ -0,0 +1,103 @@
+package com.storypotion.app;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * ISO-8601 기간 문자열 (PricingPhase.getBillingPeriod(), 예: P1W, P1M, P1Y) 파싱 및 만료일 계산
+ *
+ * java.time은 API 26부터라서 minSdk 23에서 쓸 수 없으므로 Calendar로 계산한다.
+ */
+final class BillingPeriod {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    final int years;
+    final int months;
+    final int days;
+
+    private BillingPeriod(int years, int months, int days) {
+        this.years = years;
+        this.months = months;
+        this.days = days;
+    }
+
+    /**
+     * 파싱할 수 없거나 길이가 0인 기간이면 null
+     */
+    static BillingPeriod parse(String iso) {
+        if (iso == null || iso.length() < 3 || iso.charAt(0) != 'P') {
+            return null;
+        }
+
+        int years = 0;
+        int months = 0;
+        int days = 0;
+        int value = -1;
+        for (int i = 1; i < iso.length(); i++) {
+            char c = iso.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                continue;
+            }
+            if (value < 0) {
+                return null;
+            }
+            switch (c) {
+                case 'Y':
+                    years += value;
+                    break;
+                case 'M':
+                    months += value;
+                    break;
+                case 'W':
+                    days += value * 7;
+                    break;
+                case 'D':
+                    days += value;
+                    break;
+                default:
+                    // 시간 단위(T...)는 구독 기간에 쓰이지 않음
+                    return null;
+            }
+            value = -1;
+        }
+
+        if (value >= 0 || (years == 0 && months == 0 && days == 0)) {
+            return null;
+        }
+        return new BillingPeriod(years, months, days);
+    }
+
+    /** startMillis에서 기간을 times번 더한 시각 */
+    long addTo(long startMillis, int times) {
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.setTimeInMillis(startMillis);
+        calendar.add(Calendar.YEAR, years * times);
+        calendar.add(Calendar.MONTH, months * times);
+        calendar.add(Calendar.DAY_OF_MONTH, days * times);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * startMillis부터 기간 단위로 갱신된다고 보고 nowMillis 이후 첫 갱신(만료) 시각을 추정
+     */
+    long nextRenewalAfter(long startMillis, long nowMillis) {
+        if (nowMillis < startMillis) {
+            return addTo(startMillis, 1);
+        }
+
+        // 대략적인 기간 길이로 반복 횟수를 먼저 추정한 뒤 보정
+        long approxMillis = years * 365L * 86_400_000L + months * 30L * 86_400_000L + days * 86_400_000L;
+        int times = (int) Math.max(1, (nowMillis - startMillis) / approxMillis);
+        while (times > 1 && addTo(startMillis, times - 1) > nowMillis) {
+            times--;
+        }
+        long renewal = addTo(startMillis, times);
+        while (renewal <= nowMillis) {
+            times++;
+            renewal = addTo(startMillis, times);
+        }
+        return renewal;
+    }
+}
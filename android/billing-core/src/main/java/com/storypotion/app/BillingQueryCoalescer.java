@@ -0,0 +1,155 @@
+package com.storypotion.app;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 같은 Play 조회가 동시에 여러 번 요청되면 한 번만 실행하고 결과를 모든 요청에 나눠 준다.
+ *
+ * 키가 같은 조회가 진행 중이면 새 요청은 대기 목록에만 추가된다.
+ * 성공한 결과(reusable이 true)는 reuseWindowMs 동안 기억해서 그 사이에 들어온 같은 조회에도 그대로 돌려준다.
+ * 구매 상태가 바뀌면 invalidate()로 기억한 결과를 버려야 한다.
+ *
+ * @param <S> 응답 상태 타입 (BillingResult 등)
+ * @param <V> 조회 결과 목록 타입 (List&lt;Purchase&gt; 등)
+ */
+class BillingQueryCoalescer<S, V> {
+
+    interface Listener<S, V> {
+        void onResponse(S status, V value);
+    }
+
+    interface ErrorCallback {
+        void onError(String message);
+    }
+
+    /** 실제 Play 조회. 끝나면 onResponse 또는 onError 중 하나를 한 번 호출해야 한다. */
+    interface Query<S, V> {
+        void start(Listener<S, V> onResponse, ErrorCallback onError);
+    }
+
+    /** 다시 써도 되는 응답인지 (보통 응답 코드가 OK인지) */
+    interface ReusePolicy<S> {
+        boolean isReusable(S status);
+    }
+
+    private static final class Waiter<S, V> {
+        final Listener<S, V> listener;
+        final ErrorCallback onError;
+
+        Waiter(Listener<S, V> listener, ErrorCallback onError) {
+            this.listener = listener;
+            this.onError = onError;
+        }
+    }
+
+    private static final class Recent<S, V> {
+        final S status;
+        final V value;
+        final long completedAt;
+
+        Recent(S status, V value, long completedAt) {
+            this.status = status;
+            this.value = value;
+            this.completedAt = completedAt;
+        }
+    }
+
+    private final long reuseWindowMs;
+    private final ReusePolicy<S> reusePolicy;
+    // 키 -> 결과를 기다리는 요청 (첫 요청 포함)
+    private final Map<String, List<Waiter<S, V>>> inFlight = new HashMap<>();
+    private final Map<String, Recent<S, V>> recent = new HashMap<>();
+    // invalidate 이전에 시작된 조회의 결과는 기억하지 않기 위한 세대 번호
+    private long generation;
+    private long coalesced;
+    private long reused;
+
+    BillingQueryCoalescer(long reuseWindowMs, ReusePolicy<S> reusePolicy) {
+        this.reuseWindowMs = reuseWindowMs;
+        this.reusePolicy = reusePolicy;
+    }
+
+    /**
+     * key에 해당하는 조회 실행. 같은 조회가 진행 중이거나 최근 결과가 있으면 query는 실행하지 않는다.
+     * 응답은 Play 응답을 받은 스레드(최근 결과면 호출한 스레드)에서 전달된다.
+     */
+    void execute(String key, Listener<S, V> listener, ErrorCallback onError, Query<S, V> query) {
+        Recent<S, V> cached;
+        List<Waiter<S, V>> waiters;
+        long startedGeneration;
+        synchronized (this) {
+            cached = recent.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.completedAt < reuseWindowMs) {
+                reused++;
+                waiters = null;
+            } else {
+                cached = null;
+                waiters = inFlight.get(key);
+                if (waiters != null) {
+                    waiters.add(new Waiter<>(listener, onError));
+                    coalesced++;
+                    return;
+                }
+                waiters = new ArrayList<>();
+                waiters.add(new Waiter<>(listener, onError));
+                inFlight.put(key, waiters);
+            }
+            startedGeneration = generation;
+        }
+
+        if (cached != null) {
+            listener.onResponse(cached.status, cached.value);
+            return;
+        }
+
+        List<Waiter<S, V>> group = waiters;
+        query.start((status, value) -> {
+            synchronized (this) {
+                finishLocked(key, group);
+                if (reusePolicy.isReusable(status) && startedGeneration == generation) {
+                    recent.put(key, new Recent<>(status, value, System.currentTimeMillis()));
+                }
+            }
+            for (Waiter<S, V> waiter : group) {
+                waiter.listener.onResponse(status, value);
+            }
+        }, message -> {
+            synchronized (this) {
+                finishLocked(key, group);
+            }
+            for (Waiter<S, V> waiter : group) {
+                waiter.onError.onError(message);
+            }
+        });
+    }
+
+    /**
+     * 기억한 결과를 모두 버림
+     * 이미 진행 중인 조회는 바뀌기 전 상태를 볼 수 있으므로 이후 요청은 합치지 않고 새로 조회한다.
+     */
+    synchronized void invalidate() {
+        recent.clear();
+        inFlight.clear();
+        generation++;
+    }
+
+    /** 다른 요청과 합쳐진 횟수 */
+    synchronized long coalescedCount() {
+        return coalesced;
+    }
+
+    /** 최근 결과로 바로 응답한 횟수 */
+    synchronized long reusedCount() {
+        return reused;
+    }
+
+    /** 응답이 온 조회를 진행 목록에서 제거 (invalidate 뒤 같은 키로 새 조회가 시작됐으면 그대로 둠) */
+    private void finishLocked(String key, List<Waiter<S, V>> group) {
+        if (inFlight.get(key) == group) {
+            inFlight.remove(key);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 보유 상품(entitlement) 스냅샷
+ *
+ * 마지막으로 확인한 구매 목록을 앱 내부 저장소에 보관해서 Billing 연결 전에도 바로 읽을 수 있게 한다.
+ * queryPurchases 성공 시 해당 타입 전체를 교체하고, 새 구매는 추가/갱신한다.
+ * 교체할 때 토큰별 fingerprint를 비교해서 추가/삭제/상태가 바뀐 구매를 Delta로 돌려준다.
+ */
+class EntitlementStore {
+
+    /** 구매 하나에 대한 보유 정보 */
+    static class Entitlement {
+        final String productType;
+        final List<String> products;
+        final String purchaseToken;
+        final String orderId;
+        final long purchaseTime;
+        final boolean autoRenewing;
+        final boolean acknowledged;
+        final int purchaseState;
+
+        Entitlement(String productType, List<String> products, String purchaseToken, String orderId,
+                long purchaseTime, boolean autoRenewing, boolean acknowledged, int purchaseState) {
+            this.productType = productType;
+            this.products = products;
+            this.purchaseToken = purchaseToken;
+            this.orderId = orderId;
+            this.purchaseTime = purchaseTime;
+            this.autoRenewing = autoRenewing;
+            this.acknowledged = acknowledged;
+            this.purchaseState = purchaseState;
+        }
+
+        boolean isPurchased() {
+            // Purchase.PurchaseState.PURCHASED
+            return purchaseState == 1;
+        }
+
+        /** 보유 상태 비교용 값 (상품, 구매 상태, 확인 여부, 자동 갱신 여부) */
+        int fingerprint() {
+            int hash = products.hashCode();
+            hash = 31 * hash + purchaseState;
+            hash = 31 * hash + (acknowledged ? 1 : 0);
+            return 31 * hash + (autoRenewing ? 1 : 0);
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("productType", productType);
+            json.put("products", new JSONArray(products));
+            json.put("purchaseToken", purchaseToken);
+            json.put("orderId", orderId);
+            json.put("purchaseTime", purchaseTime);
+            json.put("isAutoRenewing", autoRenewing);
+            json.put("isAcknowledged", acknowledged);
+            json.put("purchaseState", purchaseState);
+            return json;
+        }
+
+        static Entitlement fromJson(JSONObject json) throws JSONException {
+            JSONArray productsArray = json.getJSONArray("products");
+            List<String> products = new ArrayList<>();
+            for (int i = 0; i < productsArray.length(); i++) {
+                products.add(productsArray.getString(i));
+            }
+            return new Entitlement(json.getString("productType"), products, json.getString("purchaseToken"),
+                    json.optString("orderId", null), json.getLong("purchaseTime"), json.optBoolean("isAutoRenewing"),
+                    json.optBoolean("isAcknowledged"), json.optInt("purchaseState"));
+        }
+    }
+
+    /** replaceType 전후의 차이 */
+    static class Delta {
+        final String productType;
+        final List<Entitlement> added = new ArrayList<>();
+        final List<Entitlement> removed = new ArrayList<>();
+        // 확인(acknowledge) 여부, 구매 상태, 자동 갱신 여부 등이 바뀐 구매
+        final List<Entitlement> changed = new ArrayList<>();
+
+        Delta(String productType) {
+            this.productType = productType;
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+
+        /** { productType, added, removed, changed } */
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("productType", productType);
+            json.put("added", toJsonArray(added));
+            json.put("removed", toJsonArray(removed));
+            json.put("changed", toJsonArray(changed));
+            return json;
+        }
+
+        private static JSONArray toJsonArray(List<Entitlement> items) throws JSONException {
+            JSONArray array = new JSONArray();
+            for (Entitlement entitlement : items) {
+                array.put(entitlement.toJson());
+            }
+            return array;
+        }
+    }
+
+    private static final String TAG = "BillingPlugin";
+    private static final String SNAPSHOT_FILE = "billing_entitlements.json";
+
+    private final File snapshotFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BillingEntitlements");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // purchaseToken -> 보유 정보
+    private final LinkedHashMap<String, Entitlement> entitlements = new LinkedHashMap<>();
+    // productType -> Play에서 마지막으로 확인한 시각
+    private final Map<String, Long> lastVerifiedAt = new HashMap<>();
+    private boolean loaded = false;
+    private boolean saveScheduled = false;
+
+    EntitlementStore(File directory) {
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+    }
+
+    /**
+     * queryPurchases 결과로 해당 타입의 보유 정보를 모두 교체하고 이전 상태와의 차이 반환
+     * 바뀐 것이 없어도 확인 시각은 저장한다 (재시작 후 갱신 주기 판단에 사용).
+     */
+    synchronized Delta replaceType(String productType, List<Entitlement> current) {
+        ensureLoaded();
+        Delta delta = new Delta(productType);
+        Map<String, Entitlement> previous = new HashMap<>();
+        Iterator<Entitlement> iterator = entitlements.values().iterator();
+        while (iterator.hasNext()) {
+            Entitlement entitlement = iterator.next();
+            if (entitlement.productType.equals(productType)) {
+                previous.put(entitlement.purchaseToken, entitlement);
+                iterator.remove();
+            }
+        }
+        for (Entitlement entitlement : current) {
+            Entitlement before = previous.remove(entitlement.purchaseToken);
+            if (before == null) {
+                delta.added.add(entitlement);
+            } else if (before.fingerprint() != entitlement.fingerprint()) {
+                delta.changed.add(entitlement);
+            }
+            entitlements.put(entitlement.purchaseToken, entitlement);
+        }
+        delta.removed.addAll(previous.values());
+
+        lastVerifiedAt.put(productType, System.currentTimeMillis());
+        scheduleSave();
+        return delta;
+    }
+
+    /** 새 구매 추가 또는 기존 구매 갱신 */
+    synchronized void upsert(Entitlement entitlement) {
+        ensureLoaded();
+        entitlements.put(entitlement.purchaseToken, entitlement);
+        scheduleSave();
+    }
+
+    synchronized long getLastVerifiedAt(String productType) {
+        ensureLoaded();
+        Long verifiedAt = lastVerifiedAt.get(productType);
+        return verifiedAt != null ? verifiedAt : 0;
+    }
+
+    /** 구매 완료 상태인 상품 ID */
+    synchronized Set<String> activeProducts() {
+        ensureLoaded();
+        Set<String> activeProducts = new LinkedHashSet<>();
+        for (Entitlement entitlement : entitlements.values()) {
+            if (entitlement.isPurchased()) {
+                activeProducts.addAll(entitlement.products);
+            }
+        }
+        return activeProducts;
+    }
+
+    /**
+     * 브리지로 보낼 스냅샷
+     * { entitlements, activeProducts, lastVerifiedAt: { inapp, subs }, hasSnapshot }
+     */
+    synchronized JSONObject toJson() throws JSONException {
+        ensureLoaded();
+        JSONArray items = new JSONArray();
+        for (Entitlement entitlement : entitlements.values()) {
+            items.put(entitlement.toJson());
+        }
+        Set<String> activeProducts = activeProducts();
+
+        JSONObject verified = new JSONObject();
+        for (Map.Entry<String, Long> entry : lastVerifiedAt.entrySet()) {
+            verified.put(entry.getKey(), entry.getValue());
+        }
+
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("entitlements", items);
+        snapshot.put("activeProducts", new JSONArray(activeProducts));
+        snapshot.put("lastVerifiedAt", verified);
+        snapshot.put("hasSnapshot", !lastVerifiedAt.isEmpty() || !entitlements.isEmpty());
+        return snapshot;
+    }
+
+    /** 예약된 스냅샷 저장이 끝날 때까지 대기 */
+    void flush() throws InterruptedException, ExecutionException {
+        writer.submit(() -> { }).get();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            String content = FileSnapshots.read(snapshotFile);
+            if (content == null) {
+                return;
+            }
+
+            JSONObject snapshot = new JSONObject(content);
+            JSONArray items = snapshot.getJSONArray("entitlements");
+            for (int i = 0; i < items.length(); i++) {
+                Entitlement entitlement = Entitlement.fromJson(items.getJSONObject(i));
+                entitlements.put(entitlement.purchaseToken, entitlement);
+            }
+            JSONObject verified = snapshot.getJSONObject("lastVerifiedAt");
+            Iterator<String> keys = verified.keys();
+            while (keys.hasNext()) {
+                String productType = keys.next();
+                lastVerifiedAt.put(productType, verified.getLong(productType));
+            }
+            NativeLog.d(TAG, "[인앱결제] 보유 상품 스냅샷 복원", "count", entitlements.size());
+        } catch (IOException | JSONException e) {
+            NativeLog.w(TAG, "[인앱결제] 보유 상품 스냅샷 읽기 실패", "error", e);
+            entitlements.clear();
+            lastVerifiedAt.clear();
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        writer.execute(this::writeSnapshot);
+    }
+
+    private void writeSnapshot() {
+        JSONObject snapshot = new JSONObject();
+        synchronized (this) {
+            saveScheduled = false;
+            try {
+                JSONArray items = new JSONArray();
+                for (Entitlement entitlement : entitlements.values()) {
+                    items.put(entitlement.toJson());
+                }
+                JSONObject verified = new JSONObject();
+                for (Map.Entry<String, Long> entry : lastVerifiedAt.entrySet()) {
+                    verified.put(entry.getKey(), entry.getValue());
+                }
+                snapshot.put("entitlements", items);
+                snapshot.put("lastVerifiedAt", verified);
+            } catch (JSONException e) {
+                NativeLog.w(TAG, "[인앱결제] 보유 상품 직렬화 실패", "error", e);
+                return;
+            }
+        }
+
+        try {
+            FileSnapshots.writeAtomically(snapshotFile, snapshot.toString());
+        } catch (IOException e) {
+            NativeLog.w(TAG, "[인앱결제] 보유 상품 스냅샷 저장 실패", "error", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.storypotion.app;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 앱 내부 저장소의 작은 스냅샷 파일 읽기/쓰기
+ */
+final class FileSnapshots {
+
+    private FileSnapshots() {
+    }
+
+    /** 파일 전체를 UTF-8 문자열로 읽음. 파일이 없으면 null */
+    static String read(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            return new String(bytes, 0, offset, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 임시 파일에 쓴 뒤 교체해서 중간에 죽어도 기존 스냅샷이 깨지지 않게 함
+     */
+    static void writeAtomically(File file, String content) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Failed to replace " + file.getName());
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * 네이티브 플러그인 공용 로그
+ *
+ * 로그를 고정 크기 링 버퍼에 구조화된 형태(메시지 + 키/값 최대 2개)로 보관한다.
+ * 기록할 때는 문자열을 만들지 않고 참조와 숫자만 저장하며, 문자열 변환은 읽을 때(getLogs)나
+ * logcat으로 내보낼 때만 한다. 레벨이 꺼져 있으면 아무 것도 할당하지 않고 바로 반환한다.
+ */
+final class NativeLog {
+
+    // android.util.Log 우선순위와 같은 값
+    static final int VERBOSE = 2;
+    static final int DEBUG = 3;
+    static final int INFO = 4;
+    static final int WARN = 5;
+    static final int ERROR = 6;
+    static final int OFF = Integer.MAX_VALUE;
+
+    /** logcat 등 외부 출력 (앱에서는 android.util.Log::println) */
+    interface Sink {
+        void println(int level, String tag, String message);
+    }
+
+    private static final int CAPACITY = 512;
+    private static final String[] LEVEL_NAMES = { "verbose", "verbose", "verbose", "debug", "info", "warn", "error" };
+
+    // 값 종류
+    private static final byte NONE = 0;
+    private static final byte OBJECT = 1;
+    private static final byte NUMBER = 2;
+
+    /** 링 버퍼 항목. 미리 만들어 두고 덮어쓴다. */
+    private static final class Entry {
+        long seq;
+        long time;
+        int level;
+        String tag;
+        String message;
+        String key1;
+        byte kind1;
+        Object object1;
+        long number1;
+        String key2;
+        byte kind2;
+        Object object2;
+        long number2;
+    }
+
+    private static final Entry[] ring = new Entry[CAPACITY];
+    private static final Object lock = new Object();
+    private static long nextSeq = 1;
+
+    private static volatile int bufferLevel = DEBUG;
+    private static volatile int sinkLevel = OFF;
+    private static volatile Sink sink;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Entry();
+        }
+    }
+
+    private NativeLog() {
+    }
+
+    /**
+     * 외부 출력 설정. level 이상인 로그만 sink로도 내보낸다.
+     */
+    static void setSink(Sink newSink, int level) {
+        sink = newSink;
+        sinkLevel = newSink != null ? level : OFF;
+    }
+
+    /** 링 버퍼에 보관할 최소 레벨 */
+    static void setBufferLevel(int level) {
+        bufferLevel = level;
+    }
+
+    static int getBufferLevel() {
+        return bufferLevel;
+    }
+
+    static boolean isLoggable(int level) {
+        return level >= bufferLevel || level >= sinkLevel;
+    }
+
+    static void d(String tag, String message) {
+        log(DEBUG, tag, message, null, NONE, null, 0, null, NONE, null, 0);
+    }
+
+    static void d(String tag, String message, String key, long value) {
+        log(DEBUG, tag, message, key, NUMBER, null, value, null, NONE, null, 0);
+    }
+
+    static void d(String tag, String message, String key, Object value) {
+        log(DEBUG, tag, message, key, OBJECT, value, 0, null, NONE, null, 0);
+    }
+
+    static void d(String tag, String message, String key1, long value1, String key2, long value2) {
+        log(DEBUG, tag, message, key1, NUMBER, null, value1, key2, NUMBER, null, value2);
+    }
+
+    static void d(String tag, String message, String key1, long value1, String key2, Object value2) {
+        log(DEBUG, tag, message, key1, NUMBER, null, value1, key2, OBJECT, value2, 0);
+    }
+
+    static void d(String tag, String message, String key1, Object value1, String key2, Object value2) {
+        log(DEBUG, tag, message, key1, OBJECT, value1, 0, key2, OBJECT, value2, 0);
+    }
+
+    static void i(String tag, String message) {
+        log(INFO, tag, message, null, NONE, null, 0, null, NONE, null, 0);
+    }
+
+    static void i(String tag, String message, String key, long value) {
+        log(INFO, tag, message, key, NUMBER, null, value, null, NONE, null, 0);
+    }
+
+    static void i(String tag, String message, String key, Object value) {
+        log(INFO, tag, message, key, OBJECT, value, 0, null, NONE, null, 0);
+    }
+
+    static void i(String tag, String message, String key1, long value1, String key2, long value2) {
+        log(INFO, tag, message, key1, NUMBER, null, value1, key2, NUMBER, null, value2);
+    }
+
+    static void w(String tag, String message) {
+        log(WARN, tag, message, null, NONE, null, 0, null, NONE, null, 0);
+    }
+
+    static void w(String tag, String message, String key, long value) {
+        log(WARN, tag, message, key, NUMBER, null, value, null, NONE, null, 0);
+    }
+
+    static void w(String tag, String message, String key, Object value) {
+        log(WARN, tag, message, key, OBJECT, value, 0, null, NONE, null, 0);
+    }
+
+    static void w(String tag, String message, String key1, long value1, String key2, Object value2) {
+        log(WARN, tag, message, key1, NUMBER, null, value1, key2, OBJECT, value2, 0);
+    }
+
+    static void e(String tag, String message) {
+        log(ERROR, tag, message, null, NONE, null, 0, null, NONE, null, 0);
+    }
+
+    static void e(String tag, String message, String key, long value) {
+        log(ERROR, tag, message, key, NUMBER, null, value, null, NONE, null, 0);
+    }
+
+    static void e(String tag, String message, String key, Object value) {
+        log(ERROR, tag, message, key, OBJECT, value, 0, null, NONE, null, 0);
+    }
+
+    static void e(String tag, String message, String key1, long value1, String key2, Object value2) {
+        log(ERROR, tag, message, key1, NUMBER, null, value1, key2, OBJECT, value2, 0);
+    }
+
+    private static void log(int level, String tag, String message, String key1, byte kind1, Object object1,
+            long number1, String key2, byte kind2, Object object2, long number2) {
+        boolean toBuffer = level >= bufferLevel;
+        boolean toSink = level >= sinkLevel;
+        if (!toBuffer && !toSink) {
+            return;
+        }
+
+        if (toBuffer) {
+            synchronized (lock) {
+                long seq = nextSeq++;
+                Entry entry = ring[(int) (seq % CAPACITY)];
+                entry.seq = seq;
+                entry.time = System.currentTimeMillis();
+                entry.level = level;
+                entry.tag = tag;
+                entry.message = message;
+                entry.key1 = key1;
+                entry.kind1 = kind1;
+                entry.object1 = object1;
+                entry.number1 = number1;
+                entry.key2 = key2;
+                entry.kind2 = kind2;
+                entry.object2 = object2;
+                entry.number2 = number2;
+            }
+        }
+
+        Sink currentSink = sink;
+        if (toSink && currentSink != null) {
+            StringBuilder text = new StringBuilder(message);
+            appendValue(text, key1, kind1, object1, number1);
+            appendValue(text, key2, kind2, object2, number2);
+            currentSink.println(level, tag, text.toString());
+        }
+    }
+
+    private static void appendValue(StringBuilder text, String key, byte kind, Object object, long number) {
+        if (kind == NONE) {
+            return;
+        }
+        text.append(' ').append(key).append('=');
+        if (kind == NUMBER) {
+            text.append(number);
+        } else {
+            text.append(object);
+        }
+    }
+
+    /**
+     * before보다 앞선 로그를 최신순으로 최대 limit개 반환 (before가 0 이하면 가장 최근부터)
+     * { entries: [{ seq, time, level, tag, message, data }], nextBefore, latestSeq, hasMore }
+     */
+    static JSONObject page(long before, int limit, int minLevel, String tag) throws JSONException {
+        JSONArray entries = new JSONArray();
+        long nextBefore = 0;
+        long latestSeq;
+        boolean hasMore = false;
+
+        synchronized (lock) {
+            latestSeq = nextSeq - 1;
+            long oldestSeq = Math.max(1, nextSeq - CAPACITY);
+            long seq = before > 0 ? Math.min(before - 1, latestSeq) : latestSeq;
+            for (; seq >= oldestSeq; seq--) {
+                Entry entry = ring[(int) (seq % CAPACITY)];
+                if (entry.seq != seq) {
+                    // clear() 이후 비어 있는 칸
+                    continue;
+                }
+                if (entry.level < minLevel || (tag != null && !tag.equals(entry.tag))) {
+                    continue;
+                }
+                if (entries.length() >= limit) {
+                    hasMore = true;
+                    break;
+                }
+                entries.put(toJson(entry));
+                nextBefore = entry.seq;
+            }
+        }
+
+        JSONObject page = new JSONObject();
+        page.put("entries", entries);
+        page.put("nextBefore", nextBefore);
+        page.put("latestSeq", latestSeq);
+        page.put("hasMore", hasMore);
+        return page;
+    }
+
+    static void clear() {
+        synchronized (lock) {
+            for (Entry entry : ring) {
+                entry.seq = 0;
+                entry.tag = null;
+                entry.message = null;
+                entry.object1 = null;
+                entry.object2 = null;
+            }
+            // 이미 받아간 seq와 겹치지 않도록 번호는 이어서 사용
+            nextSeq += CAPACITY;
+        }
+    }
+
+    static String levelName(int level) {
+        if (level == OFF) {
+            return "off";
+        }
+        return level >= 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : "error";
+    }
+
+    static int parseLevel(String name, int defaultLevel) {
+        if (name == null) {
+            return defaultLevel;
+        }
+        switch (name.toLowerCase()) {
+            case "verbose":
+                return VERBOSE;
+            case "debug":
+                return DEBUG;
+            case "info":
+                return INFO;
+            case "warn":
+                return WARN;
+            case "error":
+                return ERROR;
+            case "off":
+                return OFF;
+            default:
+                return defaultLevel;
+        }
+    }
+
+    private static JSONObject toJson(Entry entry) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("seq", entry.seq);
+        json.put("time", entry.time);
+        json.put("level", levelName(entry.level));
+        json.put("tag", entry.tag);
+        json.put("message", entry.message);
+        if (entry.kind1 != NONE || entry.kind2 != NONE) {
+            JSONObject data = new JSONObject();
+            putValue(data, entry.key1, entry.kind1, entry.object1, entry.number1);
+            putValue(data, entry.key2, entry.kind2, entry.object2, entry.number2);
+            json.put("data", data);
+        }
+        return json;
+    }
+
+    private static void putValue(JSONObject data, String key, byte kind, Object object, long number)
+            throws JSONException {
+        if (kind == NUMBER) {
+            data.put(key, number);
+        } else if (kind == OBJECT) {
+            data.put(key, object != null ? String.valueOf(object) : JSONObject.NULL);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 상품 정보(ProductDetails) 캐시
+ *
+ * productType + productId 기준으로 저장하고, 크기 제한(LRU)과 TTL을 적용한다.
+ * 브리지로 보낼 상품 JSON은 앱 내부 저장소에 스냅샷으로 저장해서 콜드 스타트 때 바로 가격을 보여줄 수 있게 한다.
+ * ProductDetails 객체 자체는 복원할 수 없으므로 메모리에만 보관한다.
+ *
+ * @param <D> 결제 창에 넘길 상품 객체 (앱에서는 ProductDetails)
+ */
+class ProductDetailsCache<D> {
+
+    /** 캐시 항목 */
+    static class Entry<D> {
+        // 디스크 스냅샷에서 복원된 항목은 null
+        final D details;
+        final JSONObject product;
+        final long fetchedAt;
+
+        Entry(D details, JSONObject product, long fetchedAt) {
+            this.details = details;
+            this.product = product;
+            this.fetchedAt = fetchedAt;
+        }
+
+        boolean isFresh(long now) {
+            return now - fetchedAt < FRESH_TTL_MS;
+        }
+    }
+
+    private static final String TAG = "BillingPlugin";
+    private static final String SNAPSHOT_FILE = "billing_product_cache.json";
+
+    // 이 시간 안의 정보는 Play에 다시 묻지 않음
+    static final long FRESH_TTL_MS = 30 * 60 * 1000L;
+    // 이 시간이 지난 스냅샷은 가격 표시에도 쓰지 않음
+    static final long MAX_STALE_MS = 7 * 24 * 60 * 60 * 1000L;
+    private static final int MAX_ENTRIES = 64;
+
+    private final File snapshotFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BillingProductCache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LinkedHashMap<String, Entry<D>> entries = new LinkedHashMap<String, Entry<D>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry<D>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private boolean loaded = false;
+    private boolean saveScheduled = false;
+
+    ProductDetailsCache(File directory) {
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+    }
+
+    static String key(String productId, String productType) {
+        return productType + ":" + productId;
+    }
+
+    /**
+     * 캐시 항목 조회. MAX_STALE_MS가 지난 항목은 제거하고 null을 반환한다.
+     */
+    synchronized Entry<D> get(String productId, String productType) {
+        ensureLoaded();
+        String key = key(productId, productType);
+        Entry<D> entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.fetchedAt >= MAX_STALE_MS) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 결제 창을 바로 띄울 수 있는 신선한 ProductDetails 조회
+     */
+    synchronized D getFreshDetails(String productId, String productType) {
+        Entry<D> entry = get(productId, productType);
+        if (entry == null || entry.details == null || !entry.isFresh(System.currentTimeMillis())) {
+            return null;
+        }
+        return entry.details;
+    }
+
+    synchronized void put(String productId, String productType, D details, JSONObject product) {
+        ensureLoaded();
+        entries.put(key(productId, productType), new Entry<>(details, product, System.currentTimeMillis()));
+        scheduleSave();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        loaded = true;
+        scheduleSave();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            String content = FileSnapshots.read(snapshotFile);
+            if (content == null) {
+                return;
+            }
+
+            JSONArray items = new JSONArray(content);
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < items.length(); i++) {
+                JSONObject item = items.getJSONObject(i);
+                long fetchedAt = item.getLong("fetchedAt");
+                if (now - fetchedAt >= MAX_STALE_MS) {
+                    continue;
+                }
+                entries.put(item.getString("key"), new Entry<>(null, item.getJSONObject("product"), fetchedAt));
+            }
+            NativeLog.d(TAG, "[인앱결제] 상품 캐시 스냅샷 복원", "count", entries.size());
+        } catch (IOException | JSONException e) {
+            NativeLog.w(TAG, "[인앱결제] 상품 캐시 스냅샷 읽기 실패", "error", e);
+            entries.clear();
+        }
+    }
+
+    /**
+     * 스냅샷 저장 예약. 연속된 put은 한 번의 쓰기로 합쳐진다.
+     */
+    private void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        writer.execute(this::writeSnapshot);
+    }
+
+    private void writeSnapshot() {
+        JSONArray items = new JSONArray();
+        synchronized (this) {
+            saveScheduled = false;
+            try {
+                for (Map.Entry<String, Entry<D>> mapEntry : entries.entrySet()) {
+                    JSONObject item = new JSONObject();
+                    item.put("key", mapEntry.getKey());
+                    item.put("fetchedAt", mapEntry.getValue().fetchedAt);
+                    item.put("product", mapEntry.getValue().product);
+                    items.put(item);
+                }
+            } catch (JSONException e) {
+                NativeLog.w(TAG, "[인앱결제] 상품 캐시 직렬화 실패", "error", e);
+                return;
+            }
+        }
+
+        try {
+            FileSnapshots.writeAtomically(snapshotFile, items.toString());
+        } catch (IOException e) {
+            NativeLog.w(TAG, "[인앱결제] 상품 캐시 스냅샷 저장 실패", "error", e);
+        }
+    }
+
+    /**
+     * 캐시에 없거나 오래된 상품 ID 목록
+     */
+    synchronized List<String> staleProductIds(List<String> productIds, String productType) {
+        long now = System.currentTimeMillis();
+        List<String> stale = new ArrayList<>();
+        for (String productId : productIds) {
+            Entry<D> entry = get(productId, productType);
+            if (entry == null || !entry.isFresh(now)) {
+                stale.add(productId);
+            }
+        }
+        return stale;
+    }
+}
@@ -0,0 +1,324 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 기기에 보관하는 구매 내역
+ *
+ * onPurchasesUpdated, queryPurchases, Play 구매 기록 조회에서 본 구매를 purchaseToken 기준으로 모은다.
+ * 소비된 일회성 구매처럼 Play의 현재 구매 목록에서 사라진 구매도 남아 있으므로 내역 화면을 Firestore 없이 읽을 수 있다.
+ * 구매 시각 최신순으로 정렬해 두고, 마지막으로 받은 항목을 커서로 해서 페이지 단위로 읽는다.
+ */
+class PurchaseLedger {
+
+    // Purchase.PurchaseState.UNSPECIFIED_STATE (Play 구매 기록에는 상태가 없음)
+    static final int STATE_UNKNOWN = 0;
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    /** 구매 하나의 기록 */
+    static class Record {
+        final String productType;
+        final List<String> products;
+        final String purchaseToken;
+        // Play 구매 기록에는 주문 ID가 없으므로 null일 수 있음
+        final String orderId;
+        final long purchaseTime;
+        final int quantity;
+        final int purchaseState;
+
+        Record(String productType, List<String> products, String purchaseToken, String orderId, long purchaseTime,
+                int quantity, int purchaseState) {
+            this.productType = productType;
+            this.products = products;
+            this.purchaseToken = purchaseToken;
+            this.orderId = orderId;
+            this.purchaseTime = purchaseTime;
+            this.quantity = quantity;
+            this.purchaseState = purchaseState;
+        }
+
+        /** 새로 본 정보로 갱신. 구매 기록처럼 빠진 값(주문 ID, 상태)은 기존 값을 유지 */
+        Record mergedWith(Record update) {
+            return new Record(productType, update.products, purchaseToken,
+                    update.orderId != null ? update.orderId : orderId, update.purchaseTime, update.quantity,
+                    update.purchaseState != STATE_UNKNOWN ? update.purchaseState : purchaseState);
+        }
+
+        boolean sameAs(Record other) {
+            return products.equals(other.products)
+                    && (orderId == null ? other.orderId == null : orderId.equals(other.orderId))
+                    && purchaseTime == other.purchaseTime
+                    && quantity == other.quantity
+                    && purchaseState == other.purchaseState;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("productType", productType);
+            json.put("products", new JSONArray(products));
+            json.put("purchaseToken", purchaseToken);
+            json.put("orderId", orderId != null ? orderId : JSONObject.NULL);
+            json.put("purchaseTime", purchaseTime);
+            json.put("quantity", quantity);
+            json.put("purchaseState", purchaseState);
+            return json;
+        }
+
+        static Record fromJson(JSONObject json) throws JSONException {
+            JSONArray productsArray = json.getJSONArray("products");
+            List<String> products = new ArrayList<>();
+            for (int i = 0; i < productsArray.length(); i++) {
+                products.add(productsArray.getString(i));
+            }
+            String orderId = json.isNull("orderId") ? null : json.getString("orderId");
+            return new Record(json.getString("productType"), products, json.getString("purchaseToken"), orderId,
+                    json.getLong("purchaseTime"), json.optInt("quantity", 1), json.optInt("purchaseState"));
+        }
+    }
+
+    /** 한 페이지. 다음 페이지가 없으면 nextCursor는 null */
+    static class Page {
+        final List<Record> records;
+        final String nextCursor;
+
+        Page(List<Record> records, String nextCursor) {
+            this.records = records;
+            this.nextCursor = nextCursor;
+        }
+
+        /** { purchases, nextCursor } */
+        JSONObject toJson() throws JSONException {
+            JSONArray items = new JSONArray();
+            for (Record record : records) {
+                items.put(record.toJson());
+            }
+            JSONObject json = new JSONObject();
+            json.put("purchases", items);
+            json.put("nextCursor", nextCursor != null ? nextCursor : JSONObject.NULL);
+            return json;
+        }
+    }
+
+    // 최신 구매 먼저, 같은 시각이면 토큰 순
+    private static final Comparator<Record> NEWEST_FIRST = (a, b) -> {
+        int byTime = Long.compare(b.purchaseTime, a.purchaseTime);
+        return byTime != 0 ? byTime : a.purchaseToken.compareTo(b.purchaseToken);
+    };
+
+    private static final String TAG = "BillingPlugin";
+    private static final String SNAPSHOT_FILE = "billing_purchase_ledger.json";
+
+    private final File snapshotFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BillingLedger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // purchaseToken -> 기록
+    private final Map<String, Record> byToken = new HashMap<>();
+    // orderId -> 기록 (주문 ID를 아는 구매만)
+    private final Map<String, Record> byOrderId = new HashMap<>();
+    private final TreeSet<Record> byTime = new TreeSet<>(NEWEST_FIRST);
+    // productType -> Play 구매 기록을 마지막으로 가져온 시각
+    private final Map<String, Long> historySyncedAt = new HashMap<>();
+    private boolean loaded = false;
+    private boolean saveScheduled = false;
+
+    PurchaseLedger(File directory) {
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+    }
+
+    /**
+     * 구매 기록 추가/갱신. 새로 추가됐거나 내용이 바뀐 기록 수를 반환하고, 0이면 파일은 다시 쓰지 않는다.
+     */
+    synchronized int recordAll(List<Record> records) {
+        ensureLoaded();
+        int changed = 0;
+        for (Record record : records) {
+            if (putLocked(record)) {
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            scheduleSave();
+        }
+        return changed;
+    }
+
+    /**
+     * cursor 다음부터 limit개. cursor가 null이면 가장 최근 구매부터, productType이 null이면 모든 타입
+     *
+     * @throws IllegalArgumentException 이 저장소가 만든 커서가 아닐 때
+     */
+    synchronized Page page(String cursor, int limit, String productType) {
+        ensureLoaded();
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Iterable<Record> candidates = cursor == null ? byTime : byTime.tailSet(parseCursor(cursor), false);
+
+        List<Record> records = new ArrayList<>(Math.min(pageSize, byTime.size()));
+        Record last = null;
+        boolean hasMore = false;
+        for (Record record : candidates) {
+            if (productType != null && !productType.equals(record.productType)) {
+                continue;
+            }
+            if (records.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            records.add(record);
+            last = record;
+        }
+        return new Page(records, hasMore ? cursorOf(last) : null);
+    }
+
+    synchronized Record findByOrderId(String orderId) {
+        ensureLoaded();
+        return byOrderId.get(orderId);
+    }
+
+    synchronized Record findByToken(String purchaseToken) {
+        ensureLoaded();
+        return byToken.get(purchaseToken);
+    }
+
+    synchronized int size() {
+        ensureLoaded();
+        return byToken.size();
+    }
+
+    synchronized long getHistorySyncedAt(String productType) {
+        ensureLoaded();
+        Long syncedAt = historySyncedAt.get(productType);
+        return syncedAt != null ? syncedAt : 0;
+    }
+
+    /** Play 구매 기록을 모두 반영한 뒤 호출 (다음 동기화 시점 판단용) */
+    synchronized void markHistorySynced(String productType) {
+        ensureLoaded();
+        historySyncedAt.put(productType, System.currentTimeMillis());
+        scheduleSave();
+    }
+
+    private boolean putLocked(Record record) {
+        Record existing = byToken.get(record.purchaseToken);
+        Record merged = existing != null ? existing.mergedWith(record) : record;
+        if (existing != null) {
+            if (existing.sameAs(merged)) {
+                return false;
+            }
+            byTime.remove(existing);
+            if (existing.orderId != null) {
+                byOrderId.remove(existing.orderId);
+            }
+        }
+        byToken.put(merged.purchaseToken, merged);
+        byTime.add(merged);
+        if (merged.orderId != null) {
+            byOrderId.put(merged.orderId, merged);
+        }
+        return true;
+    }
+
+    /** 커서: 마지막으로 받은 기록의 "구매 시각:토큰" */
+    private static String cursorOf(Record record) {
+        return record.purchaseTime + ":" + record.purchaseToken;
+    }
+
+    private static Record parseCursor(String cursor) {
+        int separator = cursor.indexOf(':');
+        if (separator <= 0 || separator == cursor.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            long purchaseTime = Long.parseLong(cursor.substring(0, separator));
+            return new Record(null, null, cursor.substring(separator + 1), null, purchaseTime, 0, STATE_UNKNOWN);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            String content = FileSnapshots.read(snapshotFile);
+            if (content == null) {
+                return;
+            }
+
+            JSONObject snapshot = new JSONObject(content);
+            JSONArray items = snapshot.getJSONArray("purchases");
+            for (int i = 0; i < items.length(); i++) {
+                putLocked(Record.fromJson(items.getJSONObject(i)));
+            }
+            JSONObject synced = snapshot.getJSONObject("historySyncedAt");
+            Iterator<String> keys = synced.keys();
+            while (keys.hasNext()) {
+                String productType = keys.next();
+                historySyncedAt.put(productType, synced.getLong(productType));
+            }
+            NativeLog.d(TAG, "[인앱결제] 구매 내역 복원", "count", byToken.size());
+        } catch (IOException | JSONException e) {
+            NativeLog.w(TAG, "[인앱결제] 구매 내역 읽기 실패", "error", e);
+            byToken.clear();
+            byOrderId.clear();
+            byTime.clear();
+            historySyncedAt.clear();
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        writer.execute(this::writeSnapshot);
+    }
+
+    private void writeSnapshot() {
+        JSONObject snapshot = new JSONObject();
+        synchronized (this) {
+            saveScheduled = false;
+            try {
+                JSONArray items = new JSONArray();
+                for (Record record : byTime) {
+                    items.put(record.toJson());
+                }
+                JSONObject synced = new JSONObject();
+                for (Map.Entry<String, Long> entry : historySyncedAt.entrySet()) {
+                    synced.put(entry.getKey(), entry.getValue());
+                }
+                snapshot.put("purchases", items);
+                snapshot.put("historySyncedAt", synced);
+            } catch (JSONException e) {
+                NativeLog.w(TAG, "[인앱결제] 구매 내역 직렬화 실패", "error", e);
+                return;
+            }
+        }
+
+        try {
+            FileSnapshots.writeAtomically(snapshotFile, snapshot.toString());
+        } catch (IOException e) {
+            NativeLog.w(TAG, "[인앱결제] 구매 내역 저장 실패", "error", e);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 실패한 acknowledge/consume 재시도 대기열
+ *
+ * 3일 안에 확인(acknowledge)되지 않은 구매는 Play가 자동 환불하므로, 실패한 토큰을 파일에 보관해서
+ * 앱이 종료되었다가 다시 시작되어도 이어서 재시도한다. 실패할 때마다 지터를 넣은 지수 백오프로 다음 시도 시각을 정한다.
+ * 실행은 PurchaseRetryScheduler가 하고, 이 클래스는 상태와 시각 계산만 담당한다.
+ */
+class PurchaseRetryQueue {
+
+    static final String ACKNOWLEDGE = "acknowledge";
+    static final String CONSUME = "consume";
+
+    private static final long INITIAL_BACKOFF_MS = 5_000L;
+    private static final long MAX_BACKOFF_MS = 10 * 60 * 1000L;
+    // 이보다 오래 실패한 구매는 이미 환불되었으므로 재시도하지 않음
+    static final long MAX_AGE_MS = 3 * 24 * 60 * 60 * 1000L;
+
+    /** 재시도할 작업 하나 */
+    static class Task {
+        final String purchaseToken;
+        final String operation;
+        final long firstFailedAt;
+        int attempts;
+        long nextAttemptAt;
+        int lastResponseCode;
+        boolean inFlight;
+
+        Task(String purchaseToken, String operation, long firstFailedAt) {
+            this.purchaseToken = purchaseToken;
+            this.operation = operation;
+            this.firstFailedAt = firstFailedAt;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("purchaseToken", purchaseToken);
+            json.put("operation", operation);
+            json.put("firstFailedAt", firstFailedAt);
+            json.put("attempts", attempts);
+            json.put("nextAttemptAt", nextAttemptAt);
+            json.put("lastResponseCode", lastResponseCode);
+            return json;
+        }
+
+        static Task fromJson(JSONObject json) throws JSONException {
+            Task task = new Task(json.getString("purchaseToken"), json.getString("operation"),
+                    json.getLong("firstFailedAt"));
+            task.attempts = json.optInt("attempts");
+            task.nextAttemptAt = json.optLong("nextAttemptAt");
+            task.lastResponseCode = json.optInt("lastResponseCode");
+            return task;
+        }
+    }
+
+    private static final String TAG = "BillingPlugin";
+    private static final String SNAPSHOT_FILE = "billing_retry_queue.json";
+
+    private final File snapshotFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BillingRetryQueue");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // purchaseToken -> 작업 (실패한 순서 유지)
+    private final LinkedHashMap<String, Task> tasks = new LinkedHashMap<>();
+    private int inFlight;
+    // 프로세스 시작 이후 횟수
+    private long enqueued;
+    private long succeeded;
+    private long failedAttempts;
+    private long dropped;
+    private long expired;
+    private boolean loaded = false;
+    private boolean saveScheduled = false;
+
+    PurchaseRetryQueue(File directory) {
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+    }
+
+    /**
+     * 실패한 작업 추가. 같은 토큰이 이미 있으면 작업 종류만 consume 우선으로 맞추고 일정은 그대로 둔다.
+     */
+    synchronized void enqueue(String purchaseToken, String operation, int responseCode, long now) {
+        ensureLoaded();
+        Task existing = tasks.get(purchaseToken);
+        if (existing != null) {
+            if (CONSUME.equals(operation) && !CONSUME.equals(existing.operation)) {
+                // 소비하면 확인도 된 것이므로 소비로 교체
+                Task replaced = new Task(purchaseToken, CONSUME, existing.firstFailedAt);
+                replaced.attempts = existing.attempts;
+                replaced.nextAttemptAt = existing.nextAttemptAt;
+                replaced.lastResponseCode = responseCode;
+                replaced.inFlight = existing.inFlight;
+                tasks.put(purchaseToken, replaced);
+                scheduleSave();
+            }
+            return;
+        }
+
+        Task task = new Task(purchaseToken, operation, now);
+        task.lastResponseCode = responseCode;
+        task.nextAttemptAt = now + backoffMs(0);
+        tasks.put(purchaseToken, task);
+        enqueued++;
+        scheduleSave();
+    }
+
+    /**
+     * 시각이 된 작업을 동시 실행 수(maxInFlight) 안에서 꺼내 실행 중으로 표시
+     * expedite면 다음 시도 시각과 관계없이 꺼낸다 (연결이 다시 된 직후).
+     */
+    synchronized List<Task> takeDue(long now, int maxInFlight, boolean expedite) {
+        ensureLoaded();
+        List<Task> due = new ArrayList<>();
+        boolean removed = false;
+        Iterator<Task> iterator = tasks.values().iterator();
+        while (iterator.hasNext() && inFlight < maxInFlight) {
+            Task task = iterator.next();
+            if (task.inFlight) {
+                continue;
+            }
+            if (now - task.firstFailedAt > MAX_AGE_MS) {
+                NativeLog.w(TAG, "[인앱결제] 재시도 기한 지남", "attempts", task.attempts, "operation", task.operation);
+                iterator.remove();
+                expired++;
+                removed = true;
+                continue;
+            }
+            if (expedite || task.nextAttemptAt <= now) {
+                task.inFlight = true;
+                inFlight++;
+                due.add(task);
+            }
+        }
+        if (removed) {
+            scheduleSave();
+        }
+        return due;
+    }
+
+    /** 재시도 성공, 또는 다른 경로(JS 호출 등)로 처리가 끝난 토큰 제거 */
+    synchronized void complete(String purchaseToken) {
+        ensureLoaded();
+        Task task = tasks.remove(purchaseToken);
+        if (task == null) {
+            return;
+        }
+        if (task.inFlight) {
+            inFlight--;
+        }
+        succeeded++;
+        scheduleSave();
+    }
+
+    /**
+     * 재시도 실패. retryable이 아니면(이미 소비됨, 잘못된 토큰 등) 대기열에서 뺀다.
+     */
+    synchronized void fail(String purchaseToken, int responseCode, boolean retryable, long now) {
+        ensureLoaded();
+        Task task = tasks.get(purchaseToken);
+        if (task == null) {
+            return;
+        }
+        if (task.inFlight) {
+            task.inFlight = false;
+            inFlight--;
+        }
+        failedAttempts++;
+        task.attempts++;
+        task.lastResponseCode = responseCode;
+        if (!retryable) {
+            tasks.remove(purchaseToken);
+            dropped++;
+        } else {
+            task.nextAttemptAt = now + backoffMs(task.attempts);
+        }
+        scheduleSave();
+    }
+
+    /** 실행 중이 아닌 작업 중 가장 이른 다음 시도 시각. 없으면 0 */
+    synchronized long nextAttemptAt() {
+        ensureLoaded();
+        long next = 0;
+        for (Task task : tasks.values()) {
+            if (!task.inFlight && (next == 0 || task.nextAttemptAt < next)) {
+                next = task.nextAttemptAt;
+            }
+        }
+        return next;
+    }
+
+    synchronized int size() {
+        ensureLoaded();
+        return tasks.size();
+    }
+
+    /**
+     * { pending, inFlight, enqueued, succeeded, failedAttempts, dropped, expired, oldestFailedAt, tasks }
+     */
+    synchronized JSONObject toJson() throws JSONException {
+        ensureLoaded();
+        JSONArray items = new JSONArray();
+        long oldestFailedAt = 0;
+        for (Task task : tasks.values()) {
+            items.put(task.toJson());
+            if (oldestFailedAt == 0 || task.firstFailedAt < oldestFailedAt) {
+                oldestFailedAt = task.firstFailedAt;
+            }
+        }
+        JSONObject json = new JSONObject();
+        json.put("pending", tasks.size());
+        json.put("inFlight", inFlight);
+        json.put("enqueued", enqueued);
+        json.put("succeeded", succeeded);
+        json.put("failedAttempts", failedAttempts);
+        json.put("dropped", dropped);
+        json.put("expired", expired);
+        json.put("oldestFailedAt", oldestFailedAt > 0 ? oldestFailedAt : JSONObject.NULL);
+        json.put("tasks", items);
+        return json;
+    }
+
+    /** attempts번 실패한 뒤의 대기 시간. 여러 작업이 같은 순간에 몰리지 않도록 절반은 무작위 */
+    static long backoffMs(int attempts) {
+        long base = INITIAL_BACKOFF_MS << Math.min(attempts, 16);
+        base = Math.min(base, MAX_BACKOFF_MS);
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            String content = FileSnapshots.read(snapshotFile);
+            if (content == null) {
+                return;
+            }
+
+            JSONArray items = new JSONObject(content).getJSONArray("tasks");
+            for (int i = 0; i < items.length(); i++) {
+                Task task = Task.fromJson(items.getJSONObject(i));
+                tasks.put(task.purchaseToken, task);
+            }
+            NativeLog.d(TAG, "[인앱결제] 재시도 대기열 복원", "count", tasks.size());
+        } catch (IOException | JSONException e) {
+            NativeLog.w(TAG, "[인앱결제] 재시도 대기열 읽기 실패", "error", e);
+            tasks.clear();
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        writer.execute(this::writeSnapshot);
+    }
+
+    private void writeSnapshot() {
+        JSONObject snapshot = new JSONObject();
+        synchronized (this) {
+            saveScheduled = false;
+            try {
+                JSONArray items = new JSONArray();
+                for (Task task : tasks.values()) {
+                    items.put(task.toJson());
+                }
+                snapshot.put("tasks", items);
+            } catch (JSONException e) {
+                NativeLog.w(TAG, "[인앱결제] 재시도 대기열 직렬화 실패", "error", e);
+                return;
+            }
+        }
+
+        try {
+            FileSnapshots.writeAtomically(snapshotFile, snapshot.toString());
+        } catch (IOException e) {
+            NativeLog.w(TAG, "[인앱결제] 재시도 대기열 저장 실패", "error", e);
+        }
+    }
+}
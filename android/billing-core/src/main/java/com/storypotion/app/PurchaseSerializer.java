@@ -0,0 +1,150 @@
+package com.storypotion.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * 구매 정보를 브리지 응답 JSON으로 변환
+ *
+ * 중간 JSONObject를 만들고 복사하지 않고, 필요한 필드만 골라서 쓸 수 있게 필드 비트마스크를 사용한다.
+ * 구매 객체의 값은 Source로 읽으므로 Play Billing의 Purchase 없이도(JVM 벤치마크 등) 같은 코드를 쓴다.
+ */
+final class PurchaseSerializer {
+
+    // 구매 필드 (비트 위치는 PURCHASE_FIELD_NAMES 인덱스와 같음)
+    static final int ORDER_ID = 1;
+    static final int PACKAGE_NAME = 1 << 1;
+    static final int PURCHASE_TIME = 1 << 2;
+    static final int PURCHASE_TOKEN = 1 << 3;
+    static final int SIGNATURE = 1 << 4;
+    static final int IS_ACKNOWLEDGED = 1 << 5;
+    static final int IS_AUTO_RENEWING = 1 << 6;
+    static final int PURCHASE_STATE = 1 << 7;
+    static final int PRODUCTS = 1 << 8;
+    static final int QUANTITY = 1 << 9;
+    static final int ORIGINAL_JSON = 1 << 10;
+
+    private static final String[] PURCHASE_FIELD_NAMES = {
+            "orderId",
+            "packageName",
+            "purchaseTime",
+            "purchaseToken",
+            "signature",
+            "isAcknowledged",
+            "isAutoRenewing",
+            "purchaseState",
+            "products",
+            "quantity",
+            "originalJson"
+    };
+
+    /** fields 옵션이 없을 때 기본으로 내보내는 필드 (기존 응답 형식과 같음) */
+    static final int DEFAULT_PURCHASE_FIELDS = ORDER_ID | PACKAGE_NAME | PURCHASE_TIME | PURCHASE_TOKEN | SIGNATURE
+            | IS_ACKNOWLEDGED | IS_AUTO_RENEWING | PURCHASE_STATE | PRODUCTS;
+
+    /** 구매 객체에서 필드 값을 읽는 방법 (구매마다 래퍼를 만들지 않도록 상태 없는 객체 하나를 재사용) */
+    interface Source<P> {
+        String orderId(P purchase);
+
+        String packageName(P purchase);
+
+        long purchaseTime(P purchase);
+
+        String purchaseToken(P purchase);
+
+        String signature(P purchase);
+
+        boolean isAcknowledged(P purchase);
+
+        boolean isAutoRenewing(P purchase);
+
+        int purchaseState(P purchase);
+
+        List<String> products(P purchase);
+
+        int quantity(P purchase);
+
+        String originalJson(P purchase);
+    }
+
+    private PurchaseSerializer() {
+    }
+
+    /**
+     * 필드 이름 배열을 비트마스크로 변환. null이면 기본 필드, 모르는 이름은 무시
+     */
+    static int parsePurchaseFields(JSONArray fieldNames) throws JSONException {
+        if (fieldNames == null) {
+            return DEFAULT_PURCHASE_FIELDS;
+        }
+        int fields = 0;
+        for (int i = 0; i < fieldNames.length(); i++) {
+            String name = fieldNames.getString(i);
+            for (int bit = 0; bit < PURCHASE_FIELD_NAMES.length; bit++) {
+                if (PURCHASE_FIELD_NAMES[bit].equals(name)) {
+                    fields |= 1 << bit;
+                    break;
+                }
+            }
+        }
+        return fields;
+    }
+
+    /** fields에 해당하는 값만 out에 씀 */
+    static <P> void writePurchase(P purchase, Source<P> source, int fields, JSONObject out) throws JSONException {
+        if ((fields & ORDER_ID) != 0) {
+            out.put("orderId", source.orderId(purchase));
+        }
+        if ((fields & PACKAGE_NAME) != 0) {
+            out.put("packageName", source.packageName(purchase));
+        }
+        if ((fields & PURCHASE_TIME) != 0) {
+            out.put("purchaseTime", source.purchaseTime(purchase));
+        }
+        if ((fields & PURCHASE_TOKEN) != 0) {
+            out.put("purchaseToken", source.purchaseToken(purchase));
+        }
+        if ((fields & SIGNATURE) != 0) {
+            out.put("signature", source.signature(purchase));
+        }
+        if ((fields & IS_ACKNOWLEDGED) != 0) {
+            out.put("isAcknowledged", source.isAcknowledged(purchase));
+        }
+        if ((fields & IS_AUTO_RENEWING) != 0) {
+            out.put("isAutoRenewing", source.isAutoRenewing(purchase));
+        }
+        if ((fields & PURCHASE_STATE) != 0) {
+            out.put("purchaseState", source.purchaseState(purchase));
+        }
+        if ((fields & PRODUCTS) != 0) {
+            out.put("products", writeStrings(source.products(purchase)));
+        }
+        if ((fields & QUANTITY) != 0) {
+            out.put("quantity", source.quantity(purchase));
+        }
+        if ((fields & ORIGINAL_JSON) != 0) {
+            out.put("originalJson", source.originalJson(purchase));
+        }
+    }
+
+    static <P> JSONArray writePurchases(List<P> purchases, Source<P> source, int fields) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (int i = 0, size = purchases.size(); i < size; i++) {
+            JSONObject purchaseObj = new JSONObject();
+            writePurchase(purchases.get(i), source, fields, purchaseObj);
+            array.put(purchaseObj);
+        }
+        return array;
+    }
+
+    static JSONArray writeStrings(List<String> values) {
+        JSONArray array = new JSONArray();
+        for (int i = 0, size = values.size(); i < size; i++) {
+            array.put(values.get(i));
+        }
+        return array;
+    }
+}
@@ -0,0 +1,119 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * replaceType의 이전 스냅샷 대비 차이 계산과 확인 시각 저장 검증
+ */
+public class EntitlementStoreTest {
+
+    // BillingClient.ProductType 값
+    private static final String SUBS = "subs";
+    private static final String INAPP = "inapp";
+
+    private File directory;
+    private EntitlementStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("entitlement-store-test").toFile();
+        store = new EntitlementStore(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void firstReplaceReportsEveryPurchaseAsAdded() {
+        EntitlementStore.Delta delta = store.replaceType(SUBS,
+                Arrays.asList(entitlement("token-1", true, true), entitlement("token-2", true, true)));
+
+        assertEquals(2, delta.added.size());
+        assertTrue(delta.removed.isEmpty());
+        assertTrue(delta.changed.isEmpty());
+    }
+
+    @Test
+    public void unchangedPurchasesProduceEmptyDelta() {
+        store.replaceType(SUBS, Collections.singletonList(entitlement("token-1", true, true)));
+
+        EntitlementStore.Delta delta = store.replaceType(SUBS,
+                Collections.singletonList(entitlement("token-1", true, true)));
+
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    public void verificationTimeIsSavedEvenWhenNothingChanged() throws Exception {
+        store.replaceType(SUBS, Collections.singletonList(entitlement("token-1", true, true)));
+        store.flush();
+        long firstVerifiedAt = store.getLastVerifiedAt(SUBS);
+        Thread.sleep(5);
+
+        store.replaceType(SUBS, Collections.singletonList(entitlement("token-1", true, true)));
+        store.flush();
+
+        long verifiedAt = new EntitlementStore(directory).getLastVerifiedAt(SUBS);
+        assertEquals(store.getLastVerifiedAt(SUBS), verifiedAt);
+        assertTrue(verifiedAt > firstVerifiedAt);
+    }
+
+    @Test
+    public void acknowledgementAndRenewalChangesAreReported() {
+        store.replaceType(SUBS, Arrays.asList(entitlement("token-1", false, true), entitlement("token-2", true, true)));
+
+        EntitlementStore.Delta delta = store.replaceType(SUBS,
+                Arrays.asList(entitlement("token-1", true, true), entitlement("token-2", true, false)));
+
+        assertEquals(2, delta.changed.size());
+        assertTrue(delta.added.isEmpty());
+        assertTrue(delta.removed.isEmpty());
+    }
+
+    @Test
+    public void missingPurchasesAreReportedAsRemoved() {
+        store.replaceType(SUBS, Arrays.asList(entitlement("token-1", true, true), entitlement("token-2", true, true)));
+
+        EntitlementStore.Delta delta = store.replaceType(SUBS,
+                Collections.singletonList(entitlement("token-2", true, true)));
+
+        assertEquals(1, delta.removed.size());
+        assertEquals("token-1", delta.removed.get(0).purchaseToken);
+        assertTrue(delta.added.isEmpty());
+    }
+
+    @Test
+    public void otherProductTypesAreNotTouched() {
+        store.upsert(new EntitlementStore.Entitlement(INAPP,
+                Collections.singletonList("potion_10"), "token-inapp", "GPA.1", 0, false, true, 1));
+
+        EntitlementStore.Delta delta = store.replaceType(SUBS, Collections.emptyList());
+
+        assertTrue(delta.isEmpty());
+        assertTrue(store.activeProducts().contains("potion_10"));
+    }
+
+    private static EntitlementStore.Entitlement entitlement(String token, boolean acknowledged,
+            boolean autoRenewing) {
+        return new EntitlementStore.Entitlement(SUBS, Collections.singletonList("premium_monthly"), token,
+                "GPA." + token, 0, autoRenewing, acknowledged, 1);
+    }
+}
@@ -0,0 +1,122 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 구매 내역의 페이지 읽기와 구매 기록 병합 검증
+ */
+public class PurchaseLedgerTest {
+
+    // BillingClient.ProductType 값
+    private static final String SUBS = "subs";
+    private static final String INAPP = "inapp";
+    // Purchase.PurchaseState.PURCHASED
+    private static final int PURCHASED = 1;
+
+    private File directory;
+    private PurchaseLedger ledger;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("purchase-ledger-test").toFile();
+        ledger = new PurchaseLedger(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void pagesWalkNewestFirstUntilCursorIsNull() {
+        List<PurchaseLedger.Record> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(record(INAPP, "token-" + i, "GPA." + i, 1_000L * i, PURCHASED));
+        }
+        ledger.recordAll(records);
+
+        PurchaseLedger.Page first = ledger.page(null, 2, null);
+        PurchaseLedger.Page second = ledger.page(first.nextCursor, 2, null);
+        PurchaseLedger.Page third = ledger.page(second.nextCursor, 2, null);
+
+        assertEquals(Arrays.asList("token-4", "token-3"), tokens(first));
+        assertEquals(Arrays.asList("token-2", "token-1"), tokens(second));
+        assertEquals(Collections.singletonList("token-0"), tokens(third));
+        assertNull(third.nextCursor);
+    }
+
+    @Test
+    public void productTypeFilterSkipsOtherTypes() {
+        ledger.recordAll(Arrays.asList(
+                record(INAPP, "token-1", "GPA.1", 3_000L, PURCHASED),
+                record(SUBS, "token-2", "GPA.2", 2_000L, PURCHASED),
+                record(INAPP, "token-3", "GPA.3", 1_000L, PURCHASED)));
+
+        PurchaseLedger.Page page = ledger.page(null, 10, INAPP);
+
+        assertEquals(Arrays.asList("token-1", "token-3"), tokens(page));
+    }
+
+    @Test
+    public void historyRecordKeepsKnownOrderIdAndState() {
+        ledger.recordAll(Collections.singletonList(record(INAPP, "token-1", "GPA.1", 1_000L, PURCHASED)));
+
+        int changed = ledger.recordAll(Collections.singletonList(
+                record(INAPP, "token-1", null, 1_000L, PurchaseLedger.STATE_UNKNOWN)));
+
+        assertEquals(0, changed);
+        PurchaseLedger.Record stored = ledger.findByToken("token-1");
+        assertEquals("GPA.1", stored.orderId);
+        assertEquals(PURCHASED, stored.purchaseState);
+        assertEquals("token-1", ledger.findByOrderId("GPA.1").purchaseToken);
+    }
+
+    @Test
+    public void onlyNewHistoryRecordsCountAsChanged() {
+        ledger.recordAll(Collections.singletonList(record(INAPP, "token-1", "GPA.1", 1_000L, PURCHASED)));
+
+        int changed = ledger.recordAll(Arrays.asList(
+                record(INAPP, "token-1", null, 1_000L, PurchaseLedger.STATE_UNKNOWN),
+                record(INAPP, "token-0", null, 500L, PurchaseLedger.STATE_UNKNOWN)));
+
+        assertEquals(1, changed);
+        assertEquals(2, ledger.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedCursorIsRejected() {
+        ledger.page("not-a-cursor", 10, null);
+    }
+
+    private static List<String> tokens(PurchaseLedger.Page page) {
+        List<String> tokens = new ArrayList<>();
+        for (PurchaseLedger.Record record : page.records) {
+            tokens.add(record.purchaseToken);
+        }
+        return tokens;
+    }
+
+    private static PurchaseLedger.Record record(String productType, String token, String orderId, long purchaseTime,
+            int purchaseState) {
+        return new PurchaseLedger.Record(productType, Collections.singletonList("potion_100"), token, orderId,
+                purchaseTime, 1, purchaseState);
+    }
+}
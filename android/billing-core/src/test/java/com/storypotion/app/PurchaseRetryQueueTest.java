@@ -0,0 +1,109 @@
+package com.storypotion.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 재시도 대기열의 시각 계산, 동시 실행 제한, 제거 조건 검증
+ */
+public class PurchaseRetryQueueTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    // BillingClient.BillingResponseCode 값
+    private static final int SERVICE_UNAVAILABLE = 2;
+    private static final int ITEM_NOT_OWNED = 8;
+
+    private File directory;
+    private PurchaseRetryQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("purchase-retry-queue-test").toFile();
+        queue = new PurchaseRetryQueue(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void newTaskWaitsForBackoffUnlessExpedited() {
+        queue.enqueue("token-1", PurchaseRetryQueue.ACKNOWLEDGE, SERVICE_UNAVAILABLE, NOW);
+
+        assertTrue(queue.takeDue(NOW, 4, false).isEmpty());
+        assertTrue(queue.nextAttemptAt() > NOW);
+        assertEquals(1, queue.takeDue(NOW, 4, true).size());
+    }
+
+    @Test
+    public void takeDueRespectsInFlightLimit() {
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue("token-" + i, PurchaseRetryQueue.ACKNOWLEDGE, SERVICE_UNAVAILABLE, NOW);
+        }
+
+        List<PurchaseRetryQueue.Task> first = queue.takeDue(NOW, 4, true);
+        assertEquals(4, first.size());
+        assertTrue(queue.takeDue(NOW, 4, true).isEmpty());
+
+        queue.complete(first.get(0).purchaseToken);
+        assertEquals(1, queue.takeDue(NOW, 4, true).size());
+        assertEquals(9, queue.size());
+    }
+
+    @Test
+    public void retryableFailureBacksOffAndPermanentFailureDrops() {
+        queue.enqueue("token-1", PurchaseRetryQueue.ACKNOWLEDGE, SERVICE_UNAVAILABLE, NOW);
+        queue.enqueue("token-2", PurchaseRetryQueue.CONSUME, SERVICE_UNAVAILABLE, NOW);
+        queue.takeDue(NOW, 4, true);
+
+        queue.fail("token-1", SERVICE_UNAVAILABLE, true, NOW);
+        queue.fail("token-2", ITEM_NOT_OWNED, false, NOW);
+
+        assertEquals(1, queue.size());
+        assertTrue(queue.nextAttemptAt() > NOW);
+    }
+
+    @Test
+    public void consumeReplacesPendingAcknowledge() {
+        queue.enqueue("token-1", PurchaseRetryQueue.ACKNOWLEDGE, SERVICE_UNAVAILABLE, NOW);
+        queue.enqueue("token-1", PurchaseRetryQueue.CONSUME, SERVICE_UNAVAILABLE, NOW);
+
+        List<PurchaseRetryQueue.Task> due = queue.takeDue(NOW, 4, true);
+
+        assertEquals(1, due.size());
+        assertEquals(PurchaseRetryQueue.CONSUME, due.get(0).operation);
+    }
+
+    @Test
+    public void tasksOlderThanRefundWindowExpire() {
+        queue.enqueue("token-1", PurchaseRetryQueue.ACKNOWLEDGE, SERVICE_UNAVAILABLE, NOW);
+
+        assertTrue(queue.takeDue(NOW + PurchaseRetryQueue.MAX_AGE_MS + 1, 4, true).isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void backoffGrowsAndIsCapped() {
+        for (int i = 0; i < 50; i++) {
+            long first = PurchaseRetryQueue.backoffMs(0);
+            assertTrue(first >= 2_500L && first <= 5_000L);
+            long capped = PurchaseRetryQueue.backoffMs(30);
+            assertTrue(capped >= 5 * 60 * 1000L && capped <= 10 * 60 * 1000L);
+        }
+    }
+}
@@ -12,7 +12,7 @@ import { Keyboard } from '@capacitor/keyboard';
 import { PushNotifications } from '@capacitor/push-notifications';
 import { LocalNotifications } from '@capacitor/local-notifications';
 import { TextZoom } from '@capacitor/text-zoom';
-import { checkPhotoPermission, requestPhotoPermission } from './utils/permissions';
+import { requestPermissions } from './utils/permissions';
 import pushNotificationManager from './utils/pushNotification';
 
 // 페이지 및 컴포넌트 임포트 생략 (기존 그대로)
@@ -75,6 +75,7 @@ import AppInfo from './pages/mypage/AppInfo';
 import TermsOfService from './pages/mypage/TermsOfService';
 import PrivacyPolicy from './pages/mypage/PrivacyPolicy';
 import { inAppPurchaseService } from './utils/inAppPurchase';
+import { clearSearchIndex } from './utils/searchIndex';
 import DebugPanel from './components/DebugPanel';
 import { checkAndRenewMonthlyPremium } from './utils/premiumRenewal';
 import { convertKakaoImageUrlToHttps } from './utils/profileImageUtils';
@@ -602,6 +603,11 @@ function App() {
             setUser(user);
             setAuthReady(true);
 
+            // 로그아웃되면 기기에 남은 일기/소설 검색 인덱스 삭제 (어느 화면에서 로그아웃해도 여기서 처리)
+            if (!user) {
+                clearSearchIndex();
+            }
+
             // 사용자 로그인 시 월간 프리미엄 갱신일 확인 및 자동 갱신
             if (user?.uid) {
                 // 앱 시작 시 최근 접속일 업데이트 (Firestore에 직접 기록)
@@ -665,8 +671,9 @@ function App() {
                 }
 
                 // 구독 상태 동기화 (Google Play와 Firebase 동기화)
+                // 저장된 보유 상품 스냅샷으로 바로 동기화하고, Play 확인 결과가 다르면 entitlementsChanged로 다시 동기화
                 try {
-                    await inAppPurchaseService.syncSubscriptionStatus(user.uid);
+                    await inAppPurchaseService.syncSubscriptionStatus(user.uid, { useCachedSnapshot: true });
                     console.log('✅ 구독 상태 동기화 완료');
                 } catch (error) {
                     console.error('구독 상태 동기화 실패:', error);
@@ -675,10 +682,11 @@ function App() {
                 // 앱 환경에서 권한 요청 및 FCM 토큰 자동 등록
                 if (Capacitor.getPlatform() !== 'web') {
                     try {
-                        // 1. 알림 권한 확인 및 요청
-                        const permStatus = await PushNotifications.checkPermissions();
-                        if (permStatus.receive === 'granted') {
-                            // 이미 등록되어 있는지 확인
+                        // 알림/사진 권한을 한 번에 확인하고, 없는 권한만 한 번의 다이얼로그로 요청
+                        const permissionResult = await requestPermissions(['notifications', 'photos']);
+                        console.log('권한 상태:', permissionResult.permissions);
+
+                        if (permissionResult.permissions.notifications === 'granted') {
                             const registration = await PushNotifications.register();
                             console.log('푸시 알림 등록:', registration);
 
@@ -709,62 +717,11 @@ function App() {
                                 });
                             }
                         } else {
-                            // 권한이 없으면 무조건 권한 요청 다이얼로그 띄우기
-                            console.log('푸시 알림 권한이 없습니다. 권한을 요청합니다.');
-                            try {
-                                const requestResult = await PushNotifications.requestPermissions();
-                                if (requestResult.receive === 'granted') {
-                                    console.log('푸시 알림 권한이 허용되었습니다.');
-                                    // 권한 허용 후 등록
-                                    const registration = await PushNotifications.register();
-                                    console.log('푸시 알림 등록:', registration);
-
-                                    // 토큰 등록 리스너 (한 번만 등록)
-                                    if (!window.__pushRegListenerAdded) {
-                                        window.__pushRegListenerAdded = true;
-                                        PushNotifications.addListener('registration', async (token) => {
-                                            console.log('FCM 토큰 발급:', token.value);
-                                            const currentUser = auth.currentUser;
-                                            if (currentUser && token.value) {
-                                                try {
-                                                    await setDoc(doc(db, "users", currentUser.uid), {
-                                                        fcmToken: token.value
-                                                    }, { merge: true });
-                                                    console.log('앱 FCM 토큰 Firestore 저장 완료:', token.value);
-                                                } catch (error) {
-                                                    console.error('FCM 토큰 Firestore 저장 실패:', error);
-                                                }
-                                            }
-                                        });
-
-                                        PushNotifications.addListener('registrationError', (error) => {
-                                            console.error('FCM 토큰 등록 오류:', error);
-                                        });
-                                    }
-                                } else {
-                                    console.log('푸시 알림 권한이 거부되었습니다.');
-                                }
-                            } catch (error) {
-                                console.error('알림 권한 요청 실패:', error);
-                            }
+                            console.log('푸시 알림 권한이 거부되었습니다.');
                         }
 
-                        // 2. 사진 액세스 권한 확인 및 요청
-                        try {
-                            const photoPermission = await checkPhotoPermission();
-                            if (!photoPermission.granted) {
-                                console.log('사진 액세스 권한이 없습니다. 권한을 요청합니다.');
-                                const photoRequestResult = await requestPhotoPermission();
-                                if (photoRequestResult.granted) {
-                                    console.log('사진 액세스 권한이 허용되었습니다.');
-                                } else {
-                                    console.log('사진 액세스 권한이 거부되었습니다.');
-                                }
-                            } else {
-                                console.log('사진 액세스 권한이 이미 허용되어 있습니다.');
-                            }
-                        } catch (error) {
-                            console.error('사진 권한 확인/요청 실패:', error);
+                        if (permissionResult.permissions.photos !== 'granted') {
+                            console.log('사진 액세스 권한이 거부되었습니다.');
                         }
                     } catch (error) {
                         console.error('권한 요청 중 오류:', error);
@@ -823,16 +780,42 @@ function App() {
                     }
 
                     // 구독 상태 동기화
-                    try {
-                        await inAppPurchaseService.syncSubscriptionStatus(currentUser.uid);
-                        console.log('✅ 앱 활성화 시 구독 상태 동기화 완료');
-                    } catch (error) {
-                        console.error('앱 활성화 시 구독 상태 동기화 실패:', error);
+                    // 네이티브 결제가 있으면 구매 목록이 바뀌었을 때만 entitlementsChanged 이벤트로 동기화
+                    if (!inAppPurchaseService.isAvailable) {
+                        try {
+                            await inAppPurchaseService.syncSubscriptionStatus(currentUser.uid);
+                            console.log('✅ 앱 활성화 시 구독 상태 동기화 완료');
+                        } catch (error) {
+                            console.error('앱 활성화 시 구독 상태 동기화 실패:', error);
+                        }
                     }
                 }
             }
         });
 
+        // 포그라운드 복귀 시 네이티브에서 확인한 구매 목록이 달라졌을 때만 구독 상태 동기화
+        inAppPurchaseService.addEntitlementsChangedListener(async () => {
+            const currentUser = auth.currentUser;
+            if (!currentUser) {
+                return;
+            }
+            try {
+                await inAppPurchaseService.syncSubscriptionStatus(currentUser.uid);
+                console.log('✅ 구매 목록 변경으로 구독 상태 동기화 완료');
+            } catch (error) {
+                console.error('구매 목록 변경 시 구독 상태 동기화 실패:', error);
+            }
+        });
+
+        // 결제 요청 없이 도착한 구매(보류 결제 완료, Play 스토어에서 직접 구매)를 바로 지급/확인 처리
+        inAppPurchaseService.addPurchasesUpdatedListener(async (purchases) => {
+            try {
+                await inAppPurchaseService.handleUnsolicitedPurchases(purchases);
+            } catch (error) {
+                console.error('요청 없는 구매 처리 실패:', error);
+            }
+        });
+
         // 🔧 개발용 테스트 함수 등록 (브라우저 콘솔에서 사용 가능)
         if (typeof window !== 'undefined') {
             window.testKakaoDeepLink = (code = 'test_code_123', state = 'test_state_456') => {
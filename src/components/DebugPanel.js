@@ -1,6 +1,9 @@
 import React, { useState, useEffect, useRef } from 'react';
 import { Capacitor } from '@capacitor/core';
 import styled from 'styled-components';
+import { inAppPurchaseService } from '../utils/inAppPurchase';
+import { getNativeLogs, clearNativeLogs } from '../utils/nativeLog';
+import { getJankStats, resetJankStats } from '../utils/frameMonitor';
 
 const DebugPanelContainer = styled.div`
   position: fixed;
@@ -107,6 +110,10 @@ const DebugPanel = () => {
   const [isDragging, setIsDragging] = useState(false);
   const [dragStart, setDragStart] = useState({ x: 0, y: 0 });
   const [debugModeEnabled, setDebugModeEnabled] = useState(false);
+  const [showNative, setShowNative] = useState(false);
+  const [nativeLogs, setNativeLogs] = useState([]);
+  const [nativePage, setNativePage] = useState({ nextBefore: 0, hasMore: false });
+  const addLogRef = useRef(null);
   const dragStateRef = useRef({ isDragging: false, dragStart: { x: 0, y: 0 }, position: { x: 0, y: 0 } });
 
   // 디버그 모드 상태 확인
@@ -317,11 +324,14 @@ const DebugPanel = () => {
       ).join(' '), 'info');
     };
 
+    addLogRef.current = addLog;
+
     // 초기 로그
     addLog('디버깅 패널 활성화됨', 'info');
     addLog(`플랫폼: ${Capacitor.getPlatform()}`, 'info');
 
     return () => {
+      addLogRef.current = null;
       console.log = originalLog;
       console.error = originalError;
       console.warn = originalWarn;
@@ -329,6 +339,99 @@ const DebugPanel = () => {
     };
   }, []);
 
+  // 네이티브 결제 지표를 작업별 한 줄 요약으로 로그에 추가
+  const showBillingMetrics = async () => {
+    const addLog = addLogRef.current;
+    if (!addLog) return;
+
+    const metrics = await inAppPurchaseService.getBillingMetrics();
+    if (!metrics) {
+      addLog('결제 지표를 가져올 수 없음', 'warn');
+      return;
+    }
+
+    const formatLatency = (stats) =>
+      `n=${stats.count} p50=${stats.p50Ms}ms p90=${stats.p90Ms}ms p99=${stats.p99Ms}ms max=${stats.maxMs}ms`;
+
+    Object.entries(metrics.operations || {}).forEach(([name, stats]) => {
+      const codes = Object.entries(stats.responseCodes || {})
+        .map(([code, count]) => `${code}:${count}`)
+        .join(' ');
+      addLog(`[결제 지표] ${name} ${formatLatency(stats)}${codes ? ` codes(${codes})` : ''}`, 'info');
+    });
+
+    const { connection = {}, callbacks = {}, funnel = {} } = metrics;
+    addLog(`[결제 지표] 연결 ${metrics.connectionState} - 시도 ${connection.connects}, 재연결 ${connection.reconnects}, 끊김 ${connection.disconnects}`, 'info');
+    addLog(`[결제 지표] 콜백 처리 대기열 최대 ${callbacks.maxQueueDepth}, 넘침 ${callbacks.overflows}`, 'info');
+    const startup = await inAppPurchaseService.getStartupTrace();
+    if (startup && startup.marks) {
+      const marks = Object.entries(startup.marks).map(([name, ms]) => `${name}=${ms}ms`).join(' ');
+      addLog(`[결제 지표] 시작 구간 ${marks}`, 'info');
+    }
+    if (funnel.tapToResult && funnel.tapToResult.count > 0) {
+      addLog(`[결제 지표] 탭→결제창 ${formatLatency(funnel.tapToSheet)}`, 'info');
+      addLog(`[결제 지표] 결제창→결과 ${formatLatency(funnel.sheetToResult)}`, 'info');
+      addLog(`[결제 지표] 결과 ${JSON.stringify(funnel.outcomes)}`, 'info');
+    }
+  };
+
+  // 프레임 시간과 메인 스레드 멈춤 집계를 로그에 추가
+  const showJankStats = async () => {
+    const addLog = addLogRef.current;
+    if (!addLog) return;
+
+    const stats = await getJankStats(5);
+    if (!stats) {
+      addLog('UI 지표를 가져올 수 없음', 'warn');
+      return;
+    }
+
+    const { frames = {}, stalls = {} } = stats;
+    const since = new Date(stats.since).toLocaleTimeString();
+    if (stats.frameMetricsSupported) {
+      addLog(`[UI 지표] ${since}부터 프레임 n=${frames.count} p50=${frames.p50Ms}ms p90=${frames.p90Ms}ms p99=${frames.p99Ms}ms max=${frames.maxMs}ms`, 'info');
+      addLog(`[UI 지표] 느린 프레임 ${frames.slow} (${(frames.slowRate * 100).toFixed(1)}%), 멈춘 프레임 ${frames.frozen}`, frames.frozen > 0 ? 'warn' : 'info');
+    }
+    addLog(`[UI 지표] 메인 스레드 멈춤(${stalls.thresholdMs}ms 이상) ${stalls.count}회, 합계 ${stalls.totalMs}ms`, stalls.count > 0 ? 'warn' : 'info');
+    (stalls.byCause || []).slice(0, 5).forEach(cause => {
+      addLog(`[UI 지표] 원인 ${cause.cause} - ${cause.count}회 합계 ${cause.totalMs}ms 최대 ${cause.maxMs}ms`, 'info');
+    });
+    (stalls.worst || []).forEach(stall => {
+      const concurrent = stall.concurrent && stall.concurrent.length > 0 ? ` 동시 실행: ${stall.concurrent.join(', ')}` : '';
+      addLog(`[UI 지표] ${stall.durationMs}ms ${new Date(stall.startedAt).toLocaleTimeString()} ${stall.section || stall.message}${concurrent}`, 'warn');
+    });
+  };
+
+  // UI 지표 초기화 (최적화 전후 비교용)
+  const clearJankStats = async () => {
+    await resetJankStats();
+    if (addLogRef.current) {
+      addLogRef.current('[UI 지표] 지금부터 다시 집계', 'info');
+    }
+  };
+
+  // 네이티브 로그 조회. more가 true면 이전 페이지(더 오래된 로그)를 이어서 불러옴
+  const loadNativeLogs = async (more = false) => {
+    const page = await getNativeLogs({ before: more ? nativePage.nextBefore : 0, limit: 50 });
+    const entries = page.entries.map(entry => ({
+      id: `native-${entry.seq}`,
+      type: entry.level === 'debug' || entry.level === 'verbose' ? 'log' : entry.level,
+      timestamp: new Date(entry.time).toLocaleTimeString(),
+      message: `${entry.tag} ${entry.message}${entry.data ? ' ' + JSON.stringify(entry.data) : ''}`
+    }));
+    setNativeLogs(prev => (more ? [...prev, ...entries] : entries));
+    setNativePage({ nextBefore: page.nextBefore, hasMore: page.hasMore });
+  };
+
+  const toggleNativeLogs = () => {
+    if (!showNative) {
+      loadNativeLogs();
+    }
+    setShowNative(!showNative);
+  };
+
+  const visibleLogs = showNative ? nativeLogs : logs;
+
   // 디버그 모드가 활성화되지 않았거나 웹 환경이면 렌더링하지 않음
   if (!debugModeEnabled || Capacitor.getPlatform() === 'web') {
     return null;
@@ -377,9 +480,9 @@ const DebugPanel = () => {
           fontSize: '11px',
           color: '#aaa'
         }}>
-          디버깅 로그 ({logs.length}개)
+          {showNative ? '네이티브 로그' : '디버깅 로그'} ({visibleLogs.length}개)
         </div>
-        {logs.map(log => (
+        {visibleLogs.map(log => (
           <LogEntry key={log.id} type={log.type}>
             <span style={{ color: '#888', fontSize: '10px' }}>
               [{log.timestamp}]
@@ -393,7 +496,40 @@ const DebugPanel = () => {
             </span>
           </LogEntry>
         ))}
-        <ClearButton onClick={() => setLogs([])}>
+        {showNative && nativePage.hasMore && (
+          <ClearButton onClick={() => loadNativeLogs(true)}>
+            이전 로그 더 보기
+          </ClearButton>
+        )}
+        <ClearButton onClick={toggleNativeLogs}>
+          {showNative ? '콘솔 로그 보기' : '네이티브 로그 보기'}
+        </ClearButton>
+        {showNative ? (
+          <ClearButton onClick={() => loadNativeLogs()}>
+            새로고침
+          </ClearButton>
+        ) : (
+          <>
+            <ClearButton onClick={showBillingMetrics}>
+              결제 지표 보기
+            </ClearButton>
+            <ClearButton onClick={showJankStats}>
+              UI 지표 보기
+            </ClearButton>
+            <ClearButton onClick={clearJankStats}>
+              UI 지표 초기화
+            </ClearButton>
+          </>
+        )}
+        <ClearButton onClick={() => {
+          if (showNative) {
+            clearNativeLogs();
+            setNativeLogs([]);
+            setNativePage({ nextBefore: 0, hasMore: false });
+          } else {
+            setLogs([]);
+          }
+        }}>
           로그 지우기
         </ClearButton>
       </Panel>
@@ -36,14 +36,14 @@ const OfflineNotice = () => {
     const [queueStats, setQueueStats] = useState({ totalItems: 0 });
 
     useEffect(() => {
-        const updateStatus = () => {
+        const updateStatus = async () => {
             const online = checkNetworkStatus();
             setIsOnline(online);
 
             if (!online) {
                 setShowNotice(true);
                 // 오프라인 상태에서 큐 정보 업데이트
-                const stats = getQueueStats();
+                const stats = await getQueueStats();
                 setQueueStats(stats);
             } else {
                 setShowNotice(false);
@@ -58,9 +58,9 @@ const OfflineNotice = () => {
         window.addEventListener('offline', updateStatus);
 
         // 주기적으로 큐 상태 확인 (오프라인 상태에서만)
-        const interval = setInterval(() => {
+        const interval = setInterval(async () => {
             if (!navigator.onLine) {
-                const stats = getQueueStats();
+                const stats = await getQueueStats();
                 setQueueStats(stats);
             }
         }, 5000);
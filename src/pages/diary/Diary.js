@@ -9,6 +9,7 @@ import { db } from '../../firebase';
 import { collection, query, where, getDocs, orderBy } from 'firebase/firestore';
 
 import { getWeeklyDiaryStatus } from '../../utils/weeklyBonus';
+import { indexDiaries } from '../../utils/searchIndex';
 
 import './Diary.css';
 
@@ -146,6 +147,8 @@ function Diary({ user }) {
                 const querySnapshot = await getDocs(q);
                 const fetchedDiaries = querySnapshot.docs.map(doc => ({ ...doc.data(), id: doc.id }));
                 setDiaries(fetchedDiaries);
+                // 불러온 일기를 기기 검색 인덱스에 반영 (바뀐 일기만 다시 색인됨)
+                indexDiaries(user.uid, fetchedDiaries);
             } catch (error) {
                 // 삭제된 코드: console.error("Error fetching diaries: ", error);
             } finally {
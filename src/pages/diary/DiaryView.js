@@ -10,6 +10,7 @@ import ConfirmModal from '../../components/ui/ConfirmModal';
 import { useToast } from '../../components/ui/ToastProvider';
 import { useTheme } from '../../ThemeContext';
 import { useLanguage, useTranslation } from '../../LanguageContext';
+import { removeFromSearchIndex } from '../../utils/searchIndex';
 
 const Container = styled.div`
   display: flex;
@@ -346,6 +347,7 @@ function DiaryView({ user }) {
                     console.log('Firestore 문서가 존재하지 않습니다.');
                 }
                 await deleteDoc(diaryRef);
+                removeFromSearchIndex(diary.id);
                 toast.showToast('일기가 삭제되었습니다.', 'success');
                 setShowDeleteModal(false);
                 navigate('/diaries');
@@ -7,7 +7,7 @@ import { db, storage } from '../../firebase';
 import { doc, getDoc, setDoc, addDoc, collection, query, where, getDocs, deleteDoc, updateDoc, increment } from 'firebase/firestore';
 import { ref, uploadBytes, getDownloadURL } from 'firebase/storage';
 import { getFunctions, httpsCallable } from 'firebase/functions';
-import imageCompression from 'browser-image-compression';
+import { compressImageFile, isNativeImagePickerAvailable, pickImagesNative } from '../../utils/profileImageUtils';
 import Button from '../../components/ui/Button';
 import { useToast } from '../../components/ui/ToastProvider';
 import { usePrompt } from '../../hooks/usePrompt';
@@ -18,6 +18,7 @@ import { getPointPolicy } from '../../utils/appConfig';
 import { checkWeeklyBonus } from '../../utils/weeklyBonus';
 import { useTranslation, useLanguage } from '../../LanguageContext';
 import { createPointEarnNotification } from '../../utils/notificationService';
+import { indexDiaries, removeFromSearchIndex } from '../../utils/searchIndex';
 
 // 오늘 날짜를 yyyy-mm-dd 형식으로 반환하는 함수
 const getTodayString = () => {
@@ -1823,13 +1824,7 @@ function WriteDiary({ user }) {
         }
         // 이미지 압축 및 리사이즈
         const compressedFiles = await Promise.all(
-            newFiles.map(file =>
-                imageCompression(file, {
-                    maxSizeMB: 1,
-                    maxWidthOrHeight: 1024,
-                    useWebWorker: true,
-                })
-            )
+            newFiles.map(file => compressImageFile(file, { maxSizeMB: 1, maxWidthOrHeight: 1024 }))
         );
         // imageFiles와 imagePreview를 함께 관리하여 순서 추적
         const newPreviews = compressedFiles.map(file => URL.createObjectURL(file));
@@ -1837,6 +1832,26 @@ function WriteDiary({ user }) {
         setImagePreview(prev => [...prev, ...newPreviews]);
     };
 
+    // Android 앱에서는 WebView 파일 선택 대신 네이티브에서 선택/축소 (원본 사진을 JS로 읽지 않음)
+    const handleImageInputClick = async (e) => {
+        if (!isNativeImagePickerAvailable()) return;
+        e.preventDefault();
+
+        const maxImages = (isPremium || imageLimitExtended) ? 4 : 1;
+        const remaining = maxImages - imagePreview.length;
+        if (remaining <= 0) return;
+
+        try {
+            const picked = await pickImagesNative({ limit: remaining, maxWidthOrHeight: 1024 });
+            if (picked.length === 0) return;
+            setImageFiles(prev => [...prev, ...picked.map(image => image.file)]);
+            setImagePreview(prev => [...prev, ...picked.map(image => image.previewUrl)]);
+        } catch (error) {
+            console.error('이미지 선택 실패:', error);
+            toast.showToast(t('image_load_failed'), 'error');
+        }
+    };
+
     const removeImage = (indexToRemove) => {
         const existingUrlCount = (diary.imageUrls || []).length;
 
@@ -2033,6 +2048,7 @@ function WriteDiary({ user }) {
                 try {
                     const diaryRef = doc(db, 'diaries', existingDiaryId);
                     await deleteDoc(diaryRef);
+                    removeFromSearchIndex(existingDiaryId);
                     alert(t('diary_deleted'));
                     navigate('/diaries', { replace: true });
                 } catch (error) {
@@ -2458,6 +2474,7 @@ function WriteDiary({ user }) {
                     updateData.imageLimitExtended = true;
                 }
                 await setDoc(diaryRef, updateData, { merge: true });
+                indexDiaries(user.uid, [{ ...diaryData, id: existingDiaryId }]);
                 toast.showToast(t('diary_updated'), 'success');
 
                 // 수정 모드일 때는 이미지 업로드 처리
@@ -2502,6 +2519,7 @@ function WriteDiary({ user }) {
                 navigate(`/diary/date/${formatDateToString(selectedDate)}`, { replace: true });
             } else {
                 diaryRef = await addDoc(collection(db, 'diaries'), diaryData);
+                indexDiaries(user.uid, [{ ...diaryData, id: diaryRef.id }]);
                 toast.showToast(t('diary_saved'), 'success');
 
                 // 포인트 적립: 일기 최초 저장 시 정책값 적용 (당일에만 지급)
@@ -3026,6 +3044,7 @@ function WriteDiary({ user }) {
                         multiple
                         accept="image/*"
                         onChange={handleImageUpload}
+                        onClick={handleImageInputClick}
                         style={{ display: 'none' }}
                         disabled={(isPremium || imageLimitExtended) ? imagePreview.length >= 4 : imagePreview.length >= 1}
                     />
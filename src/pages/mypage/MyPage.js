@@ -42,7 +42,7 @@ import { sendPasswordResetEmail } from 'firebase/auth';
 import { EmailAuthProvider, reauthenticateWithCredential, updatePassword } from 'firebase/auth';
 import EyeIcon from '../../components/icons/EyeIcon';
 import EyeOffIcon from '../../components/icons/EyeOffIcon';
-import { getSafeProfileImageUrl, handleImageError } from '../../utils/profileImageUtils';
+import { getSafeProfileImageUrl, handleImageError, isNativeImagePickerAvailable, pickImagesNative } from '../../utils/profileImageUtils';
 import PointIcon from '../../components/icons/PointIcon';
 import ShopIcon from '../../components/icons/ShopIcon';
 import AppInfoIcon from '../../components/icons/AppInfoIcon';
@@ -825,6 +825,25 @@ function MyPage({ user }) {
     }
   };
 
+  /**
+   * Android 앱에서는 네이티브에서 사진을 선택/축소 (원본 사진을 WebView로 읽지 않음)
+   */
+  const handleFileInputClick = async (e) => {
+    if (!isNativeImagePickerAvailable()) return;
+    e.preventDefault();
+
+    try {
+      const [image] = await pickImagesNative({ limit: 1, maxWidthOrHeight: 512 });
+      if (image) {
+        setNewProfileImageFile(image.file);
+        setNewProfileImageUrl(image.previewUrl);
+        setRemoveProfileImage(false);
+      }
+    } catch (error) {
+      console.error('프로필 이미지 선택 실패:', error);
+    }
+  };
+
   /**
    * 프로필 이미지 삭제 처리
    */
@@ -987,7 +1006,7 @@ function MyPage({ user }) {
                     }}
                   />
                 )}
-                <EditImageInput id="profile-image-upload" type="file" accept="image/*" onChange={handleFileChange} />
+                <EditImageInput id="profile-image-upload" type="file" accept="image/*" onChange={handleFileChange} onClick={handleFileInputClick} />
               </EditImageLabel>
 
               {/* 프로필 이미지 삭제 버튼 */}
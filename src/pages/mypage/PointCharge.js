@@ -11,7 +11,7 @@ import { useTheme } from 'styled-components';
 import PointIcon from '../../components/icons/PointIcon';
 import ConfirmModal from '../../components/ui/ConfirmModal';
 import { useTranslation } from '../../LanguageContext';
-import { inAppPurchaseService, PRODUCT_IDS, PRODUCT_INFO, consumeUnconsumedPointPurchases } from '../../utils/inAppPurchase';
+import { inAppPurchaseService, PRODUCT_IDS, PRODUCT_INFO, POINT_REWARDS, consumeUnconsumedPointPurchases } from '../../utils/inAppPurchase';
 
 const Container = styled.div`
   display: flex;
@@ -596,10 +596,10 @@ const PageInfo = styled.div`
 `;
 
 const packages = [
-  { id: PRODUCT_IDS.POINTS_100, points: 100, price: '1,000원', bonusPoints: 0, productId: PRODUCT_IDS.POINTS_100 },
-  { id: PRODUCT_IDS.POINTS_500, points: 500, price: '5,000원', bonusPoints: 50, productId: PRODUCT_IDS.POINTS_500 },
-  { id: PRODUCT_IDS.POINTS_1000, points: 1000, price: '9,900원', bonusPoints: 150, productId: PRODUCT_IDS.POINTS_1000 },
-  { id: PRODUCT_IDS.POINTS_2000, points: 2000, price: '19,800원', bonusPoints: 400, productId: PRODUCT_IDS.POINTS_2000 },
+  { id: PRODUCT_IDS.POINTS_100, ...POINT_REWARDS[PRODUCT_IDS.POINTS_100], price: '1,000원', productId: PRODUCT_IDS.POINTS_100 },
+  { id: PRODUCT_IDS.POINTS_500, ...POINT_REWARDS[PRODUCT_IDS.POINTS_500], price: '5,000원', productId: PRODUCT_IDS.POINTS_500 },
+  { id: PRODUCT_IDS.POINTS_1000, ...POINT_REWARDS[PRODUCT_IDS.POINTS_1000], price: '9,900원', productId: PRODUCT_IDS.POINTS_1000 },
+  { id: PRODUCT_IDS.POINTS_2000, ...POINT_REWARDS[PRODUCT_IDS.POINTS_2000], price: '19,800원', productId: PRODUCT_IDS.POINTS_2000 },
 ];
 
 function PointCharge({ user }) {
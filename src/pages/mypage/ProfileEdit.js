@@ -24,6 +24,7 @@ import EyeOffIcon from '../../components/icons/EyeOffIcon';
 import { useTranslation } from '../../LanguageContext';
 import { Keyboard } from '@capacitor/keyboard';
 import { Capacitor } from '@capacitor/core';
+import { isNativeImagePickerAvailable, pickImagesNative } from '../../utils/profileImageUtils';
 
 const MainContainer = styled.div`
   display: flex;
@@ -337,6 +338,25 @@ function ProfileEdit({ user }) {
     }
   };
 
+  /**
+   * Android 앱에서는 네이티브에서 사진을 선택/축소 (원본 사진을 WebView로 읽지 않음)
+   */
+  const handleFileInputClick = async (e) => {
+    if (!isNativeImagePickerAvailable()) return;
+    e.preventDefault();
+
+    try {
+      const [image] = await pickImagesNative({ limit: 1, maxWidthOrHeight: 512 });
+      if (image) {
+        setNewProfileImageFile(image.file);
+        setNewProfileImageUrl(image.previewUrl);
+        setRemoveProfileImage(false);
+      }
+    } catch (error) {
+      console.error('프로필 이미지 선택 실패:', error);
+    }
+  };
+
   /**
    * 프로필 이미지 삭제 처리
    */
@@ -531,7 +551,7 @@ function ProfileEdit({ user }) {
                 }}
               />
             )}
-            <EditImageInput id="profile-image-upload" type="file" accept="image/*" onChange={handleFileChange} />
+            <EditImageInput id="profile-image-upload" type="file" accept="image/*" onChange={handleFileChange} onClick={handleFileInputClick} />
           </EditImageLabel>
 
           {/* 프로필 이미지 삭제 버튼 */}
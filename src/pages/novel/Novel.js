@@ -5,6 +5,7 @@ import Navigation from '../../components/Navigation';
 import Header from '../../components/Header';
 import { db } from '../../firebase';
 import { collection, query, where, getDocs, orderBy, doc, getDoc, limit, onSnapshot, updateDoc, Timestamp } from 'firebase/firestore';
+import { indexNovels } from '../../utils/searchIndex';
 import { useToast } from '../../components/ui/ToastProvider';
 import { useLanguage, useTranslation } from '../../LanguageContext';
 import { useTheme } from '../../ThemeContext';
@@ -180,6 +181,8 @@ const Novel = ({ user }) => {
             const novelsQuery = query(novelsRef, where('userId', '==', user.uid), orderBy('createdAt', 'desc'));
             try {
                 const novelSnapshot = await getDocs(novelsQuery);
+                // 기기 검색 인덱스에 반영 (삭제 표시된 소설은 인덱스에서 빠짐)
+                indexNovels(user.uid, novelSnapshot.docs.map(doc => ({ id: doc.id, ...doc.data() })));
                 const newNovelsMap = {};
                 const allMyNovels = [];
                 novelSnapshot.forEach(doc => {
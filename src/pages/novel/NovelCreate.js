@@ -15,6 +15,7 @@ import { useLanguage, useTranslation } from '../../LanguageContext';
 import { useTheme as useThemeContext } from '../../ThemeContext';
 import { lightTheme, darkTheme } from '../../theme';
 import { inAppPurchaseService } from '../../utils/inAppPurchase';
+import { indexNovels } from '../../utils/searchIndex';
 
 const Container = styled.div`
   display: flex;
@@ -622,6 +623,7 @@ function NovelCreate({ user }) {
             console.log('Firestore에 소설 저장 중...');
             const docRef = await addDoc(collection(db, 'novels'), newNovel);
             console.log('소설 저장 완료, 문서 ID:', docRef.id);
+            indexNovels(user.uid, [{ id: docRef.id, ...newNovel }]);
 
             // 소설 저장 성공 시 포션 1개 차감
             try {
@@ -8,6 +8,10 @@ export class BillingWeb {
     throw new Error('Billing is only available on native platforms');
   }
 
+  async queryProductDetailsBatch() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
   async purchaseProduct() {
     throw new Error('Billing is only available on native platforms');
   }
@@ -16,8 +20,39 @@ export class BillingWeb {
     throw new Error('Billing is only available on native platforms');
   }
 
+  async acknowledgeAll() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
+  async consumeAll() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
   async queryPurchases() {
     throw new Error('Billing is only available on native platforms');
   }
-}
 
+  async syncEntitlements() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
+  async getCachedEntitlements() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
+  async getPurchaseLedger() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
+  async getPurchaseRetryStatus() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
+  async getBillingMetrics() {
+    throw new Error('Billing is only available on native platforms');
+  }
+
+  async getStartupTrace() {
+    throw new Error('Billing is only available on native platforms');
+  }
+}
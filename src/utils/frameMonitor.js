@@ -0,0 +1,70 @@
+import { Capacitor } from '@capacitor/core';
+import { registerPlugin } from '@capacitor/core';
+
+// FrameMonitor 플러그인 등록 (네이티브 프레임 시간, 메인 스레드 멈춤 집계 조회)
+const FrameMonitor = registerPlugin('FrameMonitor', {
+  // 웹에는 네이티브 집계가 없음
+  web: () => ({
+    getJankStats: async () => null,
+    resetJankStats: async () => ({ success: true }),
+    setEnabled: async ({ enabled }) => ({ enabled }),
+  }),
+});
+
+/**
+ * 프레임/멈춤 집계 조회 (웹이거나 실패하면 null)
+ * { since, enabled, frameMetricsSupported, refreshRate,
+ *   frames: { count, slow, frozen, unreported, slowRate, p50Ms, p90Ms, p99Ms, maxMs },
+ *   stalls: { count, totalMs, thresholdMs, byCause: [{ cause, count, totalMs, maxMs }],
+ *             worst: [{ startedAt, durationMs, message, section, concurrent }] } }
+ * @param {number} limit - 가장 긴 멈춤 몇 개를 받을지
+ */
+export const getJankStats = async (limit = 10) => {
+  if (Capacitor.getPlatform() === 'web') {
+    return null;
+  }
+
+  try {
+    return await FrameMonitor.getJankStats({ limit });
+  } catch (error) {
+    console.error('프레임 지표 조회 실패:', error);
+    return null;
+  }
+};
+
+/**
+ * 집계를 비우고 지금부터 다시 집계 (UI 스레드 최적화 전후 비교용)
+ */
+export const resetJankStats = async () => {
+  if (Capacitor.getPlatform() === 'web') {
+    return;
+  }
+
+  try {
+    await FrameMonitor.resetJankStats();
+  } catch (error) {
+    console.error('프레임 지표 초기화 실패:', error);
+  }
+};
+
+/**
+ * 기록 켜기/끄기 (끄면 메인 스레드 메시지 측정을 멈춤)
+ */
+export const setFrameMonitorEnabled = async (enabled) => {
+  if (Capacitor.getPlatform() === 'web') {
+    return null;
+  }
+
+  try {
+    return await FrameMonitor.setEnabled({ enabled });
+  } catch (error) {
+    console.error('프레임 지표 설정 실패:', error);
+    return null;
+  }
+};
+
+export default {
+  getJankStats,
+  resetJankStats,
+  setFrameMonitorEnabled,
+};
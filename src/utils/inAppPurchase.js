@@ -1,6 +1,6 @@
 import { Capacitor } from '@capacitor/core';
 import { registerPlugin } from '@capacitor/core';
-import { doc, addDoc, collection, updateDoc, increment, Timestamp } from 'firebase/firestore';
+import { doc, addDoc, collection, updateDoc, increment, Timestamp, query, where, limit, getDocs } from 'firebase/firestore';
 import { db } from '../firebase';
 
 // Billing 플러그인 등록
@@ -98,6 +98,22 @@ export const PRODUCT_INFO = {
   }
 };
 
+// 포인트 상품별 지급량 (기본 + 보너스)
+export const POINT_REWARDS = {
+  [PRODUCT_IDS.POINTS_100]: { points: 100, bonusPoints: 0 },
+  [PRODUCT_IDS.POINTS_500]: { points: 500, bonusPoints: 50 },
+  [PRODUCT_IDS.POINTS_1000]: { points: 1000, bonusPoints: 150 },
+  [PRODUCT_IDS.POINTS_2000]: { points: 2000, bonusPoints: 400 }
+};
+
+const SUBSCRIPTION_IDS = [PRODUCT_IDS.MONTHLY_PREMIUM, PRODUCT_IDS.YEARLY_PREMIUM];
+
+// Purchase.PurchaseState.PURCHASED
+const PURCHASE_STATE_PURCHASED = 1;
+
+// 구독 상태 확인에 필요한 구매 필드만 받아서 브리지 응답 크기를 줄임 (signature, originalJson 등 제외)
+const ENTITLEMENT_FIELDS = ['purchaseToken', 'purchaseTime', 'isAcknowledged', 'isAutoRenewing', 'purchaseState', 'products'];
+
 class InAppPurchaseService {
   constructor() {
     this.isInitialized = false;
@@ -185,6 +201,29 @@ class InAppPurchaseService {
     }
   }
 
+  // 여러 타입(inapp/subs) 상품 정보를 한 번에 조회
+  // products: [{ productId, type }]
+  async getProductsBatch(products) {
+    if (!this.isInitialized) {
+      await this.initialize();
+    }
+
+    if (!this.isAvailable) {
+      return { products: [], errors: [] };
+    }
+
+    try {
+      const result = await Billing.queryProductDetailsBatch({ products });
+      return {
+        products: result.products || [],
+        errors: result.errors || []
+      };
+    } catch (error) {
+      console.error('상품 정보 일괄 조회 실패:', error);
+      return { products: [], errors: [] };
+    }
+  }
+
   // 구매 시작
   async purchaseProduct(productId, productType = 'inapp') {
     console.log('[인앱결제] purchaseProduct 시작', { productId, productType, isInitialized: this.isInitialized, isAvailable: this.isAvailable });
@@ -219,6 +258,12 @@ class InAppPurchaseService {
           throw new Error('인앱 결제 정보가 유효하지 않습니다. purchaseToken 또는 orderId가 없습니다.');
         }
 
+        // 네이티브에서 라이선스 공개키로 서명을 검증한 결과 (valid / invalid / unavailable)
+        if (result.purchase.verification === 'invalid') {
+          console.error('[인앱결제] 구매 서명 검증 실패', { orderId: result.purchase.orderId });
+          throw new Error('인앱 결제 정보가 유효하지 않습니다. 구매 서명을 확인할 수 없습니다.');
+        }
+
         console.log('[인앱결제] 구매 성공, handlePurchaseSuccess 호출', {
           orderId: result.purchase.orderId,
           purchaseToken: result.purchase.purchaseToken?.substring(0, 20) + '...',
@@ -276,6 +321,40 @@ class InAppPurchaseService {
     }
   }
 
+  // 요청 없이 도착한 구매 업데이트 수신 (보류 결제 완료, Play 스토어에서 직접 구매 등)
+  // 반환값의 remove()로 리스너 해제
+  async addPurchasesUpdatedListener(callback) {
+    if (!this.isAvailable) {
+      return { remove: async () => {} };
+    }
+
+    return Billing.addListener('purchasesUpdated', (event) => {
+      console.log('[인앱결제] purchasesUpdated 이벤트 수신', { count: event?.purchases?.length || 0 });
+      // 서명 검증에 실패한 구매는 전달하지 않음
+      const purchases = (event?.purchases || []).filter((purchase) => purchase.verification !== 'invalid');
+      callback(purchases);
+    });
+  }
+
+  // 앱이 포그라운드로 돌아왔을 때 네이티브에서 구매 목록을 다시 확인하고, 달라진 것이 있을 때만 호출됨
+  // event: { productType, added, removed, changed, activeProducts }
+  // 반환값의 remove()로 리스너 해제
+  async addEntitlementsChangedListener(callback) {
+    if (!this.isAvailable) {
+      return { remove: async () => {} };
+    }
+
+    return Billing.addListener('entitlementsChanged', (event) => {
+      console.log('[인앱결제] entitlementsChanged 이벤트 수신', {
+        productType: event?.productType,
+        added: event?.added?.length || 0,
+        removed: event?.removed?.length || 0,
+        changed: event?.changed?.length || 0
+      });
+      callback(event);
+    });
+  }
+
   // 구매 완료 처리
   async handlePurchaseSuccess(purchase) {
     console.log('[인앱결제] handlePurchaseSuccess 시작', purchase);
@@ -296,9 +375,15 @@ class InAppPurchaseService {
       }
 
       // 구매 내역 저장 (Firebase)
-      console.log('[인앱결제] Firebase에 구매 내역 저장 시작');
-      await this.savePurchaseToFirebase(purchase);
-      console.log('[인앱결제] Firebase에 구매 내역 저장 완료');
+      // 기기에서 서명이 확인된 구매는 저장을 기다리지 않고 바로 완료 처리
+      if (purchase.verification === 'valid') {
+        console.log('[인앱결제] 서명 검증 완료, Firebase 저장은 백그라운드에서 진행');
+        this.savePurchaseToFirebase(purchase);
+      } else {
+        console.log('[인앱결제] Firebase에 구매 내역 저장 시작');
+        await this.savePurchaseToFirebase(purchase);
+        console.log('[인앱결제] Firebase에 구매 내역 저장 완료');
+      }
 
       console.log('[인앱결제] 구매 완료 처리됨:', purchase);
     } catch (error) {
@@ -312,6 +397,69 @@ class InAppPurchaseService {
     }
   }
 
+  // 요청 없이 도착한 구매 처리 (보류 결제 완료, Play 스토어에서 직접 구매 등)
+  // 포인트는 같은 purchaseToken으로 지급한 기록이 없을 때만 지급하고 소비, 구독은 확인(acknowledge) 후 상태 동기화
+  // 로그인 전이면 처리하지 않음 (미소비 구매 확인과 구독 동기화에서 다시 처리됨)
+  async handleUnsolicitedPurchases(purchases) {
+    const { getAuth } = await import('firebase/auth');
+    const currentUser = getAuth().currentUser;
+    if (!currentUser) {
+      console.warn('[인앱결제] 로그인 전이라 요청 없는 구매 처리를 미룸', { count: purchases.length });
+      return;
+    }
+
+    let hasSubscription = false;
+    for (const purchase of purchases) {
+      if (!purchase.purchaseToken || purchase.purchaseState !== PURCHASE_STATE_PURCHASED) {
+        // 보류 중인 결제는 완료되면 다시 이벤트가 옴
+        continue;
+      }
+      const productIds = purchase.products || [];
+      const pointProductId = productIds.find(productId => POINT_REWARDS[productId]);
+      try {
+        if (pointProductId) {
+          await this.grantPointPurchase(currentUser.uid, pointProductId, purchase);
+        } else if (productIds.some(productId => SUBSCRIPTION_IDS.includes(productId))) {
+          await this.handlePurchaseSuccess(purchase);
+          hasSubscription = true;
+        }
+      } catch (error) {
+        console.error('[인앱결제] 요청 없는 구매 처리 실패:', error, { productIds });
+      }
+    }
+
+    if (hasSubscription) {
+      await this.syncSubscriptionStatus(currentUser.uid);
+    }
+  }
+
+  // 포인트 구매 지급 후 소비 (같은 purchaseToken으로 이미 지급했으면 소비만)
+  async grantPointPurchase(userId, productId, purchase) {
+    const historyRef = collection(db, 'users', userId, 'pointHistory');
+    const granted = await getDocs(query(historyRef, where('purchaseToken', '==', purchase.purchaseToken), limit(1)));
+
+    if (granted.empty) {
+      const { points, bonusPoints } = POINT_REWARDS[productId];
+      const totalPoints = points + bonusPoints;
+      await updateDoc(doc(db, 'users', userId), {
+        point: increment(totalPoints)
+      });
+      await addDoc(historyRef, {
+        type: 'charge',
+        amount: totalPoints,
+        desc: `인앱 결제 - ${points}p + ${bonusPoints}p 보너스`,
+        purchaseToken: purchase.purchaseToken,
+        orderId: purchase.orderId || null,
+        createdAt: new Date()
+      });
+      console.log('[인앱결제] 요청 없는 포인트 구매 지급 완료', { productId, totalPoints });
+    } else {
+      console.log('[인앱결제] 이미 지급된 포인트 구매 - 소비만 진행', { productId });
+    }
+
+    await this.consumePurchase(purchase.purchaseToken);
+  }
+
   // 소비성 상품 소비 처리 (재구매 가능하도록)
   async consumePurchase(purchaseToken) {
     console.log('[인앱결제] consumePurchase 시작', { purchaseToken: purchaseToken?.substring(0, 20) + '...' });
@@ -377,6 +525,7 @@ class InAppPurchaseService {
         purchaseTime: Timestamp.fromMillis(purchase.purchaseTime || Date.now()),
         isAcknowledged: purchase.isAcknowledged || false,
         isAutoRenewing: purchase.isAutoRenewing || false,
+        verification: purchase.verification || 'unavailable',
         createdAt: Timestamp.now()
       });
 
@@ -387,72 +536,162 @@ class InAppPurchaseService {
     }
   }
 
-  // 구독 상태 확인 (Google Play에서 실제 구독 상태 확인)
-  async getSubscriptionStatus(productId) {
+  // 저장된 보유 상품 스냅샷 조회 (Billing 연결 전에도 바로 응답, 백그라운드에서 Play와 동기화)
+  async getCachedEntitlements({ refresh = true } = {}) {
+    if (!this.isAvailable) {
+      return { entitlements: [], activeProducts: [], lastVerifiedAt: {}, hasSnapshot: false };
+    }
+
+    try {
+      return await Billing.getCachedEntitlements({ refresh });
+    } catch (error) {
+      console.error('[인앱결제] 보유 상품 스냅샷 조회 실패:', error);
+      return { entitlements: [], activeProducts: [], lastVerifiedAt: {}, hasSnapshot: false };
+    }
+  }
+
+  // 저장된 스냅샷을 syncEntitlements와 같은 모양으로 변환 (구독을 한 번도 확인하지 않았으면 null)
+  // 스냅샷 조회가 Play 확인을 백그라운드로 시작하고, 결과가 다르면 entitlementsChanged로 다시 동기화됨
+  async getCachedSubscriptionEntitlements() {
+    const snapshot = await this.getCachedEntitlements({ refresh: true });
+    if (!snapshot.hasSnapshot || !snapshot.lastVerifiedAt?.subs) {
+      return null;
+    }
+
+    const toEntitlement = (entitlement) => ({
+      ...entitlement,
+      isActive: entitlement.purchaseState === PURCHASE_STATE_PURCHASED
+    });
+    return {
+      subscriptions: snapshot.entitlements.filter(e => e.productType === 'subs').map(toEntitlement),
+      inapp: snapshot.entitlements.filter(e => e.productType === 'inapp').map(toEntitlement),
+      activeProducts: snapshot.activeProducts
+    };
+  }
+
+  // 기기에 저장된 구매 내역 한 페이지 (최신순, Firestore 읽기 없음)
+  // 다음 페이지는 이전 응답의 nextCursor를 넘겨서 조회, nextCursor가 null이면 마지막 페이지
+  // productType: 'inapp' | 'subs' (없으면 전체), orderId를 넘기면 해당 주문만 조회
+  // 반환값: { purchases: [{ productType, products, purchaseToken, orderId, purchaseTime, quantity, purchaseState }], nextCursor }
+  async getPurchaseLedger({ cursor = null, limit = 20, productType, orderId, refresh = true } = {}) {
+    if (!this.isAvailable) {
+      return { purchases: [], nextCursor: null };
+    }
+
+    try {
+      return await Billing.getPurchaseLedger({ cursor, limit, productType, orderId, refresh });
+    } catch (error) {
+      console.error('[인앱결제] 구매 내역 조회 실패:', error);
+      return { purchases: [], nextCursor: null };
+    }
+  }
+
+  // Play 구매 기록에서 새로 알게 된 구매가 구매 내역에 추가되었을 때 호출됨
+  // event: { productType, changed }
+  // 반환값의 remove()로 리스너 해제
+  async addPurchaseLedgerChangedListener(callback) {
+    if (!this.isAvailable) {
+      return { remove: async () => {} };
+    }
+
+    return Billing.addListener('purchaseLedgerChanged', (event) => {
+      console.log('[인앱결제] purchaseLedgerChanged 이벤트 수신', event);
+      callback(event);
+    });
+  }
+
+  // 실패한 acknowledge/consume의 네이티브 재시도 현황
+  // 일시적인 오류로 실패한 토큰은 네이티브에서 보관했다가 연결될 때마다 다시 시도하므로 JS에서 따로 재시도하지 않아도 됨
+  // 반환값: { pending, inFlight, enqueued, succeeded, failedAttempts, dropped, expired, oldestFailedAt, tasks }
+  async getPurchaseRetryStatus() {
+    if (!this.isAvailable) {
+      return null;
+    }
+
+    try {
+      return await Billing.getPurchaseRetryStatus();
+    } catch (error) {
+      console.error('[인앱결제] 재시도 현황 조회 실패:', error);
+      return null;
+    }
+  }
+
+  // 네이티브 결제 성능 지표 (작업별 지연 시간 백분위, 응답 코드 횟수, 재연결 횟수, 결제 흐름 시간)
+  async getBillingMetrics({ reset = false } = {}) {
+    if (!this.isAvailable) {
+      return null;
+    }
+
+    try {
+      return await Billing.getBillingMetrics({ reset });
+    } catch (error) {
+      console.error('[인앱결제] 결제 지표 조회 실패:', error);
+      return null;
+    }
+  }
+
+  // 앱 시작 구간 시각 (액티비티 생성 기준 ms: activityCreate, billingPrewarm, webViewReady, firstBillingCall, billingReady)
+  async getStartupTrace() {
+    if (!this.isAvailable) {
+      return null;
+    }
+
+    try {
+      return await Billing.getStartupTrace();
+    } catch (error) {
+      console.error('[인앱결제] 시작 구간 기록 조회 실패:', error);
+      return null;
+    }
+  }
+
+  // 구독/일회성 구매와 구독 만료일을 네이티브에서 한 번에 조회
+  async syncEntitlements(subscriptionIds = [PRODUCT_IDS.MONTHLY_PREMIUM, PRODUCT_IDS.YEARLY_PREMIUM]) {
     if (!this.isInitialized) {
       await this.initialize();
     }
 
     if (!this.isAvailable) {
-      return { isActive: false, isAutoRenewing: false, exists: false };
+      return { subscriptions: [], inapp: [], activeProducts: [] };
     }
 
-    try {
-      const result = await Billing.queryPurchases({
-        productType: 'subs'
-      });
+    return Billing.syncEntitlements({ subscriptionIds, fields: ENTITLEMENT_FIELDS });
+  }
 
-      if (result.purchases && result.purchases.length > 0) {
-        const subscription = result.purchases.find(p =>
-          p.products && p.products.includes(productId)
-        );
-        if (subscription) {
-          // 구독이 존재함
-          // ProductDetails에서 구독 기간 정보 가져와서 만료일 계산
-          let expiryTimeMillis = subscription.expiryTimeMillis || null;
-          try {
-            const productDetails = await Billing.queryProductDetails({
-              productIds: [productId],
-              productType: 'subs'
-            });
-
-            if (productDetails.products && productDetails.products.length > 0) {
-              const product = productDetails.products[0];
-              // 구독 기간 정보는 ProductDetails에 직접 포함되지 않으므로
-              // purchaseTime을 기준으로 계산해야 함
-              // 하지만 정확한 만료일은 Google Play Developer API를 통해 가져와야 함
-              // 일단 purchaseTime만 반환하고, JavaScript에서 계산
-              console.log('[구독 상태] ProductDetails 조회 성공', { productId });
-            }
-          } catch (error) {
-            console.warn('[구독 상태] ProductDetails 조회 실패:', error);
-          }
+  // 구독 상태 확인 (Google Play에서 실제 구독 상태 확인)
+  // entitlements를 넘기면 Play를 다시 조회하지 않고 그 결과를 사용
+  async getSubscriptionStatus(productId, entitlements = null) {
+    if (!this.isAvailable) {
+      return { isActive: false, isAutoRenewing: false, exists: false };
+    }
 
-          // 구독이 활성화되어 있는지 확인
-          // isAcknowledged가 true이고, expiryTimeMillis가 없거나 현재 시간보다 미래이면 활성화됨
-          const now = Date.now();
-          const isActive = subscription.isAcknowledged &&
-            (expiryTimeMillis === null || expiryTimeMillis > now);
-
-          console.log('[구독 상태] 구독 상태 확인', {
-            productId,
-            isAcknowledged: subscription.isAcknowledged,
-            expiryTimeMillis,
-            now,
-            isActive,
-            isAutoRenewing: subscription.isAutoRenewing
-          });
+    try {
+      const result = entitlements || await this.syncEntitlements([productId]);
+      const subscription = (result.subscriptions || []).find(p =>
+        p.products && p.products.includes(productId)
+      );
+
+      if (subscription) {
+        // 만료일은 네이티브에서 ProductDetails의 결제 주기로 추정한 값
+        const expiryTimeMillis = subscription.expiryTimeMillis || null;
+
+        console.log('[구독 상태] 구독 상태 확인', {
+          productId,
+          isAcknowledged: subscription.isAcknowledged,
+          expiryTimeMillis,
+          isActive: subscription.isActive,
+          isAutoRenewing: subscription.isAutoRenewing
+        });
 
-          return {
-            isActive: isActive,
-            isAutoRenewing: subscription.isAutoRenewing || false,
-            exists: true,
-            purchaseToken: subscription.purchaseToken,
-            purchaseTime: subscription.purchaseTime,
-            expiryTimeMillis: expiryTimeMillis
-          };
-        }
+        return {
+          isActive: subscription.isActive,
+          isAutoRenewing: subscription.isAutoRenewing || false,
+          exists: true,
+          purchaseToken: subscription.purchaseToken,
+          purchaseTime: subscription.purchaseTime,
+          expiryTimeMillis: expiryTimeMillis
+        };
       }
+
       // Google Play Store에서 구독을 찾을 수 없음
       console.log(`[구독 상태] ${productId} 구독을 Google Play Store에서 찾을 수 없음`);
       return { isActive: false, isAutoRenewing: false, exists: false };
@@ -474,7 +713,8 @@ class InAppPurchaseService {
   }
 
   // 구독 상태 동기화 (Google Play와 Firebase 동기화)
-  async syncSubscriptionStatus(userId) {
+  // useCachedSnapshot이면 Billing 연결을 기다리지 않고 기기에 저장된 보유 상품 스냅샷으로 먼저 동기화 (앱 시작용)
+  async syncSubscriptionStatus(userId, { useCachedSnapshot = false } = {}) {
     if (!userId) {
       return;
     }
@@ -494,8 +734,11 @@ class InAppPurchaseService {
       console.log('[구독 동기화] ⚠️ 앱에서 로그인한 Firebase 사용자와 Google Play 계정이 다를 수 있습니다.');
 
       // Google Play에서 구독 상태 확인
-      const monthlyStatus = await this.getSubscriptionStatus(PRODUCT_IDS.MONTHLY_PREMIUM);
-      const yearlyStatus = await this.getSubscriptionStatus(PRODUCT_IDS.YEARLY_PREMIUM);
+      // 월간/연간 구독 상태를 한 번의 네이티브 호출로 조회
+      const cached = useCachedSnapshot ? await this.getCachedSubscriptionEntitlements() : null;
+      const entitlements = cached || await this.syncEntitlements();
+      const monthlyStatus = await this.getSubscriptionStatus(PRODUCT_IDS.MONTHLY_PREMIUM, entitlements);
+      const yearlyStatus = await this.getSubscriptionStatus(PRODUCT_IDS.YEARLY_PREMIUM, entitlements);
       
       console.log('[구독 동기화] Google Play 구독 상태', {
         monthly: { isActive: monthlyStatus.isActive, hasToken: !!monthlyStatus.purchaseToken },
@@ -747,32 +990,31 @@ class InAppPurchaseService {
         PRODUCT_IDS.POINTS_2000
       ];
 
-      // 포인트 상품만 필터링하여 소비 처리
-      for (const purchase of purchases) {
+      // 포인트 상품만 필터링
+      // 이미 포인트가 지급된 경우라도 소비는 필요하므로 중복 체크 없이 소비 처리
+      const pointPurchases = purchases.filter(purchase => {
         const productIds = purchase.products || [];
-        const isPointProduct = productIds.some(productId => pointProductIds.includes(productId));
+        return purchase.purchaseToken && productIds.some(productId => pointProductIds.includes(productId));
+      });
 
-        if (isPointProduct && purchase.purchaseToken) {
-          console.log('[인앱결제] 미소비 포인트 구매 발견, 소비 처리 시작', {
-            productIds,
-            orderId: purchase.orderId,
-            purchaseToken: purchase.purchaseToken?.substring(0, 20) + '...'
-          });
+      if (pointPurchases.length === 0) {
+        console.log('[인앱결제] 미소비 포인트 구매 없음');
+        return;
+      }
 
-          try {
-            // 이미 포인트가 지급되었는지 확인하기 위해 Firebase에서 구매 내역 확인
-            // 하지만 중복 체크 없이 일단 소비 처리만 진행
-            // (이미 포인트가 지급된 경우라도 소비는 필요하므로)
-            await this.consumePurchase(purchase.purchaseToken);
-            console.log('[인앱결제] 미소비 포인트 구매 소비 처리 완료', {
-              productIds,
-              orderId: purchase.orderId
-            });
-          } catch (consumeError) {
-            console.error('[인앱결제] 미소비 포인트 구매 소비 처리 실패:', consumeError);
-            // 하나 실패해도 계속 진행
-          }
-        }
+      console.log('[인앱결제] 미소비 포인트 구매 발견, 일괄 소비 처리 시작', { count: pointPurchases.length });
+
+      try {
+        // 한 번의 브리지 호출로 병렬 소비 처리
+        const result = await Billing.consumeAll({
+          purchaseTokens: pointPurchases.map(purchase => purchase.purchaseToken)
+        });
+        console.log('[인앱결제] 미소비 포인트 구매 소비 처리 완료', {
+          succeeded: result?.succeeded,
+          failed: result?.failed
+        });
+      } catch (consumeError) {
+        console.error('[인앱결제] 미소비 포인트 구매 소비 처리 실패:', consumeError);
       }
 
       console.log('[인앱결제] 미소비 포인트 구매 확인 및 소비 처리 완료');
@@ -795,6 +1037,7 @@ export const inAppPurchaseService = new InAppPurchaseService();
 export const initializeInAppPurchase = () => inAppPurchaseService.initialize();
 export const purchaseProduct = (productId) => inAppPurchaseService.purchaseProduct(productId);
 export const getProducts = (productIds) => inAppPurchaseService.getProducts(productIds);
+export const getProductsBatch = (products) => inAppPurchaseService.getProductsBatch(products);
 export const getSubscriptionStatus = (productId) => inAppPurchaseService.getSubscriptionStatus(productId);
 export const consumePurchase = (purchaseToken) => inAppPurchaseService.consumePurchase(purchaseToken);
 export const consumeUnconsumedPointPurchases = () => inAppPurchaseService.consumeUnconsumedPointPurchases();
@@ -0,0 +1,65 @@
+import { Capacitor } from '@capacitor/core';
+import { registerPlugin } from '@capacitor/core';
+
+const EMPTY_PAGE = { entries: [], nextBefore: 0, latestSeq: 0, hasMore: false };
+
+// NativeLog 플러그인 등록 (네이티브 플러그인 로그 링 버퍼 조회)
+const NativeLog = registerPlugin('NativeLog', {
+  // 웹에는 네이티브 로그가 없으므로 빈 결과 반환
+  web: () => ({
+    getLogs: async () => EMPTY_PAGE,
+    setLogLevel: async () => ({ bufferLevel: 'off' }),
+    clearLogs: async () => ({ success: true }),
+  }),
+});
+
+/**
+ * 네이티브 로그를 최신순으로 한 페이지 조회
+ * 다음(더 오래된) 페이지는 이전 결과의 nextBefore를 before로 넘긴다.
+ */
+export const getNativeLogs = async ({ before = 0, limit = 50, minLevel, tag } = {}) => {
+  if (Capacitor.getPlatform() === 'web') {
+    return EMPTY_PAGE;
+  }
+
+  try {
+    return await NativeLog.getLogs({ before, limit, minLevel, tag });
+  } catch (error) {
+    console.error('네이티브 로그 조회 실패:', error);
+    return EMPTY_PAGE;
+  }
+};
+
+/**
+ * 네이티브 로그 보관 레벨 변경 ('debug' | 'info' | 'warn' | 'error' | 'off')
+ */
+export const setNativeLogLevel = async (level) => {
+  if (Capacitor.getPlatform() === 'web') {
+    return null;
+  }
+
+  try {
+    return await NativeLog.setLogLevel({ level });
+  } catch (error) {
+    console.error('네이티브 로그 레벨 변경 실패:', error);
+    return null;
+  }
+};
+
+export const clearNativeLogs = async () => {
+  if (Capacitor.getPlatform() === 'web') {
+    return;
+  }
+
+  try {
+    await NativeLog.clearLogs();
+  } catch (error) {
+    console.error('네이티브 로그 삭제 실패:', error);
+  }
+};
+
+export default {
+  getNativeLogs,
+  setNativeLogLevel,
+  clearNativeLogs,
+};
@@ -1,8 +1,34 @@
 // 오프라인 캐시 관리 유틸리티
+// 앱(Android)에서는 네이티브 OfflineCache(메모리 + 디스크 LRU, 백그라운드 스레드)에 저장하고,
+// 웹에서는 기존처럼 localStorage에 저장한다. 모든 함수는 Promise를 반환한다.
+
+import { Capacitor, registerPlugin } from '@capacitor/core';
 
 const CACHE_PREFIX = 'storypotion_cache_';
 const CACHE_EXPIRY = 24 * 60 * 60 * 1000; // 24시간
 
+const OfflineCache = registerPlugin('OfflineCache');
+
+let legacyCacheDropped = false;
+
+const useNativeCache = () => {
+    if (Capacitor.getPlatform() === 'web') {
+        return false;
+    }
+    if (!legacyCacheDropped) {
+        // 예전 버전이 localStorage에 남긴 캐시는 옮기지 않고 지움 (캐시이므로 다시 채워짐)
+        legacyCacheDropped = true;
+        try {
+            Object.keys(localStorage)
+                .filter(key => key.startsWith(CACHE_PREFIX))
+                .forEach(key => localStorage.removeItem(key));
+        } catch (error) {
+            console.error('기존 캐시 삭제 실패:', error);
+        }
+    }
+    return true;
+};
+
 /**
  * 캐시 키 생성
  * @param {string} collection - 컬렉션 이름
@@ -18,13 +44,19 @@ export const generateCacheKey = (collection, userId, queryType) => {
  * 데이터를 캐시에 저장
  * @param {string} key - 캐시 키
  * @param {any} data - 저장할 데이터
+ * @param {number} ttl - 보관 시간(ms, 기본 24시간)
  */
-export const setCacheData = (key, data) => {
+export const setCacheData = async (key, data, ttl = CACHE_EXPIRY) => {
     try {
+        if (useNativeCache()) {
+            await OfflineCache.set({ key, value: data, ttl });
+            return;
+        }
+
         const cacheData = {
             data,
             timestamp: Date.now(),
-            expiry: Date.now() + CACHE_EXPIRY
+            expiry: Date.now() + ttl
         };
         localStorage.setItem(key, JSON.stringify(cacheData));
     } catch (error) {
@@ -35,10 +67,15 @@ export const setCacheData = (key, data) => {
 /**
  * 캐시에서 데이터 조회
  * @param {string} key - 캐시 키
- * @returns {any|null} 캐시된 데이터 또는 null
+ * @returns {Promise<any|null>} 캐시된 데이터 또는 null
  */
-export const getCacheData = (key) => {
+export const getCacheData = async (key) => {
     try {
+        if (useNativeCache()) {
+            const { value } = await OfflineCache.get({ key });
+            return value ?? null;
+        }
+
         const cached = localStorage.getItem(key);
         if (!cached) return null;
 
@@ -61,8 +98,12 @@ export const getCacheData = (key) => {
  * 캐시 삭제
  * @param {string} key - 캐시 키
  */
-export const removeCacheData = (key) => {
+export const removeCacheData = async (key) => {
     try {
+        if (useNativeCache()) {
+            await OfflineCache.remove({ key });
+            return;
+        }
         localStorage.removeItem(key);
     } catch (error) {
         console.error('캐시 삭제 실패:', error);
@@ -73,8 +114,13 @@ export const removeCacheData = (key) => {
  * 사용자 관련 모든 캐시 삭제
  * @param {string} userId - 사용자 ID
  */
-export const clearUserCache = (userId) => {
+export const clearUserCache = async (userId) => {
     try {
+        if (useNativeCache()) {
+            await OfflineCache.clear({ contains: userId });
+            return;
+        }
+
         const keys = Object.keys(localStorage);
         const userCacheKeys = keys.filter(key =>
             key.startsWith(CACHE_PREFIX) && key.includes(userId)
@@ -91,8 +137,13 @@ export const clearUserCache = (userId) => {
 /**
  * 모든 캐시 삭제
  */
-export const clearAllCache = () => {
+export const clearAllCache = async () => {
     try {
+        if (useNativeCache()) {
+            await OfflineCache.clear();
+            return;
+        }
+
         const keys = Object.keys(localStorage);
         const cacheKeys = keys.filter(key => key.startsWith(CACHE_PREFIX));
 
@@ -106,10 +157,20 @@ export const clearAllCache = () => {
 
 /**
  * 캐시 상태 확인
- * @returns {Object} 캐시 통계 정보
+ * @returns {Promise<Object>} 캐시 통계 정보 (앱에서는 메모리/디스크 사용량과 적중률 포함)
  */
-export const getCacheStats = () => {
+export const getCacheStats = async () => {
     try {
+        if (useNativeCache()) {
+            const stats = await OfflineCache.getStats();
+            return {
+                ...stats,
+                totalKeys: stats.diskEntries,
+                totalSize: stats.diskBytes,
+                expiredKeys: stats.expiredEntries
+            };
+        }
+
         const keys = Object.keys(localStorage);
         const cacheKeys = keys.filter(key => key.startsWith(CACHE_PREFIX));
 
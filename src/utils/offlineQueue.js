@@ -1,7 +1,20 @@
 // 오프라인 작업 큐 관리
+// 앱(Android)에서는 네이티브 OfflineJournal(파일 기반 append-only 로그)에 저장하고,
+// 웹에서는 기존처럼 localStorage에 저장한다.
+
+import { Capacitor, registerPlugin } from '@capacitor/core';
 
 const QUEUE_KEY = 'storypotion_offline_queue';
 const MAX_QUEUE_SIZE = 100;
+const JOURNAL_PAGE_SIZE = 200;
+
+const OfflineJournal = registerPlugin('OfflineJournal');
+
+const useJournal = () => Capacitor.getPlatform() !== 'web';
+
+// 재시도 횟수는 실행 중에만 기억 (seq -> 횟수)
+const retryCounts = new Map();
+let legacyMigration = null;
 
 /**
  * 작업 타입 정의
@@ -16,9 +29,30 @@ export const QUEUE_OPERATIONS = {
 };
 
 /**
- * 큐에서 작업 가져오기
+ * 예전 버전이 localStorage에 남긴 큐를 저널로 옮김 (앱 실행 중 한 번)
  */
-export const getOfflineQueue = () => {
+const migrateLegacyQueue = () => {
+    if (!legacyMigration) {
+        legacyMigration = (async () => {
+            const legacyQueue = readLocalQueue();
+            for (const item of legacyQueue) {
+                await OfflineJournal.append({
+                    entry: { operation: item.operation, timestamp: item.timestamp }
+                });
+            }
+            localStorage.removeItem(QUEUE_KEY);
+            if (legacyQueue.length > 0) {
+                console.log(`기존 오프라인 큐 ${legacyQueue.length}개를 저널로 옮겼습니다.`);
+            }
+        })().catch((error) => {
+            legacyMigration = null;
+            console.error('기존 오프라인 큐 이전 실패:', error);
+        });
+    }
+    return legacyMigration;
+};
+
+const readLocalQueue = () => {
     try {
         const queue = localStorage.getItem(QUEUE_KEY);
         return queue ? JSON.parse(queue) : [];
@@ -28,12 +62,75 @@ export const getOfflineQueue = () => {
     }
 };
 
+const toQueueItem = ({ seq, timestamp, entry }) => ({
+    id: seq,
+    operation: entry.operation,
+    timestamp: entry.timestamp || timestamp,
+    retryCount: retryCounts.get(seq) || 0
+});
+
 /**
- * 큐에 작업 추가
+ * 저널에서 cursor 이후 항목을 한 페이지 읽음
  */
-export const addToOfflineQueue = (operation) => {
+const readJournalPage = async (cursor) => {
+    const page = await OfflineJournal.read({ after: cursor, limit: JOURNAL_PAGE_SIZE });
+    return {
+        items: page.entries.map(toQueueItem),
+        nextCursor: page.nextCursor,
+        hasMore: page.hasMore
+    };
+};
+
+/**
+ * 큐에서 작업 가져오기
+ */
+export const getOfflineQueue = async () => {
+    if (!useJournal()) {
+        return readLocalQueue();
+    }
+
     try {
-        const queue = getOfflineQueue();
+        await migrateLegacyQueue();
+        const queue = [];
+        let cursor = 0;
+        let hasMore = true;
+        while (hasMore) {
+            const page = await readJournalPage(cursor);
+            queue.push(...page.items);
+            cursor = page.nextCursor;
+            hasMore = page.hasMore;
+        }
+        return queue;
+    } catch (error) {
+        console.error('오프라인 큐 조회 실패:', error);
+        return [];
+    }
+};
+
+/**
+ * 큐에 작업 추가 (앱에서는 개수 제한 없이 파일 끝에 추가만 하므로 오래된 작업이 버려지지 않음)
+ */
+export const addToOfflineQueue = async (operation) => {
+    if (!useJournal()) {
+        return addToLocalQueue(operation);
+    }
+
+    try {
+        await migrateLegacyQueue();
+        const { seq } = await OfflineJournal.append({
+            entry: { operation, timestamp: Date.now() }
+        });
+        console.log('오프라인 큐에 작업 추가됨:', seq);
+        return seq;
+    } catch (error) {
+        console.error('오프라인 큐에 작업 추가 실패:', error);
+        return null;
+    }
+};
+
+const addToLocalQueue = (operation) => {
+    try {
+        const queue = readLocalQueue();
 
         // 큐 크기 제한 확인
         if (queue.length >= MAX_QUEUE_SIZE) {
@@ -60,15 +157,22 @@ export const addToOfflineQueue = (operation) => {
 };
 
 /**
- * 큐에서 작업 제거
+ * 큐에서 작업 제거 (ids: 하나 또는 배열)
  */
-export const removeFromOfflineQueue = (id) => {
+export const removeFromOfflineQueue = async (ids) => {
+    const idList = Array.isArray(ids) ? ids : [ids];
+    if (idList.length === 0) return;
+
     try {
-        const queue = getOfflineQueue();
-        const filteredQueue = queue.filter(item => item.id !== id);
-        localStorage.setItem(QUEUE_KEY, JSON.stringify(filteredQueue));
+        if (useJournal()) {
+            await OfflineJournal.acknowledge({ seqs: idList });
+            idList.forEach((id) => retryCounts.delete(id));
+        } else {
+            const filteredQueue = readLocalQueue().filter(item => !idList.includes(item.id));
+            localStorage.setItem(QUEUE_KEY, JSON.stringify(filteredQueue));
+        }
 
-        console.log('오프라인 큐에서 작업 제거됨:', id);
+        console.log('오프라인 큐에서 작업 제거됨:', idList);
     } catch (error) {
         console.error('오프라인 큐에서 작업 제거 실패:', error);
     }
@@ -77,9 +181,15 @@ export const removeFromOfflineQueue = (id) => {
 /**
  * 큐 비우기
  */
-export const clearOfflineQueue = () => {
+export const clearOfflineQueue = async () => {
     try {
-        localStorage.removeItem(QUEUE_KEY);
+        if (useJournal()) {
+            await migrateLegacyQueue();
+            await OfflineJournal.clear();
+            retryCounts.clear();
+        } else {
+            localStorage.removeItem(QUEUE_KEY);
+        }
         console.log('오프라인 큐가 비워졌습니다.');
     } catch (error) {
         console.error('오프라인 큐 비우기 실패:', error);
@@ -89,40 +199,88 @@ export const clearOfflineQueue = () => {
 /**
  * 큐 상태 확인
  */
-export const getQueueStats = () => {
-    const queue = getOfflineQueue();
-    return {
-        totalItems: queue.length,
-        oldestItem: queue.length > 0 ? new Date(queue[0].timestamp) : null,
-        newestItem: queue.length > 0 ? new Date(queue[queue.length - 1].timestamp) : null
-    };
+export const getQueueStats = async () => {
+    if (!useJournal()) {
+        const queue = readLocalQueue();
+        return {
+            totalItems: queue.length,
+            oldestItem: queue.length > 0 ? new Date(queue[0].timestamp) : null,
+            newestItem: queue.length > 0 ? new Date(queue[queue.length - 1].timestamp) : null
+        };
+    }
+
+    try {
+        await migrateLegacyQueue();
+        const stats = await OfflineJournal.getStats();
+        return {
+            totalItems: stats.count,
+            oldestItem: stats.count > 0 ? new Date(stats.oldestTimestamp) : null,
+            newestItem: stats.count > 0 ? new Date(stats.newestTimestamp) : null
+        };
+    } catch (error) {
+        console.error('오프라인 큐 상태 조회 실패:', error);
+        return { totalItems: 0, oldestItem: null, newestItem: null };
+    }
 };
 
 /**
  * 네트워크 상태 모니터링 및 큐 처리
  */
 export const setupOfflineQueueProcessor = (processFunction) => {
-    const processQueue = async () => {
-        const queue = getOfflineQueue();
-        if (queue.length === 0) return;
+    let processing = false;
 
-        console.log(`오프라인 큐 처리 시작: ${queue.length}개 작업`);
-
-        for (const item of queue) {
+    // 한 페이지의 작업을 순서대로 처리하고, 끝난 작업(성공 또는 재시도 초과)의 id 반환
+    const processItems = async (items) => {
+        const doneIds = [];
+        for (const item of items) {
             try {
                 await processFunction(item);
-                removeFromOfflineQueue(item.id);
+                doneIds.push(item.id);
                 console.log(`작업 처리 완료: ${item.id}`);
             } catch (error) {
                 console.error(`작업 처리 실패: ${item.id}`, error);
                 item.retryCount++;
+                retryCounts.set(item.id, item.retryCount);
 
                 // 재시도 횟수 제한 (3회)
                 if (item.retryCount >= 3) {
                     console.error(`작업 최대 재시도 횟수 초과: ${item.id}`);
-                    removeFromOfflineQueue(item.id);
+                    doneIds.push(item.id);
+                }
+            }
+        }
+        return doneIds;
+    };
+
+    const processQueue = async () => {
+        if (processing) return;
+        processing = true;
+        try {
+            if (!useJournal()) {
+                const queue = readLocalQueue();
+                if (queue.length === 0) return;
+                console.log(`오프라인 큐 처리 시작: ${queue.length}개 작업`);
+                await removeFromOfflineQueue(await processItems(queue));
+                return;
+            }
+
+            // 저널은 cursor로 한 페이지씩 읽고, 페이지마다 완료된 작업을 한 번에 제거
+            await migrateLegacyQueue();
+            let cursor = 0;
+            let hasMore = true;
+            while (hasMore) {
+                const page = await readJournalPage(cursor);
+                if (cursor === 0 && page.items.length > 0) {
+                    console.log('오프라인 큐 처리 시작');
                 }
+                await removeFromOfflineQueue(await processItems(page.items));
+                cursor = page.nextCursor;
+                hasMore = page.hasMore;
             }
+        } catch (error) {
+            console.error('오프라인 큐 처리 실패:', error);
+        } finally {
+            processing = false;
         }
     };
 
@@ -8,9 +8,59 @@ const Permissions = registerPlugin('Permissions', {
   web: () => ({
     checkPhotoPermission: async () => ({ granted: true }),
     requestPhotoPermission: async () => ({ granted: true }),
+    checkPermissions: async ({ permissions }) => allGranted(permissions),
+    requestPermissions: async ({ permissions }) => allGranted(permissions),
   }),
 });
 
+// 웹/실패 시 반환할 결과 ({ permissions: { 이름: 상태 }, granted })
+function permissionResult(names, state) {
+  const permissions = {};
+  names.forEach((name) => {
+    permissions[name] = state;
+  });
+  return { permissions, granted: state === 'granted' };
+}
+
+function allGranted(names) {
+  return permissionResult(names, 'granted');
+}
+
+/**
+ * 여러 권한을 한 번에 확인 (네이티브 호출 1회, 결과는 앱이 다시 활성화될 때까지 캐시)
+ * names: 'photos', 'notifications'
+ * 반환: { permissions: { photos: 'granted' | 'denied' | 'prompt', ... }, granted: 모두 허용 여부 }
+ */
+export const checkPermissions = async (names) => {
+  if (Capacitor.getPlatform() === 'web') {
+    return allGranted(names);
+  }
+
+  try {
+    return await Permissions.checkPermissions({ permissions: names });
+  } catch (error) {
+    console.error('권한 확인 실패:', error);
+    return permissionResult(names, 'prompt');
+  }
+};
+
+/**
+ * 여러 권한을 한 번에 요청 (이미 허용된 권한은 건너뛰고 나머지를 다이얼로그 한 번으로 요청)
+ * 반환 형식은 checkPermissions와 같음
+ */
+export const requestPermissions = async (names) => {
+  if (Capacitor.getPlatform() === 'web') {
+    return allGranted(names);
+  }
+
+  try {
+    return await Permissions.requestPermissions({ permissions: names });
+  } catch (error) {
+    console.error('권한 요청 실패:', error);
+    return permissionResult(names, 'prompt');
+  }
+};
+
 /**
  * 사진 액세스 권한 확인
  */
@@ -50,5 +100,7 @@ export const requestPhotoPermission = async () => {
 export default {
   checkPhotoPermission,
   requestPhotoPermission,
+  checkPermissions,
+  requestPermissions,
 };
 
@@ -2,6 +2,11 @@
  * 프로필 이미지 URL 처리 유틸리티
  */
 
+import { Capacitor, registerPlugin } from '@capacitor/core';
+
+// 네이티브 이미지 선택/축소 플러그인 (Android)
+const ImageProcessor = registerPlugin('ImageProcessor');
+
 /**
  * 카카오 프로필 이미지 URL을 HTTPS로 변환
  * @param {string} photoURL - 원본 카카오 프로필 이미지 URL
@@ -119,4 +124,54 @@ export const getGoogleProfileImageWithSize = (photoURL, size = 400) => {
   }
 
   return photoURL;
-}; 
\ No newline at end of file
+};
+
+/**
+ * 네이티브 이미지 선택/축소를 쓸 수 있는지 (Android 앱)
+ * @returns {boolean}
+ */
+export const isNativeImagePickerAvailable = () => Capacitor.getPlatform() === 'android';
+
+/**
+ * 네이티브 사진 선택 창에서 이미지를 고르고, 네이티브에서 축소/압축한 결과를 반환
+ * 원본 사진은 WebView로 넘어오지 않고 축소된 캐시 파일만 읽어서 File로 만든다.
+ * @param {Object} options
+ * @param {number} options.limit - 최대 선택 개수 (기본값: 1)
+ * @param {number} options.maxWidthOrHeight - 긴 변 최대 크기 (기본값: 1024)
+ * @param {number} options.quality - JPEG 품질 0~1 (기본값: 0.8)
+ * @returns {Promise<Array<{file: File, previewUrl: string, width: number, height: number}>>} 취소하면 빈 배열
+ */
+export const pickImagesNative = async ({ limit = 1, maxWidthOrHeight = 1024, quality = 0.8 } = {}) => {
+  const { images = [] } = await ImageProcessor.pickImages({ limit, maxWidthOrHeight, quality, format: 'jpeg' });
+
+  return Promise.all(images.map(async (image) => {
+    // 캐시 파일을 WebView에서 읽을 수 있는 URL로 바꿔서 읽음
+    const response = await fetch(Capacitor.convertFileSrc(image.path));
+    const blob = await response.blob();
+    const fileName = image.path.split('/').pop();
+    const file = new File([blob], fileName, { type: image.mimeType });
+    return {
+      file,
+      // 미리보기는 웹 파일 선택과 같은 blob: URL로 만든다.
+      // 화면(WriteDiary 등)이 blob: 여부로 새로 첨부한 이미지를 구분하고, 캐시 파일은 24시간 뒤 지워지기 때문
+      previewUrl: URL.createObjectURL(file),
+      width: image.width,
+      height: image.height,
+    };
+  }));
+};
+
+/**
+ * 웹에서 이미지 파일 압축 (네이티브 축소를 쓸 수 없을 때)
+ * @param {File} file - 원본 이미지 파일
+ * @param {Object} options - maxSizeMB(기본값: 1), maxWidthOrHeight(기본값: 1024)
+ * @returns {Promise<File>} 압축된 이미지 파일
+ */
+export const compressImageFile = async (file, { maxSizeMB = 1, maxWidthOrHeight = 1024 } = {}) => {
+  const { default: imageCompression } = await import('browser-image-compression');
+  return imageCompression(file, {
+    maxSizeMB,
+    maxWidthOrHeight,
+    useWebWorker: true,
+  });
+};
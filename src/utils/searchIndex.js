@@ -0,0 +1,139 @@
+// 일기/소설 검색 인덱스
+// 앱(Android)에서는 네이티브 SearchIndex(기기 안 역색인, 오프라인 동작, Firestore 읽기 없음)에 색인하고 검색한다.
+// 웹에서는 네이티브 인덱스가 없으므로 색인 함수는 아무것도 하지 않고 searchDocuments는 null을 반환한다.
+
+import { Capacitor, registerPlugin } from '@capacitor/core';
+
+const OWNER_KEY = 'storypotion_search_index_owner';
+
+const SearchIndex = registerPlugin('SearchIndex');
+
+const useNativeIndex = () => Capacitor.getPlatform() !== 'web';
+
+export const SEARCH_TYPES = {
+    DIARY: 'diary',
+    NOVEL: 'novel'
+};
+
+// 'YYYY-MM-DD' 문자열, Date, Firestore Timestamp를 ms로
+const toMillis = (value) => {
+    if (!value) return 0;
+    if (typeof value === 'number') return value;
+    if (typeof value.toMillis === 'function') return value.toMillis();
+    if (value instanceof Date) return value.getTime();
+    if (typeof value.seconds === 'number') return value.seconds * 1000;
+    const parsed = Date.parse(value);
+    return Number.isNaN(parsed) ? 0 : parsed;
+};
+
+/**
+ * 인덱스 주인이 바뀌었으면(다른 계정으로 로그인) 기존 인덱스를 비움
+ * @param {string} userId - 현재 사용자 ID
+ */
+const ensureOwner = async (userId) => {
+    if (!userId) return;
+    if (localStorage.getItem(OWNER_KEY) === userId) return;
+    await SearchIndex.clear();
+    localStorage.setItem(OWNER_KEY, userId);
+};
+
+const indexDocuments = async (userId, documents) => {
+    if (!useNativeIndex() || documents.length === 0) return;
+    try {
+        await ensureOwner(userId);
+        await SearchIndex.index({ documents });
+    } catch (error) {
+        console.error('검색 인덱스 색인 실패:', error);
+    }
+};
+
+/**
+ * 일기 색인 (내용이 같은 일기는 네이티브에서 건너뛰므로 목록을 불러올 때마다 넘겨도 된다)
+ * @param {string} userId - 사용자 ID
+ * @param {Array} diaries - { id, title, content, date } 목록
+ */
+export const indexDiaries = (userId, diaries) => indexDocuments(userId, diaries
+    .filter(diary => diary && diary.id)
+    .map(diary => ({
+        id: diary.id,
+        type: SEARCH_TYPES.DIARY,
+        title: diary.title || '',
+        text: diary.content || '',
+        date: toMillis(diary.date)
+    })));
+
+/**
+ * 소설 색인 (삭제 표시된 소설은 인덱스에서 뺀다)
+ * @param {string} userId - 사용자 ID
+ * @param {Array} novels - { id, title, content, createdAt, deleted } 목록
+ */
+export const indexNovels = async (userId, novels) => {
+    const valid = novels.filter(novel => novel && novel.id);
+    const deletedIds = valid.filter(novel => novel.deleted === true).map(novel => novel.id);
+    await indexDocuments(userId, valid
+        .filter(novel => novel.deleted !== true)
+        .map(novel => ({
+            id: novel.id,
+            type: SEARCH_TYPES.NOVEL,
+            title: novel.title || '',
+            text: novel.content || '',
+            date: toMillis(novel.createdAt)
+        })));
+    if (deletedIds.length > 0) {
+        await removeFromSearchIndex(deletedIds);
+    }
+};
+
+/**
+ * 인덱스에서 문서 삭제
+ * @param {string|Array<string>} ids - 일기/소설 ID
+ */
+export const removeFromSearchIndex = async (ids) => {
+    if (!useNativeIndex()) return;
+    try {
+        await SearchIndex.remove({ ids: Array.isArray(ids) ? ids : [ids] });
+    } catch (error) {
+        console.error('검색 인덱스 삭제 실패:', error);
+    }
+};
+
+/**
+ * 일기/소설 검색 (공백으로 나눈 단어는 모두 포함, "..."는 구, 단어 끝 *는 접두어)
+ * @param {string} query - 검색어
+ * @param {Object} options - { type: 'diary' | 'novel', limit, cursor }
+ * @returns {Promise<{results: Array, total: number, nextCursor: string|null, tookMs: number}|null>}
+ *          네이티브 인덱스를 쓸 수 없으면 null (호출한 쪽에서 기존 방식으로 검색)
+ */
+export const searchDocuments = async (query, { type, limit, cursor } = {}) => {
+    if (!useNativeIndex()) return null;
+    try {
+        return await SearchIndex.search({ query, type, limit, cursor });
+    } catch (error) {
+        console.error('검색 실패:', error);
+        return null;
+    }
+};
+
+/**
+ * 로그아웃 시 인덱스 비우기 (App.js의 onAuthStateChanged에서 호출)
+ * 색인한 적이 없으면(소유자 기록 없음) 네이티브 호출 없이 끝남
+ */
+export const clearSearchIndex = async () => {
+    if (!useNativeIndex() || localStorage.getItem(OWNER_KEY) === null) return;
+    try {
+        await SearchIndex.clear();
+        localStorage.removeItem(OWNER_KEY);
+    } catch (error) {
+        console.error('검색 인덱스 비우기 실패:', error);
+    }
+};
+
+export const getSearchIndexStats = async () => {
+    if (!useNativeIndex()) return null;
+    try {
+        return await SearchIndex.getStats();
+    } catch (error) {
+        console.error('검색 인덱스 통계 조회 실패:', error);
+        return null;
+    }
+};